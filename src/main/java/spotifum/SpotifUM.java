@@ -2,12 +2,25 @@ package spotifum;
 
 import spotifum.exceptions.*;
 import spotifum.musics.*;
+import spotifum.persistence.BinarySnapshot;
+import spotifum.persistence.CatalogImporter;
+import spotifum.persistence.ImportReport;
+import spotifum.persistence.JournalEntry;
+import spotifum.persistence.MutationJournal;
+import spotifum.persistence.SnapshotFormat;
+import spotifum.persistence.SnapshotScheduler;
 import spotifum.playlists.*;
 import spotifum.statistics.StatisticsManager;
 import spotifum.users.*;
+import spotifum.utils.Page;
+import spotifum.utils.ResultCache;
+import spotifum.utils.StringPool;
+import spotifum.utils.TopK;
 
 import java.time.LocalDate;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.io.*;
 
 import spotifum.menu.*;
@@ -20,6 +33,40 @@ import static spotifum.utils.DisplayInformation.*;
  * The type Spotif um.
  */
 public class SpotifUM implements Serializable {
+    /**
+     * The serial version of the states saved before the journal, kept so they still load.
+     */
+    private static final long serialVersionUID = 8561520980149742533L;
+
+    /**
+     * Number of journal entries after which a save writes a fresh checkpoint instead of committing the journal.
+     */
+    private static final int JOURNAL_COMPACTION_THRESHOLD = 1024;
+    /**
+     * How long loading and exiting wait for background saves.
+     */
+    private static final long SAVE_TIMEOUT_MS = 60_000;
+    /**
+     * How many completions the search prompts suggest.
+     */
+    private static final int COMPLETIONS = 5;
+    /**
+     * How many tracks a lyrics search shows.
+     */
+    private static final int LYRICS_MATCHES = 10;
+    /**
+     * How many similar names a search shows when nothing matches exactly.
+     */
+    private static final int FUZZY_MATCHES = 10;
+    /**
+     * How many tracks a catalog filter lists.
+     */
+    private static final int FILTER_MATCHES = 20;
+    /**
+     * How many results the listings and searches show per page.
+     */
+    private static final int PAGE_SIZE = 20;
+
     private UserManager usermanager;
     private ArtistManager artistmanager;
     private StatisticsManager statisticsManager;
@@ -28,18 +75,48 @@ public class SpotifUM implements Serializable {
     private Music previousPlayingMusic;
     private LocalDate date;
     private List<RandomPlaylist> randomPlaylists;
+    private long checkpointGeneration;
+    private transient MutationJournal journal;
+    private transient SnapshotFormat checkpointFormat;
+    private transient boolean randomPlaylistsPending;
+    private transient volatile boolean captureRequired;
+    private transient SnapshotScheduler scheduler;
+    private transient String sourceFile;
+    private transient SnapshotFormat sourceFormat;
+    private transient long sourceGeneration;
+    private transient List<MutationJournal> chain;
 
     /**
      * Instantiates a new Spotif um.
+     * The empty state starts a scratch journal, so the first save can rebuild the state
+     * in the background from nothing and that journal, like any later checkpoint.
      *
      * @param spotifumView the spotifum view
      */
     public SpotifUM(SpotifUMView spotifumView) {
+        this();
+        this.view = spotifumView;
+        this.checkpointGeneration = newGeneration();
+        this.sourceGeneration = this.checkpointGeneration;
+        try {
+            File scratch = File.createTempFile("spotifum", MutationJournal.SUFFIX);
+            scratch.deleteOnExit();
+            this.journal = MutationJournal.create(scratch.getPath(), this.checkpointGeneration);
+            this.chain = new ArrayList<>(List.of(this.journal));
+        } catch (IOException e) {
+            System.out.println("[app-log] journal error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Instantiates an empty Spotif um, without a view or a journal, to rebuild checkpoints on.
+     */
+    private SpotifUM() {
         this.usermanager = new UserManager();
         this.artistmanager = new ArtistManager();
         this.statisticsManager = new StatisticsManager(usermanager, artistmanager);
         this.randomPlaylists = new  ArrayList<>();
-        this.view = spotifumView;
+        this.view = null;
         this.currentPlayingMusic = null;
         this.previousPlayingMusic= null;
         this.date = LocalDate.now();
@@ -100,6 +177,7 @@ public class SpotifUM implements Serializable {
     public void createUser(String email, String username){
         User user = this.usermanager.createUser(email, username);
         this.usermanager.insertUser(user);
+        journal(JournalEntry.userPut(user));
     }
 
     /**
@@ -112,6 +190,7 @@ public class SpotifUM implements Serializable {
         User u = getUser(email);
         this.statisticsManager.removeUser(u);
         this.usermanager.removeUser(email);
+        journal(JournalEntry.userRemove(email));
     }
 
     /**
@@ -125,60 +204,196 @@ public class SpotifUM implements Serializable {
         this.artistmanager.removeArtist(email);
         Map<UUID, Music> tracks = artist.getTracks();
         this.usermanager.removeTracksFromPlaylists(tracks);
+        journal(JournalEntry.artistRemove(email));
     }
 
     /**
-     * Search musics map.
+     * Search musics map. When no name contains the query, the musics with a similar
+     * name are returned instead.
      *
      * @param musicName the music name
      * @return the map
      */
     public Map<UUID, Music> searchMusics(String musicName){
-        return this.artistmanager.searchMusics(musicName);
+        Map<UUID, Music> musics = this.artistmanager.searchMusics(musicName);
+        if (!musics.isEmpty()) return musics;
+        musics = this.artistmanager.searchMusicsFuzzy(musicName, FUZZY_MATCHES, this.statisticsManager::getPlayCounts);
+        if (!musics.isEmpty()) System.out.println("[app-log] no exact match, showing similar names");
+        return musics;
     }
 
     /**
-     * Delete music.
+     * Search albuns map. When no name contains the query, the albums with a similar
+     * name are returned instead.
      *
-     * @param musicName the music name
-     * @param musics    the musics
+     * @param albumName the album name
+     * @return the map
      */
-    public void deleteMusic(String musicName, Map<UUID, Music> musics){
-        do{
-            int n = displaySearchResults(musicName, musics);
-            if (n==0) return;
+    private Map<UUID, Album> searchAlbuns(String albumName){
+        Map<UUID, Album> albums = this.artistmanager.searchAlbuns(albumName);
+        if (!albums.isEmpty()) return albums;
+        albums = this.artistmanager.searchAlbunsFuzzy(albumName, FUZZY_MATCHES, this.statisticsManager::getPlayCounts);
+        if (!albums.isEmpty()) System.out.println("[app-log] no exact match, showing similar names");
+        return albums;
+    }
 
-            System.out.print("➤ remove music id [\"q\" to leave]: ");
-            String input = new Scanner(System.in).nextLine();
-            if (input.equalsIgnoreCase("q")) break;
-            try {
-                UUID selectedId = UUID.fromString(input);
-                Music selectedMusic = musics.get(selectedId);
-
-                if (selectedMusic != null) {
-                    this.artistmanager.deleteMusic(selectedMusic);
-                    this.usermanager.deleteMusicFromPlaylists(selectedMusic);
-                    System.out.println("[app-log] music successfully removed!");
-                    break;
-                }
-            } catch (IllegalArgumentException e) {
-                displayExceptions("invalid music id!");
-            }
-        } while(true);
+    /**
+     * Finds the tracks, albums and artists whose name is close to a query, allowing a
+     * few typos in every word.
+     *
+     * @param query the query
+     * @param limit the number of names wanted
+     * @return the names, closest and most played first
+     */
+    public List<Completion> searchFuzzy(String query, int limit) {
+        return this.artistmanager.searchFuzzy(query, limit, this.statisticsManager::getPlayCounts);
+    }
+
+    /**
+     * Completes a prefix with the names of the most played tracks, albums and artists.
+     *
+     * @param prefix the prefix
+     * @param limit  the number of completions wanted
+     * @return the completions, most played first
+     */
+    public List<Completion> autocomplete(String prefix, int limit) {
+        return this.artistmanager.complete(prefix, limit, this.statisticsManager::getPlayCounts);
+    }
+
+    /**
+     * Finds the tracks that pass a filter, counting their genres, labels, durations and
+     * explicit and multimedia tracks.
+     *
+     * @param filter the filter
+     * @return the result
+     */
+    public FacetResult filterMusics(MusicFilter filter) {
+        return this.artistmanager.filterMusics(filter);
+    }
+
+    /**
+     * Finds the tracks whose lyrics best match a query.
+     *
+     * @param query the query, with phrases in double quotes
+     * @param limit the number of tracks wanted
+     * @return the matches, best first
+     */
+    public List<LyricsMatch> searchLyrics(String query, int limit) {
+        return this.artistmanager.searchLyrics(query, limit);
+    }
+
+    /**
+     * Reads a name to search for. A name ending in "?" shows the completions of what
+     * comes before it and asks again.
+     *
+     * @param prompt the prompt
+     * @return the name
+     */
+    public String readSearchName(String prompt) {
+        Scanner scanner = new Scanner(System.in);
+        while (true) {
+            System.out.print("➤ " + prompt + " [end with \"?\" for suggestions]: ");
+            String input = scanner.nextLine();
+            if (!input.trim().endsWith("?")) return input;
+            String prefix = input.trim().substring(0, input.trim().length() - 1);
+            displayCompletions(prefix, autocomplete(prefix, COMPLETIONS));
+        }
+    }
+
+    /**
+     * Delete music, paging through the tracks whose name contains a text.
+     *
+     * @param musicName the music name
+     */
+    public void deleteMusic(String musicName){
+        Music selectedMusic = pickMusic(musicName, "remove");
+        if (selectedMusic == null) return;
+        this.artistmanager.deleteMusic(selectedMusic);
+        this.usermanager.deleteMusicFromPlaylists(selectedMusic);
+        journal(JournalEntry.musicDelete(selectedMusic));
+        System.out.println("[app-log] music successfully removed!");
     }
 
     /**
      * Get all users.
      */
     public void getAllUsers(){
-        this.usermanager.getAllUsers();
+        String token = null;
+        do {
+            Page<User> page = this.usermanager.pageUsers(token, PAGE_SIZE);
+            displayAllUsers(page.getItems());
+            token = page.getNext();
+        } while (token != null && readNextPage());
     }
 
     /**
      * Get all artists.
      */
     public void getAllArtists(){
-        this.artistmanager.getAllArtists();
+        String token = null;
+        do {
+            Page<Artist> page = this.artistmanager.pageArtists(token, PAGE_SIZE);
+            displayAllArtists(page.getItems());
+            token = page.getNext();
+        } while (token != null && readNextPage());
+    }
+
+    /**
+     * Gets a page of the tracks whose name contains a text, in a stable order.
+     *
+     * @param musicName the music name
+     * @param token     the token of the page, null for the first one
+     * @param size      the page size
+     * @return the page
+     */
+    public Page<Music> pageMusics(String musicName, String token, int size) {
+        return this.artistmanager.pageMusics(musicName, token, size);
+    }
+
+    /**
+     * Asks whether to show the next page.
+     *
+     * @return true if the next page was asked for
+     */
+    private boolean readNextPage() {
+        System.out.print("➤ next page [enter, \"q\" to leave]: ");
+        return !new Scanner(System.in).nextLine().trim().equalsIgnoreCase("q");
+    }
+
+    /**
+     * Pages through the tracks whose name contains a text until one is picked. When no
+     * name contains it, the tracks with a similar name are shown instead.
+     *
+     * @param musicName the music name
+     * @param action    what the picked track is for, shown in the prompt
+     * @return the catalog instance of the music picked, or null if none was
+     */
+    private Music pickMusic(String musicName, String action) {
+        Scanner scanner = new Scanner(System.in);
+        Page<Music> page = this.artistmanager.pageMusics(musicName, null, PAGE_SIZE);
+        Map<UUID, Music> musics = new LinkedHashMap<>();
+        for (Music music : page.getItems()) musics.put(music.getMid(), music);
+        if (musics.isEmpty()) musics = searchMusics(musicName);
+
+        while (true) {
+            if (displaySearchResults(musicName, musics) == 0) return null;
+            System.out.print("➤ " + action + " music id [" + (page.hasNext() ? "\"n\" next page, " : "") + "\"q\" to leave]: ");
+            String input = scanner.nextLine().trim();
+            if (input.equalsIgnoreCase("q")) return null;
+            if (input.equalsIgnoreCase("n") && page.hasNext()) {
+                page = this.artistmanager.pageMusics(musicName, page.getNext(), PAGE_SIZE);
+                musics = new LinkedHashMap<>();
+                for (Music music : page.getItems()) musics.put(music.getMid(), music);
+                continue;
+            }
+            try {
+                Music selectedMusic = musics.get(UUID.fromString(input));
+                if (selectedMusic != null) return selectedMusic;
+                displayExceptions("music not found!");
+            } catch (IllegalArgumentException e) {
+                displayExceptions("invalid music id!");
+            }
+        }
     }
 
     /**
@@ -190,6 +405,7 @@ public class SpotifUM implements Serializable {
     public void createArtist(String email, String username){
         Artist artist = this.artistmanager.createArtist(email, username);
         this.artistmanager.insertArtist(artist);
+        journal(JournalEntry.artistPut(artist));
     }
 
     /**
@@ -202,6 +418,7 @@ public class SpotifUM implements Serializable {
         Artist artist = getArtist(email);
         artist.setEmail(newEmail);
         this.artistmanager.updateArtistEmail(artist, newEmail, email);
+        journal(JournalEntry.artistEmail(email, artist));
         System.out.println(artist.toString());
     }
 
@@ -214,7 +431,7 @@ public class SpotifUM implements Serializable {
     public void updateUsernameArtist(String username, String email){
         Artist artist = getArtist(email);
         artist.setUsername(username);
-        this.artistmanager.updateArtist(artist);
+        commitArtist(artist);
         System.out.println(artist.toString());
     }
 
@@ -228,6 +445,7 @@ public class SpotifUM implements Serializable {
         User user = getUser(email);
         user.setEmail(newEmail);
         this.usermanager.updateUserEmail(user, newEmail, email);
+        journal(JournalEntry.userEmail(email, user));
         System.out.println(user.toString());
     }
 
@@ -240,7 +458,7 @@ public class SpotifUM implements Serializable {
     public void updateUsername(String username, String email){
         User u = getUser(email);
         u.setUsername(username);
-        this.usermanager.updateUser(u);
+        commitUser(u);
         System.out.println(u.toString());
     }
 
@@ -253,7 +471,7 @@ public class SpotifUM implements Serializable {
     public void updateAddress(String address, String email){
         User u = getUser(email);
         u.setAddress(address);
-        this.usermanager.updateUser(u);
+        commitUser(u);
         System.out.println(u.toString());
     }
 
@@ -266,7 +484,7 @@ public class SpotifUM implements Serializable {
     public void setUserPlan(String email, SubscriptionPlans plan){
         User user = getUser(email);
         user.setUserPlan(plan);
-        this.usermanager.updateUser(user);
+        commitUser(user);
     }
 
     /**
@@ -294,7 +512,7 @@ public class SpotifUM implements Serializable {
         }
 
         if (upgradedUser != null) {
-            this.usermanager.updateUser(upgradedUser);
+            commitUser(upgradedUser);
             System.out.println("["+user.getUsername()+"] successfully upgraded plan to "+plan.toString()+"!");
             System.out.println(upgradedUser.toString());
         } else {
@@ -331,6 +549,7 @@ public class SpotifUM implements Serializable {
         playlist.setOwner(user.getUsername());
         if (user instanceof PremiumBaseUser) {
             user.createPlaylist(playlist);
+            commitUser(user);
         }
         System.out.println(playlist.toString());
         Menu playlistMenu = createPlaylistMenu(user, playlist);
@@ -373,7 +592,7 @@ public class SpotifUM implements Serializable {
         String playlistName = scanner.nextLine();
         playlist.setName(playlistName);
         user.updatePlaylist(playlist);
-        this.usermanager.updateUser(user);
+        commitUser(user);
     }
 
     /**
@@ -383,10 +602,9 @@ public class SpotifUM implements Serializable {
      * @param playlist the target playlist
      */
     private void addAlbumToPlaylist(User user, Playlist playlist) {
-        System.out.print("➤ album name: ");
         Scanner scanner = new Scanner(System.in);
-        String albumName = scanner.nextLine();
-        Map<UUID, Album> albums = this.artistmanager.searchAlbuns(albumName);
+        String albumName = readSearchName("album name");
+        Map<UUID, Album> albums = searchAlbuns(albumName);
         int n = displayAlbums(albums, albumName);
         if (n==0) return;
         System.out.print("➤ add album id [\"q\" to leave]: ");
@@ -403,7 +621,7 @@ public class SpotifUM implements Serializable {
             displayExceptions("invalid album id!");
         }
         user.updatePlaylist(playlist);
-        this.usermanager.updateUser(user);
+        commitUser(user);
         System.out.println(playlist.toString());
     }
 
@@ -414,30 +632,17 @@ public class SpotifUM implements Serializable {
      * @param playlist the target playlist
      */
     private void addMusicToPlaylist(User user, Playlist playlist) {
-        System.out.print("➤ music name: ");
-        String musicName = new Scanner(System.in).nextLine();
-
-        Map<UUID, Music> musics = this.artistmanager.searchMusics(musicName);
+        String musicName = readSearchName("music name");
 
-        int n = displaySearchResults(musicName, musics);
-        if (n==0) return;
-
-        System.out.print("➤ add music id [\"q\" to leave]: ");
-        String input = new Scanner(System.in).nextLine();
-        if (input.equalsIgnoreCase("q")) return;
-        try {
-            UUID selectedId = UUID.fromString(input);
-            Music selectedMusic = musics.get(selectedId);
+        Music selectedMusic = pickMusic(musicName, "add");
+        if (selectedMusic == null) return;
 
-            if (selectedMusic != null && playlist instanceof PremiumPlaylist) {
-                playlist.addMusic(selectedMusic);
-                System.out.println("[app-log] music successfully added!");
-            }
-        } catch (IllegalArgumentException e) {
-            displayExceptions("invalid music id!");
+        if (playlist instanceof PremiumPlaylist) {
+            playlist.addMusic(selectedMusic);
+            System.out.println("[app-log] music successfully added!");
         }
         user.updatePlaylist(playlist);
-        this.usermanager.updateUser(user);
+        commitUser(user);
         System.out.println(playlist.toString());
     }
 
@@ -448,32 +653,19 @@ public class SpotifUM implements Serializable {
      * @param playlist the target playlist
      */
     private void addMusicToPlaylistAtIndex(User user, Playlist playlist) {
-        System.out.print("➤ music name: ");
-        String musicName = new Scanner(System.in).nextLine();
-
-        Map<UUID, Music> musics = this.artistmanager.searchMusics(musicName);
+        String musicName = readSearchName("music name");
 
-        int n = displaySearchResults(musicName, musics);
-        if (n==0) return;
-
-        System.out.print("➤ add music id [\"q\" to leave]: ");
-        String input = new Scanner(System.in).nextLine();
-        if (input.equalsIgnoreCase("q")) return;
+        Music selectedMusic = pickMusic(musicName, "add");
+        if (selectedMusic == null) return;
         System.out.print("➤ index to add music [0+]: ");
         int  index = new Scanner(System.in).nextInt();
-        try {
-            UUID selectedId = UUID.fromString(input);
-            Music selectedMusic = musics.get(selectedId);
 
-            if (selectedMusic != null && index>=0 && playlist instanceof PremiumPlaylist) {
-                playlist.addMusicToIndex(selectedMusic, index);
-                System.out.println("[app-log] music successfully added!");
-            }
-        } catch (IllegalArgumentException e) {
-            System.out.println("[app-log] invalid uuid format!");
+        if (index>=0 && playlist instanceof PremiumPlaylist) {
+            playlist.addMusicToIndex(selectedMusic, index);
+            System.out.println("[app-log] music successfully added!");
         }
         user.updatePlaylist(playlist);
-        this.usermanager.updateUser(user);
+        commitUser(user);
         System.out.println(playlist.toString());
     }
 
@@ -508,7 +700,7 @@ public class SpotifUM implements Serializable {
 
         if (removed) {
             user.updatePlaylist(playlist);
-            this.usermanager.updateUser(user);
+            commitUser(user);
             System.out.println("[app-log] music removed successfully!");
             System.out.println(playlist.toString());
         } else throw new EntityNotFoundException();
@@ -565,7 +757,7 @@ public class SpotifUM implements Serializable {
         if (visibility.equalsIgnoreCase("n"))
             playlist.setPublic(false);
 
-        this.usermanager.updateUser(user);
+        commitUser(user);
         System.out.println(playlist.toString());
     }
 
@@ -590,7 +782,7 @@ public class SpotifUM implements Serializable {
             }
             if (playlists.remove(UUID.fromString(playlistId))==null) throw new EntityNotFoundException();
             user.setPlaylists(playlists);
-            this.usermanager.updateUser(user);
+            commitUser(user);
             System.out.println(user.toString());
         }
     }
@@ -626,6 +818,7 @@ public class SpotifUM implements Serializable {
                 if (musicToRemove != null) {
                     artist.removeMusic(musicToRemove);
                     this.artistmanager.updateArtist(artist);
+                    journal(JournalEntry.musicRemove(artist.getEmail(), musicToRemove));
                     System.out.println(artist.toString());
                     return 1;
                 } else throw new EntityNotFoundException();
@@ -644,7 +837,7 @@ public class SpotifUM implements Serializable {
         Artist artist = this.artistmanager.getArtist(email.toLowerCase());
         Album al = new Album(album, artist.getUsername());
         artist.addAlbum(al);
-        this.artistmanager.updateArtist(artist);
+        commitArtist(artist);
         System.out.println(artist.toString());
         String id;
         addTrack(artist, al);
@@ -671,7 +864,7 @@ public class SpotifUM implements Serializable {
         }
         artist.removeAlbum(UUID.fromString(id));
 
-        this.artistmanager.updateArtist(artist);
+        commitArtist(artist);
         return 1;
     }
 
@@ -694,7 +887,7 @@ public class SpotifUM implements Serializable {
             Menu musicParams = createMusicUpdateParams(music);
             musicParams.run();
             System.out.println(music.toString());
-            this.artistmanager.updateArtist(artist);
+            commitMusic(artist, music);
         } else throw new EntityNotFoundException();
     }
 
@@ -807,7 +1000,7 @@ public class SpotifUM implements Serializable {
             albumParams.run();
             System.out.println(album.toString());
             artist.updateAlbum(album);
-            this.artistmanager.updateArtist(artist);
+            commitArtist(artist);
         } else throw new EntityNotFoundException();
     }
 
@@ -851,7 +1044,7 @@ public class SpotifUM implements Serializable {
         System.out.println(album.toString());
         Menu tracksMenu = createTracksMenu(artist, album);
         tracksMenu.run();
-        this.artistmanager.updateArtist(artist);
+        commitArtist(artist);
         System.out.println(album.toString());
     }
 
@@ -891,7 +1084,7 @@ public class SpotifUM implements Serializable {
                 if (music == null) throw new EntityNotFoundException();
                 album.addMusic(music);
                 artist.addAlbum(album);
-                this.artistmanager.updateArtist(artist);
+                commitArtist(artist);
             } catch (Exception e) {
                 throw new EntityNotFoundException("music not found!");
             }
@@ -964,6 +1157,8 @@ public class SpotifUM implements Serializable {
         if (user instanceof PremiumBaseUser || user instanceof PremiumTopUser) {
             items.add(new MenuItem("select my playlists", ()-> getPremiumPlaylists(user)));
             items.add(new MenuItem("search music", ()->playIndividualSong(user)));
+            items.add(new MenuItem("search lyrics", ()->playByLyrics(user)));
+            items.add(new MenuItem("filter catalog", ()->playByFilter(user)));
             items.add(new MenuItem("search public playlists", ()->playPublicPlaylists(user)));
         }
         items.add(new MenuItem("resume playing", ()->previousPlayingMusic!=null, ()->resumeSong()));
@@ -1029,43 +1224,15 @@ public class SpotifUM implements Serializable {
      * @param user the user who is playing the song
      */
     private void playIndividualSong(User user) throws EntityNotFoundException {
-        Scanner scanner = new Scanner(System.in);
-
-        System.out.print("➤ music name: ");
-        String musicName = scanner.nextLine().trim();
-        Map<UUID, Music> musics = this.artistmanager.searchMusics(musicName);
-
-        while (true) {
-            int n = displaySearchResults(musicName, musics);
-            if (n == 0) return;
-            try {
-                System.out.print("➤ play music id [\"q\" to leave]: ");
-                String input = scanner.nextLine().trim();
-                if (input.equalsIgnoreCase("q")) {
-                    return;
-                }
-
-                UUID selectedId = UUID.fromString(input);
-                Music selectedMusic = musics.get(selectedId);
-
-                this.currentPlayingMusic = selectedMusic;
-                this.statisticsManager.recordPlay(user, selectedMusic);
-                this.statisticsManager.recordPlay(selectedMusic);
-                this.statisticsManager.recordPlay(user, this.date);
+        String musicName = readSearchName("music name").trim();
+        Music selectedMusic = pickMusic(musicName, "play");
+        if (selectedMusic == null) return;
 
-                Artist artist = this.artistmanager.searchArtist(selectedMusic.getArtist(), selectedMusic.getMid());
-                if (artist != null) {
-                    this.statisticsManager.recordPlay(artist);
-                }
+        this.currentPlayingMusic = selectedMusic;
+        recordPlay(user, selectedMusic);
 
-                System.out.println("[app] CURRENTLY PLAYING MUSIC");
-                System.out.println(this.currentPlayingMusic.toString());
-                break;
-
-            } catch (Exception e) {
-                displayExceptions("music not found!");
-            }
-        }
+        System.out.println("[app] CURRENTLY PLAYING MUSIC");
+        System.out.println(this.currentPlayingMusic.toString());
     }
 
     /**
@@ -1102,7 +1269,7 @@ public class SpotifUM implements Serializable {
         System.out.println("[app] playing musics..");
         Scanner scanner = new Scanner(System.in);
         while (true) {
-            displayRandomPlaylists(this.randomPlaylists);
+            displayRandomPlaylists(randomPlaylists());
             System.out.print("➤ select playlist id [\"q\" to leave]: ");
             String playlistId = scanner.nextLine().trim();
             if (playlistId.equalsIgnoreCase("q")) {
@@ -1111,7 +1278,7 @@ public class SpotifUM implements Serializable {
             try {
                 UUID uuid = UUID.fromString(playlistId);
                 RandomPlaylist playlist = null;
-                for (RandomPlaylist randomplaylist : this.randomPlaylists) {
+                for (RandomPlaylist randomplaylist : randomPlaylists()) {
                     if (randomplaylist.getId().equals(uuid)) {
                         playlist = randomplaylist;
                         break;
@@ -1192,7 +1359,7 @@ public class SpotifUM implements Serializable {
         }
         ((PremiumPlaylist) playlist).setShuffleMode(wantToShuffle);
         displayShuffleMode(((PremiumPlaylist)playlist));
-        this.usermanager.updateUser(user);
+        commitUser(user);
     }
 
     /**
@@ -1210,11 +1377,7 @@ public class SpotifUM implements Serializable {
         Music nowplaying = ((PremiumPlaylist)playlist).jumpToTrack(index);
         if (nowplaying!=null){
             System.out.println("[app] CURRENTLY PLAYING MUSIC");
-            this.statisticsManager.recordPlay(user,nowplaying);
-            this.statisticsManager.recordPlay(nowplaying);
-            this.statisticsManager.recordPlay(user, this.date);
-            Artist artist = this.artistmanager.searchArtist(nowplaying.getArtist(), nowplaying.getMid());
-            if (artist!=null) this.statisticsManager.recordPlay(artist);
+            recordPlay(user, nowplaying);
             System.out.println(nowplaying.toString());
         } else  System.out.println("[app] current playing no music");
     }
@@ -1232,11 +1395,7 @@ public class SpotifUM implements Serializable {
             this.currentPlayingMusic = nowplaying;
             if (nowplaying!=null){
                 System.out.println("[app] CURRENTLY PLAYING MUSIC");
-                this.statisticsManager.recordPlay(user,nowplaying);
-                this.statisticsManager.recordPlay(nowplaying);
-                this.statisticsManager.recordPlay(user, this.date);
-                Artist artist = this.artistmanager.searchArtist(nowplaying.getArtist(), nowplaying.getMid());
-                if (artist!=null) this.statisticsManager.recordPlay(artist);
+                recordPlay(user, nowplaying);
                 System.out.println(nowplaying.toString());
             } else  System.out.println("[app] current playing no music");
         }
@@ -1255,11 +1414,7 @@ public class SpotifUM implements Serializable {
             this.currentPlayingMusic = nowplaying;
             if (nowplaying!=null){
                 System.out.println("[app] CURRENTLY PLAYING MUSIC");
-                this.statisticsManager.recordPlay(user,nowplaying);
-                this.statisticsManager.recordPlay(nowplaying);
-                this.statisticsManager.recordPlay(user, this.date);
-                Artist artist = this.artistmanager.searchArtist(nowplaying.getArtist(), nowplaying.getMid());
-                if (artist!=null) this.statisticsManager.recordPlay(artist);
+                recordPlay(user, nowplaying);
                 System.out.println(nowplaying.toString());
             } else  System.out.println("[app] current playing no music");
         }
@@ -1281,11 +1436,7 @@ public class SpotifUM implements Serializable {
         this.currentPlayingMusic = nowplaying;
         if (nowplaying!=null){
             System.out.println("[app] CURRENTLY PLAYING MUSIC");
-            this.statisticsManager.recordPlay(user,nowplaying);
-            this.statisticsManager.recordPlay(nowplaying);
-            this.statisticsManager.recordPlay(user, this.date);
-            Artist artist = this.artistmanager.searchArtist(nowplaying.getArtist(), nowplaying.getMid());
-            if (artist!=null) this.statisticsManager.recordPlay(artist);
+            recordPlay(user, nowplaying);
             System.out.println(nowplaying.toString());
         } else  System.out.println("[app] current playing no music");
     }
@@ -1318,20 +1469,328 @@ public class SpotifUM implements Serializable {
 
     /**
      * Save state.
+     * If the state was loaded from (or already saved to) the same file, only the journal
+     * of mutations made since then is committed. Otherwise, or once the journal grows past
+     * {@link #JOURNAL_COMPACTION_THRESHOLD} entries, a full checkpoint is written and a new
+     * journal is started next to it. Waits until the state is on disk, see
+     * {@link #saveStateAsync(String, SnapshotFormat, SnapshotScheduler.Callback)}.
      *
      * @param fileName the file name
      * @throws FileNotFoundException the file not found exception
      */
     public void saveState(String fileName) throws FileNotFoundException {
-        try (ObjectOutputStream oos = new ObjectOutputStream(new FileOutputStream(fileName))) {
-                if (currentPlayingMusic != null) {this.previousPlayingMusic = currentPlayingMusic;}
-                oos.writeObject(this);
+        saveState(fileName, SnapshotFormat.OBJECT);
+    }
+
+    /**
+     * Save state.
+     * Same as {@link #saveState(String)}, but checkpoints are written in the given format.
+     * Switching the format of a file always writes a new checkpoint. Waits until the
+     * state is on disk.
+     *
+     * @param fileName the file name
+     * @param format   the format
+     * @throws FileNotFoundException the file not found exception
+     */
+    public void saveState(String fileName, SnapshotFormat format) throws FileNotFoundException {
+        try {
+            saveStateAsync(fileName, format, null).get();
         } catch (Exception e){
-            System.out.println("[app-log] save error: " + e.getMessage());
+            Throwable cause = e instanceof ExecutionException && e.getCause() != null ? e.getCause() : e;
+            System.out.println("[app-log] save error: " + cause.getMessage());
             throw new FileNotFoundException();
         }
     }
 
+    /**
+     * Save state in the background.
+     * Only a cheap capture point runs on the calling thread, the state is written by the
+     * snapshot thread, so the caller goes on right away. When the file already has a
+     * checkpoint in this format, saving only commits the journal. Otherwise, or once the
+     * journal grows past {@link #JOURNAL_COMPACTION_THRESHOLD} entries, the journal is
+     * committed and the new checkpoint is rebuilt in the background from the last checkpoint
+     * on disk (or the empty state) and the journals since, without touching the live state.
+     * Mutations made after the capture go to a staging journal of the new checkpoint. The
+     * live state is only encoded on the calling thread when there is nothing to rebuild from.
+     *
+     * @param fileName the file name
+     * @param format   the format
+     * @param callback notified on the snapshot thread when the state is on disk, may be null
+     * @return the future completed when the state is on disk
+     */
+    public synchronized CompletableFuture<Void> saveStateAsync(String fileName, SnapshotFormat format, SnapshotScheduler.Callback callback) {
+        try {
+            if (this.journal == null || this.captureRequired) return capture(fileName, format, callback);
+            this.journal.commit();
+            if (fileName.equals(this.sourceFile) && format == this.sourceFormat && this.journal.isFor(fileName)
+                    && this.journal.size() < JOURNAL_COMPACTION_THRESHOLD) {
+                return scheduler().attach(fileName, callback);
+            }
+            return rebuild(fileName, format, callback);
+        } catch (IOException e) {
+            if (callback != null) callback.onComplete(fileName, e);
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    /**
+     * Freezes the state at the last journal commit and rebuilds it in the background into a
+     * checkpoint of the given file and format: the last checkpoint on disk is read, or the
+     * empty state taken, and the journals since are replayed on it.
+     *
+     * @param fileName the file name
+     * @param format   the format
+     * @param callback the callback
+     * @return the future
+     * @throws IOException the io exception
+     */
+    private CompletableFuture<Void> rebuild(String fileName, SnapshotFormat format, SnapshotScheduler.Callback callback) throws IOException {
+        if (currentPlayingMusic != null) {this.previousPlayingMusic = currentPlayingMusic;}
+        Music previous = this.previousPlayingMusic != null ? this.previousPlayingMusic.clone() : null;
+        long base = this.checkpointGeneration;
+        long generation = newGeneration();
+        MutationJournal staging = MutationJournal.createStaging(fileName + MutationJournal.SUFFIX, generation, base);
+        closeJournal();
+        this.journal = staging;
+        this.chain.add(staging);
+        this.checkpointGeneration = generation;
+        this.checkpointFormat = format;
+
+        return scheduler().submit(fileName, () -> {
+            SpotifUM shadow;
+            try {
+                shadow = replayUpTo(base);
+            } catch (Exception e) {
+                this.captureRequired = true;
+                throw e;
+            }
+            shadow.previousPlayingMusic = previous;
+            shadow.checkpointGeneration = generation;
+            writeCheckpoint(fileName, out -> shadow.writeImage(out, format));
+            staging.install();
+            installed(fileName, format, staging);
+        }, null, false, callback);
+    }
+
+    /**
+     * Reads the last checkpoint on disk, or takes the empty state, and replays the journals
+     * that follow it up to the given generation.
+     *
+     * @param generation the generation of the last journal to replay
+     * @return the state at the end of that journal
+     * @throws Exception the exception
+     */
+    private SpotifUM replayUpTo(long generation) throws Exception {
+        String file;
+        SnapshotFormat format;
+        long start;
+        List<MutationJournal> journals;
+        synchronized (this) {
+            file = this.sourceFile;
+            format = this.sourceFormat;
+            start = this.sourceGeneration;
+            journals = new ArrayList<>(this.chain);
+        }
+
+        SpotifUM shadow = file == null ? new SpotifUM() : readCheckpoint(file, format);
+        if (file == null) shadow.checkpointGeneration = start;
+        if (shadow.checkpointGeneration != start) throw new IOException("checkpoint of " + file + " changed");
+        for (MutationJournal journal : journals) {
+            if (MutationJournal.replay(journal.getFileName(), journal.getGeneration(), shadow::replay) < 0) {
+                throw new IOException("journal " + journal.getFileName() + " is missing");
+            }
+            if (journal.getGeneration() == generation) return shadow;
+        }
+        throw new IOException("journal of generation " + Long.toHexString(generation) + " is missing");
+    }
+
+    /**
+     * Makes a checkpoint written in the background the one later checkpoints are rebuilt
+     * from, and drops the journals it contains.
+     *
+     * @param fileName the file name
+     * @param format   the format
+     * @param staging  the journal of the checkpoint
+     */
+    private synchronized void installed(String fileName, SnapshotFormat format, MutationJournal staging) {
+        int at = this.chain.indexOf(staging);
+        if (at < 0) return;
+        this.chain = new ArrayList<>(this.chain.subList(at, this.chain.size()));
+        this.sourceFile = fileName;
+        this.sourceFormat = format;
+        this.sourceGeneration = staging.getGeneration();
+    }
+
+    /**
+     * Encodes the current state in memory and writes it in the background. Only used when
+     * the state cannot be rebuilt, because there is no journal or the checkpoint it follows
+     * can no longer be read.
+     *
+     * @param fileName the file name
+     * @param format   the format
+     * @param callback the callback
+     * @return the future
+     * @throws IOException the io exception
+     */
+    private CompletableFuture<Void> capture(String fileName, SnapshotFormat format, SnapshotScheduler.Callback callback) throws IOException {
+        if (currentPlayingMusic != null) {this.previousPlayingMusic = currentPlayingMusic;}
+        long previous = this.checkpointGeneration;
+        this.checkpointGeneration = newGeneration();
+        ByteArrayOutputStream image = new ByteArrayOutputStream();
+        MutationJournal staging;
+        try {
+            writeImage(image, format);
+            staging = MutationJournal.createStaging(fileName + MutationJournal.SUFFIX, this.checkpointGeneration, MutationJournal.NO_BASE);
+        } catch (IOException e) {
+            this.checkpointGeneration = previous;
+            throw e;
+        }
+        closeJournal();
+        this.journal = staging;
+        this.chain = new ArrayList<>(List.of(staging));
+        this.checkpointFormat = format;
+        this.captureRequired = false;
+
+        return scheduler().submit(fileName, () -> {
+            try {
+                writeCheckpoint(fileName, image::writeTo);
+            } catch (Exception e) {
+                this.captureRequired = true;
+                throw e;
+            }
+            staging.install();
+            installed(fileName, format, staging);
+        }, () -> {
+            try {
+                staging.discard();
+            } catch (IOException e) {
+                System.out.println("[app-log] journal error: " + e.getMessage());
+            }
+        }, true, callback);
+    }
+
+    /**
+     * Writes the state as a checkpoint image in the given format.
+     *
+     * @param out    the out
+     * @param format the format
+     * @throws IOException the io exception
+     */
+    private void writeImage(OutputStream out, SnapshotFormat format) throws IOException {
+        if (format == SnapshotFormat.BINARY) {
+            new BinarySnapshot(this.checkpointGeneration, this.usermanager, this.artistmanager,
+                    this.statisticsManager, this.previousPlayingMusic).writeTo(out);
+        } else {
+            ObjectOutputStream oos = new ObjectOutputStream(out);
+            oos.writeObject(this);
+            oos.flush();
+        }
+    }
+
+    /**
+     * Writes a checkpoint next to the given file, forces it to disk and atomically replaces the file.
+     *
+     * @param fileName the file name
+     * @param image    writes the checkpoint contents
+     * @throws IOException the io exception
+     */
+    private static void writeCheckpoint(String fileName, CheckpointImage image) throws IOException {
+        File tmp = new File(fileName + ".tmp");
+        try (FileOutputStream fos = new FileOutputStream(tmp);
+             BufferedOutputStream out = new BufferedOutputStream(fos)) {
+            image.writeTo(out);
+            out.flush();
+            fos.getFD().sync();
+        }
+        java.nio.file.Files.move(tmp.toPath(), new File(fileName).toPath(),
+                java.nio.file.StandardCopyOption.REPLACE_EXISTING, java.nio.file.StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes the contents of a checkpoint.
+     */
+    @FunctionalInterface
+    private interface CheckpointImage {
+        /**
+         * Write to.
+         *
+         * @param out the out
+         * @throws IOException the io exception
+         */
+        void writeTo(OutputStream out) throws IOException;
+    }
+
+    private static long newGeneration() {
+        long generation;
+        do {
+            generation = new Random().nextLong();
+        } while (generation == MutationJournal.NO_BASE);
+        return generation;
+    }
+
+    /**
+     * Gets the snapshot scheduler, starting it and its shutdown hook on first use.
+     *
+     * @return the snapshot scheduler
+     */
+    private synchronized SnapshotScheduler scheduler() {
+        if (this.scheduler == null) {
+            this.scheduler = new SnapshotScheduler();
+            Runtime.getRuntime().addShutdownHook(new Thread(this::flush, "spotifum-flush"));
+        }
+        return this.scheduler;
+    }
+
+    /**
+     * Sets the autosave period. Each autosave commits the journal of the last saved or
+     * loaded file, compacting it in the background when it grew too large.
+     *
+     * @param periodSeconds the period in seconds, 0 disables autosave
+     */
+    public void setAutosave(long periodSeconds) {
+        scheduler().setAutosave(periodSeconds, this::autosave);
+    }
+
+    /**
+     * Saves the state to the file of the open journal, if there is one. Autosave runs off the
+     * menu thread, so it never encodes the live state: it is skipped when that would be needed.
+     */
+    private synchronized void autosave() {
+        if (this.journal == null || this.captureRequired || this.sourceFile == null) return;
+        saveStateAsync(this.journal.getCheckpointFile(), this.checkpointFormat, (file, error) -> {
+            if (error != null) System.out.println("[app-log] autosave error: " + error.getMessage());
+        });
+    }
+
+    /**
+     * Runs when the application exits: autosaves one last time if autosave is enabled
+     * and waits for the background saves to finish.
+     */
+    private void flush() {
+        try {
+            if (this.scheduler.isAutosaveEnabled()) autosave();
+            if (!this.scheduler.awaitIdle(SAVE_TIMEOUT_MS)) {
+                System.out.println("[app-log] gave up waiting for background saves!");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Gets the random playlists, generating them on first use after a load so that
+     * loading does not have to decode the whole catalog.
+     *
+     * @return the random playlists
+     */
+    private List<RandomPlaylist> randomPlaylists(){
+        if (this.randomPlaylistsPending) {
+            this.randomPlaylistsPending = false;
+            generateRandomPlaylists();
+        }
+        return this.randomPlaylists;
+    }
+
     private void generateRandomPlaylists(){
         for (int i=0; this.randomPlaylists.size()<5; i++){
             RandomPlaylist randomPlaylist = new RandomPlaylist(this.artistmanager.getArtistsSongs());
@@ -1342,6 +1801,7 @@ public class SpotifUM implements Serializable {
 
     /**
      * Load state.
+     * Reads the last checkpoint and replays the committed tail of its journal on top of it.
      *
      * @param fileName the file name
      * @throws FileNotFoundException  the file not found exception
@@ -1349,13 +1809,331 @@ public class SpotifUM implements Serializable {
      * @throws ClassNotFoundException the class not found exception
      */
     public void loadState(String fileName) throws FileNotFoundException, IOException, ClassNotFoundException {
-        ObjectInputStream ois = new ObjectInputStream(new FileInputStream(fileName));
-        SpotifUM spotifum = (SpotifUM) ois.readObject();
+        loadState(fileName, SnapshotFormat.OBJECT);
+    }
+
+    /**
+     * Load state.
+     * Same as {@link #loadState(String)}, reading a checkpoint written in the given format.
+     *
+     * @param fileName the file name
+     * @param format   the format
+     * @throws FileNotFoundException  the file not found exception
+     * @throws IOException            the io exception
+     * @throws ClassNotFoundException the class not found exception
+     */
+    public synchronized void loadState(String fileName, SnapshotFormat format) throws FileNotFoundException, IOException, ClassNotFoundException {
+        if (!new File(fileName).exists()) throw new FileNotFoundException(fileName);
+        if (this.scheduler != null) {
+            try {
+                this.scheduler.awaitIdle(SAVE_TIMEOUT_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        SpotifUM spotifum = readCheckpoint(fileName, format);
+        closeJournal();
         this.usermanager = spotifum.usermanager;
         this.artistmanager = spotifum.artistmanager;
         this.statisticsManager = spotifum.statisticsManager;
         this.previousPlayingMusic = spotifum.previousPlayingMusic;
-        generateRandomPlaylists();
+        this.checkpointGeneration = spotifum.checkpointGeneration;
+        this.checkpointFormat = format;
+        this.captureRequired = false;
+        this.journal = MutationJournal.recover(fileName + MutationJournal.SUFFIX, this.checkpointGeneration, this::replay);
+        this.chain = new ArrayList<>(List.of(this.journal));
+        this.sourceFile = fileName;
+        this.sourceFormat = format;
+        this.sourceGeneration = this.checkpointGeneration;
+        this.randomPlaylistsPending = true;
+    }
+
+    /**
+     * Reads a checkpoint, without its journal.
+     *
+     * @param fileName the file name
+     * @param format   the format
+     * @return the state stored in the checkpoint
+     * @throws IOException            the io exception
+     * @throws ClassNotFoundException the class not found exception
+     */
+    private static SpotifUM readCheckpoint(String fileName, SnapshotFormat format) throws IOException, ClassNotFoundException {
+        if (format == SnapshotFormat.BINARY) {
+            BinarySnapshot snapshot = BinarySnapshot.read(fileName);
+            SpotifUM spotifum = new SpotifUM();
+            spotifum.usermanager = snapshot.getUsermanager();
+            spotifum.artistmanager = snapshot.getArtistmanager();
+            spotifum.statisticsManager = snapshot.getStatisticsManager();
+            spotifum.previousPlayingMusic = snapshot.getPreviousPlayingMusic();
+            spotifum.checkpointGeneration = snapshot.getGeneration();
+            return spotifum;
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(fileName)))) {
+            return (SpotifUM) ois.readObject();
+        }
+    }
+
+    /**
+     * Closes the open journal, if any.
+     *
+     * @throws IOException the io exception
+     */
+    private void closeJournal() throws IOException {
+        if (this.journal != null) {
+            this.journal.close();
+            this.journal = null;
+        }
+    }
+
+    /**
+     * Appends a mutation to the journal, if one is open.
+     *
+     * @param entry the entry
+     */
+    private synchronized void journal(JournalEntry entry) {
+        if (this.journal == null) return;
+        try {
+            this.journal.append(entry);
+        } catch (IOException e) {
+            System.out.println("[app-log] journal error: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stores an updated user and journals it.
+     *
+     * @param user the user
+     */
+    private void commitUser(User user) {
+        this.usermanager.updateUser(user);
+        journal(JournalEntry.userPut(user));
+    }
+
+    /**
+     * Stores an updated artist and journals it.
+     *
+     * @param artist the artist
+     */
+    private void commitArtist(Artist artist) {
+        this.artistmanager.updateArtist(artist);
+        journal(JournalEntry.artistPut(artist));
+    }
+
+    /**
+     * Stores a changed track of an artist and journals only the track.
+     *
+     * @param artist the artist
+     * @param music  the music
+     */
+    private void commitMusic(Artist artist, Music music) {
+        this.artistmanager.updateArtist(artist);
+        journal(JournalEntry.musicPut(artist.getEmail(), music));
+    }
+
+    /**
+     * Plays a song found by its lyrics and records playback statistics.
+     *
+     * @param user the user who is playing the song
+     */
+    private void playByLyrics(User user) {
+        Scanner scanner = new Scanner(System.in);
+
+        System.out.print("➤ lyrics [phrases in double quotes]: ");
+        String query = scanner.nextLine().trim();
+        List<LyricsMatch> matches = searchLyrics(query, LYRICS_MATCHES);
+        Map<UUID, Music> musics = new HashMap<>();
+        for (LyricsMatch match : matches) musics.put(match.getMusic().getMid(), match.getMusic());
+
+        if (displayLyricsMatches(query, matches) == 0) return;
+        while (true) {
+            System.out.print("➤ play music id [\"q\" to leave]: ");
+            String input = scanner.nextLine().trim();
+            if (input.equalsIgnoreCase("q")) return;
+            try {
+                Music selectedMusic = musics.get(UUID.fromString(input));
+                if (selectedMusic == null) {
+                    displayExceptions("music not found!");
+                    continue;
+                }
+                this.currentPlayingMusic = selectedMusic;
+                recordPlay(user, selectedMusic);
+
+                System.out.println("[app] CURRENTLY PLAYING MUSIC");
+                System.out.println(this.currentPlayingMusic.toString());
+                return;
+            } catch (IllegalArgumentException e) {
+                displayExceptions("invalid music id!");
+            }
+        }
+    }
+
+    /**
+     * Allows the user to filter the catalog by name, genre, label, duration, explicit and
+     * multimedia tracks, showing the facets of what was found, and play one of the tracks.
+     *
+     * @param user the user who is playing the song
+     */
+    private void playByFilter(User user) {
+        Scanner scanner = new Scanner(System.in);
+        MusicFilter filter = new MusicFilter();
+
+        System.out.print("➤ name contains [enter for any]: ");
+        filter.text(scanner.nextLine().trim());
+        System.out.print("➤ genres [comma separated, enter for any]: ");
+        for (String genre : scanner.nextLine().split(",")) if (!genre.isBlank()) filter.genre(genre);
+        System.out.print("➤ labels [comma separated, enter for any]: ");
+        for (String label : scanner.nextLine().split(",")) if (!label.isBlank()) filter.label(label);
+        System.out.print("➤ durations [short, medium, long, extended, enter for any]: ");
+        for (String duration : scanner.nextLine().split(",")) {
+            if (duration.isBlank()) continue;
+            try {
+                filter.duration(MusicFilter.Duration.valueOf(duration.trim().toUpperCase()));
+            } catch (IllegalArgumentException e) {
+                displayExceptions("invalid duration " + duration.trim() + "!");
+            }
+        }
+        System.out.print("➤ explicit [y/n, enter for any]: ");
+        String explicit = scanner.nextLine().trim();
+        if (!explicit.isEmpty()) filter.explicit(explicit.equalsIgnoreCase("y"));
+        System.out.print("➤ multimedia [y/n, enter for any]: ");
+        String multimedia = scanner.nextLine().trim();
+        if (!multimedia.isEmpty()) filter.multimedia(multimedia.equalsIgnoreCase("y"));
+
+        FacetResult result = filterMusics(filter);
+        displayFacets(result, FILTER_MATCHES);
+        Map<UUID, Music> musics = new LinkedHashMap<>();
+        for (Music music : result.getMusics()) {
+            if (musics.size() == FILTER_MATCHES) break;
+            musics.put(music.getMid(), music);
+        }
+        if (displaySearchResults("filter", musics) == 0) return;
+        while (true) {
+            System.out.print("➤ play music id [\"q\" to leave]: ");
+            String input = scanner.nextLine().trim();
+            if (input.equalsIgnoreCase("q")) return;
+            try {
+                Music selectedMusic = musics.get(UUID.fromString(input));
+                if (selectedMusic == null) {
+                    displayExceptions("music not found!");
+                    continue;
+                }
+                this.currentPlayingMusic = selectedMusic;
+                recordPlay(user, selectedMusic);
+
+                System.out.println("[app] CURRENTLY PLAYING MUSIC");
+                System.out.println(this.currentPlayingMusic.toString());
+                return;
+            } catch (IllegalArgumentException e) {
+                displayExceptions("invalid music id!");
+            }
+        }
+    }
+
+    /**
+     * Records a play in every statistic and journals it.
+     *
+     * @param user  the user playing the music
+     * @param music the music being played
+     */
+    private void recordPlay(User user, Music music) {
+        Artist artist = this.artistmanager.getArtistOf(music.getMid());
+        applyPlay(user, music, artist);
+        journal(JournalEntry.play(user.getEmail(), music, artist != null ? artist.getEmail() : null, this.date));
+    }
+
+    /**
+     * Feeds a play into the statistics.
+     *
+     * @param user   the user
+     * @param music  the music
+     * @param artist the artist, may be null
+     */
+    private void applyPlay(User user, Music music, Artist artist) {
+        this.statisticsManager.recordPlay(user, music);
+        this.statisticsManager.recordPlay(music);
+        this.statisticsManager.recordPlay(user, this.date);
+        this.statisticsManager.recordPlay(music, artist, this.date);
+        if (artist != null) this.statisticsManager.recordPlay(artist);
+        this.artistmanager.recordPlay(music, artist);
+    }
+
+    /**
+     * Applies a journaled mutation while recovering state.
+     *
+     * @param entry the entry
+     */
+    private void replay(JournalEntry entry) {
+        try {
+            switch (entry.getType()) {
+                case USER_PUT -> {
+                    User user = (User) entry.getImage();
+                    if (this.usermanager.existUserWithEmail(user.getEmail())) this.usermanager.updateUser(user);
+                    else this.usermanager.insertUser(user);
+                }
+                case USER_REMOVE -> removeUser(entry.getKey());
+                case USER_EMAIL -> {
+                    User user = (User) entry.getImage();
+                    this.usermanager.updateUserEmail(user, user.getEmail(), entry.getKey());
+                }
+                case ARTIST_PUT -> {
+                    Artist artist = (Artist) entry.getImage();
+                    if (this.artistmanager.existArtistWithEmail(artist.getEmail())) this.artistmanager.updateArtist(artist);
+                    else this.artistmanager.insertArtist(artist);
+                }
+                case ARTIST_REMOVE -> removeArtist(entry.getKey());
+                case ARTIST_EMAIL -> {
+                    Artist artist = (Artist) entry.getImage();
+                    this.artistmanager.updateArtistEmail(artist, artist.getEmail(), entry.getKey());
+                }
+                case MUSIC_DELETE -> {
+                    Music music = (Music) entry.getImage();
+                    this.artistmanager.deleteMusic(music);
+                    this.usermanager.deleteMusicFromPlaylists(music);
+                }
+                case MUSIC_PUT -> {
+                    Artist artist = getArtist(entry.getKey());
+                    Music music = (Music) entry.getImage();
+                    if (!artist.hasMusic(music.getMid())) {
+                        this.artistmanager.addMusic(artist, music);
+                    } else {
+                        artist.putMusic(music);
+                        this.artistmanager.updateArtist(artist);
+                    }
+                }
+                case MUSIC_REMOVE -> {
+                    Artist artist = getArtist(entry.getKey());
+                    artist.removeMusic((Music) entry.getImage());
+                    this.artistmanager.updateArtist(artist);
+                }
+                case ALBUM_PUT -> {
+                    Artist artist = getArtist(entry.getKey());
+                    Album album = (Album) entry.getImage();
+                    List<Music> musics = new ArrayList<>();
+                    for (Music music : album.getMusics()) {
+                        Music track = artist.getMusic(music.getMid());
+                        musics.add(track != null ? track : music);
+                    }
+                    artist.updateAlbum(new Album(album.getAlbumId(), album.getName(), album.getCreator(), musics));
+                    this.artistmanager.updateArtist(artist);
+                }
+                case TOP_LIST_MODE -> this.statisticsManager.setTopListMode((TopK.Mode) entry.getImage());
+                case PLAY_COUNTER -> {
+                    int[] size = (int[]) entry.getImage();
+                    this.statisticsManager.setPlayCounterSketch(size[0], size[1]);
+                }
+                case PLAY -> {
+                    LocalDate today = this.date;
+                    this.date = entry.getDate();
+                    Artist artist = entry.getSecondaryKey() != null && existArtistWithEmail(entry.getSecondaryKey())
+                            ? getArtist(entry.getSecondaryKey()) : null;
+                    applyPlay(getUser(entry.getKey()), (Music) entry.getImage(), artist);
+                    this.date = today;
+                }
+                default -> {}
+            }
+        } catch (EntityNotFoundException | EntityAlreadyExistsException e) {
+            System.out.println("[app-log] skipped journal entry " + entry.getType() + ": " + e.getMessage());
+        }
     }
 
     /**
@@ -1413,7 +2191,40 @@ public class SpotifUM implements Serializable {
      * @return the int
      */
     public int addMusic(String email, String name, String artist, String label, String lyrics, List<String> partiture, String genre, int duration, boolean explicit, boolean multimedia, String video){
-        return this.artistmanager.addMusic(email, name,artist, label, lyrics,partiture, genre, duration,explicit, multimedia, video);
+        Music music = this.artistmanager.createMusic(email, name,artist, label, lyrics,partiture, genre, duration,explicit, multimedia, video);
+        if (music != null) journal(JournalEntry.musicPut(email, music));
+        return 1;
+    }
+
+    /**
+     * Imports artists, tracks, albums and users in bulk from a CSV or JSON Lines file,
+     * see {@link CatalogImporter}.
+     *
+     * @param fileName the file name
+     * @return the import report
+     * @throws IOException the io exception
+     */
+    public ImportReport importCatalog(String fileName) throws IOException {
+        CatalogImporter importer = new CatalogImporter(this.usermanager, this.artistmanager, this::journal, CatalogImporter.DEFAULT_BATCH_SIZE);
+        return importer.importFile(fileName);
+    }
+
+    /**
+     * Gets the string pool statistics, see {@link StringPool}.
+     *
+     * @return the report
+     */
+    public String getStringPoolStatistics() {
+        return StringPool.report();
+    }
+
+    /**
+     * Gets the search cache statistics, see {@link ResultCache}.
+     *
+     * @return the report
+     */
+    public String getSearchCacheStatistics() {
+        return this.artistmanager.getSearchCacheStatistics();
     }
 
     /**
@@ -1437,6 +2248,27 @@ public class SpotifUM implements Serializable {
         this.statisticsManager.getMostListeningTime();
     }
 
+    /**
+     * Sets the mode of the most played track, artist and genre lists, see {@link TopK}.
+     *
+     * @param mode the mode
+     */
+    public void setTopListMode(TopK.Mode mode){
+        this.statisticsManager.setTopListMode(mode);
+        journal(JournalEntry.topListMode(mode));
+    }
+
+    /**
+     * Counts the plays of tracks and artists in a Count-Min sketch, see {@link spotifum.utils.CountMinSketch}.
+     *
+     * @param width the counters per row of the sketch, 0 to count exactly
+     * @param depth the rows of the sketch
+     */
+    public void setPlayCounterSketch(int width, int depth){
+        this.statisticsManager.setPlayCounterSketch(width, depth);
+        journal(JournalEntry.playCounter(width, depth));
+    }
+
     /**
      * Get user leaderboard.
      */
@@ -1444,6 +2276,21 @@ public class SpotifUM implements Serializable {
         this.statisticsManager.getUserLeaderboard();
     }
 
+    /**
+     * Gets the leaderboard rank of a user.
+     *
+     * @param email the email
+     * @return the rank, 1 for the most points, 0 if the user has no plays
+     */
+    public int getUserRank(String email){
+        User user = this.usermanager.getUser(email);
+        int rank = this.statisticsManager.getUserRank(user);
+        if (rank == 0) System.out.println("[app-log] no plays recorded yet!");
+        else System.out.printf("[app] rank #%d of %d listeners, with %.2f points%n",
+                rank, this.statisticsManager.getLeaderboardSize(), this.statisticsManager.getUserPoints(user));
+        return rank;
+    }
+
     /**
      * Get most played genres.
      */
@@ -1451,6 +2298,32 @@ public class SpotifUM implements Serializable {
         this.statisticsManager.getMostPlayedGenres();
     }
 
+    /**
+     * Get the tracks, artists and genres played the most between two dates.
+     *
+     * @param initialDate the initial date
+     * @param finalDate   the final date
+     */
+    public void getMostPlayedBetween(LocalDate initialDate, LocalDate finalDate){
+        this.statisticsManager.getMostPlayedBetween(initialDate, finalDate);
+    }
+
+    /**
+     * Get the tracks, artists and genres played the most in the days up to the current date.
+     *
+     * @param days the days, counting the current date
+     */
+    public void getMostPlayedLastDays(int days){
+        this.statisticsManager.getMostPlayedBetween(this.date.minusDays(days - 1), this.date);
+    }
+
+    /**
+     * Get the tracks, artists and genres most listened to by distinct users.
+     */
+    public void getMostListenedTo(){
+        this.statisticsManager.getMostListenedTo();
+    }
+
     /**
      * Get most listening time.
      *
@@ -1466,7 +2339,7 @@ public class SpotifUM implements Serializable {
      */
     public void howMuchPublicPlaylistsExist(){
         Map<UUID, Playlist> publicplaylists = this.usermanager.getPublicPlaylists();
-        this.statisticsManager.howMuchPublicPlaylistsExist(publicplaylists, this.randomPlaylists);
+        this.statisticsManager.howMuchPublicPlaylistsExist(publicplaylists, randomPlaylists());
     }
 
     /**
@@ -1490,6 +2363,6 @@ public class SpotifUM implements Serializable {
         Map<Music, Double> algorithm = this.statisticsManager.getUserHistory(user);
         Playlist generatedPlaylist = this.artistmanager.generatePlaylist(user, algorithm, maxsongs, maxtime, explicitmusics);
         user.createPlaylist(generatedPlaylist);
-        this.usermanager.updateUser(user);
+        commitUser(user);
     }
 }
@@ -10,9 +10,18 @@ import java.util.*;
 import com.sun.jdi.InvalidTypeException;
 import spotifum.exceptions.*;
 import spotifum.menu.*;
+import spotifum.musics.Completion;
+import spotifum.musics.FacetResult;
+import spotifum.musics.LyricsMatch;
 import spotifum.musics.Music;
+import spotifum.musics.MusicFilter;
+import spotifum.persistence.ImportReport;
+import spotifum.persistence.SnapshotFormat;
+import spotifum.persistence.SnapshotScheduler;
 import spotifum.playlists.Playlist;
 import spotifum.users.SubscriptionPlans;
+import spotifum.utils.Page;
+import spotifum.utils.TopK;
 import spotifum.views.SpotifUMView;
 
 import static spotifum.utils.DisplayInformation.displayExceptions;
@@ -21,6 +30,8 @@ import static spotifum.utils.DisplayInformation.displayExceptions;
  * The type Spotif umdb.
  */
 public class SpotifUMController implements Serializable {
+    private static final long serialVersionUID = -6573127778680959871L;
+
     private SpotifUM spotifum;
     private String email;
     private String username;
@@ -110,6 +121,59 @@ public class SpotifUMController implements Serializable {
         return this.spotifum.searchMusics(musicName);
     }
 
+    /**
+     * Autocomplete list.
+     *
+     * @param prefix the prefix
+     * @param limit  the limit
+     * @return the completions, most played first
+     */
+    public List<Completion> autocomplete(String prefix, int limit){
+        return this.spotifum.autocomplete(prefix, limit);
+    }
+
+    /**
+     * Search fuzzy list.
+     *
+     * @param query the query
+     * @param limit the limit
+     * @return the names, closest and most played first
+     */
+    public List<Completion> searchFuzzy(String query, int limit){
+        return this.spotifum.searchFuzzy(query, limit);
+    }
+
+    /**
+     * Filter musics facet result.
+     *
+     * @param filter the filter
+     * @return the result
+     */
+    public FacetResult filterMusics(MusicFilter filter){
+        return this.spotifum.filterMusics(filter);
+    }
+
+    /**
+     * Search lyrics list.
+     *
+     * @param query the query
+     * @param limit the limit
+     * @return the matches, best first
+     */
+    public List<LyricsMatch> searchLyrics(String query, int limit){
+        return this.spotifum.searchLyrics(query, limit);
+    }
+
+    /**
+     * Read search name string.
+     *
+     * @param prompt the prompt
+     * @return the name
+     */
+    public String readSearchName(String prompt){
+        return this.spotifum.readSearchName(prompt);
+    }
+
     /**
      * Remove artist.
      */
@@ -141,10 +205,21 @@ public class SpotifUMController implements Serializable {
      * Delete music.
      *
      * @param musicName the music name
-     * @param musics    the musics
      */
-    public void deleteMusic(String musicName, Map<UUID, Music> musics){
-        this.spotifum.deleteMusic(musicName, musics);
+    public void deleteMusic(String musicName){
+        this.spotifum.deleteMusic(musicName);
+    }
+
+    /**
+     * Page musics page.
+     *
+     * @param musicName the music name
+     * @param token     the token of the page, null for the first one
+     * @param size      the page size
+     * @return the page
+     */
+    public Page<Music> pageMusics(String musicName, String token, int size){
+        return this.spotifum.pageMusics(musicName, token, size);
     }
 
     /**
@@ -159,6 +234,19 @@ public class SpotifUMController implements Serializable {
             this.spotifum.loadState(fileName);
     }
 
+    /**
+     * Load state.
+     *
+     * @param fileName the file name
+     * @param format   the format
+     * @throws FileNotFoundException  the file not found exception
+     * @throws IOException            the io exception
+     * @throws ClassNotFoundException the class not found exception
+     */
+    public void loadState(String fileName, SnapshotFormat format)  throws FileNotFoundException, IOException, ClassNotFoundException {
+            this.spotifum.loadState(fileName, format);
+    }
+
     /**
      * Get name string.
      *
@@ -463,6 +551,25 @@ public class SpotifUMController implements Serializable {
         this.spotifum.getMostListeningTime(initialDate, finalDate);
     }
 
+    /**
+     * Sets the mode of the most played lists.
+     *
+     * @param mode the mode
+     */
+    public void setTopListMode(TopK.Mode mode){
+        this.spotifum.setTopListMode(mode);
+    }
+
+    /**
+     * Counts the plays of tracks and artists in a Count-Min sketch.
+     *
+     * @param width the counters per row of the sketch, 0 to count exactly
+     * @param depth the rows of the sketch
+     */
+    public void setPlayCounterSketch(int width, int depth){
+        this.spotifum.setPlayCounterSketch(width, depth);
+    }
+
     /**
      * Get user leaderboard.
      */
@@ -470,6 +577,15 @@ public class SpotifUMController implements Serializable {
         this.spotifum.getUserLeaderboard();
     }
 
+    /**
+     * Gets the leaderboard rank of the logged in user.
+     *
+     * @return the rank, 0 if the user has no plays
+     */
+    public int getUserRank(){
+        return this.spotifum.getUserRank(this.email);
+    }
+
     /**
      * Get most played genres.
      */
@@ -477,6 +593,32 @@ public class SpotifUMController implements Serializable {
         this.spotifum.getMostPlayedGenres();
     }
 
+    /**
+     * Get the tracks, artists and genres played the most between two dates.
+     *
+     * @param initialDate the initial date
+     * @param finalDate   the final date
+     */
+    public void getMostPlayedBetween(LocalDate initialDate, LocalDate finalDate){
+        this.spotifum.getMostPlayedBetween(initialDate, finalDate);
+    }
+
+    /**
+     * Get the tracks, artists and genres played the most in the days up to the current date.
+     *
+     * @param days the days, counting the current date
+     */
+    public void getMostPlayedLastDays(int days){
+        this.spotifum.getMostPlayedLastDays(days);
+    }
+
+    /**
+     * Get the tracks, artists and genres most listened to by distinct users.
+     */
+    public void getMostListenedTo(){
+        this.spotifum.getMostListenedTo();
+    }
+
     /**
      * How much public playlists exist.
      */
@@ -501,6 +643,62 @@ public class SpotifUMController implements Serializable {
         this.spotifum.saveState(fileName);
     }
 
+    /**
+     * Save state.
+     *
+     * @param fileName the file name
+     * @param format   the format
+     * @throws FileNotFoundException the file not found exception
+     */
+    public void saveState(String fileName, SnapshotFormat format) throws FileNotFoundException {
+        this.spotifum.saveState(fileName, format);
+    }
+
+    /**
+     * Save state in the background.
+     *
+     * @param fileName the file name
+     * @param format   the format
+     * @param callback the callback
+     */
+    public void saveStateAsync(String fileName, SnapshotFormat format, SnapshotScheduler.Callback callback) {
+        this.spotifum.saveStateAsync(fileName, format, callback);
+    }
+
+    /**
+     * Import catalog.
+     *
+     * @param fileName the file name
+     * @return the import report
+     * @throws IOException the io exception
+     */
+    public ImportReport importCatalog(String fileName) throws IOException {
+        return this.spotifum.importCatalog(fileName);
+    }
+
+    /**
+     * Get string pool statistics.
+     */
+    public void getStringPoolStatistics(){
+        System.out.println(this.spotifum.getStringPoolStatistics());
+    }
+
+    /**
+     * Get search cache statistics.
+     */
+    public void getSearchCacheStatistics(){
+        System.out.println(this.spotifum.getSearchCacheStatistics());
+    }
+
+    /**
+     * Sets the autosave period.
+     *
+     * @param periodSeconds the period in seconds, 0 disables autosave
+     */
+    public void setAutosave(long periodSeconds) {
+        this.spotifum.setAutosave(periodSeconds);
+    }
+
     /**
      * Get current date.
      */
@@ -1,6 +1,7 @@
 package spotifum.musics;
 
 import spotifum.exceptions.EntityAlreadyExistsException;
+import spotifum.utils.Keyed;
 
 import java.io.Serializable;
 import java.util.*;
@@ -9,7 +10,9 @@ import java.util.stream.Collectors;
 /**
  * The type Album.
  */
-public class Album implements Serializable {
+public class Album implements Serializable, Keyed {
+    private static final long serialVersionUID = 7881190388018684301L;
+
     private final UUID albumId;
     private String name;
     private String creator;
@@ -28,6 +31,21 @@ public class Album implements Serializable {
         this.musics = new ArrayList<>();
     }
 
+    /**
+     * Instantiates a new Album with a known id and tracks.
+     *
+     * @param albumId the album id
+     * @param name    the name
+     * @param creator the creator
+     * @param musics  the musics
+     */
+    public Album(UUID albumId, String name, String creator, List<Music> musics) {
+        this.albumId = albumId;
+        this.name = name;
+        this.creator = creator;
+        this.musics = new ArrayList<>(musics);
+    }
+
     /**
      * Instantiates a new Album.
      *
@@ -67,6 +85,16 @@ public class Album implements Serializable {
         return albumId;
     }
 
+    /**
+     * Gets the id of the album, the same as its albumId.
+     *
+     * @return the id
+     */
+    @Override
+    public UUID getId() {
+        return this.albumId;
+    }
+
     /**
      * Gets name.
      *
@@ -123,6 +151,15 @@ public class Album implements Serializable {
         System.out.println("[app] music '" + music.getName() + "' added successfully!");
     }
 
+    /**
+     * Replaces the music with the same id, if the album has it.
+     *
+     * @param music the music
+     */
+    public void replaceMusic(Music music) {
+        musics.replaceAll(m -> m.getMid().equals(music.getMid()) ? music : m);
+    }
+
     /**
      * Remove music.
      *
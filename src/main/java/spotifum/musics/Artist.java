@@ -2,6 +2,7 @@ package spotifum.musics;
 
 import spotifum.exceptions.EntityAlreadyExistsException;
 import spotifum.exceptions.EntityNotFoundException;
+import spotifum.utils.Keyed;
 
 import java.io.Serializable;
 import java.util.*;
@@ -10,7 +11,9 @@ import java.util.stream.Collectors;
 /**
  * The type Artist.
  */
-public class Artist implements Serializable {
+public class Artist implements Serializable, Keyed {
+    private static final long serialVersionUID = 5125565767776789959L;
+
     private final UUID aid;
     private String email;
     private String username;
@@ -42,6 +45,21 @@ public class Artist implements Serializable {
         this.albums = new HashMap<>();
     }
 
+    /**
+     * Instantiates a new Artist with a known id.
+     *
+     * @param aid      the aid
+     * @param email    the email
+     * @param username the username
+     */
+    public Artist(UUID aid, String email, String username) {
+        this.aid = aid;
+        this.email = email;
+        this.username = username;
+        this.tracks = new HashMap<>();
+        this.albums = new HashMap<>();
+    }
+
     /**
      * Instantiates a new Artist.
      *
@@ -100,6 +118,16 @@ public class Artist implements Serializable {
         return this.aid;
     }
 
+    /**
+     * Gets the id of the artist, the same as its aid.
+     *
+     * @return the id
+     */
+    @Override
+    public UUID getId() {
+        return this.aid;
+    }
+
     /**
      * Add album.
      *
@@ -170,6 +198,36 @@ public class Artist implements Serializable {
         tracks.put(music.getMid(), music);
     }
 
+    /**
+     * Checks whether the artist has a track.
+     *
+     * @param mid the mid
+     * @return the boolean
+     */
+    public boolean hasMusic(UUID mid) {
+        return tracks.containsKey(mid);
+    }
+
+    /**
+     * Gets a track of the artist.
+     *
+     * @param mid the mid
+     * @return the music, or null if the artist does not have it
+     */
+    public Music getMusic(UUID mid) {
+        return tracks.get(mid);
+    }
+
+    /**
+     * Adds a music, or replaces the one with the same id here and in the albums holding it.
+     *
+     * @param music the music
+     */
+    public void putMusic(Music music) {
+        tracks.put(music.getMid(), music);
+        for (Album album : albums.values()) album.replaceMusic(music);
+    }
+
     /**
      * Remove music int.
      *
@@ -231,7 +289,8 @@ public class Artist implements Serializable {
 
     /**
      * Compares this artist to another object for equality.
-     * Artists are equal if they have the same ID or same email, tracks, albums and username.
+     * Artists are equal if they have the same ID, like {@link Music}, so equality agrees
+     * with {@link #hashCode()} and an edited copy of an artist is the same artist.
      *
      * @param o the object to compare
      * @return true if equal, false otherwise
@@ -241,12 +300,15 @@ public class Artist implements Serializable {
 
         if (o == null || getClass() != o.getClass()) return false;
 
-        Artist artist = (Artist) o;
+        return this.aid.equals(((Artist) o).getArtistId());
+    }
 
-        return (this.email.equals(artist.getEmail()) &&
-                this.tracks.equals(artist.getTracks()) &&
-                this.albums.equals(artist.getAlbums()) &&
-                this.username.equals(artist.getUsername())) ||
-                this.aid.equals(artist.getArtistId());
+    /**
+     * Returns a hash code based on the artist ID.
+     *
+     * @return the hash code
+     */
+    public int hashCode() {
+        return this.aid.hashCode();
     }
 }
@@ -5,18 +5,52 @@ import spotifum.musics.types.ExplicitMusic;
 import spotifum.musics.types.MultimediaMusic;
 import spotifum.playlists.*;
 import spotifum.users.*;
-
+import spotifum.persistence.ArtistDirectory;
+import spotifum.persistence.SnapshotReader;
+import spotifum.persistence.SnapshotWriter;
+import spotifum.utils.Page;
+import spotifum.utils.ResultCache;
+
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.*;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static spotifum.utils.DisplayInformation.*;
 
 /**
  * The type Artist manager.
+ * When loaded from a binary snapshot, artists stay in the snapshot and are decoded
+ * the first time they are looked up; operations over the whole catalog decode all of them.
+ * Every change to the catalog bumps a version, and the results of name searches and
+ * filters are cached until the version changes. Artists and tracks can also be read a
+ * page at a time, in email and track name order, decoding only the artists on the page.
  */
 public class ArtistManager implements Serializable {
+    private static final long serialVersionUID = -1513222974846390035L;
+
+    /**
+     * The most tracks or albums the results cached by each kind of search may hold.
+     */
+    public static final int SEARCH_CACHE_ITEMS = 100_000;
+
+    /**
+     * The length of the track id that starts a track page token.
+     */
+    private static final int MUSIC_TOKEN_ID = 36;
+
     private Map<String, Artist> artists;
+    private transient ArtistDirectory directory;
+    private transient MusicIndex index;
+    private transient CatalogCompletions completions;
+    private transient TreeSet<String> emails;
+    private transient long version;
+    private transient ResultCache<String, Map<UUID, Music>> musicSearches;
+    private transient ResultCache<String, Map<UUID, Album>> albumSearches;
+    private transient ResultCache<String, FacetResult> filters;
 
     /**
      * Instantiates a new Artist manager.
@@ -44,10 +78,14 @@ public class ArtistManager implements Serializable {
      */
     public void insertArtist(Artist artist) throws EntityAlreadyExistsException {
         String email = artist.getEmail().toLowerCase();
-        if (artists.containsKey(email)) {
+        if (artists.containsKey(email) || (directory != null && directory.contains(email))) {
             throw new EntityAlreadyExistsException("artist with email \"" + email + "\" already exists!");
         }
         artists.put(email, artist);
+        this.version++;
+        if (emails != null) emails.add(email);
+        if (index != null) index.putArtist(email, artist);
+        if (completions != null) completions.putArtist(email, artist);
     }
 
     /**
@@ -59,7 +97,21 @@ public class ArtistManager implements Serializable {
      */
     public void updateArtistEmail(Artist artist, String newEmail, String oldEmail) {
         if (artists.remove(oldEmail)==null);
+        if (directory != null) directory.remove(oldEmail);
         this.artists.put(newEmail, artist);
+        this.version++;
+        if (emails != null) {
+            emails.remove(oldEmail);
+            emails.add(newEmail);
+        }
+        if (index != null) {
+            index.removeArtist(oldEmail);
+            index.putArtist(newEmail, artist);
+        }
+        if (completions != null) {
+            completions.moveArtist(oldEmail, newEmail);
+            completions.putArtist(newEmail, artist);
+        }
     }
 
     /**
@@ -70,11 +122,14 @@ public class ArtistManager implements Serializable {
      */
     public void updateArtist(Artist artist) throws EntityNotFoundException {
         String email = artist.getEmail().toLowerCase();
-        Artist a = artists.get(email);
+        Artist a = find(email);
 
         if (a==null) throw new EntityNotFoundException("[app-log] artist with email: " + email + " does not exist!");
 
         this.artists.put(email, artist);
+        this.version++;
+        if (index != null) index.putArtist(email, artist);
+        if (completions != null) completions.putArtist(email, artist);
     }
 
     /**
@@ -84,7 +139,8 @@ public class ArtistManager implements Serializable {
      * @return the boolean
      */
     public boolean existArtistWithEmail(String email){
-        return this.artists.containsKey(email.toLowerCase());
+        String key = email.toLowerCase();
+        return this.artists.containsKey(key) || (directory != null && directory.contains(key));
     }
 
     /**
@@ -95,7 +151,7 @@ public class ArtistManager implements Serializable {
      * @throws EntityNotFoundException the entity not found exception
      */
     public Artist getArtist(String email) throws EntityNotFoundException {
-        Artist a = this.artists.get(email.toLowerCase());
+        Artist a = find(email.toLowerCase());
 
         if (a == null) {
             throw new EntityNotFoundException(email);
@@ -112,16 +168,31 @@ public class ArtistManager implements Serializable {
      * @return the artist
      */
     public Artist searchArtist(String name, UUID musicName){
-        for  (Artist a : this.artists.values()) {
-            if (a.getUsername().equals(name)) {
-                for (Music m : a.getTracks().values()){
-                    if (m.getMid().equals(musicName)) {
-                        return a;
-                    }
-                }
+        Artist a = getArtistOf(musicName);
+        return a != null && a.getUsername().equals(name) ? a : null;
+    }
+
+    /**
+     * Gets the artist that owns a track, in constant time through the track index. While
+     * artists are still in a snapshot the index is not built: the snapshot directory names
+     * the artist, and only that artist is decoded. A track the snapshot does not have, or
+     * whose artist changed since, is looked for among the decoded artists.
+     *
+     * @param mid the mid
+     * @return the artist, or null if no artist has the track
+     */
+    public Artist getArtistOf(UUID mid) {
+        if (this.directory != null) {
+            String email = this.directory.ownerOf(mid);
+            Artist a = email == null ? null : find(email);
+            if (a != null && a.hasMusic(mid)) return a;
+            for (Artist artist : this.artists.values()) {
+                if (artist.hasMusic(mid)) return artist;
             }
+            return null;
         }
-        return null;
+        String email = index().ownerOf(index().keyOf(mid));
+        return email == null ? null : find(email);
     }
 
     /**
@@ -141,19 +212,56 @@ public class ArtistManager implements Serializable {
      * @throws EntityNotFoundException the entity not found exception
      */
     public int addMusic(String email, String name, String artist, String label, String lyrics, List<String> partiture, String genre, int duration, boolean explicit, boolean multimedia, String video) throws EntityNotFoundException{
-        Artist a = this.artists.get(email.toLowerCase());
+        createMusic(email, name, artist, label, lyrics, partiture, genre, duration, explicit, multimedia, video);
+        return 1;
+    }
+
+    /**
+     * Creates a track, explicit or multimedia as asked, and adds it to an artist of the catalog.
+     *
+     * @param email      the email
+     * @param name       the name
+     * @param artist     the artist
+     * @param label      the label
+     * @param lyrics     the lyrics
+     * @param partiture  the partiture
+     * @param genre      the genre
+     * @param duration   the duration
+     * @param explicit   the explicit boolean
+     * @param multimedia the multimedia boolean
+     * @param video      the video
+     * @return the music added, or null if it could not be added
+     * @throws EntityNotFoundException the entity not found exception
+     */
+    public Music createMusic(String email, String name, String artist, String label, String lyrics, List<String> partiture, String genre, int duration, boolean explicit, boolean multimedia, String video) throws EntityNotFoundException{
+        Artist a = find(email.toLowerCase());
 
         if (a == null) throw new EntityNotFoundException(email);
         Music newMusic = new Music(name, artist, label, lyrics, partiture, genre, duration);
+        if (explicit && !multimedia) newMusic = new ExplicitMusic(newMusic);
+        if (multimedia) newMusic = new MultimediaMusic(newMusic, explicit, video);
         try {
-            if (!explicit && !multimedia) a.addMusic(newMusic);
-            if (explicit && !multimedia) a.addMusic(new ExplicitMusic(newMusic));
-            if (multimedia) a.addMusic(new MultimediaMusic(newMusic, explicit, video));
+            addMusic(a, newMusic);
         }catch (Exception e){
             displayExceptions(e.getMessage());
+            return null;
         }
 
-        return 1;
+        return newMusic;
+    }
+
+    /**
+     * Adds a track to an artist of the catalog and indexes it.
+     *
+     * @param artist the artist
+     * @param music  the music
+     * @throws EntityAlreadyExistsException the entity already exists exception
+     */
+    public void addMusic(Artist artist, Music music) throws EntityAlreadyExistsException {
+        artist.addMusic(music);
+        this.version++;
+        if (index != null) index.addMusic(artist.getEmail().toLowerCase(), music);
+        if (completions != null) completions.addMusic(artist.getEmail().toLowerCase(), music);
     }
 
     /**
@@ -163,30 +271,209 @@ public class ArtistManager implements Serializable {
      * @throws EntityNotFoundException the entity not found exception
      */
     public void removeArtist(String email) throws EntityNotFoundException {
-        if (!this.artists.containsKey(email)) {
+        if (!this.artists.containsKey(email) && (directory == null || !directory.contains(email))) {
             throw new EntityNotFoundException();
         }
         this.artists.remove(email);
+        this.version++;
+        if (emails != null) emails.remove(email);
+        if (directory != null) directory.remove(email);
+        if (index != null) index.removeArtist(email);
+        if (completions != null) completions.removeArtist(email);
     }
 
-    public void getAllArtists() {
-        displayAllArtists(this.artists);
+    /**
+     * Streams the artists in email order, decoding each one only when it is reached.
+     *
+     * @param after the email the stream starts after, or null to start at the first
+     * @return the artists
+     */
+    public Stream<Artist> streamArtists(String after) {
+        SortedSet<String> from = after == null ? emails() : emails().tailSet(after, false);
+        return from.stream().map(this::find).filter(Objects::nonNull);
+    }
+
+    /**
+     * Gets a page of artists, in email order.
+     *
+     * @param token the token of the page, null for the first one
+     * @param size  the page size
+     * @return the page
+     */
+    public Page<Artist> pageArtists(String token, int size) {
+        return Page.of(streamArtists(token), size, artist -> artist.getEmail().toLowerCase());
     }
 
     /**
      * Search musics map.
+     * Looks the name up in the track index instead of scanning the catalog. The musics
+     * returned are the catalog instances, not copies, in a read only map that is cached
+     * until the catalog changes.
      *
      * @param name the name
      * @return the map
      */
     public Map<UUID, Music> searchMusics(String name) {
-        return artists.values().stream()
-                .flatMap(artist -> artist.getTracks().values().stream())
-                .filter(music -> music.getName().toLowerCase().contains(name.toLowerCase()))
-                .collect(Collectors.toMap(
-                        Music::getMid,
-                        Music::clone,
-                        (existing, replacement) -> existing));
+        if (this.musicSearches == null) this.musicSearches = new ResultCache<>("music search", SEARCH_CACHE_ITEMS, Map::size);
+        return this.musicSearches.get(name.toLowerCase(), this.version, () -> {
+            Map<UUID, Music> musics = new HashMap<>();
+            for (Music music : index().search(name)) musics.putIfAbsent(music.getMid(), music);
+            return Collections.unmodifiableMap(musics);
+        });
+    }
+
+    /**
+     * Streams the tracks whose name contains a text, by lower case name and then id,
+     * looking the ordered tracks up only when they are reached.
+     *
+     * @param name  the name
+     * @param after the token of the track the stream starts after, see {@link #pageMusics}, or null to start at the first
+     * @return the catalog instances of the musics
+     * @throws IllegalArgumentException if the token is not one of a track matching the name
+     */
+    public Stream<Music> streamMusics(String name, String after) {
+        if (after == null) return index().stream(name, null, null);
+        String last = after.length() < MUSIC_TOKEN_ID ? null : after.substring(MUSIC_TOKEN_ID);
+        UUID mid = last == null ? null : parseId(after.substring(0, MUSIC_TOKEN_ID));
+        if (mid == null || !last.equals(last.toLowerCase()) || !last.contains(Objects.toString(name, "").toLowerCase())) {
+            throw new IllegalArgumentException("invalid page token '" + after + "'");
+        }
+        return index().stream(name, last, mid);
+    }
+
+    /**
+     * Gets a page of the tracks whose name contains a text, by lower case name and then id.
+     * The token holds the id and the lower case name of the last track of the page, so it
+     * still works after that track is removed or the state is saved and loaded again.
+     *
+     * @param name  the name
+     * @param token the token of the page, null for the first one
+     * @param size  the page size
+     * @return the page
+     * @throws IllegalArgumentException if the token is not one of a track matching the name
+     */
+    public Page<Music> pageMusics(String name, String token, int size) {
+        return Page.of(streamMusics(name, token), size, music -> music.getMid() + Objects.toString(music.getName(), "").toLowerCase());
+    }
+
+    /**
+     * Parses an id written in its canonical form.
+     *
+     * @param text the text
+     * @return the id, or null if the text is not one
+     */
+    private static UUID parseId(String text) {
+        try {
+            UUID id = UUID.fromString(text);
+            return id.toString().equals(text) ? id : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Filter musics.
+     * Narrows the catalog by facets kept as compressed bitmaps, see {@link FacetIndex}.
+     *
+     * @param filter the filter
+     * @return the catalog instances of the tracks found, with the counts of their facets
+     */
+    public FacetResult filterMusics(MusicFilter filter) {
+        if (this.filters == null) this.filters = new ResultCache<>("filter", SEARCH_CACHE_ITEMS, FacetResult::size);
+        return this.filters.get(filter.key(), this.version, () -> index().filter(filter));
+    }
+
+    /**
+     * Search lyrics list.
+     * Ranks the tracks by how well their lyrics match the query, see {@link LyricsIndex}.
+     *
+     * @param query the query, with phrases in double quotes
+     * @param limit the number of tracks wanted
+     * @return the matches, best first
+     */
+    public List<LyricsMatch> searchLyrics(String query, int limit) {
+        return index().searchLyrics(query, limit);
+    }
+
+    /**
+     * Completes a prefix with the names of the most played tracks, albums and artists.
+     * Names are matched without regard to case or accents.
+     *
+     * @param prefix the prefix
+     * @param limit  the number of completions wanted
+     * @param plays  the play counts by track and artist id, read only when the
+     *               completions are first built
+     * @return the completions, most played first
+     */
+    public List<Completion> complete(String prefix, int limit, Supplier<Map<UUID, Integer>> plays) {
+        return completions(plays).complete(prefix, limit);
+    }
+
+    /**
+     * Finds the tracks, albums and artists whose name is close to a query, allowing a few
+     * typos in every word, see {@link spotifum.utils.FuzzyIndex}.
+     *
+     * @param query the query
+     * @param limit the number of names wanted
+     * @param plays the play counts by track and artist id, read only when the
+     *              completions are first built
+     * @return the names, closest and most played first
+     */
+    public List<Completion> searchFuzzy(String query, int limit, Supplier<Map<UUID, Integer>> plays) {
+        return completions(plays).fuzzy(query, limit, EnumSet.allOf(Completion.Kind.class));
+    }
+
+    /**
+     * Search musics map, allowing a few typos in every word of the name.
+     *
+     * @param name  the name
+     * @param limit the number of musics wanted
+     * @param plays the play counts by track and artist id, read only when the
+     *              completions are first built
+     * @return the catalog instances of the musics, closest and most played first
+     */
+    public Map<UUID, Music> searchMusicsFuzzy(String name, int limit, Supplier<Map<UUID, Integer>> plays) {
+        Map<UUID, Music> musics = new LinkedHashMap<>();
+        for (Completion completion : completions(plays).fuzzy(name, limit, EnumSet.of(Completion.Kind.TRACK))) {
+            Music music = index().music(index().keyOf(completion.getId()));
+            if (music != null) musics.put(music.getMid(), music);
+        }
+        return musics;
+    }
+
+    /**
+     * Search albuns map, allowing a few typos in every word of the name.
+     *
+     * @param name  the name
+     * @param limit the number of albums wanted
+     * @param plays the play counts by track and artist id, read only when the
+     *              completions are first built
+     * @return the albums
+     */
+    public Map<UUID, Album> searchAlbunsFuzzy(String name, int limit, Supplier<Map<UUID, Integer>> plays) {
+        Set<UUID> ids = new HashSet<>();
+        for (Completion completion : completions(plays).fuzzy(name, limit, EnumSet.of(Completion.Kind.ALBUM))) ids.add(completion.getId());
+        HashMap<UUID, Album> albums = new HashMap<>();
+        if (ids.isEmpty()) return albums;
+        for (Artist artist : loadAll().values()){
+            for (Album album : artist.getAlbums().values()){
+                if (ids.contains(album.getAlbumId())) {
+                    album.setCreator(artist.getUsername());
+                    albums.put(album.getAlbumId(), album);
+                }
+            }
+        }
+        return albums;
+    }
+
+    /**
+     * Counts a play in the completions, if they were built.
+     *
+     * @param music  the music
+     * @param artist the artist, may be null
+     */
+    public void recordPlay(Music music, Artist artist) {
+        if (this.completions != null) this.completions.recordPlay(music, artist);
     }
 
     /**
@@ -196,7 +483,7 @@ public class ArtistManager implements Serializable {
      */
     public Map<UUID, Music> getArtistsSongs(){
         HashMap<UUID, Music> musics = new HashMap<>();
-        for (Artist  artist : this.artists.values()){
+        for (Artist  artist : loadAll().values()){
             for (Music music : artist.getTracks().values()){
                 musics.put(music.getMid(), music.clone());
             }
@@ -206,21 +493,48 @@ public class ArtistManager implements Serializable {
 
     /**
      * Search albuns map.
+     * The albums are returned in a read only map that is cached until the catalog changes.
      *
      * @param name the name
      * @return the map
      */
     public Map<UUID, Album> searchAlbuns(String name){
-        HashMap<UUID, Album> albums = new HashMap<>();
-        for (Artist  artist : this.artists.values()){
-            for (Album album : artist.getAlbums().values()){
-                album.setCreator(artist.getUsername());
-                if (album.getName().toLowerCase().contains(name.toLowerCase())){
-                    albums.put(album.getAlbumId(), album);
+        if (this.albumSearches == null) this.albumSearches = new ResultCache<>("album search", SEARCH_CACHE_ITEMS, Map::size);
+        return this.albumSearches.get(name.toLowerCase(), this.version, () -> {
+            HashMap<UUID, Album> albums = new HashMap<>();
+            for (Artist  artist : loadAll().values()){
+                for (Album album : artist.getAlbums().values()){
+                    album.setCreator(artist.getUsername());
+                    if (album.getName().toLowerCase().contains(name.toLowerCase())){
+                        albums.put(album.getAlbumId(), album);
+                    }
                 }
             }
+            return Collections.unmodifiableMap(albums);
+        });
+    }
+
+    /**
+     * Gets the catalog version, bumped by every change to the catalog.
+     *
+     * @return the version
+     */
+    public long getCatalogVersion() {
+        return this.version;
+    }
+
+    /**
+     * Describes the use of the search caches, see {@link ResultCache}.
+     *
+     * @return the report
+     */
+    public String getSearchCacheStatistics() {
+        StringBuilder sb = new StringBuilder();
+        for (ResultCache<String, ?> cache : Arrays.asList(this.musicSearches, this.albumSearches, this.filters)) {
+            if (cache != null) sb.append(cache.report()).append(System.lineSeparator());
         }
-        return albums;
+        sb.append("[app-log] catalog version: ").append(this.version);
+        return sb.toString();
     }
 
     /**
@@ -297,7 +611,7 @@ public class ArtistManager implements Serializable {
      */
     private boolean canAddMusic(Music music, boolean explicitOnly,
                                 int added, int max, int time, int maxTime) {
-        return (!explicitOnly || music instanceof ExplicitMusic) &&
+        return (!explicitOnly || MusicFilter.isExplicit(music)) &&
                 added < max &&
                 (time + music.getDuration()) <= maxTime;
     }
@@ -315,13 +629,146 @@ public class ArtistManager implements Serializable {
         return added >= max || time >= maxTime;
     }
 
+    /**
+     * Delete music.
+     *
+     * @param music the music
+     */
     public void deleteMusic(Music music){
-        for (Artist a : this.artists.values()){
-            for (Music mus : a.getTracks().values()){
-                if (mus.equals(music)){
-                    a.removeMusic(music);
-                }
+        String email = index().ownerOf(music);
+        if (email == null) return;
+        Artist a = find(email);
+        if (a != null) a.removeMusic(music);
+        this.version++;
+        index.removeMusic(music);
+        if (completions != null && a != null) completions.putArtist(email, a);
+    }
+
+    /**
+     * Writes every artist, with its tracks and albums, to a binary snapshot.
+     *
+     * @param out the out
+     * @throws IOException the io exception
+     */
+    public void writeTo(SnapshotWriter out) throws IOException {
+        out.writeArtistCatalog(loadAll());
+    }
+
+    /**
+     * Serves the artists of a binary snapshot lazily from the given directory.
+     *
+     * @param directory the directory
+     */
+    public void setDirectory(ArtistDirectory directory) {
+        this.directory = directory;
+        this.version++;
+        this.emails = null;
+        this.index = null;
+        this.completions = null;
+    }
+
+    /**
+     * Gets an artist by its key, decoding it from the snapshot on first access.
+     *
+     * @param email the lower case email
+     * @return the artist, or null if there is none
+     */
+    private Artist find(String email) {
+        Artist a = this.artists.get(email);
+        if (a == null && this.directory != null && this.directory.contains(email)) {
+            a = this.directory.take(email);
+            this.artists.put(email, a);
+            if (this.directory.isEmpty()) this.directory = null;
+        }
+        return a;
+    }
+
+    /**
+     * Gets the track index, built from the whole catalog on first use.
+     *
+     * @return the index
+     */
+    private MusicIndex index() {
+        if (this.index == null) {
+            MusicIndex built = new MusicIndex();
+            for (Map.Entry<String, Artist> entry : loadAll().entrySet()) built.putArtist(entry.getKey(), entry.getValue());
+            this.index = built;
+        }
+        return this.index;
+    }
+
+    /**
+     * Gets the emails of every artist in order, without decoding the ones still in
+     * the snapshot.
+     *
+     * @return the emails
+     */
+    private TreeSet<String> emails() {
+        if (this.emails == null) {
+            TreeSet<String> built = new TreeSet<>(this.artists.keySet());
+            if (this.directory != null) built.addAll(this.directory.getEmails());
+            this.emails = built;
+        }
+        return this.emails;
+    }
+
+    /**
+     * Gets the completions, built from the whole catalog on first use.
+     *
+     * @param plays the play counts to start from
+     * @return the completions
+     */
+    private CatalogCompletions completions(Supplier<Map<UUID, Integer>> plays) {
+        if (this.completions == null) {
+            CatalogCompletions built = new CatalogCompletions(plays.get());
+            for (Map.Entry<String, Artist> entry : loadAll().entrySet()) built.putArtist(entry.getKey(), entry.getValue());
+            built.seeded();
+            this.completions = built;
+        }
+        return this.completions;
+    }
+
+    /**
+     * Decodes every artist still in the snapshot.
+     *
+     * @return the artists by email
+     */
+    private Map<String, Artist> loadAll() {
+        if (this.directory != null) {
+            for (String email : this.directory.getEmails()) {
+                find(email);
             }
+            this.directory = null;
+        }
+        return this.artists;
+    }
+
+    /**
+     * Decodes every pending artist before the manager is serialized.
+     *
+     * @param out the out
+     * @throws IOException the io exception
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        loadAll();
+        out.defaultWriteObject();
+    }
+
+    /**
+     * Reads the artists from a binary snapshot.
+     *
+     * @param in the in
+     * @throws IOException the io exception
+     */
+    public void readFrom(SnapshotReader in) throws IOException {
+        int size = in.readVarInt();
+        for (int i = 0; i < size; i++) {
+            Artist artist = in.readArtist();
+            artists.put(artist.getEmail().toLowerCase(), artist);
         }
+        this.version++;
+        this.emails = null;
+        this.index = null;
+        this.completions = null;
     }
 }
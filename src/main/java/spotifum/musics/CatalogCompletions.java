@@ -0,0 +1,303 @@
+package spotifum.musics;
+
+import spotifum.utils.FuzzyIndex;
+import spotifum.utils.IdRegistry;
+import spotifum.utils.PrefixTrie;
+
+import java.util.*;
+
+/**
+ * The type Catalog completions.
+ * Keeps a {@link PrefixTrie} over the names of the tracks, albums and artists of the
+ * catalog, scored by play count. Scores are seeded from the statistics when the
+ * completions are built and then follow every play; an album scores the plays of its
+ * tracks. Artists are indexed again after a change by only moving what changed.
+ * The same names are also kept in a {@link FuzzyIndex} each, for typo tolerant search.
+ * Tracks, albums and artists are keyed by an {@link IdRegistry} each, which takes back
+ * the keys of the ones removed.
+ */
+class CatalogCompletions {
+    /**
+     * How many typos ten times the plays make up for in a fuzzy search.
+     */
+    static final double POPULARITY = 0.5;
+
+    private final PrefixTrie tracks;
+    private final PrefixTrie albums;
+    private final PrefixTrie artists;
+    private final FuzzyIndex fuzzyTracks;
+    private final FuzzyIndex fuzzyAlbums;
+    private final FuzzyIndex fuzzyArtists;
+    private final IdRegistry trackIds;
+    private final IdRegistry albumIds;
+    private final IdRegistry artistIds;
+    private final Map<String, Integer> artistKeys;
+    private final Map<String, Set<Integer>> tracksByArtist;
+    private final Map<String, Map<Integer, int[]>> albumsByArtist;
+    private int[][] albumsByTrack;
+    private Map<UUID, Integer> plays;
+
+    /**
+     * Instantiates a new Catalog completions.
+     *
+     * @param plays the play counts by track and artist id to start from
+     */
+    CatalogCompletions(Map<UUID, Integer> plays) {
+        this.tracks = new PrefixTrie();
+        this.albums = new PrefixTrie();
+        this.artists = new PrefixTrie();
+        this.fuzzyTracks = new FuzzyIndex();
+        this.fuzzyAlbums = new FuzzyIndex();
+        this.fuzzyArtists = new FuzzyIndex();
+        this.trackIds = new IdRegistry();
+        this.albumIds = new IdRegistry();
+        this.artistIds = new IdRegistry();
+        this.artistKeys = new HashMap<>();
+        this.tracksByArtist = new HashMap<>();
+        this.albumsByArtist = new HashMap<>();
+        this.albumsByTrack = new int[16][];
+        this.plays = plays;
+    }
+
+    /**
+     * Drops the play counts started from, once the whole catalog is indexed.
+     * Tracks and artists indexed afterwards are new and start at 0.
+     */
+    void seeded() {
+        this.plays = Collections.emptyMap();
+    }
+
+    /**
+     * Indexes an artist with its tracks and albums, replacing what was indexed for it before.
+     *
+     * @param email  the artist key
+     * @param artist the artist
+     */
+    void putArtist(String email, Artist artist) {
+        int artistKey = this.artistIds.keyOf(artist.getArtistId());
+        Integer previous = this.artistKeys.put(email, artistKey);
+        if (previous != null && previous != artistKey) remove(this.artistIds, this.artists, this.fuzzyArtists, previous);
+        put(this.artists, this.fuzzyArtists, artistKey, artist.getUsername(), playsOf(artist.getArtistId()));
+
+        Set<Integer> oldTracks = this.tracksByArtist.getOrDefault(email, Collections.emptySet());
+        Set<Integer> keys = new HashSet<>();
+        for (Music music : artist.getTracks().values()) {
+            int key = this.trackIds.keyOf(music.getMid());
+            put(this.tracks, this.fuzzyTracks, key, music.getName(), playsOf(music.getMid()));
+            keys.add(key);
+        }
+        for (int key : oldTracks) {
+            if (!keys.contains(key)) removeTrack(key);
+        }
+        this.tracksByArtist.put(email, keys);
+
+        Map<Integer, int[]> oldAlbums = this.albumsByArtist.getOrDefault(email, Collections.emptyMap());
+        Map<Integer, int[]> albums = new HashMap<>();
+        for (Album album : artist.getAlbums().values()) {
+            int key = this.albumIds.keyOf(album.getAlbumId());
+            int[] contents = album.getMusics().stream().mapToInt(music -> this.trackIds.find(music.getMid()))
+                    .filter(track -> track > 0).distinct().toArray();
+            unlinkAlbum(key, oldAlbums.getOrDefault(key, new int[0]));
+            long score = 0;
+            for (int track : contents) {
+                linkAlbum(track, key);
+                score += this.tracks.getScore(track);
+            }
+            put(this.albums, this.fuzzyAlbums, key, album.getName(), score);
+            this.albums.add(key, score - this.albums.getScore(key));
+            albums.put(key, contents);
+        }
+        for (Map.Entry<Integer, int[]> entry : oldAlbums.entrySet()) {
+            if (albums.containsKey(entry.getKey())) continue;
+            unlinkAlbum(entry.getKey(), entry.getValue());
+            remove(this.albumIds, this.albums, this.fuzzyAlbums, entry.getKey());
+        }
+        this.albumsByArtist.put(email, albums);
+    }
+
+    /**
+     * Moves an artist to a new key, keeping its scores.
+     *
+     * @param oldEmail the old artist key
+     * @param newEmail the new artist key
+     */
+    void moveArtist(String oldEmail, String newEmail) {
+        Integer key = this.artistKeys.remove(oldEmail);
+        if (key != null) this.artistKeys.put(newEmail, key);
+        Set<Integer> tracks = this.tracksByArtist.remove(oldEmail);
+        if (tracks != null) this.tracksByArtist.put(newEmail, tracks);
+        Map<Integer, int[]> albums = this.albumsByArtist.remove(oldEmail);
+        if (albums != null) this.albumsByArtist.put(newEmail, albums);
+    }
+
+    /**
+     * Removes an artist with its tracks and albums.
+     *
+     * @param email the artist key
+     */
+    void removeArtist(String email) {
+        Integer key = this.artistKeys.remove(email);
+        if (key != null) remove(this.artistIds, this.artists, this.fuzzyArtists, key);
+        Set<Integer> tracks = this.tracksByArtist.remove(email);
+        if (tracks != null) {
+            for (int track : tracks) removeTrack(track);
+        }
+        Map<Integer, int[]> albums = this.albumsByArtist.remove(email);
+        if (albums != null) {
+            for (Map.Entry<Integer, int[]> entry : albums.entrySet()) {
+                unlinkAlbum(entry.getKey(), entry.getValue());
+                remove(this.albumIds, this.albums, this.fuzzyAlbums, entry.getKey());
+            }
+        }
+    }
+
+    /**
+     * Indexes a new track of an artist.
+     *
+     * @param email the artist key
+     * @param music the music
+     */
+    void addMusic(String email, Music music) {
+        int key = this.trackIds.keyOf(music.getMid());
+        put(this.tracks, this.fuzzyTracks, key, music.getName(), playsOf(music.getMid()));
+        this.tracksByArtist.computeIfAbsent(email, k -> new HashSet<>()).add(key);
+    }
+
+    /**
+     * Counts a play of a track, of the albums holding it and of its artist.
+     *
+     * @param music  the music
+     * @param artist the artist, may be null
+     */
+    void recordPlay(Music music, Artist artist) {
+        int key = this.trackIds.find(music.getMid());
+        if (key > 0 && this.tracks.contains(key)) {
+            this.tracks.add(key, 1);
+            if (key < this.albumsByTrack.length && this.albumsByTrack[key] != null) {
+                for (int album : this.albumsByTrack[key]) this.albums.add(album, 1);
+            }
+        }
+        int artistKey = artist == null ? 0 : this.artistIds.find(artist.getArtistId());
+        if (artistKey > 0) this.artists.add(artistKey, 1);
+    }
+
+    /**
+     * Finds the most played tracks, albums and artists whose name starts with a prefix.
+     *
+     * @param prefix the prefix
+     * @param limit  the number of completions wanted
+     * @return the completions, most played first
+     */
+    List<Completion> complete(String prefix, int limit) {
+        List<Completion> result = new ArrayList<>();
+        for (int key : this.tracks.complete(prefix, limit)) {
+            result.add(new Completion(Completion.Kind.TRACK, this.trackIds.idOf(key), this.tracks.getName(key), this.tracks.getScore(key)));
+        }
+        for (int key : this.albums.complete(prefix, limit)) {
+            result.add(new Completion(Completion.Kind.ALBUM, this.albumIds.idOf(key), this.albums.getName(key), this.albums.getScore(key)));
+        }
+        for (int key : this.artists.complete(prefix, limit)) {
+            result.add(new Completion(Completion.Kind.ARTIST, this.artistIds.idOf(key), this.artists.getName(key), this.artists.getScore(key)));
+        }
+        result.sort(Comparator.comparingLong(Completion::getPlays).reversed());
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * Finds the tracks, albums and artists whose name is close to a query, allowing a few
+     * typos in every word. Fewer typos rank first, and plays make up for some of them.
+     *
+     * @param query the query
+     * @param limit the number of names wanted
+     * @param kinds the kinds of names wanted
+     * @return the names, best first
+     */
+    List<Completion> fuzzy(String query, int limit, Set<Completion.Kind> kinds) {
+        List<Completion> found = new ArrayList<>();
+        if (limit <= 0) return found;
+        Map<Completion, Double> ranks = new HashMap<>();
+        if (kinds.contains(Completion.Kind.TRACK)) fuzzy(Completion.Kind.TRACK, this.trackIds, this.tracks, this.fuzzyTracks, query, limit, found, ranks);
+        if (kinds.contains(Completion.Kind.ALBUM)) fuzzy(Completion.Kind.ALBUM, this.albumIds, this.albums, this.fuzzyAlbums, query, limit, found, ranks);
+        if (kinds.contains(Completion.Kind.ARTIST)) fuzzy(Completion.Kind.ARTIST, this.artistIds, this.artists, this.fuzzyArtists, query, limit, found, ranks);
+        found.sort(Comparator.comparingDouble(ranks::get));
+        return found.size() > limit ? new ArrayList<>(found.subList(0, limit)) : found;
+    }
+
+    private static void fuzzy(Completion.Kind kind, IdRegistry registry, PrefixTrie names, FuzzyIndex fuzzy, String query, int limit,
+                              List<Completion> found, Map<Completion, Double> ranks) {
+        PriorityQueue<double[]> best = new PriorityQueue<>((a, b) -> Double.compare(b[1], a[1]));
+        fuzzy.search(query, names::getName, (key, distance) -> {
+            double rank = distance - POPULARITY * Math.log10(1 + names.getScore(key));
+            if (best.size() == limit && rank >= best.peek()[1]) return;
+            best.add(new double[]{key, rank});
+            if (best.size() > limit) best.poll();
+        });
+        for (double[] next : best) {
+            int key = (int) next[0];
+            Completion completion = new Completion(kind, registry.idOf(key), names.getName(key), names.getScore(key));
+            found.add(completion);
+            ranks.put(completion, next[1]);
+        }
+    }
+
+    private static void put(PrefixTrie names, FuzzyIndex fuzzy, int key, String name, long score) {
+        String before = names.getName(key);
+        if (!Objects.equals(before, name)) {
+            if (before != null) fuzzy.remove(key, before);
+            fuzzy.add(key, name);
+        }
+        names.put(key, name, score);
+    }
+
+    private static void remove(IdRegistry ids, PrefixTrie names, FuzzyIndex fuzzy, int key) {
+        String before = names.getName(key);
+        if (before != null) fuzzy.remove(key, before);
+        names.remove(key);
+        ids.release(ids.idOf(key));
+    }
+
+    /**
+     * Removes a track, dropping the albums linked to its key before the key is reused.
+     */
+    private void removeTrack(int key) {
+        remove(this.trackIds, this.tracks, this.fuzzyTracks, key);
+        if (key < this.albumsByTrack.length) this.albumsByTrack[key] = null;
+    }
+
+    private void linkAlbum(int track, int album) {
+        if (track >= this.albumsByTrack.length) {
+            this.albumsByTrack = Arrays.copyOf(this.albumsByTrack, Math.max(track + 1, this.albumsByTrack.length * 2));
+        }
+        int[] holders = this.albumsByTrack[track];
+        if (holders == null) {
+            this.albumsByTrack[track] = new int[]{album};
+        } else {
+            for (int holder : holders) {
+                if (holder == album) return;
+            }
+            holders = Arrays.copyOf(holders, holders.length + 1);
+            holders[holders.length - 1] = album;
+            this.albumsByTrack[track] = holders;
+        }
+    }
+
+    private void unlinkAlbum(int album, int[] contents) {
+        for (int track : contents) {
+            int[] holders = track < this.albumsByTrack.length ? this.albumsByTrack[track] : null;
+            if (holders == null) continue;
+            int at = 0;
+            while (at < holders.length && holders[at] != album) at++;
+            if (at == holders.length) continue;
+            if (holders.length == 1) {
+                this.albumsByTrack[track] = null;
+            } else {
+                holders[at] = holders[holders.length - 1];
+                this.albumsByTrack[track] = Arrays.copyOf(holders, holders.length - 1);
+            }
+        }
+    }
+
+    private long playsOf(UUID id) {
+        return this.plays.getOrDefault(id, 0);
+    }
+}
@@ -0,0 +1,93 @@
+package spotifum.musics;
+
+import java.util.UUID;
+
+/**
+ * The type Completion.
+ * A track, album or artist name suggested for a prefix or a mistyped query, with the
+ * plays it was ranked by.
+ */
+public class Completion {
+    /**
+     * The enum Kind.
+     */
+    public enum Kind {
+        /**
+         * Track kind.
+         */
+        TRACK,
+        /**
+         * Album kind.
+         */
+        ALBUM,
+        /**
+         * Artist kind.
+         */
+        ARTIST
+    }
+
+    private final Kind kind;
+    private final UUID id;
+    private final String name;
+    private final long plays;
+
+    /**
+     * Instantiates a new Completion.
+     *
+     * @param kind  the kind
+     * @param id    the id of the track, album or artist
+     * @param name  the name
+     * @param plays the plays
+     */
+    public Completion(Kind kind, UUID id, String name, long plays) {
+        this.kind = kind;
+        this.id = id;
+        this.name = name;
+        this.plays = plays;
+    }
+
+    /**
+     * Gets kind.
+     *
+     * @return the kind
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Gets id.
+     *
+     * @return the id
+     */
+    public UUID getId() {
+        return id;
+    }
+
+    /**
+     * Gets name.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets plays.
+     *
+     * @return the plays
+     */
+    public long getPlays() {
+        return plays;
+    }
+
+    /**
+     * Returns a string representation of the completion.
+     *
+     * @return the string
+     */
+    public String toString() {
+        return this.kind.name().toLowerCase() + " " + this.name + " (" + this.plays + " plays)";
+    }
+}
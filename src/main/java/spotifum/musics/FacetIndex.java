@@ -0,0 +1,182 @@
+package spotifum.musics;
+
+import spotifum.musics.types.MultimediaMusic;
+import spotifum.utils.RoaringBitmap;
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * The type Facet index.
+ * A {@link RoaringBitmap} of track keys for every genre, label and duration and for the
+ * explicit and multimedia tracks. A filter is answered by unions and intersections of
+ * those bitmaps, and its facet counts by intersecting the tracks found with each of them,
+ * without visiting the tracks. The facets every track was indexed with are kept by key,
+ * so an edit only moves the track between the bitmaps that changed.
+ */
+class FacetIndex {
+    private final RoaringBitmap all;
+    private final Map<String, Facet> genres;
+    private final Map<String, Facet> labels;
+    private final RoaringBitmap[] durations;
+    private final RoaringBitmap explicit;
+    private final RoaringBitmap multimedia;
+    private String[] genreOf;
+    private String[] labelOf;
+    private MusicFilter.Duration[] durationOf;
+
+    /**
+     * Instantiates a new Facet index.
+     */
+    FacetIndex() {
+        this.all = new RoaringBitmap();
+        this.genres = new HashMap<>();
+        this.labels = new HashMap<>();
+        this.durations = new RoaringBitmap[MusicFilter.Duration.values().length];
+        for (int i = 0; i < this.durations.length; i++) this.durations[i] = new RoaringBitmap();
+        this.explicit = new RoaringBitmap();
+        this.multimedia = new RoaringBitmap();
+        this.genreOf = new String[16];
+        this.labelOf = new String[16];
+        this.durationOf = new MusicFilter.Duration[16];
+    }
+
+    /**
+     * Indexes a track, or moves it to the facets it has now.
+     *
+     * @param key   the track key
+     * @param music the music
+     */
+    void put(int key, Music music) {
+        if (key >= this.genreOf.length) {
+            int length = Math.max(key + 1, this.genreOf.length * 2);
+            this.genreOf = Arrays.copyOf(this.genreOf, length);
+            this.labelOf = Arrays.copyOf(this.labelOf, length);
+            this.durationOf = Arrays.copyOf(this.durationOf, length);
+        }
+        this.all.add(key);
+        this.genreOf[key] = move(this.genres, key, this.genreOf[key], music.getGenre());
+        this.labelOf[key] = move(this.labels, key, this.labelOf[key], music.getLabel());
+        MusicFilter.Duration duration = MusicFilter.Duration.of(music.getDuration());
+        if (this.durationOf[key] != duration) {
+            if (this.durationOf[key] != null) this.durations[this.durationOf[key].ordinal()].remove(key);
+            this.durations[duration.ordinal()].add(key);
+            this.durationOf[key] = duration;
+        }
+        if (MusicFilter.isExplicit(music)) this.explicit.add(key);
+        else this.explicit.remove(key);
+        if (music instanceof MultimediaMusic) this.multimedia.add(key);
+        else this.multimedia.remove(key);
+    }
+
+    /**
+     * Removes a track.
+     *
+     * @param key the track key
+     */
+    void remove(int key) {
+        if (!this.all.remove(key)) return;
+        move(this.genres, key, this.genreOf[key], null);
+        move(this.labels, key, this.labelOf[key], null);
+        this.durations[this.durationOf[key].ordinal()].remove(key);
+        this.explicit.remove(key);
+        this.multimedia.remove(key);
+        this.genreOf[key] = null;
+        this.labelOf[key] = null;
+        this.durationOf[key] = null;
+    }
+
+    /**
+     * Finds the tracks that pass a filter, counting their facets.
+     *
+     * @param filter  the filter
+     * @param matched the keys of the tracks matching the text of the filter, in ascending
+     *                order, or null if it has no text
+     * @param musicOf the catalog instance of a track
+     * @return the result
+     */
+    FacetResult filter(MusicFilter filter, int[] matched, IntFunction<Music> musicOf) {
+        RoaringBitmap found = this.all;
+        if (matched != null) found = found.and(RoaringBitmap.of(matched));
+        if (!filter.getGenres().isEmpty()) found = found.and(union(this.genres, filter.getGenres()));
+        if (!filter.getLabels().isEmpty()) found = found.and(union(this.labels, filter.getLabels()));
+        if (!filter.getDurations().isEmpty()) {
+            RoaringBitmap any = new RoaringBitmap();
+            for (MusicFilter.Duration duration : filter.getDurations()) any = any.or(this.durations[duration.ordinal()]);
+            found = found.and(any);
+        }
+        if (filter.getExplicit() != null) found = filter.getExplicit() ? found.and(this.explicit) : found.andNot(this.explicit);
+        if (filter.getMultimedia() != null) found = filter.getMultimedia() ? found.and(this.multimedia) : found.andNot(this.multimedia);
+
+        Map<MusicFilter.Duration, Integer> durationCounts = new EnumMap<>(MusicFilter.Duration.class);
+        for (MusicFilter.Duration duration : MusicFilter.Duration.values()) {
+            int count = found.andCardinality(this.durations[duration.ordinal()]);
+            if (count > 0) durationCounts.put(duration, count);
+        }
+        List<Music> musics = new ArrayList<>(found.cardinality());
+        found.forEach(key -> musics.add(musicOf.apply(key)));
+        return new FacetResult(musics, counts(this.genres, found), counts(this.labels, found), durationCounts,
+                found.andCardinality(this.explicit), found.andCardinality(this.multimedia));
+    }
+
+    /**
+     * Moves a track from one value of a facet to another.
+     *
+     * @param facets the values of the facet
+     * @param key    the track key
+     * @param before the normalized value it was indexed with, or null
+     * @param name   the value it has now, or null to only remove it
+     * @return the normalized value it is indexed with now
+     */
+    private static String move(Map<String, Facet> facets, int key, String before, String name) {
+        String after = name == null ? null : MusicFilter.normalize(name);
+        if (Objects.equals(before, after)) return after;
+        if (before != null) {
+            Facet facet = facets.get(before);
+            facet.keys.remove(key);
+            if (facet.keys.isEmpty()) facets.remove(before);
+        }
+        if (after != null) {
+            Facet facet = facets.computeIfAbsent(after, k -> new Facet(name));
+            if (name.compareTo(facet.name) < 0) facet.name = name;
+            facet.keys.add(key);
+        }
+        return after;
+    }
+
+    private static RoaringBitmap union(Map<String, Facet> facets, Set<String> values) {
+        RoaringBitmap any = new RoaringBitmap();
+        for (String value : values) {
+            Facet facet = facets.get(value);
+            if (facet != null) any = any.or(facet.keys);
+        }
+        return any;
+    }
+
+    private static Map<String, Integer> counts(Map<String, Facet> facets, RoaringBitmap found) {
+        List<Map.Entry<String, Integer>> counts = new ArrayList<>();
+        for (Facet facet : facets.values()) {
+            int count = found.andCardinality(facet.keys);
+            if (count > 0) counts.add(Map.entry(facet.name, count));
+        }
+        counts.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : counts) result.put(entry.getKey(), entry.getValue());
+        return result;
+    }
+
+    /**
+     * A value of a facet, spelt the lowest of the ways it was indexed with, so the name
+     * does not depend on the order the tracks were indexed in, with the keys of the
+     * tracks that have it.
+     */
+    private static class Facet {
+        private String name;
+        private final RoaringBitmap keys;
+
+        private Facet(String name) {
+            this.name = name;
+            this.keys = new RoaringBitmap();
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package spotifum.musics;
+
+import java.util.*;
+
+/**
+ * The type Facet result.
+ * The tracks that passed a {@link MusicFilter}, with how many of them have each genre,
+ * label and duration and how many are explicit or multimedia.
+ */
+public class FacetResult {
+    private final List<Music> musics;
+    private final Map<String, Integer> genreCounts;
+    private final Map<String, Integer> labelCounts;
+    private final Map<MusicFilter.Duration, Integer> durationCounts;
+    private final int explicitCount;
+    private final int multimediaCount;
+
+    /**
+     * Instantiates a new Facet result.
+     *
+     * @param musics          the musics
+     * @param genreCounts     the tracks by genre
+     * @param labelCounts     the tracks by label
+     * @param durationCounts  the tracks by duration
+     * @param explicitCount   the explicit tracks
+     * @param multimediaCount the multimedia tracks
+     */
+    public FacetResult(List<Music> musics, Map<String, Integer> genreCounts, Map<String, Integer> labelCounts,
+                       Map<MusicFilter.Duration, Integer> durationCounts, int explicitCount, int multimediaCount) {
+        this.musics = musics;
+        this.genreCounts = genreCounts;
+        this.labelCounts = labelCounts;
+        this.durationCounts = durationCounts;
+        this.explicitCount = explicitCount;
+        this.multimediaCount = multimediaCount;
+    }
+
+    /**
+     * Gets musics.
+     *
+     * @return the catalog instances of the musics
+     */
+    public List<Music> getMusics() {
+        return Collections.unmodifiableList(this.musics);
+    }
+
+    /**
+     * Gets genre counts.
+     *
+     * @return the tracks by genre, most first
+     */
+    public Map<String, Integer> getGenreCounts() {
+        return Collections.unmodifiableMap(this.genreCounts);
+    }
+
+    /**
+     * Gets label counts.
+     *
+     * @return the tracks by label, most first
+     */
+    public Map<String, Integer> getLabelCounts() {
+        return Collections.unmodifiableMap(this.labelCounts);
+    }
+
+    /**
+     * Gets duration counts.
+     *
+     * @return the tracks by duration
+     */
+    public Map<MusicFilter.Duration, Integer> getDurationCounts() {
+        return Collections.unmodifiableMap(this.durationCounts);
+    }
+
+    /**
+     * Gets explicit count.
+     *
+     * @return the explicit tracks
+     */
+    public int getExplicitCount() {
+        return this.explicitCount;
+    }
+
+    /**
+     * Gets multimedia count.
+     *
+     * @return the multimedia tracks
+     */
+    public int getMultimediaCount() {
+        return this.multimediaCount;
+    }
+
+    /**
+     * Gets the number of tracks found.
+     *
+     * @return the size
+     */
+    public int size() {
+        return this.musics.size();
+    }
+}
@@ -0,0 +1,400 @@
+package spotifum.musics;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The type Lyrics index.
+ * Full text index over the lyrics of the tracks, in arrays indexed by track key. Words
+ * are folded to lower case without accents and every posting keeps the positions of its
+ * word, so quoted phrases can be matched; tracks are ranked with BM25. Changing the lyrics
+ * of a track appends new postings and leaves the old ones behind, skipped by searches,
+ * until a background compaction drops them.
+ */
+class LyricsIndex {
+    /**
+     * The constant K1.
+     */
+    static final double K1 = 1.2;
+    /**
+     * The constant B.
+     */
+    static final double B = 0.75;
+    /**
+     * Stale postings tolerated before a compaction is scheduled.
+     */
+    static final int COMPACTION_THRESHOLD = 1024;
+    private static final int SNIPPET_WORDS = 6;
+    private static final Pattern PHRASE = Pattern.compile("\"([^\"]*)\"");
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "spotifum-lyrics");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Map<String, Postings> postings;
+    private Music[] musics;
+    private String[] texts;
+    private int[] versions;
+    private int[] lengths;
+    private int[] terms;
+    private int docs;
+    private long totalLength;
+    private long livePostings;
+    private long stalePostings;
+    private boolean compacting;
+
+    /**
+     * Instantiates a new Lyrics index.
+     */
+    LyricsIndex() {
+        this.postings = new HashMap<>();
+        this.musics = new Music[16];
+        this.texts = new String[16];
+        this.versions = new int[16];
+        this.lengths = new int[16];
+        this.terms = new int[16];
+        this.docs = 0;
+        this.totalLength = 0;
+        this.livePostings = 0;
+        this.stalePostings = 0;
+        this.compacting = false;
+    }
+
+    /**
+     * Indexes the lyrics of a track, replacing the ones indexed for it before.
+     * Lyrics that did not change keep their postings.
+     *
+     * @param key   the track key
+     * @param music the music
+     */
+    synchronized void put(int key, Music music) {
+        if (key >= this.musics.length) {
+            int length = Math.max(key + 1, this.musics.length * 2);
+            this.musics = Arrays.copyOf(this.musics, length);
+            this.texts = Arrays.copyOf(this.texts, length);
+            this.versions = Arrays.copyOf(this.versions, length);
+            this.lengths = Arrays.copyOf(this.lengths, length);
+            this.terms = Arrays.copyOf(this.terms, length);
+        }
+        String text = music.getLyrics();
+        if (this.musics[key] != null && Objects.equals(this.texts[key], text)) {
+            this.musics[key] = music;
+            return;
+        }
+        if (this.musics[key] != null) retire(key);
+
+        Map<String, List<Integer>> positions = new LinkedHashMap<>();
+        List<Token> tokens = tokenize(text);
+        for (int i = 0; i < tokens.size(); i++) {
+            positions.computeIfAbsent(tokens.get(i).term, t -> new ArrayList<>()).add(i);
+        }
+        int version = ++this.versions[key];
+        for (Map.Entry<String, List<Integer>> entry : positions.entrySet()) {
+            this.postings.computeIfAbsent(entry.getKey(), t -> new Postings()).add(key, version, entry.getValue());
+        }
+        this.musics[key] = music;
+        this.texts[key] = text;
+        this.lengths[key] = tokens.size();
+        this.terms[key] = positions.size();
+        this.docs++;
+        this.totalLength += tokens.size();
+        this.livePostings += positions.size();
+        scheduleCompaction();
+    }
+
+    /**
+     * Removes the lyrics of a track.
+     *
+     * @param key the track key
+     */
+    synchronized void remove(int key) {
+        if (key >= this.musics.length || this.musics[key] == null) return;
+        retire(key);
+        this.musics[key] = null;
+        this.texts[key] = null;
+        scheduleCompaction();
+    }
+
+    /**
+     * Finds the tracks whose lyrics best match a query, ranked with BM25. Words in double
+     * quotes must appear as a phrase; the other words are optional and only add to the score.
+     *
+     * @param query the query
+     * @param limit the number of tracks wanted
+     * @return the matches, best first
+     */
+    synchronized List<LyricsMatch> search(String query, int limit) {
+        List<List<String>> phrases = new ArrayList<>();
+        Matcher matcher = PHRASE.matcher(query == null ? "" : query);
+        while (matcher.find()) {
+            List<String> phrase = terms(matcher.group(1));
+            if (!phrase.isEmpty()) phrases.add(phrase);
+        }
+        Set<String> words = new LinkedHashSet<>(terms(query == null ? "" : query.replace("\"", " ")));
+        if (words.isEmpty() || limit <= 0 || this.docs == 0) return new ArrayList<>();
+
+        double average = (double) this.totalLength / this.docs;
+        double[] scores = new double[this.musics.length];
+        List<Integer> candidates = new ArrayList<>();
+        for (String word : words) {
+            Postings list = this.postings.get(word);
+            if (list != null) list.score(this.versions, this.lengths, this.docs, average, scores, candidates);
+        }
+        for (List<String> phrase : phrases) {
+            Map<String, Map<Integer, int[]>> hits = new HashMap<>();
+            for (String word : phrase) {
+                Postings list = this.postings.get(word);
+                hits.putIfAbsent(word, list == null ? Collections.emptyMap() : list.live(this.versions));
+            }
+            candidates.removeIf(key -> !hasPhrase(key, phrase, hits));
+        }
+
+        PriorityQueue<double[]> best = new PriorityQueue<>((a, b) -> a[1] != b[1] ? Double.compare(a[1], b[1]) : Double.compare(b[0], a[0]));
+        for (int key : candidates) {
+            if (best.size() == limit && scores[key] <= best.peek()[1]) continue;
+            best.add(new double[]{key, scores[key]});
+            if (best.size() > limit) best.poll();
+        }
+
+        List<LyricsMatch> result = new ArrayList<>();
+        while (!best.isEmpty()) {
+            double[] next = best.poll();
+            int key = (int) next[0];
+            result.add(new LyricsMatch(this.musics[key], next[1], snippet(this.texts[key], words)));
+        }
+        Collections.reverse(result);
+        return result;
+    }
+
+    /**
+     * Gets the number of stale postings left to compact.
+     *
+     * @return the stale postings
+     */
+    synchronized long getStalePostings() {
+        return this.stalePostings;
+    }
+
+    /**
+     * Drops the stale postings, one word at a time so searches are not held for long.
+     */
+    void compact() {
+        List<String> words;
+        synchronized (this) {
+            words = new ArrayList<>(this.postings.keySet());
+        }
+        for (String word : words) {
+            synchronized (this) {
+                Postings list = this.postings.get(word);
+                if (list == null) continue;
+                this.stalePostings -= list.compact(this.versions);
+                if (list.entries == 0) this.postings.remove(word);
+            }
+        }
+    }
+
+    private void retire(int key) {
+        this.versions[key]++;
+        this.docs--;
+        this.totalLength -= this.lengths[key];
+        this.livePostings -= this.terms[key];
+        this.stalePostings += this.terms[key];
+        this.lengths[key] = 0;
+        this.terms[key] = 0;
+    }
+
+    private void scheduleCompaction() {
+        if (this.compacting || this.stalePostings < COMPACTION_THRESHOLD || this.stalePostings < this.livePostings) return;
+        this.compacting = true;
+        COMPACTOR.execute(() -> {
+            try {
+                compact();
+            } finally {
+                synchronized (this) {
+                    this.compacting = false;
+                }
+            }
+        });
+    }
+
+    private static boolean hasPhrase(int key, List<String> phrase, Map<String, Map<Integer, int[]>> hits) {
+        int[] first = hits.get(phrase.get(0)).get(key);
+        if (first == null) return false;
+        for (int start : first) {
+            boolean match = true;
+            for (int i = 1; i < phrase.size() && match; i++) {
+                int[] next = hits.get(phrase.get(i)).get(key);
+                match = next != null && Arrays.binarySearch(next, start + i) >= 0;
+            }
+            if (match) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Gets a few words of lyrics around the first word of the query, with the words of the
+     * query in square brackets.
+     *
+     * @param text  the lyrics
+     * @param words the words of the query
+     * @return the snippet
+     */
+    static String snippet(String text, Set<String> words) {
+        List<Token> tokens = tokenize(text);
+        int first = 0;
+        while (first < tokens.size() && !words.contains(tokens.get(first).term)) first++;
+        if (first == tokens.size()) first = 0;
+        int from = Math.max(0, first - SNIPPET_WORDS);
+        int to = Math.min(tokens.size(), first + SNIPPET_WORDS + 1);
+
+        StringBuilder sb = new StringBuilder();
+        if (from > 0) sb.append("… ");
+        for (int i = from; i < to; i++) {
+            Token token = tokens.get(i);
+            if (i > from) sb.append(' ');
+            String word = text.substring(token.start, token.end);
+            sb.append(words.contains(token.term) ? "[" + word + "]" : word);
+        }
+        if (to < tokens.size()) sb.append(" …");
+        return sb.toString();
+    }
+
+    /**
+     * Gets the folded words of a text.
+     *
+     * @param text the text
+     * @return the words, in order
+     */
+    static List<String> terms(String text) {
+        List<String> terms = new ArrayList<>();
+        for (Token token : tokenize(text)) terms.add(token.term);
+        return terms;
+    }
+
+    private static List<Token> tokenize(String text) {
+        List<Token> tokens = new ArrayList<>();
+        if (text == null) return tokens;
+        int i = 0;
+        while (i < text.length()) {
+            while (i < text.length() && !Character.isLetterOrDigit(text.charAt(i))) i++;
+            int start = i;
+            while (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) i++;
+            if (i > start) tokens.add(new Token(fold(text.substring(start, i)), start, i));
+        }
+        return tokens;
+    }
+
+    private static String fold(String word) {
+        String lower = word.toLowerCase(Locale.ROOT);
+        for (int i = 0; i < lower.length(); i++) {
+            if (lower.charAt(i) >= 128) return Normalizer.normalize(lower, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        }
+        return lower;
+    }
+
+    /**
+     * A word of a text, folded, with where it starts and ends in the text.
+     */
+    private static class Token {
+        private final String term;
+        private final int start;
+        private final int end;
+
+        private Token(String term, int start, int end) {
+            this.term = term;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * The postings of a word, appended as entries of track key, version, frequency and
+     * positions. Entries whose version is not the current version of their track are stale.
+     */
+    private static class Postings {
+        private int[] data = new int[8];
+        private int size = 0;
+        private int entries = 0;
+
+        private void add(int key, int version, List<Integer> positions) {
+            int needed = this.size + 3 + positions.size();
+            if (needed > this.data.length) this.data = Arrays.copyOf(this.data, Math.max(needed, this.data.length * 2));
+            this.data[this.size++] = key;
+            this.data[this.size++] = version;
+            this.data[this.size++] = positions.size();
+            for (int position : positions) this.data[this.size++] = position;
+            this.entries++;
+        }
+
+        /**
+         * Adds the BM25 score of the word to every track whose entry is current.
+         *
+         * @param versions   the current versions by track key
+         * @param lengths    the number of words by track key
+         * @param docs       the number of tracks indexed
+         * @param average    the average number of words of a track
+         * @param scores     the scores by track key
+         * @param candidates the tracks scored so far, extended with the new ones
+         */
+        private void score(int[] versions, int[] lengths, int docs, double average, double[] scores, List<Integer> candidates) {
+            int found = 0;
+            for (int at = 0; at < this.size; at += 3 + this.data[at + 2]) {
+                if (versions[this.data[at]] == this.data[at + 1]) found++;
+            }
+            double idf = Math.log(1 + (docs - found + 0.5) / (found + 0.5));
+            for (int at = 0; at < this.size; at += 3 + this.data[at + 2]) {
+                int key = this.data[at];
+                if (versions[key] != this.data[at + 1]) continue;
+                int frequency = this.data[at + 2];
+                if (scores[key] == 0) candidates.add(key);
+                scores[key] += idf * frequency * (K1 + 1) / (frequency + K1 * (1 - B + B * lengths[key] / average));
+            }
+        }
+
+        /**
+         * Gets the positions of the word in every track whose entry is current.
+         *
+         * @param versions the current versions by track key
+         * @return the positions by track key
+         */
+        private Map<Integer, int[]> live(int[] versions) {
+            Map<Integer, int[]> result = new HashMap<>();
+            for (int at = 0; at < this.size; at += 3 + this.data[at + 2]) {
+                if (versions[this.data[at]] == this.data[at + 1]) {
+                    result.put(this.data[at], Arrays.copyOfRange(this.data, at + 3, at + 3 + this.data[at + 2]));
+                }
+            }
+            return result;
+        }
+
+        /**
+         * Drops the stale entries.
+         *
+         * @param versions the current versions by track key
+         * @return the number of entries dropped
+         */
+        private int compact(int[] versions) {
+            int kept = 0;
+            int dropped = 0;
+            for (int at = 0; at < this.size; ) {
+                int length = 3 + this.data[at + 2];
+                if (versions[this.data[at]] == this.data[at + 1]) {
+                    System.arraycopy(this.data, at, this.data, kept, length);
+                    kept += length;
+                } else {
+                    dropped++;
+                }
+                at += length;
+            }
+            this.size = kept;
+            this.entries -= dropped;
+            if (this.data.length > 16 && this.size < this.data.length / 4) this.data = Arrays.copyOf(this.data, Math.max(8, this.size * 2));
+            return dropped;
+        }
+    }
+}
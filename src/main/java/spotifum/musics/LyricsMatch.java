@@ -0,0 +1,61 @@
+package spotifum.musics;
+
+/**
+ * The type Lyrics match.
+ * A track found by its lyrics, with its BM25 score and a snippet of the lyrics where the
+ * words searched for are in square brackets.
+ */
+public class LyricsMatch {
+    private final Music music;
+    private final double score;
+    private final String snippet;
+
+    /**
+     * Instantiates a new Lyrics match.
+     *
+     * @param music   the music
+     * @param score   the score
+     * @param snippet the snippet
+     */
+    public LyricsMatch(Music music, double score, String snippet) {
+        this.music = music;
+        this.score = score;
+        this.snippet = snippet;
+    }
+
+    /**
+     * Gets music.
+     *
+     * @return the music
+     */
+    public Music getMusic() {
+        return music;
+    }
+
+    /**
+     * Gets score.
+     *
+     * @return the score
+     */
+    public double getScore() {
+        return score;
+    }
+
+    /**
+     * Gets snippet.
+     *
+     * @return the snippet
+     */
+    public String getSnippet() {
+        return snippet;
+    }
+
+    /**
+     * Returns a string representation of the match.
+     *
+     * @return the string
+     */
+    public String toString() {
+        return this.music.getName() + " - " + this.music.getArtist() + ": " + this.snippet;
+    }
+}
@@ -1,12 +1,19 @@
 package spotifum.musics;
 
+import spotifum.utils.Keyed;
+import spotifum.utils.StringPool;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.*;
 
 /**
  * The type Music.
  */
-public class Music implements MusicInterface, Serializable {
+public class Music implements MusicInterface, Serializable, Keyed {
+    private static final long serialVersionUID = 7673668207062909031L;
+
     private final UUID mid;
     private String name;
     private String artist;
@@ -29,15 +36,38 @@ public class Music implements MusicInterface, Serializable {
      */
     public Music(String name, String artist, String label, String lyrics, List<String> music, String genre, int duration) {
         this.name = name;
-        this.artist = artist;
-        this.label = label;
+        this.artist = StringPool.ARTISTS.intern(artist);
+        this.label = StringPool.LABELS.intern(label);
         this.lyrics = lyrics;
-        this.music = music;
-        this.genre = genre;
+        this.music = StringPool.NOTES.internAll(music);
+        this.genre = StringPool.GENRES.intern(genre);
         this.duration = duration;
         this.mid = UUID.randomUUID();
     }
 
+    /**
+     * Instantiates a new Music with a known id.
+     *
+     * @param mid      the mid
+     * @param name     the name
+     * @param artist   the artist
+     * @param label    the label
+     * @param lyrics   the lyrics
+     * @param music    the music
+     * @param genre    the genre
+     * @param duration the duration
+     */
+    public Music(UUID mid, String name, String artist, String label, String lyrics, List<String> music, String genre, int duration) {
+        this.name = name;
+        this.artist = StringPool.ARTISTS.intern(artist);
+        this.label = StringPool.LABELS.intern(label);
+        this.lyrics = lyrics;
+        this.music = StringPool.NOTES.internAll(music);
+        this.genre = StringPool.GENRES.intern(genre);
+        this.duration = duration;
+        this.mid = mid;
+    }
+
     /**
      * Instantiates a new Music.
      *
@@ -83,7 +113,7 @@ public class Music implements MusicInterface, Serializable {
      * @param artist the artist
      */
     public void setArtist(String artist) {
-        this.artist = artist;
+        this.artist = StringPool.ARTISTS.intern(artist);
     }
 
     /**
@@ -92,7 +122,7 @@ public class Music implements MusicInterface, Serializable {
      * @param label the label
      */
     public void setLabel(String label) {
-        this.label = label;
+        this.label = StringPool.LABELS.intern(label);
     }
 
     /**
@@ -110,7 +140,7 @@ public class Music implements MusicInterface, Serializable {
      * @param music the music
      */
     public void setMusic(List<String> music) {
-        this.music = music != null ? new ArrayList<>(music) : new ArrayList<>();
+        this.music = StringPool.NOTES.internAll(music);
     }
 
     /**
@@ -119,7 +149,7 @@ public class Music implements MusicInterface, Serializable {
      * @param genre the genre
      */
     public void setGenre(String genre) {
-        this.genre = genre;
+        this.genre = StringPool.GENRES.intern(genre);
     }
 
     /**
@@ -140,6 +170,16 @@ public class Music implements MusicInterface, Serializable {
         return this.mid;
     }
 
+    /**
+     * Gets the id of the music, the same as its mid.
+     *
+     * @return the id
+     */
+    @Override
+    public UUID getId() {
+        return this.mid;
+    }
+
     /**
      * Get name string.
      *
@@ -278,6 +318,21 @@ public class Music implements MusicInterface, Serializable {
         return result.toString();
     }
 
+    /**
+     * Restores a serialized music, sharing its catalog fields with the musics already loaded.
+     *
+     * @param in the in
+     * @throws IOException            the io exception
+     * @throws ClassNotFoundException the class not found exception
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        this.artist = StringPool.ARTISTS.intern(this.artist);
+        this.label = StringPool.LABELS.intern(this.label);
+        this.genre = StringPool.GENRES.intern(this.genre);
+        this.music = StringPool.NOTES.internAll(this.music);
+    }
+
     /**
      * Creates and returns a copy of this music.
      *
@@ -289,7 +344,8 @@ public class Music implements MusicInterface, Serializable {
 
     /**
      * Compares this music to another object for equality.
-     * Musics are equal if they have the same ID or same properties.
+     * Musics are equal if they have the same ID, so a copy or an edited copy of a track
+     * is the same track, while two tracks that happen to share their properties are not.
      *
      * @param o the object to compare with
      * @return true if equal, false otherwise
@@ -299,13 +355,15 @@ public class Music implements MusicInterface, Serializable {
 
         if (o == null || getClass() != o.getClass()) return false;
 
-        Music musica = (Music) o;
+        return this.mid.equals(((Music) o).getMid());
+    }
 
-        return (this.duration == musica.getDuration() &&
-                this.name.equals(musica.getName()) &&
-                this.artist.equals(musica.getArtist()) &&
-                this.genre.equals(musica.getGenre()) &&
-                this.label.equals(musica.getLabel()) &&
-                this.lyrics.equals(musica.getLyrics())) || this.mid.equals(musica.getMid());
+    /**
+     * Returns a hash code based on the music ID.
+     *
+     * @return the hash code
+     */
+    public int hashCode() {
+        return this.mid.hashCode();
     }
-}
\ No newline at end of file
+}
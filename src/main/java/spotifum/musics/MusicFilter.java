@@ -0,0 +1,240 @@
+package spotifum.musics;
+
+import spotifum.musics.types.ExplicitMusic;
+import spotifum.musics.types.MultimediaMusic;
+
+import java.util.*;
+
+/**
+ * The type Music filter.
+ * Facets a catalog search is narrowed by. Values of the same facet are alternatives, a
+ * track needs one of them; different facets must all hold. Facets left unset, and
+ * genres and labels with no values, do not narrow the search. Genres and labels ignore
+ * case.
+ */
+public class MusicFilter {
+    /**
+     * The enum Duration.
+     */
+    public enum Duration {
+        /**
+         * Under two minutes.
+         */
+        SHORT(0, 120),
+        /**
+         * From two to four minutes.
+         */
+        MEDIUM(120, 240),
+        /**
+         * From four to seven minutes.
+         */
+        LONG(240, 420),
+        /**
+         * Seven minutes or more.
+         */
+        EXTENDED(420, Integer.MAX_VALUE);
+
+        private final int from;
+        private final int to;
+
+        Duration(int from, int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+         * Gets the duration a track falls in.
+         *
+         * @param seconds the duration of the track, in seconds
+         * @return the duration
+         */
+        public static Duration of(int seconds) {
+            for (Duration duration : values()) {
+                if (seconds < duration.to) return duration;
+            }
+            return EXTENDED;
+        }
+
+        /**
+         * Returns a string representation of the duration.
+         *
+         * @return the string
+         */
+        public String toString() {
+            if (this.to == Integer.MAX_VALUE) return this.name().toLowerCase() + " (" + this.from / 60 + "+ min)";
+            return this.name().toLowerCase() + " (" + this.from / 60 + "-" + this.to / 60 + " min)";
+        }
+    }
+
+    private final Set<String> genres;
+    private final Set<String> labels;
+    private final Set<Duration> durations;
+    private Boolean explicit;
+    private Boolean multimedia;
+    private String text;
+
+    /**
+     * Instantiates a new Music filter that matches every track.
+     */
+    public MusicFilter() {
+        this.genres = new HashSet<>();
+        this.labels = new HashSet<>();
+        this.durations = EnumSet.noneOf(Duration.class);
+        this.explicit = null;
+        this.multimedia = null;
+        this.text = null;
+    }
+
+    /**
+     * Adds a genre the track may have.
+     *
+     * @param genre the genre
+     * @return this filter
+     */
+    public MusicFilter genre(String genre) {
+        this.genres.add(normalize(genre));
+        return this;
+    }
+
+    /**
+     * Adds a label the track may be from.
+     *
+     * @param label the label
+     * @return this filter
+     */
+    public MusicFilter label(String label) {
+        this.labels.add(normalize(label));
+        return this;
+    }
+
+    /**
+     * Adds a duration the track may fall in.
+     *
+     * @param duration the duration
+     * @return this filter
+     */
+    public MusicFilter duration(Duration duration) {
+        this.durations.add(duration);
+        return this;
+    }
+
+    /**
+     * Keeps only explicit tracks, or only tracks that are not.
+     *
+     * @param explicit whether the track is explicit
+     * @return this filter
+     */
+    public MusicFilter explicit(boolean explicit) {
+        this.explicit = explicit;
+        return this;
+    }
+
+    /**
+     * Keeps only multimedia tracks, or only tracks that are not.
+     *
+     * @param multimedia whether the track is multimedia
+     * @return this filter
+     */
+    public MusicFilter multimedia(boolean multimedia) {
+        this.multimedia = multimedia;
+        return this;
+    }
+
+    /**
+     * Keeps only tracks whose name contains a text, ignoring case.
+     *
+     * @param text the text
+     * @return this filter
+     */
+    public MusicFilter text(String text) {
+        this.text = text == null || text.isEmpty() ? null : text;
+        return this;
+    }
+
+    /**
+     * Gets genres, in lower case.
+     *
+     * @return the genres
+     */
+    public Set<String> getGenres() {
+        return Collections.unmodifiableSet(this.genres);
+    }
+
+    /**
+     * Gets labels, in lower case.
+     *
+     * @return the labels
+     */
+    public Set<String> getLabels() {
+        return Collections.unmodifiableSet(this.labels);
+    }
+
+    /**
+     * Gets durations.
+     *
+     * @return the durations
+     */
+    public Set<Duration> getDurations() {
+        return Collections.unmodifiableSet(this.durations);
+    }
+
+    /**
+     * Gets explicit.
+     *
+     * @return the explicit, null if not set
+     */
+    public Boolean getExplicit() {
+        return this.explicit;
+    }
+
+    /**
+     * Gets multimedia.
+     *
+     * @return the multimedia, null if not set
+     */
+    public Boolean getMultimedia() {
+        return this.multimedia;
+    }
+
+    /**
+     * Gets text.
+     *
+     * @return the text, null if not set
+     */
+    public String getText() {
+        return this.text;
+    }
+
+    /**
+     * Gets a key that is equal for filters that find the same tracks.
+     *
+     * @return the key
+     */
+    String key() {
+        return String.join("\u0000", new TreeSet<>(this.genres)) + '\u0001' + String.join("\u0000", new TreeSet<>(this.labels))
+                + '\u0001' + this.durations + '\u0001' + this.explicit + '\u0001' + this.multimedia
+                + '\u0001' + (this.text == null ? "" : this.text.toLowerCase());
+    }
+
+    /**
+     * Checks whether a track is explicit: an explicit music, or a multimedia music
+     * flagged as explicit.
+     *
+     * @param music the music
+     * @return true if it is
+     */
+    public static boolean isExplicit(Music music) {
+        if (music instanceof MultimediaMusic multimedia) return multimedia.isExplicit();
+        return music instanceof ExplicitMusic;
+    }
+
+    /**
+     * Normalizes a genre or label for comparison.
+     *
+     * @param name the name
+     * @return the lower case name
+     */
+    static String normalize(String name) {
+        return name == null ? "" : name.trim().toLowerCase();
+    }
+}
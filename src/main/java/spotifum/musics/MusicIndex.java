@@ -0,0 +1,325 @@
+package spotifum.musics;
+
+import spotifum.utils.GramIndex;
+import spotifum.utils.IdRegistry;
+
+import java.util.*;
+import java.util.stream.Stream;
+
+/**
+ * The type Music index.
+ * Holds the catalog instances of the tracks and the artist that owns each one, in
+ * arrays indexed by track key, so finding the artist of a track takes constant time.
+ * The keys come from the {@link IdRegistry} of the index, which takes back the key of a
+ * track removed, so the arrays stay as long as the catalog is large.
+ * On the first search it also builds a {@link GramIndex} over the lower case track names,
+ * on the first lyrics search a {@link LyricsIndex} and on the first filter a
+ * {@link FacetIndex}, and on the first stream the tracks ordered by lower case name and
+ * then id, which is the order tracks are paged in; all of them then follow every change.
+ */
+class MusicIndex {
+    private GramIndex grams;
+    private LyricsIndex lyrics;
+    private FacetIndex facets;
+    private TreeMap<String, Music> order;
+    private String[] orderKeys;
+    private final IdRegistry keys;
+    private final Map<String, Set<Integer>> tracks;
+    private Music[] musics;
+    private String[] names;
+    private String[] owners;
+    private int size;
+
+    /**
+     * Instantiates a new Music index.
+     */
+    MusicIndex() {
+        this.grams = null;
+        this.lyrics = null;
+        this.facets = null;
+        this.order = null;
+        this.orderKeys = new String[16];
+        this.keys = new IdRegistry();
+        this.tracks = new HashMap<>();
+        this.musics = new Music[16];
+        this.names = new String[16];
+        this.owners = new String[16];
+        this.size = 0;
+    }
+
+    /**
+     * Indexes the tracks of an artist, replacing the ones indexed for it before.
+     * Tracks whose name did not change keep their postings.
+     *
+     * @param email  the artist key
+     * @param artist the artist
+     */
+    void putArtist(String email, Artist artist) {
+        Set<Integer> previous = this.tracks.remove(email);
+        Set<Integer> keys = new HashSet<>();
+        for (Music music : artist.getTracks().values()) keys.add(put(email, music));
+        if (previous != null) {
+            for (int key : previous) {
+                if (!keys.contains(key) && email.equals(this.owners[key])) remove(key);
+            }
+        }
+        this.tracks.put(email, keys);
+    }
+
+    /**
+     * Removes the tracks of an artist.
+     *
+     * @param email the artist key
+     */
+    void removeArtist(String email) {
+        Set<Integer> keys = this.tracks.remove(email);
+        if (keys == null) return;
+        for (int key : keys) {
+            if (email.equals(this.owners[key])) remove(key);
+        }
+    }
+
+    /**
+     * Indexes a new track of an artist.
+     *
+     * @param email the artist key
+     * @param music the music
+     */
+    void addMusic(String email, Music music) {
+        int key = put(email, music);
+        this.tracks.computeIfAbsent(email, k -> new HashSet<>()).add(key);
+    }
+
+    /**
+     * Removes a track.
+     *
+     * @param music the music
+     */
+    void removeMusic(Music music) {
+        int key = this.keys.find(music.getMid());
+        if (key == 0) return;
+        Set<Integer> keys = this.tracks.get(this.owners[key]);
+        if (keys != null) keys.remove(key);
+        remove(key);
+    }
+
+    /**
+     * Gets the artist that owns a track.
+     *
+     * @param music the music
+     * @return the artist key, or null if the track is not indexed
+     */
+    String ownerOf(Music music) {
+        return ownerOf(this.keys.find(music.getMid()));
+    }
+
+    /**
+     * Gets the key of a track.
+     *
+     * @param mid the track id
+     * @return the track key, or 0 if the track is not indexed
+     */
+    int keyOf(UUID mid) {
+        return this.keys.find(mid);
+    }
+
+    /**
+     * Gets the artist that owns a track.
+     *
+     * @param key the track key
+     * @return the artist key, or null if the track is not indexed
+     */
+    String ownerOf(int key) {
+        return key > 0 && key < this.owners.length ? this.owners[key] : null;
+    }
+
+    /**
+     * Gets the catalog instance of a track.
+     *
+     * @param key the track key
+     * @return the music, or null if the track is not indexed
+     */
+    Music music(int key) {
+        return key > 0 && key < this.musics.length ? this.musics[key] : null;
+    }
+
+    /**
+     * Gets the number of tracks indexed.
+     *
+     * @return the size
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * Finds the tracks whose lower case name contains the lower case query.
+     *
+     * @param query the query
+     * @return the catalog instances of the tracks
+     */
+    List<Music> search(String query) {
+        List<Music> result = new ArrayList<>();
+        for (int key : searchKeys(query)) result.add(this.musics[key]);
+        return result;
+    }
+
+    /**
+     * Finds the keys of the tracks whose lower case name contains the lower case query.
+     *
+     * @param query the query
+     * @return the track keys, in ascending order
+     */
+    int[] searchKeys(String query) {
+        if (this.grams == null) buildGrams();
+        String text = normalize(query);
+        if (!text.isEmpty()) return this.grams.search(text, key -> this.names[key]);
+        int[] keys = new int[this.size];
+        int found = 0;
+        for (int key = 1; key < this.musics.length; key++) {
+            if (this.musics[key] != null) keys[found++] = key;
+        }
+        return found == keys.length ? keys : Arrays.copyOf(keys, found);
+    }
+
+    /**
+     * Streams the tracks whose lower case name contains the lower case query, by lower
+     * case name and then id, from the first one after a position. Without a query the
+     * tracks are read straight off the order; with one only the matches after the
+     * position are ordered, through a heap, so a page costs the matches and not the catalog.
+     *
+     * @param query the query
+     * @param name  the lower case name of the track to start after, or null to start at the first
+     * @param mid   the id of the track to start after
+     * @return the catalog instances of the tracks
+     */
+    Stream<Music> stream(String query, String name, UUID mid) {
+        if (this.order == null) buildOrder();
+        String from = name == null ? null : orderKey(name, mid);
+        String text = normalize(query);
+        if (text.isEmpty()) return (from == null ? this.order : this.order.tailMap(from, false)).values().stream();
+        List<String> after = new ArrayList<>();
+        for (int key : searchKeys(text)) {
+            if (from == null || this.orderKeys[key].compareTo(from) > 0) after.add(this.orderKeys[key]);
+        }
+        PriorityQueue<String> matches = new PriorityQueue<>(after);
+        return Stream.generate(matches::poll).takeWhile(Objects::nonNull).map(this.order::get);
+    }
+
+    /**
+     * Finds the tracks whose lyrics best match a query.
+     *
+     * @param query the query
+     * @param limit the number of tracks wanted
+     * @return the matches, best first
+     */
+    List<LyricsMatch> searchLyrics(String query, int limit) {
+        if (this.lyrics == null) {
+            LyricsIndex built = new LyricsIndex();
+            for (int key = 1; key < this.musics.length; key++) {
+                if (this.musics[key] != null) built.put(key, this.musics[key]);
+            }
+            this.lyrics = built;
+        }
+        return this.lyrics.search(query, limit);
+    }
+
+    /**
+     * Finds the tracks that pass a filter, counting their facets.
+     *
+     * @param filter the filter
+     * @return the result
+     */
+    FacetResult filter(MusicFilter filter) {
+        if (this.facets == null) {
+            FacetIndex built = new FacetIndex();
+            for (int key = 1; key < this.musics.length; key++) {
+                if (this.musics[key] != null) built.put(key, this.musics[key]);
+            }
+            this.facets = built;
+        }
+        int[] matched = null;
+        if (filter.getText() != null) {
+            matched = searchKeys(filter.getText());
+        }
+        return this.facets.filter(filter, matched, key -> this.musics[key]);
+    }
+
+    private int put(String email, Music music) {
+        int key = this.keys.keyOf(music.getMid());
+        if (key >= this.musics.length) {
+            int length = Math.max(key + 1, this.musics.length * 2);
+            this.musics = Arrays.copyOf(this.musics, length);
+            this.names = Arrays.copyOf(this.names, length);
+            this.owners = Arrays.copyOf(this.owners, length);
+            this.orderKeys = Arrays.copyOf(this.orderKeys, length);
+        }
+        if (this.musics[key] == null) this.size++;
+        if (this.grams != null) {
+            String name = normalize(music.getName());
+            if (this.names[key] == null) {
+                this.grams.add(key, name);
+            } else if (!this.names[key].equals(name)) {
+                this.grams.remove(key, this.names[key]);
+                this.grams.add(key, name);
+            }
+            this.names[key] = name;
+        }
+        if (this.lyrics != null) this.lyrics.put(key, music);
+        if (this.facets != null) this.facets.put(key, music);
+        if (this.order != null) {
+            String orderKey = orderKey(normalize(music.getName()), music.getMid());
+            if (this.orderKeys[key] != null && !this.orderKeys[key].equals(orderKey)) this.order.remove(this.orderKeys[key]);
+            this.order.put(orderKey, music);
+            this.orderKeys[key] = orderKey;
+        }
+        this.musics[key] = music;
+        this.owners[key] = email;
+        return key;
+    }
+
+    private void remove(int key) {
+        if (this.grams != null) this.grams.remove(key, this.names[key]);
+        if (this.lyrics != null) this.lyrics.remove(key);
+        if (this.facets != null) this.facets.remove(key);
+        if (this.order != null) this.order.remove(this.orderKeys[key]);
+        this.orderKeys[key] = null;
+        this.keys.release(this.musics[key].getMid());
+        this.musics[key] = null;
+        this.names[key] = null;
+        this.owners[key] = null;
+        this.size--;
+    }
+
+    private void buildGrams() {
+        GramIndex built = new GramIndex();
+        for (int key = 1; key < this.musics.length; key++) {
+            if (this.musics[key] == null) continue;
+            this.names[key] = normalize(this.musics[key].getName());
+            built.add(key, this.names[key]);
+        }
+        this.grams = built;
+    }
+
+    private void buildOrder() {
+        TreeMap<String, Music> built = new TreeMap<>();
+        for (int key = 1; key < this.musics.length; key++) {
+            if (this.musics[key] == null) continue;
+            this.orderKeys[key] = orderKey(normalize(this.musics[key].getName()), this.musics[key].getMid());
+            built.put(this.orderKeys[key], this.musics[key]);
+        }
+        this.order = built;
+    }
+
+    /**
+     * Gets the key a track is ordered by: its lower case name, then its id. The separator
+     * sorts below every character, so a name comes before the longer names it starts.
+     */
+    private static String orderKey(String name, UUID mid) {
+        return name + '\0' + mid;
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.toLowerCase();
+    }
+}
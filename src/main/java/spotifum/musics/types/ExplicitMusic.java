@@ -8,6 +8,8 @@ import java.io.Serializable;
  * The type Explicit music.
  */
 public class ExplicitMusic extends Music implements Serializable, ExplicitMusicInterface {
+    private static final long serialVersionUID = -7602811962021357861L;
+
     /**
      * Instantiates a new Explicit music.
      *
@@ -19,7 +21,7 @@ public class ExplicitMusic extends Music implements Serializable, ExplicitMusicI
 
     /**
      * Compares this explicit music to another object for equality.
-     * Two explicit musics are equal if they have the same explicit flag value.
+     * Two explicit musics are equal if they are the same track, see {@link Music#equals(Object)}.
      *
      * @param o the object to compare with
      * @return true if the objects are equal, false otherwise
@@ -28,7 +30,6 @@ public class ExplicitMusic extends Music implements Serializable, ExplicitMusicI
         if  (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
 
-        ExplicitMusic that = (ExplicitMusic) o;
-        return that.equals(this);
+        return super.equals(o);
     }
 }
@@ -5,6 +5,8 @@ import spotifum.musics.*;
 import java.io.Serializable;
 
 public class MultimediaMusic extends Music implements Serializable, ExplicitMusicInterface {
+    private static final long serialVersionUID = -2039995815858169374L;
+
     private boolean explicit;
     private String video;
 
@@ -14,11 +16,18 @@ public class MultimediaMusic extends Music implements Serializable, ExplicitMusi
         this.video = video;
     }
 
+    public boolean isExplicit() {
+        return this.explicit;
+    }
+
+    public String getVideo() {
+        return this.video;
+    }
+
     public boolean equals(Object o) {
         if  (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
 
-        MultimediaMusic that = (MultimediaMusic) o;
-        return that.equals(this);
+        return super.equals(o);
     }
 }
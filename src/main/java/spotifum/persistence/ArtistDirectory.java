@@ -0,0 +1,129 @@
+package spotifum.persistence;
+
+import spotifum.musics.Artist;
+import spotifum.musics.Music;
+
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * The type Artist directory.
+ * Index of an artist catalog that stays in a (memory-mapped) {@link BinarySnapshot}.
+ * Besides the artists, the sorted ids and offsets of the tracks are kept, so a single
+ * track can be decoded without its artist, and its artist found without decoding either,
+ * as the artist whose record starts last before the track.
+ */
+public class ArtistDirectory extends RecordDirectory<Artist> {
+    private final Map<String, Integer> offsets;
+    private final Map<UUID, String> emails;
+    private final long[] mostSignificant;
+    private final long[] leastSignificant;
+    private final int[] trackOffsets;
+    private final int[] starts;
+    private final String[] owners;
+
+    /**
+     * Instantiates a new Artist directory.
+     *
+     * @param reader           the reader over the snapshot
+     * @param start            the position of the artist records
+     * @param emails           the artist emails
+     * @param ids              the artist ids
+     * @param offsets          the artist record offsets
+     * @param mostSignificant  the sorted track ids, most significant bits
+     * @param leastSignificant the sorted track ids, least significant bits
+     * @param trackOffsets     the track offsets
+     */
+    ArtistDirectory(SnapshotReader reader, int start, String[] emails, UUID[] ids, int[] offsets,
+                    long[] mostSignificant, long[] leastSignificant, int[] trackOffsets) {
+        super(reader, start);
+        this.offsets = new HashMap<>();
+        this.emails = new HashMap<>();
+        for (int i = 0; i < emails.length; i++) {
+            this.offsets.put(emails[i], offsets[i]);
+            this.emails.put(ids[i], emails[i]);
+        }
+        this.mostSignificant = mostSignificant;
+        this.leastSignificant = leastSignificant;
+        this.trackOffsets = trackOffsets;
+
+        Integer[] order = new Integer[emails.length];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingInt(i -> offsets[i]));
+        this.starts = new int[order.length];
+        this.owners = new String[order.length];
+        for (int i = 0; i < order.length; i++) {
+            this.starts[i] = offsets[order[i]];
+            this.owners[i] = emails[order[i]];
+        }
+    }
+
+    @Override
+    protected Artist decode(int position) throws IOException {
+        return this.reader.readArtistAt(position);
+    }
+
+    @Override
+    protected int offsetOf(String email) {
+        Integer offset = this.offsets.get(email);
+        return offset == null ? -1 : offset;
+    }
+
+    @Override
+    protected String emailOf(UUID id) {
+        return this.emails.get(id);
+    }
+
+    @Override
+    protected Collection<String> emails() {
+        return this.offsets.keySet();
+    }
+
+    @Override
+    protected int size() {
+        return this.offsets.size();
+    }
+
+    /**
+     * Decodes a single catalog track, without decoding the rest of its artist.
+     *
+     * @param mid the mid
+     * @return the music, or null if it is not in the catalog
+     * @throws IOException the io exception
+     */
+    Music loadTrack(UUID mid) throws IOException {
+        int track = trackIndex(mid);
+        return track < 0 ? null : this.reader.readMusicAt(this.start + this.trackOffsets[track]);
+    }
+
+    /**
+     * Gets the email the artist of a catalog track had in the snapshot, without decoding
+     * anything. The artist may have been decoded, renamed or removed since.
+     *
+     * @param mid the mid
+     * @return the email, or null if the track is not in the catalog
+     */
+    public String ownerOf(UUID mid) {
+        int track = trackIndex(mid);
+        if (track < 0) return null;
+        int at = Arrays.binarySearch(this.starts, this.trackOffsets[track]);
+        if (at < 0) at = -at - 2;
+        return at < 0 ? null : this.owners[at];
+    }
+
+    private int trackIndex(UUID mid) {
+        long msb = mid.getMostSignificantBits();
+        long lsb = mid.getLeastSignificantBits();
+        int low = 0;
+        int high = this.trackOffsets.length - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int cmp = Long.compare(this.mostSignificant[middle], msb);
+            if (cmp == 0) cmp = Long.compare(this.leastSignificant[middle], lsb);
+            if (cmp < 0) low = middle + 1;
+            else if (cmp > 0) high = middle - 1;
+            else return middle;
+        }
+        return -1;
+    }
+}
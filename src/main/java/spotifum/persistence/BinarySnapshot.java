@@ -0,0 +1,186 @@
+package spotifum.persistence;
+
+import spotifum.musics.ArtistManager;
+import spotifum.musics.Music;
+import spotifum.statistics.StatisticsManager;
+import spotifum.users.UserManager;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The type Binary snapshot.
+ * Compact replacement for the Java serialization dump of the application state.
+ * The file starts with a magic number, the format version and the checkpoint
+ * generation, followed by a string table and one length-prefixed section for the
+ * artists (which own the music catalog), the users, the statistics and the session.
+ * Tracks in albums, playlists and statistics are stored as catalog ids.
+ * Since version 2 the artist section starts with a directory of offsets, so a snapshot
+ * opened through a memory-mapped file only decodes the artists a session touches.
+ * Since version 3 every user is a partition of its own, found through a directory of
+ * offsets, and the statistics section is only decoded when the statistics are first used,
+ * so opening a snapshot and logging in one user does not depend on how many users exist.
+ * Since version 4 the statistics section ends with the distinct listener sketches, and
+ * since version 5 with the plays of every day. Since version 6 premium playlists keep their
+ * shuffle mode and navigation history, and since version 7 the play counts of tracks and
+ * artists start with their Count-Min sketch. Since version 8 the play counts of tracks, artists
+ * and genres start with the mode of their most played list. Since version 9 the user section
+ * ends with a directory of every playlist, by user, with its id, name if public and tracks, so public playlists are browsed and tracks removed without decoding every user.
+ */
+public class BinarySnapshot {
+    /**
+     * The constant MAGIC.
+     */
+    public static final int MAGIC = 0x53505542;
+    /**
+     * The constant VERSION.
+     */
+    public static final short VERSION = 9;
+
+    private final long generation;
+    private final UserManager usermanager;
+    private final ArtistManager artistmanager;
+    private final StatisticsManager statisticsManager;
+    private final Music previousPlayingMusic;
+
+    /**
+     * Instantiates a new Binary snapshot.
+     *
+     * @param generation           the generation
+     * @param usermanager          the usermanager
+     * @param artistmanager        the artistmanager
+     * @param statisticsManager    the statistics manager
+     * @param previousPlayingMusic the previous playing music
+     */
+    public BinarySnapshot(long generation, UserManager usermanager, ArtistManager artistmanager,
+                          StatisticsManager statisticsManager, Music previousPlayingMusic) {
+        this.generation = generation;
+        this.usermanager = usermanager;
+        this.artistmanager = artistmanager;
+        this.statisticsManager = statisticsManager;
+        this.previousPlayingMusic = previousPlayingMusic;
+    }
+
+    /**
+     * Encodes the snapshot to the given stream.
+     *
+     * @param target the target
+     * @throws IOException the io exception
+     */
+    public void writeTo(OutputStream target) throws IOException {
+        SnapshotWriter out = new SnapshotWriter();
+        out.writeRecord(() -> this.artistmanager.writeTo(out));
+        out.writeRecord(() -> this.usermanager.writeTo(out));
+        out.writeRecord(() -> this.statisticsManager.writeTo(out));
+        out.writeRecord(() -> out.writeMusicRef(this.previousPlayingMusic));
+
+        DataOutputStream data = new DataOutputStream(target);
+        data.writeInt(MAGIC);
+        data.writeShort(VERSION);
+        data.writeLong(this.generation);
+        out.writeTo(data);
+        data.flush();
+    }
+
+    /**
+     * Reads a snapshot from the given file, which is mapped into memory rather than read.
+     *
+     * @param fileName the file name
+     * @return the binary snapshot
+     * @throws IOException the io exception
+     */
+    public static BinarySnapshot read(String fileName) throws IOException {
+        try (FileChannel channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Decodes a snapshot from the given buffer.
+     *
+     * @param buffer the buffer
+     * @return the binary snapshot
+     * @throws IOException the io exception
+     */
+    public static BinarySnapshot read(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 14 || buffer.getInt() != MAGIC) {
+            throw new IOException("not a binary snapshot");
+        }
+        short version = buffer.getShort();
+        if (version < 1 || version > VERSION) {
+            throw new IOException("unsupported snapshot version " + version);
+        }
+        long generation = buffer.getLong();
+
+        SnapshotReader in = new SnapshotReader(buffer, version);
+        UserManager usermanager = new UserManager();
+        ArtistManager artistmanager = new ArtistManager();
+        StatisticsManager statisticsManager = new StatisticsManager(usermanager, artistmanager);
+
+        in.readRecordLength();
+        if (version == 1) artistmanager.readFrom(in);
+        else artistmanager.setDirectory(in.readArtistCatalog());
+        in.readRecordLength();
+        if (version < 3) usermanager.readFrom(in);
+        else usermanager.setDirectory(in.readUserDirectory());
+        if (version >= 9) usermanager.setPlaylistDirectory(in.readSegment());
+        if (version < 3) {
+            in.readRecordLength();
+            statisticsManager.readFrom(in);
+        } else {
+            statisticsManager.setSegment(in.readSegment());
+        }
+        in.readRecordLength();
+        Music previousPlayingMusic = in.readMusicRef();
+
+        return new BinarySnapshot(generation, usermanager, artistmanager, statisticsManager, previousPlayingMusic);
+    }
+
+    /**
+     * Gets generation.
+     *
+     * @return the generation
+     */
+    public long getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Gets usermanager.
+     *
+     * @return the usermanager
+     */
+    public UserManager getUsermanager() {
+        return usermanager;
+    }
+
+    /**
+     * Gets artistmanager.
+     *
+     * @return the artistmanager
+     */
+    public ArtistManager getArtistmanager() {
+        return artistmanager;
+    }
+
+    /**
+     * Gets statistics manager.
+     *
+     * @return the statistics manager
+     */
+    public StatisticsManager getStatisticsManager() {
+        return statisticsManager;
+    }
+
+    /**
+     * Gets previous playing music.
+     *
+     * @return the previous playing music
+     */
+    public Music getPreviousPlayingMusic() {
+        return previousPlayingMusic;
+    }
+}
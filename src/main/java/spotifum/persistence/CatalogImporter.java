@@ -0,0 +1,379 @@
+package spotifum.persistence;
+
+import spotifum.exceptions.EntityAlreadyExistsException;
+import spotifum.exceptions.EntityNotFoundException;
+import spotifum.musics.Album;
+import spotifum.musics.Artist;
+import spotifum.musics.ArtistManager;
+import spotifum.musics.Music;
+import spotifum.musics.types.ExplicitMusic;
+import spotifum.musics.types.MultimediaMusic;
+import spotifum.users.*;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.*;
+import java.util.function.Consumer;
+
+import static spotifum.utils.ValidEmail.isValidEmail;
+
+/**
+ * The type Catalog importer.
+ * Streams a CSV or JSON Lines file into the artist and user managers, one record at a time,
+ * so the file is never held in memory. Every record has a {@code kind}:
+ * <ul>
+ *     <li>{@code artist}: email, username</li>
+ *     <li>{@code track}: artist (email), name, genre, duration, and optionally label, lyrics,
+ *     partiture, explicit, video (makes it a multimedia track) and album (the album of the
+ *     artist the track is added to, created if needed)</li>
+ *     <li>{@code album}: artist (email), name</li>
+ *     <li>{@code user}: email, username, and optionally address and plan (Free, PremiumBase or PremiumTop)</li>
+ * </ul>
+ * Artists and users that already exist, and tracks whose name the artist already has, are
+ * skipped as duplicates. Records are applied right away, so later records may refer to
+ * earlier ones. New artists and tracks are journaled on their own as they are imported, so
+ * the journal grows with the records and not with the size of the artists; albums are
+ * assembled and journaled, with the new users, once per batch.
+ */
+public class CatalogImporter {
+    /**
+     * The constant DEFAULT_BATCH_SIZE.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 1000;
+
+    private final UserManager userManager;
+    private final ArtistManager artistManager;
+    private final Consumer<JournalEntry> journal;
+    private final int batchSize;
+    private final Map<String, User> touchedUsers;
+    private final Map<String, Set<String>> trackNames;
+    private final Map<String, Map<String, AlbumDraft>> albums;
+    private final Set<AlbumDraft> changedAlbums;
+    private ImportReport report;
+    private int pending;
+
+    /**
+     * Instantiates a new Catalog importer.
+     *
+     * @param userManager   the user manager
+     * @param artistManager the artist manager
+     * @param journal       receives an entry for every artist, track, album and user created or changed
+     * @param batchSize     the number of records per batch
+     */
+    public CatalogImporter(UserManager userManager, ArtistManager artistManager, Consumer<JournalEntry> journal, int batchSize) {
+        if (batchSize <= 0) throw new IllegalArgumentException("batch size must be positive");
+        this.userManager = userManager;
+        this.artistManager = artistManager;
+        this.journal = journal;
+        this.batchSize = batchSize;
+        this.touchedUsers = new LinkedHashMap<>();
+        this.trackNames = new HashMap<>();
+        this.albums = new HashMap<>();
+        this.changedAlbums = new LinkedHashSet<>();
+    }
+
+    /**
+     * Imports a file, choosing the format by its extension: .csv, or .jsonl / .ndjson.
+     *
+     * @param fileName the file name
+     * @return the import report
+     * @throws IOException the io exception
+     */
+    public ImportReport importFile(String fileName) throws IOException {
+        String lower = fileName.toLowerCase();
+        boolean csv = lower.endsWith(".csv");
+        if (!csv && !lower.endsWith(".jsonl") && !lower.endsWith(".ndjson")) {
+            throw new IOException("unknown import format '" + fileName + "', expected .csv or .jsonl");
+        }
+        try (BufferedReader in = Files.newBufferedReader(Paths.get(fileName), StandardCharsets.UTF_8)) {
+            return csv ? importCsv(in) : importJsonLines(in);
+        }
+    }
+
+    /**
+     * Imports CSV records. The first line names the columns.
+     *
+     * @param in the in
+     * @return the import report
+     * @throws IOException the io exception
+     */
+    public ImportReport importCsv(BufferedReader in) throws IOException {
+        long start = begin();
+        int[] line = {0};
+        List<String> header = ImportRow.readCsvRecord(in, line);
+        if (header != null) {
+            for (int i = 0; i < header.size(); i++) {
+                header.set(i, header.get(i).replace("\uFEFF", "").trim().toLowerCase());
+            }
+            while (true) {
+                int first = line[0] + 1;
+                List<String> values = ImportRow.readCsvRecord(in, line);
+                if (values == null) break;
+                if (values.size() == 1 && values.get(0).isBlank()) continue;
+                this.report.addRow();
+                try {
+                    apply(ImportRow.ofCsv(first, header, values));
+                } catch (IllegalArgumentException | EntityNotFoundException | EntityAlreadyExistsException e) {
+                    this.report.reject(first, e.getMessage());
+                }
+            }
+        }
+        return end(start);
+    }
+
+    /**
+     * Imports JSON Lines records, one flat object per line.
+     *
+     * @param in the in
+     * @return the import report
+     * @throws IOException the io exception
+     */
+    public ImportReport importJsonLines(BufferedReader in) throws IOException {
+        long start = begin();
+        int line = 0;
+        String text;
+        while ((text = in.readLine()) != null) {
+            line++;
+            if (text.isBlank()) continue;
+            this.report.addRow();
+            try {
+                apply(ImportRow.ofJson(line, text));
+            } catch (IllegalArgumentException | EntityNotFoundException | EntityAlreadyExistsException e) {
+                this.report.reject(line, e.getMessage());
+            }
+        }
+        return end(start);
+    }
+
+    private long begin() {
+        this.report = new ImportReport();
+        this.pending = 0;
+        return System.nanoTime();
+    }
+
+    private ImportReport end(long start) {
+        flush();
+        this.trackNames.clear();
+        this.albums.clear();
+        this.report.setElapsedNanos(System.nanoTime() - start);
+        return this.report;
+    }
+
+    /**
+     * Applies a record, flushing the batch when it is full.
+     *
+     * @param row the row
+     */
+    private void apply(ImportRow row) {
+        String kind = row.require("kind").toLowerCase();
+        switch (kind) {
+            case "artist":
+                importArtist(row);
+                break;
+            case "user":
+                importUser(row);
+                break;
+            case "track":
+            case "music":
+                importTrack(row);
+                break;
+            case "album":
+                importAlbum(row);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown kind '" + kind + "'");
+        }
+        if (++this.pending >= this.batchSize) flush();
+    }
+
+    private String email(ImportRow row, String field) {
+        String email = row.require(field).toLowerCase();
+        if (!isValidEmail(email)) throw new IllegalArgumentException("invalid " + field + " '" + email + "'");
+        return email;
+    }
+
+    private Artist artist(String email) {
+        if (!this.artistManager.existArtistWithEmail(email)) throw new IllegalArgumentException("unknown artist '" + email + "'");
+        return this.artistManager.getArtist(email);
+    }
+
+    private void importArtist(ImportRow row) {
+        String email = email(row, "email");
+        String username = row.require("username");
+        if (this.artistManager.existArtistWithEmail(email)) {
+            this.report.addDuplicate();
+            return;
+        }
+        Artist artist = this.artistManager.createArtist(email, username);
+        this.artistManager.insertArtist(artist);
+        this.journal.accept(JournalEntry.artistPut(artist));
+        this.report.addArtist();
+    }
+
+    private void importUser(ImportRow row) {
+        String email = email(row, "email");
+        String username = row.require("username");
+        String address = row.get("address");
+        SubscriptionPlans plan = plan(row.get("plan"));
+        if (this.userManager.existUserWithEmail(email)) {
+            this.report.addDuplicate();
+            return;
+        }
+
+        User user;
+        if (plan == SubscriptionPlans.PremiumTop) user = new PremiumTopUser(email, username);
+        else if (plan == SubscriptionPlans.PremiumBase) user = new PremiumBaseUser(email, username);
+        else user = new FreeUser(email, username);
+        if (address != null) user.setAddress(address);
+        this.userManager.insertUser(user);
+        this.touchedUsers.put(email, user);
+        this.report.addUser();
+    }
+
+    private static SubscriptionPlans plan(String name) {
+        if (name == null) return SubscriptionPlans.Free;
+        String key = name.replace(" ", "").replace("_", "");
+        for (SubscriptionPlans plan : SubscriptionPlans.values()) {
+            if (plan.name().equalsIgnoreCase(key)) return plan;
+        }
+        throw new IllegalArgumentException("unknown plan '" + name + "'");
+    }
+
+    private void importTrack(ImportRow row) {
+        String email = row.require("artist").toLowerCase();
+        Artist artist = artist(email);
+        String name = row.require("name");
+        String genre = row.require("genre");
+        int duration;
+        try {
+            duration = Integer.parseInt(row.require("duration"));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("bad duration '" + row.get("duration") + "'");
+        }
+        if (duration <= 0) throw new IllegalArgumentException("bad duration '" + duration + "'");
+        boolean explicit = row.getBoolean("explicit");
+        String video = row.get("video");
+        String album = row.get("album");
+
+        if (!trackNames(email, artist).add(name.toLowerCase())) {
+            this.report.addDuplicate();
+            return;
+        }
+        Music music = new Music(name, artist.getUsername(), orEmpty(row.get("label")), orEmpty(row.get("lyrics")),
+                row.getList("partiture"), genre, duration);
+        if (video != null) music = new MultimediaMusic(music, explicit, video);
+        else if (explicit) music = new ExplicitMusic(music);
+
+        this.artistManager.addMusic(artist, music);
+        this.journal.accept(JournalEntry.musicPut(email, music));
+        this.report.addTrack();
+        if (album != null) album(email, artist, album).add(music);
+    }
+
+    private void importAlbum(ImportRow row) {
+        String email = row.require("artist").toLowerCase();
+        Artist artist = artist(email);
+        album(email, artist, row.require("name"));
+    }
+
+    private static String orEmpty(String value) {
+        return value == null ? "" : value;
+    }
+
+    /**
+     * Gets the lower case names of the tracks of an artist, read from the catalog once per import.
+     *
+     * @param email  the email
+     * @param artist the artist
+     * @return the track names
+     */
+    private Set<String> trackNames(String email, Artist artist) {
+        Set<String> names = this.trackNames.get(email);
+        if (names == null) {
+            names = new HashSet<>();
+            for (Music music : artist.getTracks().values()) names.add(music.getName().toLowerCase());
+            this.trackNames.put(email, names);
+        }
+        return names;
+    }
+
+    /**
+     * Gets the album of an artist a record refers to, creating it if the artist does not have it.
+     * The albums of an artist are read from the catalog once per import.
+     *
+     * @param email  the email
+     * @param artist the artist
+     * @param name   the album name
+     * @return the album draft
+     */
+    private AlbumDraft album(String email, Artist artist, String name) {
+        Map<String, AlbumDraft> drafts = this.albums.get(email);
+        if (drafts == null) {
+            drafts = new HashMap<>();
+            Map<UUID, Music> catalog = artist.getTracks();
+            for (Album album : artist.getAlbums().values()) {
+                AlbumDraft draft = new AlbumDraft(artist, album.getAlbumId(), album.getName(), album.getCreator());
+                for (Music music : album.getMusics()) draft.add(catalog.getOrDefault(music.getMid(), music));
+                drafts.putIfAbsent(album.getName().toLowerCase(), draft);
+            }
+            this.albums.put(email, drafts);
+        }
+
+        AlbumDraft draft = drafts.get(name.toLowerCase());
+        if (draft == null) {
+            draft = new AlbumDraft(artist, UUID.randomUUID(), name, artist.getUsername());
+            drafts.put(name.toLowerCase(), draft);
+            this.report.addAlbum();
+        }
+        this.changedAlbums.add(draft);
+        return draft;
+    }
+
+    /**
+     * Stores the albums the batch changed in their artists and journals them, with every
+     * user the batch created.
+     */
+    private void flush() {
+        for (AlbumDraft draft : this.changedAlbums) {
+            Album album = new Album(draft.id, draft.name, draft.creator, draft.musics);
+            draft.artist.updateAlbum(album);
+            this.journal.accept(JournalEntry.albumPut(draft.artist.getEmail(), album));
+        }
+        this.changedAlbums.clear();
+
+        if (this.pending == 0 && this.touchedUsers.isEmpty()) return;
+        for (User user : this.touchedUsers.values()) this.journal.accept(JournalEntry.userPut(user));
+        this.touchedUsers.clear();
+        this.pending = 0;
+        this.report.addBatch();
+    }
+
+    /**
+     * The tracks of an album being imported, kept across batches so they are not copied
+     * out of the artist every time.
+     */
+    private static class AlbumDraft {
+        private final Artist artist;
+        private final UUID id;
+        private final String name;
+        private final String creator;
+        private final List<Music> musics;
+        private final Set<UUID> ids;
+
+        private AlbumDraft(Artist artist, UUID id, String name, String creator) {
+            this.artist = artist;
+            this.id = id;
+            this.name = name;
+            this.creator = creator;
+            this.musics = new ArrayList<>();
+            this.ids = new HashSet<>();
+        }
+
+        private void add(Music music) {
+            if (this.ids.add(music.getMid())) this.musics.add(music);
+        }
+    }
+}
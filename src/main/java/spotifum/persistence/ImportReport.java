@@ -0,0 +1,207 @@
+package spotifum.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The type Import report.
+ * What a {@link CatalogImporter} run created, skipped and rejected, and how fast it went.
+ * Only the first {@link #MAX_REJECTIONS} rejection reasons are kept.
+ */
+public class ImportReport {
+    /**
+     * The constant MAX_REJECTIONS.
+     */
+    public static final int MAX_REJECTIONS = 50;
+
+    private int rows;
+    private int artists;
+    private int users;
+    private int tracks;
+    private int albums;
+    private int duplicates;
+    private int rejected;
+    private int batches;
+    private long elapsedNanos;
+    private final List<String> rejections;
+
+    /**
+     * Instantiates a new Import report.
+     */
+    public ImportReport() {
+        this.rejections = new ArrayList<>();
+    }
+
+    /**
+     * Counts a record read.
+     */
+    void addRow() {
+        this.rows++;
+    }
+
+    /**
+     * Counts an artist created.
+     */
+    void addArtist() {
+        this.artists++;
+    }
+
+    /**
+     * Counts a user created.
+     */
+    void addUser() {
+        this.users++;
+    }
+
+    /**
+     * Counts a track created.
+     */
+    void addTrack() {
+        this.tracks++;
+    }
+
+    /**
+     * Counts an album created.
+     */
+    void addAlbum() {
+        this.albums++;
+    }
+
+    /**
+     * Counts a record skipped as a duplicate.
+     */
+    void addDuplicate() {
+        this.duplicates++;
+    }
+
+    /**
+     * Counts a batch applied.
+     */
+    void addBatch() {
+        this.batches++;
+    }
+
+    /**
+     * Counts a rejected record.
+     *
+     * @param line   the line of the record
+     * @param reason the reason
+     */
+    void reject(int line, String reason) {
+        this.rejected++;
+        if (this.rejections.size() < MAX_REJECTIONS) this.rejections.add("line " + line + ": " + reason);
+    }
+
+    /**
+     * Sets elapsed nanos.
+     *
+     * @param elapsedNanos the elapsed nanos
+     */
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    /**
+     * Gets rows.
+     *
+     * @return the rows
+     */
+    public int getRows() {
+        return rows;
+    }
+
+    /**
+     * Gets artists.
+     *
+     * @return the artists
+     */
+    public int getArtists() {
+        return artists;
+    }
+
+    /**
+     * Gets users.
+     *
+     * @return the users
+     */
+    public int getUsers() {
+        return users;
+    }
+
+    /**
+     * Gets tracks.
+     *
+     * @return the tracks
+     */
+    public int getTracks() {
+        return tracks;
+    }
+
+    /**
+     * Gets albums.
+     *
+     * @return the albums
+     */
+    public int getAlbums() {
+        return albums;
+    }
+
+    /**
+     * Gets duplicates.
+     *
+     * @return the duplicates
+     */
+    public int getDuplicates() {
+        return duplicates;
+    }
+
+    /**
+     * Gets rejected.
+     *
+     * @return the rejected
+     */
+    public int getRejected() {
+        return rejected;
+    }
+
+    /**
+     * Gets batches.
+     *
+     * @return the batches
+     */
+    public int getBatches() {
+        return batches;
+    }
+
+    /**
+     * Gets the first rejection reasons.
+     *
+     * @return the rejections
+     */
+    public List<String> getRejections() {
+        return new ArrayList<>(rejections);
+    }
+
+    /**
+     * Gets rows per second.
+     *
+     * @return the rows per second
+     */
+    public double getRowsPerSecond() {
+        return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("[app-log] imported %d rows in %.2fs (%.0f rows/s, %d batches)%n",
+                rows, elapsedNanos / 1e9, getRowsPerSecond(), batches));
+        sb.append(String.format("[app-log] artists: %d | tracks: %d | albums: %d | users: %d | duplicates: %d | rejected: %d",
+                artists, tracks, albums, users, duplicates, rejected));
+        for (String rejection : rejections) sb.append(System.lineSeparator()).append("[app-log] rejected ").append(rejection);
+        if (rejected > rejections.size()) {
+            sb.append(System.lineSeparator()).append("[app-log] ... ").append(rejected - rejections.size()).append(" more rejected rows");
+        }
+        return sb.toString();
+    }
+}
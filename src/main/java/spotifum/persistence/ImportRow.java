@@ -0,0 +1,274 @@
+package spotifum.persistence;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * The type Import row.
+ * One record of a bulk import file, read from a CSV file with a header line or from a
+ * JSON Lines file with one flat object per line. Values are strings, or lists of strings
+ * for JSON arrays; in CSV files list items are separated by {@code |}.
+ */
+public class ImportRow {
+    private final int line;
+    private final Map<String, Object> fields;
+
+    /**
+     * Instantiates a new Import row.
+     *
+     * @param line   the line the record starts at
+     * @param fields the fields
+     */
+    ImportRow(int line, Map<String, Object> fields) {
+        this.line = line;
+        this.fields = fields;
+    }
+
+    /**
+     * Gets the line the record starts at.
+     *
+     * @return the line
+     */
+    public int getLine() {
+        return line;
+    }
+
+    /**
+     * Gets a field.
+     *
+     * @param name the name
+     * @return the trimmed value, or null if it is missing or empty
+     */
+    @SuppressWarnings("unchecked")
+    public String get(String name) {
+        Object value = fields.get(name);
+        if (value instanceof List) value = String.join("|", (List<String>) value);
+        if (value == null) return null;
+        String text = ((String) value).trim();
+        return text.isEmpty() ? null : text;
+    }
+
+    /**
+     * Gets a required field.
+     *
+     * @param name the name
+     * @return the value
+     * @throws IllegalArgumentException if the field is missing
+     */
+    public String require(String name) {
+        String value = get(name);
+        if (value == null) throw new IllegalArgumentException("missing " + name);
+        return value;
+    }
+
+    /**
+     * Gets a list field.
+     *
+     * @param name the name
+     * @return the items, empty if the field is missing
+     */
+    @SuppressWarnings("unchecked")
+    public List<String> getList(String name) {
+        Object value = fields.get(name);
+        if (value instanceof List) return new ArrayList<>((List<String>) value);
+        String text = get(name);
+        return text == null ? new ArrayList<>() : new ArrayList<>(Arrays.asList(text.split("\\|", -1)));
+    }
+
+    /**
+     * Gets a boolean field, accepting true/false, yes/no, y/n and 1/0.
+     *
+     * @param name the name
+     * @return the boolean, false if the field is missing
+     */
+    public boolean getBoolean(String name) {
+        String value = get(name);
+        if (value == null) return false;
+        switch (value.toLowerCase()) {
+            case "true", "yes", "y", "1":
+                return true;
+            case "false", "no", "n", "0":
+                return false;
+            default:
+                throw new IllegalArgumentException("bad " + name + " '" + value + "'");
+        }
+    }
+
+    /**
+     * Reads the next CSV record. Quoted fields may contain commas, doubled quotes and line breaks.
+     *
+     * @param in   the in
+     * @param line the number of lines read so far, updated with the lines of the record
+     * @return the values of the record, or null at the end of the file
+     * @throws IOException the io exception
+     */
+    static List<String> readCsvRecord(BufferedReader in, int[] line) throws IOException {
+        String text = in.readLine();
+        if (text == null) return null;
+        line[0]++;
+
+        List<String> values = new ArrayList<>();
+        StringBuilder value = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == text.length()) {
+                if (!quoted) break;
+                text = in.readLine();
+                if (text == null) throw new IOException("unterminated quoted field at line " + line[0]);
+                line[0]++;
+                value.append('\n');
+                i = 0;
+                continue;
+            }
+            char c = text.charAt(i++);
+            if (quoted) {
+                if (c != '"') value.append(c);
+                else if (i < text.length() && text.charAt(i) == '"') value.append(text.charAt(i++));
+                else quoted = false;
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                values.add(value.toString());
+                value.setLength(0);
+            } else {
+                value.append(c);
+            }
+        }
+        values.add(value.toString());
+        return values;
+    }
+
+    /**
+     * Builds a row from CSV values.
+     *
+     * @param line   the line
+     * @param header the header
+     * @param values the values
+     * @return the import row
+     */
+    static ImportRow ofCsv(int line, List<String> header, List<String> values) {
+        if (values.size() > header.size()) throw new IllegalArgumentException("expected " + header.size() + " columns, found " + values.size());
+        Map<String, Object> fields = new HashMap<>();
+        for (int i = 0; i < values.size(); i++) fields.put(header.get(i), values.get(i));
+        return new ImportRow(line, fields);
+    }
+
+    /**
+     * Parses a flat JSON object: string, number, boolean and null values, and arrays of those.
+     *
+     * @param line the line
+     * @param text the text
+     * @return the import row
+     */
+    static ImportRow ofJson(int line, String text) {
+        JsonCursor json = new JsonCursor(text);
+        Map<String, Object> fields = new HashMap<>();
+        json.expect('{');
+        if (!json.consume('}')) {
+            do {
+                String name = json.readString();
+                json.expect(':');
+                fields.put(name, json.readValue(true));
+            } while (json.consume(','));
+            json.expect('}');
+        }
+        json.end();
+        return new ImportRow(line, fields);
+    }
+
+    /**
+     * A position in a JSON text.
+     */
+    private static class JsonCursor {
+        private final String text;
+        private int i;
+
+        private JsonCursor(String text) {
+            this.text = text;
+            this.i = 0;
+        }
+
+        private void skipSpaces() {
+            while (i < text.length() && Character.isWhitespace(text.charAt(i))) i++;
+        }
+
+        private boolean consume(char c) {
+            skipSpaces();
+            if (i < text.length() && text.charAt(i) == c) {
+                i++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(char c) {
+            if (!consume(c)) throw new IllegalArgumentException("malformed json: expected '" + c + "' at column " + (i + 1));
+        }
+
+        private void end() {
+            skipSpaces();
+            if (i != text.length()) throw new IllegalArgumentException("malformed json: trailing text at column " + (i + 1));
+        }
+
+        private Object readValue(boolean allowArray) {
+            skipSpaces();
+            if (i == text.length()) throw new IllegalArgumentException("malformed json: missing value");
+            char c = text.charAt(i);
+            if (c == '"') return readString();
+            if (c == '[' && allowArray) {
+                i++;
+                List<String> items = new ArrayList<>();
+                if (!consume(']')) {
+                    do {
+                        Object item = readValue(false);
+                        if (item != null) items.add((String) item);
+                    } while (consume(','));
+                    expect(']');
+                }
+                return items;
+            }
+            int start = i;
+            while (i < text.length() && ",}] \t".indexOf(text.charAt(i)) < 0) i++;
+            String literal = text.substring(start, i);
+            if (literal.equals("null")) return null;
+            if (literal.equals("true") || literal.equals("false")) return literal;
+            try {
+                Double.parseDouble(literal);
+                return literal;
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("malformed json: bad value '" + literal + "'");
+            }
+        }
+
+        private String readString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                if (i >= text.length()) throw new IllegalArgumentException("malformed json: unterminated string");
+                char c = text.charAt(i++);
+                if (c == '"') return value.toString();
+                if (c != '\\') {
+                    value.append(c);
+                    continue;
+                }
+                if (i >= text.length()) throw new IllegalArgumentException("malformed json: unterminated string");
+                char escaped = text.charAt(i++);
+                switch (escaped) {
+                    case 'n' -> value.append('\n');
+                    case 't' -> value.append('\t');
+                    case 'r' -> value.append('\r');
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'u' -> {
+                        if (i + 4 > text.length()) throw new IllegalArgumentException("malformed json: bad escape");
+                        value.append((char) Integer.parseInt(text.substring(i, i + 4), 16));
+                        i += 4;
+                    }
+                    default -> value.append(escaped);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,298 @@
+package spotifum.persistence;
+
+import spotifum.musics.Album;
+import spotifum.musics.Artist;
+import spotifum.musics.Music;
+import spotifum.users.User;
+import spotifum.utils.TopK;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * The type Journal entry.
+ * A single domain mutation recorded in the {@link MutationJournal}. Entries carry
+ * only the entity they affect, so appending one costs O(entity) instead of O(state).
+ */
+public class JournalEntry implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The enum Type.
+     */
+    public enum Type {
+        /**
+         * A user was created or changed (details, plan, playlists).
+         */
+        USER_PUT,
+        /**
+         * A user was removed.
+         */
+        USER_REMOVE,
+        /**
+         * A user changed email, the key holds the previous email.
+         */
+        USER_EMAIL,
+        /**
+         * An artist was created or changed (details, tracks, albums).
+         */
+        ARTIST_PUT,
+        /**
+         * An artist was removed.
+         */
+        ARTIST_REMOVE,
+        /**
+         * An artist changed email, the key holds the previous email.
+         */
+        ARTIST_EMAIL,
+        /**
+         * A music was removed from the catalog and from every playlist.
+         */
+        MUSIC_DELETE,
+        /**
+         * A track was added to an artist or changed, the key holds the artist email.
+         */
+        MUSIC_PUT,
+        /**
+         * A track was removed from an artist, the key holds the artist email.
+         */
+        MUSIC_REMOVE,
+        /**
+         * An album was added to an artist or changed, the key holds the artist email.
+         */
+        ALBUM_PUT,
+        /**
+         * A user played a music.
+         */
+        PLAY,
+        /**
+         * The most played lists changed mode, the image holds the mode.
+         */
+        TOP_LIST_MODE,
+        /**
+         * The plays of tracks and artists started or stopped being counted in a Count-Min
+         * sketch, the image holds its width and depth.
+         */
+        PLAY_COUNTER,
+        /**
+         * Marks every previous entry as saved.
+         */
+        COMMIT
+    }
+
+    private final Type type;
+    private final String key;
+    private final String secondaryKey;
+    private final Serializable image;
+    private final LocalDate date;
+
+    /**
+     * Instantiates a new Journal entry.
+     *
+     * @param type         the type
+     * @param key          the key
+     * @param secondaryKey the secondary key
+     * @param image        the image
+     * @param date         the date
+     */
+    private JournalEntry(Type type, String key, String secondaryKey, Serializable image, LocalDate date) {
+        this.type = type;
+        this.key = key;
+        this.secondaryKey = secondaryKey;
+        this.image = image;
+        this.date = date;
+    }
+
+    /**
+     * User put journal entry.
+     *
+     * @param user the user
+     * @return the journal entry
+     */
+    public static JournalEntry userPut(User user) {
+        return new JournalEntry(Type.USER_PUT, user.getEmail(), null, user, null);
+    }
+
+    /**
+     * User remove journal entry.
+     *
+     * @param email the email
+     * @return the journal entry
+     */
+    public static JournalEntry userRemove(String email) {
+        return new JournalEntry(Type.USER_REMOVE, email, null, null, null);
+    }
+
+    /**
+     * User email journal entry.
+     *
+     * @param oldEmail the old email
+     * @param user     the user
+     * @return the journal entry
+     */
+    public static JournalEntry userEmail(String oldEmail, User user) {
+        return new JournalEntry(Type.USER_EMAIL, oldEmail, null, user, null);
+    }
+
+    /**
+     * Artist put journal entry.
+     *
+     * @param artist the artist
+     * @return the journal entry
+     */
+    public static JournalEntry artistPut(Artist artist) {
+        return new JournalEntry(Type.ARTIST_PUT, artist.getEmail(), null, artist, null);
+    }
+
+    /**
+     * Artist remove journal entry.
+     *
+     * @param email the email
+     * @return the journal entry
+     */
+    public static JournalEntry artistRemove(String email) {
+        return new JournalEntry(Type.ARTIST_REMOVE, email, null, null, null);
+    }
+
+    /**
+     * Artist email journal entry.
+     *
+     * @param oldEmail the old email
+     * @param artist   the artist
+     * @return the journal entry
+     */
+    public static JournalEntry artistEmail(String oldEmail, Artist artist) {
+        return new JournalEntry(Type.ARTIST_EMAIL, oldEmail, null, artist, null);
+    }
+
+    /**
+     * Music delete journal entry.
+     *
+     * @param music the music
+     * @return the journal entry
+     */
+    public static JournalEntry musicDelete(Music music) {
+        return new JournalEntry(Type.MUSIC_DELETE, null, null, music, null);
+    }
+
+    /**
+     * Music put journal entry.
+     *
+     * @param artistEmail the email of the artist of the music
+     * @param music       the music
+     * @return the journal entry
+     */
+    public static JournalEntry musicPut(String artistEmail, Music music) {
+        return new JournalEntry(Type.MUSIC_PUT, artistEmail, null, music, null);
+    }
+
+    /**
+     * Music remove journal entry.
+     *
+     * @param artistEmail the email of the artist of the music
+     * @param music       the music
+     * @return the journal entry
+     */
+    public static JournalEntry musicRemove(String artistEmail, Music music) {
+        return new JournalEntry(Type.MUSIC_REMOVE, artistEmail, null, music, null);
+    }
+
+    /**
+     * Album put journal entry.
+     *
+     * @param artistEmail the email of the artist of the album
+     * @param album       the album
+     * @return the journal entry
+     */
+    public static JournalEntry albumPut(String artistEmail, Album album) {
+        return new JournalEntry(Type.ALBUM_PUT, artistEmail, null, album, null);
+    }
+
+    /**
+     * Play journal entry.
+     *
+     * @param userEmail   the user email
+     * @param music       the music
+     * @param artistEmail the artist email, or null if the artist is unknown
+     * @param date        the date
+     * @return the journal entry
+     */
+    public static JournalEntry play(String userEmail, Music music, String artistEmail, LocalDate date) {
+        return new JournalEntry(Type.PLAY, userEmail, artistEmail, music, date);
+    }
+
+    /**
+     * Top list mode journal entry.
+     *
+     * @param mode the mode
+     * @return the journal entry
+     */
+    public static JournalEntry topListMode(TopK.Mode mode) {
+        return new JournalEntry(Type.TOP_LIST_MODE, null, null, mode, null);
+    }
+
+    /**
+     * Play counter journal entry.
+     *
+     * @param width the counters per row of the sketch, 0 to count exactly
+     * @param depth the rows of the sketch
+     * @return the journal entry
+     */
+    public static JournalEntry playCounter(int width, int depth) {
+        return new JournalEntry(Type.PLAY_COUNTER, null, null, new int[]{width, depth}, null);
+    }
+
+    /**
+     * Commit journal entry.
+     *
+     * @return the journal entry
+     */
+    public static JournalEntry commit() {
+        return new JournalEntry(Type.COMMIT, null, null, null, null);
+    }
+
+    /**
+     * Gets type.
+     *
+     * @return the type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Gets key.
+     *
+     * @return the key
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * Gets secondary key.
+     *
+     * @return the secondary key
+     */
+    public String getSecondaryKey() {
+        return secondaryKey;
+    }
+
+    /**
+     * Gets image.
+     *
+     * @return the image
+     */
+    public Serializable getImage() {
+        return image;
+    }
+
+    /**
+     * Gets date.
+     *
+     * @return the date
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+}
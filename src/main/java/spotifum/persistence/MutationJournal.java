@@ -0,0 +1,455 @@
+package spotifum.persistence;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * The type Mutation journal.
+ * Append-only write-ahead log of {@link JournalEntry} records that sits next to a
+ * checkpoint file. Each record is length-prefixed and checksummed; records are
+ * flushed and fsynced in batches and on every commit. Only entries followed by a
+ * commit marker are replayed, a torn or uncommitted tail is discarded on recovery.
+ * <p>
+ * While a new checkpoint is being written in the background, mutations go to a
+ * staging journal named after the new generation. The staging journal records the
+ * generation it follows, so recovery can chain it after the current journal if the
+ * new checkpoint never made it to disk, and it replaces the current journal once the
+ * checkpoint is installed.
+ */
+public class MutationJournal implements Closeable {
+    /**
+     * The constant SUFFIX.
+     */
+    public static final String SUFFIX = ".journal";
+    /**
+     * Base generation of a journal that only follows its own checkpoint.
+     */
+    public static final long NO_BASE = 0L;
+
+    private static final int MAGIC = 0x534A524E;
+    private static final int HEADER_SIZE = 20;
+    private static final int RECORD_HEADER_SIZE = 12;
+    private static final int DEFAULT_SYNC_BATCH = 32;
+    private static final long DEFAULT_SYNC_INTERVAL_MS = 1000;
+
+    private final String mainFile;
+    private String fileName;
+    private final long generation;
+    private final long base;
+    private final FileOutputStream file;
+    private final DataOutputStream out;
+    private final int syncBatch;
+    private int pending;
+    private long lastSync;
+    private int committed;
+    private int uncommitted;
+    private boolean closed;
+
+    /**
+     * Instantiates a new Mutation journal positioned at the end of the file.
+     *
+     * @param mainFile   the journal file of the checkpoint
+     * @param fileName   the file actually written, the main file or a staging file
+     * @param generation the checkpoint generation this journal belongs to
+     * @param base       the generation this journal follows, or {@link #NO_BASE}
+     * @param committed  the number of committed entries already in the file
+     * @throws IOException the io exception
+     */
+    private MutationJournal(String mainFile, String fileName, long generation, long base, int committed) throws IOException {
+        this.mainFile = mainFile;
+        this.fileName = fileName;
+        this.generation = generation;
+        this.base = base;
+        this.file = new FileOutputStream(fileName, true);
+        this.out = new DataOutputStream(new BufferedOutputStream(this.file));
+        this.syncBatch = DEFAULT_SYNC_BATCH;
+        this.pending = 0;
+        this.lastSync = System.currentTimeMillis();
+        this.committed = committed;
+        this.uncommitted = 0;
+        this.closed = false;
+    }
+
+    /**
+     * Creates an empty journal for the given checkpoint generation, truncating any previous file.
+     *
+     * @param fileName   the file name
+     * @param generation the generation
+     * @return the mutation journal
+     * @throws IOException the io exception
+     */
+    public static MutationJournal create(String fileName, long generation) throws IOException {
+        writeHeader(fileName, generation, NO_BASE);
+        return new MutationJournal(fileName, fileName, generation, NO_BASE, 0);
+    }
+
+    /**
+     * Creates an empty staging journal for a checkpoint that is still being written.
+     *
+     * @param fileName   the journal file of the checkpoint
+     * @param generation the generation of the checkpoint being written
+     * @param base       the generation whose journal this one continues, or {@link #NO_BASE}
+     *                   if the new checkpoint already contains everything before it
+     * @return the mutation journal
+     * @throws IOException the io exception
+     */
+    public static MutationJournal createStaging(String fileName, long generation, long base) throws IOException {
+        String staging = stagingName(fileName, generation);
+        writeHeader(staging, generation, base);
+        return new MutationJournal(fileName, staging, generation, base, 0);
+    }
+
+    private static String stagingName(String fileName, long generation) {
+        return fileName + "." + Long.toHexString(generation);
+    }
+
+    private static void writeHeader(String fileName, long generation, long base) throws IOException {
+        try (DataOutputStream header = new DataOutputStream(new FileOutputStream(fileName))) {
+            header.writeInt(MAGIC);
+            header.writeLong(generation);
+            header.writeLong(base);
+        }
+    }
+
+    /**
+     * Replays the committed entries of an existing journal and reopens it for appending.
+     * If the file does not exist or belongs to another checkpoint generation a fresh
+     * journal is created instead. Staging journals left behind by a background save are
+     * either promoted, if their checkpoint was installed, chained after this journal, if
+     * they continue it, or deleted.
+     *
+     * @param fileName   the file name
+     * @param generation the generation of the loaded checkpoint
+     * @param replay     the consumer applying each committed entry
+     * @return the mutation journal
+     * @throws IOException the io exception
+     */
+    public static MutationJournal recover(String fileName, long generation, Consumer<JournalEntry> replay) throws IOException {
+        List<Staging> staging = findStaging(fileName);
+
+        for (Staging s : staging) {
+            if (s.generation == generation) {
+                Files.move(s.file.toPath(), new File(fileName).toPath(),
+                        StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                staging.remove(s);
+                break;
+            }
+        }
+
+        File f = new File(fileName);
+        Scan scan = scan(f, generation, replay);
+        MutationJournal journal;
+        if (scan == null) {
+            journal = create(fileName, generation);
+        } else {
+            try (RandomAccessFile raf = new RandomAccessFile(f, "rw")) {
+                raf.setLength(scan.committedOffset);
+            }
+            journal = new MutationJournal(fileName, fileName, generation, NO_BASE, scan.committedEntries);
+        }
+
+        long current = generation;
+        boolean chained = true;
+        while (chained) {
+            chained = false;
+            for (Staging s : staging) {
+                if (s.base == current) {
+                    List<JournalEntry> entries = new ArrayList<>();
+                    scan(s.file, s.generation, entries::add);
+                    for (JournalEntry entry : entries) {
+                        replay.accept(entry);
+                        journal.append(entry);
+                    }
+                    journal.commit();
+                    staging.remove(s);
+                    s.file.delete();
+                    current = s.generation;
+                    chained = true;
+                    break;
+                }
+            }
+        }
+
+        for (Staging s : staging) s.file.delete();
+        return journal;
+    }
+
+    /**
+     * Replays the committed entries of a journal without changing it.
+     *
+     * @param fileName   the file name
+     * @param generation the generation of the checkpoint
+     * @param replay     the consumer applying each committed entry
+     * @return the number of replayed entries, or -1 if the journal does not belong to the generation
+     * @throws IOException the io exception
+     */
+    public static int replay(String fileName, long generation, Consumer<JournalEntry> replay) throws IOException {
+        Scan scan = scan(new File(fileName), generation, replay);
+        return scan == null ? -1 : scan.committedEntries;
+    }
+
+    /**
+     * Replays the committed entries of a journal file.
+     *
+     * @param f          the file
+     * @param generation the expected generation
+     * @param replay     the consumer applying each committed entry
+     * @return where the committed entries end, or null if the file is missing or of another generation
+     * @throws IOException the io exception
+     */
+    private static Scan scan(File f, long generation, Consumer<JournalEntry> replay) throws IOException {
+        if (!f.exists() || f.length() < HEADER_SIZE) return null;
+
+        Scan scan = new Scan();
+        scan.committedOffset = HEADER_SIZE;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+            if (in.readInt() != MAGIC || in.readLong() != generation) return null;
+            in.readLong();
+
+            List<JournalEntry> batch = new ArrayList<>();
+            long offset = HEADER_SIZE;
+            while (true) {
+                byte[] data = readRecord(in);
+                JournalEntry entry = data != null ? decode(data) : null;
+                if (entry == null) break;
+                offset += RECORD_HEADER_SIZE + data.length;
+                if (entry.getType() == JournalEntry.Type.COMMIT) {
+                    for (JournalEntry e : batch) replay.accept(e);
+                    scan.committedEntries += batch.size();
+                    batch.clear();
+                    scan.committedOffset = offset;
+                } else {
+                    batch.add(entry);
+                }
+            }
+        }
+        return scan;
+    }
+
+    /**
+     * Lists the staging journals next to the given journal.
+     *
+     * @param fileName the file name
+     * @return the staging journals
+     */
+    private static List<Staging> findStaging(String fileName) {
+        List<Staging> staging = new ArrayList<>();
+        File main = new File(fileName).getAbsoluteFile();
+        File[] files = main.getParentFile().listFiles((dir, name) -> name.startsWith(main.getName() + "."));
+        if (files == null) return staging;
+
+        for (File f : files) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)))) {
+                if (in.readInt() != MAGIC) continue;
+                Staging s = new Staging();
+                s.file = f;
+                s.generation = in.readLong();
+                s.base = in.readLong();
+                staging.add(s);
+            } catch (IOException e) {
+                f.delete();
+            }
+        }
+        return staging;
+    }
+
+    /**
+     * Reads the payload of the next record, returning null at the end of the file or at a torn record.
+     *
+     * @param in the input stream
+     * @return the record payload or null
+     */
+    private static byte[] readRecord(DataInputStream in) {
+        try {
+            int length = in.readInt();
+            long checksum = in.readLong();
+            if (length <= 0) return null;
+            byte[] data = new byte[length];
+            in.readFully(data);
+            CRC32 crc = new CRC32();
+            crc.update(data);
+            return crc.getValue() == checksum ? data : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Deserializes a record payload.
+     *
+     * @param data the record payload
+     * @return the journal entry or null if it cannot be read
+     */
+    private static JournalEntry decode(byte[] data) {
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(data))) {
+            return (JournalEntry) ois.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Appends an entry. The record is fsynced once a batch fills up or the sync interval elapses.
+     *
+     * @param entry the entry
+     * @throws IOException the io exception
+     */
+    public synchronized void append(JournalEntry entry) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(bytes)) {
+            oos.writeObject(entry);
+        }
+        byte[] data = bytes.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(data);
+
+        this.out.writeInt(data.length);
+        this.out.writeLong(crc.getValue());
+        this.out.write(data);
+        this.pending++;
+
+        if (entry.getType() == JournalEntry.Type.COMMIT) {
+            this.committed += this.uncommitted;
+            this.uncommitted = 0;
+            sync();
+        } else {
+            this.uncommitted++;
+            if (this.pending >= this.syncBatch || System.currentTimeMillis() - this.lastSync >= DEFAULT_SYNC_INTERVAL_MS) {
+                sync();
+            }
+        }
+    }
+
+    /**
+     * Commits every entry appended so far and forces them to disk.
+     *
+     * @throws IOException the io exception
+     */
+    public synchronized void commit() throws IOException {
+        append(JournalEntry.commit());
+    }
+
+    /**
+     * Flushes buffered records and forces them to disk.
+     *
+     * @throws IOException the io exception
+     */
+    public synchronized void sync() throws IOException {
+        this.out.flush();
+        this.file.getFD().sync();
+        this.pending = 0;
+        this.lastSync = System.currentTimeMillis();
+    }
+
+    /**
+     * Makes a staging journal the journal of its checkpoint, once that checkpoint is installed.
+     * The journal may still be open and keeps appending to the same file.
+     *
+     * @throws IOException the io exception
+     */
+    public synchronized void install() throws IOException {
+        if (this.fileName.equals(this.mainFile)) return;
+        Files.move(new File(this.fileName).toPath(), new File(this.mainFile).toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        this.fileName = this.mainFile;
+    }
+
+    /**
+     * Closes and deletes a staging journal whose checkpoint will not be written.
+     *
+     * @throws IOException the io exception
+     */
+    public synchronized void discard() throws IOException {
+        close();
+        if (!this.fileName.equals(this.mainFile)) new File(this.fileName).delete();
+    }
+
+    /**
+     * Checks whether this journal belongs to the given checkpoint file.
+     *
+     * @param checkpointFile the checkpoint file
+     * @return the boolean
+     */
+    public boolean isFor(String checkpointFile) {
+        return this.mainFile.equals(checkpointFile + SUFFIX);
+    }
+
+    /**
+     * Gets the checkpoint file this journal belongs to.
+     *
+     * @return the checkpoint file
+     */
+    public String getCheckpointFile() {
+        return this.mainFile.substring(0, this.mainFile.length() - SUFFIX.length());
+    }
+
+    /**
+     * Gets the file written, the journal file of the checkpoint or a staging file.
+     *
+     * @return the file name
+     */
+    public synchronized String getFileName() {
+        return this.fileName;
+    }
+
+    /**
+     * Gets generation.
+     *
+     * @return the generation
+     */
+    public long getGeneration() {
+        return this.generation;
+    }
+
+    /**
+     * Gets the generation this journal follows.
+     *
+     * @return the base generation, or {@link #NO_BASE}
+     */
+    public long getBase() {
+        return this.base;
+    }
+
+    /**
+     * Number of entries written since the checkpoint, committed or not.
+     *
+     * @return the int
+     */
+    public synchronized int size() {
+        return this.committed + this.uncommitted;
+    }
+
+    /**
+     * Flushes and closes the journal without committing pending entries.
+     *
+     * @throws IOException the io exception
+     */
+    public synchronized void close() throws IOException {
+        if (this.closed) return;
+        sync();
+        this.out.close();
+        this.closed = true;
+    }
+
+    /**
+     * Where the committed part of a scanned journal ends.
+     */
+    private static class Scan {
+        private long committedOffset;
+        private int committedEntries;
+    }
+
+    /**
+     * A staging journal found on disk.
+     */
+    private static class Staging {
+        private File file;
+        private long generation;
+        private long base;
+    }
+}
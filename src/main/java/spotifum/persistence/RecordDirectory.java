@@ -0,0 +1,157 @@
+package spotifum.persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * The type Record directory.
+ * Index of records, keyed by email, that stay in a (memory-mapped) {@link BinarySnapshot}.
+ * A record is decoded the first time it is asked for; once taken it belongs to the caller
+ * and leaves the directory. Subclasses say where the records are.
+ *
+ * @param <T> the type of the records
+ */
+public abstract class RecordDirectory<T> {
+    /**
+     * The reader over the snapshot.
+     */
+    protected final SnapshotReader reader;
+    /**
+     * The position of the records.
+     */
+    protected final int start;
+    private final Set<String> removed;
+    private final Map<String, T> decoded;
+
+    /**
+     * Instantiates a new Record directory.
+     *
+     * @param reader the reader over the snapshot
+     * @param start  the position of the records
+     */
+    RecordDirectory(SnapshotReader reader, int start) {
+        this.reader = reader;
+        this.start = start;
+        this.removed = new HashSet<>();
+        this.decoded = new HashMap<>();
+    }
+
+    /**
+     * Decodes the record stored at the given position.
+     *
+     * @param position the position
+     * @return the record
+     * @throws IOException the io exception
+     */
+    protected abstract T decode(int position) throws IOException;
+
+    /**
+     * Gets the offset of the record with the given email.
+     *
+     * @param email the email
+     * @return the offset from the start of the records, or -1 if there is none
+     */
+    protected abstract int offsetOf(String email);
+
+    /**
+     * Gets the email of the record with the given id.
+     *
+     * @param id the id
+     * @return the email, or null if there is none
+     */
+    protected abstract String emailOf(UUID id);
+
+    /**
+     * Gets the emails of every record in the snapshot.
+     *
+     * @return the emails
+     */
+    protected abstract Collection<String> emails();
+
+    /**
+     * Gets the number of records in the snapshot.
+     *
+     * @return the size
+     */
+    protected abstract int size();
+
+    /**
+     * Checks whether a record with the given email is still waiting to be decoded.
+     *
+     * @param email the email
+     * @return the boolean
+     */
+    public boolean contains(String email) {
+        return !this.removed.contains(email) && offsetOf(email) >= 0;
+    }
+
+    /**
+     * Gets the emails of the records not decoded yet.
+     *
+     * @return the emails
+     */
+    public Set<String> getEmails() {
+        Set<String> emails = new HashSet<>(emails());
+        emails.removeAll(this.removed);
+        return emails;
+    }
+
+    /**
+     * Checks whether every record was decoded or dropped.
+     *
+     * @return the boolean
+     */
+    public boolean isEmpty() {
+        return this.removed.size() == size();
+    }
+
+    /**
+     * Forgets a record without decoding it. It can still be decoded by id, for the
+     * snapshot sections that refer to it.
+     *
+     * @param email the email
+     */
+    public void remove(String email) {
+        if (offsetOf(email) >= 0) this.removed.add(email);
+        this.decoded.remove(email);
+    }
+
+    /**
+     * Decodes the record with the given email and removes it from the directory.
+     *
+     * @param email the email
+     * @return the record, or null if it is not in the directory
+     */
+    public T take(String email) {
+        if (!contains(email)) return null;
+        T record = load(email);
+        remove(email);
+        return record;
+    }
+
+    /**
+     * Decodes the record with the given id, once.
+     *
+     * @param id the id
+     * @return the record, or null if it is not in the snapshot
+     */
+    T load(UUID id) {
+        String email = emailOf(id);
+        return email == null ? null : load(email);
+    }
+
+    private T load(String email) {
+        T record = this.decoded.get(email);
+        if (record != null) return record;
+        int offset = offsetOf(email);
+        if (offset < 0) return null;
+        try {
+            record = decode(this.start + offset);
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not decode " + email, e);
+        }
+        if (!this.removed.contains(email)) this.decoded.put(email, record);
+        return record;
+    }
+}
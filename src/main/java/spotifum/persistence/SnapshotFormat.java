@@ -0,0 +1,43 @@
+package spotifum.persistence;
+
+/**
+ * The enum Snapshot format.
+ */
+public enum SnapshotFormat {
+    /**
+     * Java serialization of the whole application state.
+     */
+    OBJECT("obj"),
+    /**
+     * Compact versioned {@link BinarySnapshot}.
+     */
+    BINARY("bin");
+
+    private final String name;
+
+    SnapshotFormat(String name) {
+        this.name = name;
+    }
+
+    /**
+     * Gets the name typed in the prompts.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Finds the format with the given name.
+     *
+     * @param name the name
+     * @return the snapshot format, or null if there is none
+     */
+    public static SnapshotFormat fromName(String name) {
+        for (SnapshotFormat format : values()) {
+            if (format.name.equalsIgnoreCase(name.trim())) return format;
+        }
+        return null;
+    }
+}
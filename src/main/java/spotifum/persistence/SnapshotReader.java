@@ -0,0 +1,626 @@
+package spotifum.persistence;
+
+import spotifum.exceptions.EntityAlreadyExistsException;
+import spotifum.musics.Album;
+import spotifum.musics.Artist;
+import spotifum.musics.Music;
+import spotifum.musics.types.ExplicitMusic;
+import spotifum.musics.types.MultimediaMusic;
+import spotifum.playlists.FavouritePlaylist;
+import spotifum.playlists.Playlist;
+import spotifum.playlists.PremiumPlaylist;
+import spotifum.users.*;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+
+import static spotifum.persistence.SnapshotWriter.*;
+
+/**
+ * The type Snapshot reader.
+ * Decodes what a {@link SnapshotWriter} produced. Every music, artist and user read is
+ * remembered by id, so later references resolve to the same instance instead of a copy.
+ * Strings are only decoded the first time they are used; since version 3 the string table
+ * starts with the offset of every string, so it is not even scanned up front.
+ */
+public class SnapshotReader {
+    private final ByteBuffer in;
+    private final short version;
+    private final int[] stringOffsets;
+    private final int stringIndex;
+    private final int stringData;
+    private final int stringDataLength;
+    private final String[] strings;
+    private final Map<UUID, Music> musics;
+    private final Map<UUID, Artist> artists;
+    private final Map<UUID, User> users;
+    private ArtistDirectory catalog;
+    private UserDirectory directory;
+
+    /**
+     * Instantiates a new Snapshot reader positioned on a string table.
+     *
+     * @param in      the buffer
+     * @param version the snapshot version
+     * @throws IOException the io exception
+     */
+    public SnapshotReader(ByteBuffer in, short version) throws IOException {
+        this.in = in;
+        this.version = version;
+        this.musics = new HashMap<>();
+        this.artists = new HashMap<>();
+        this.users = new HashMap<>();
+
+        int count = readVarInt();
+        this.strings = new String[count + 1];
+        if (version < 3) {
+            this.stringOffsets = new int[count + 1];
+            this.stringIndex = -1;
+            this.stringData = -1;
+            this.stringDataLength = 0;
+            for (int i = 1; i <= count; i++) {
+                this.stringOffsets[i] = in.position();
+                int length = readVarInt();
+                if (length > in.remaining()) throw new EOFException();
+                in.position(in.position() + length);
+            }
+        } else {
+            this.stringOffsets = null;
+            this.stringIndex = in.position();
+            if (4L * count > in.remaining()) throw new EOFException();
+            in.position(this.stringIndex + 4 * count);
+            this.stringDataLength = readRecordLength();
+            this.stringData = in.position();
+            in.position(this.stringData + this.stringDataLength);
+        }
+    }
+
+    /**
+     * Gets the version of the snapshot being read.
+     *
+     * @return the version
+     */
+    public short getVersion() {
+        return this.version;
+    }
+
+    /**
+     * Gets the current position in the buffer.
+     *
+     * @return the position
+     */
+    int position() {
+        return in.position();
+    }
+
+    /**
+     * Moves to the given position in the buffer.
+     *
+     * @param position the position
+     */
+    void seek(int position) {
+        in.position(position);
+    }
+
+    private void get(byte[] bytes) throws IOException {
+        try {
+            in.get(bytes);
+        } catch (BufferUnderflowException e) {
+            throw new EOFException();
+        }
+    }
+
+    /**
+     * Read var int.
+     *
+     * @return the int
+     * @throws IOException the io exception
+     */
+    public int readVarInt() throws IOException {
+        try {
+            int value = 0;
+            for (int shift = 0; shift < 35; shift += 7) {
+                byte b = in.get();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+        } catch (BufferUnderflowException e) {
+            throw new EOFException();
+        }
+        throw new IOException("malformed snapshot: varint too long");
+    }
+
+    /**
+     * Read long.
+     *
+     * @return the long
+     * @throws IOException the io exception
+     */
+    public long readLong() throws IOException {
+        try {
+            return in.getLong();
+        } catch (BufferUnderflowException e) {
+            throw new EOFException();
+        }
+    }
+
+    /**
+     * Read double.
+     *
+     * @return the double
+     * @throws IOException the io exception
+     */
+    public double readDouble() throws IOException {
+        return Double.longBitsToDouble(readLong());
+    }
+
+    /**
+     * Read boolean.
+     *
+     * @return the boolean
+     * @throws IOException the io exception
+     */
+    public boolean readBoolean() throws IOException {
+        try {
+            return in.get() != 0;
+        } catch (BufferUnderflowException e) {
+            throw new EOFException();
+        }
+    }
+
+    /**
+     * Read string.
+     *
+     * @return the string
+     * @throws IOException the io exception
+     */
+    public String readString() throws IOException {
+        return stringAt(readVarInt());
+    }
+
+    /**
+     * Gets a string of the string table by its index.
+     *
+     * @param index the index, 0 stands for null
+     * @return the string
+     * @throws IOException the io exception
+     */
+    String stringAt(int index) throws IOException {
+        if (index < 0 || index >= strings.length) throw new IOException("malformed snapshot: unknown string " + index);
+        if (index != 0 && strings[index] == null) {
+            int position = in.position();
+            if (stringOffsets != null) {
+                in.position(stringOffsets[index]);
+            } else {
+                int offset = in.getInt(stringIndex + 4 * (index - 1));
+                if (offset < 0 || offset >= stringDataLength) {
+                    in.position(position);
+                    throw new IOException("malformed snapshot: bad string offset " + offset);
+                }
+                in.position(stringData + offset);
+            }
+            byte[] utf8 = new byte[readVarInt()];
+            get(utf8);
+            in.position(position);
+            strings[index] = new String(utf8, StandardCharsets.UTF_8);
+        }
+        return strings[index];
+    }
+
+    /**
+     * Read uuid.
+     *
+     * @return the uuid
+     * @throws IOException the io exception
+     */
+    public UUID readUuid() throws IOException {
+        return new UUID(readLong(), readLong());
+    }
+
+    /**
+     * Read date.
+     *
+     * @return the local date
+     * @throws IOException the io exception
+     */
+    public LocalDate readDate() throws IOException {
+        return LocalDate.ofEpochDay(readLong());
+    }
+
+    /**
+     * Reads the length of the next record.
+     *
+     * @return the record length
+     * @throws IOException the io exception
+     */
+    public int readRecordLength() throws IOException {
+        int length = readVarInt();
+        if (length > in.remaining()) throw new EOFException();
+        return length;
+    }
+
+    /**
+     * Skips the next record without decoding it.
+     *
+     * @throws IOException the io exception
+     */
+    public void skipRecord() throws IOException {
+        int length = readRecordLength();
+        in.position(in.position() + length);
+    }
+
+    /**
+     * Reads a catalog music.
+     *
+     * @return the music
+     * @throws IOException the io exception
+     */
+    public Music readMusic() throws IOException {
+        Music music = readMusicBody();
+        Music known = musics.putIfAbsent(music.getMid(), music);
+        return known != null ? known : music;
+    }
+
+    /**
+     * Reads the catalog music stored at the given position, keeping the current position.
+     *
+     * @param position the position
+     * @return the music
+     * @throws IOException the io exception
+     */
+    Music readMusicAt(int position) throws IOException {
+        int current = in.position();
+        try {
+            in.position(position);
+            return readMusic();
+        } finally {
+            in.position(current);
+        }
+    }
+
+    private Music readMusicBody() throws IOException {
+        int type = readVarInt();
+        UUID mid = readUuid();
+        String name = readString();
+        String artist = readString();
+        String label = readString();
+        String lyrics = readString();
+        String genre = readString();
+        int duration = readVarInt();
+        int lines = readVarInt();
+        List<String> partiture = new ArrayList<>(lines);
+        for (int i = 0; i < lines; i++) partiture.add(readString());
+
+        Music music = new Music(mid, name, artist, label, lyrics, partiture, genre, duration);
+        switch (type) {
+            case MUSIC_PLAIN:
+                return music;
+            case MUSIC_EXPLICIT:
+                return new ExplicitMusic(music);
+            case MUSIC_MULTIMEDIA:
+                boolean explicit = readBoolean();
+                return new MultimediaMusic(music, explicit, readString());
+            default:
+                throw new IOException("malformed snapshot: unknown music type " + type);
+        }
+    }
+
+    /**
+     * Reads a music reference.
+     *
+     * @return the music
+     * @throws IOException the io exception
+     */
+    public Music readMusicRef() throws IOException {
+        int ref = readVarInt();
+        switch (ref) {
+            case REF_NULL:
+                return null;
+            case REF_ID:
+                UUID mid = readUuid();
+                Music music = musics.get(mid);
+                if (music == null && catalog != null) music = catalog.loadTrack(mid);
+                if (music == null) throw new IOException("malformed snapshot: unknown music " + mid);
+                return music;
+            case REF_INLINE:
+                return readMusicBody();
+            default:
+                throw new IOException("malformed snapshot: unknown reference " + ref);
+        }
+    }
+
+    /**
+     * Reads an artist record with its tracks and albums.
+     *
+     * @return the artist
+     * @throws IOException the io exception
+     */
+    public Artist readArtist() throws IOException {
+        readRecordLength();
+        Artist artist = new Artist(readUuid(), readString(), readString());
+
+        int tracks = readVarInt();
+        for (int i = 0; i < tracks; i++) {
+            try {
+                artist.addMusic(readMusic());
+            } catch (EntityAlreadyExistsException e) {
+                throw new IOException("malformed snapshot: " + e.getMessage());
+            }
+        }
+
+        int albums = readVarInt();
+        for (int i = 0; i < albums; i++) {
+            UUID albumId = readUuid();
+            String name = readString();
+            String creator = readString();
+            int size = readVarInt();
+            List<Music> albumTracks = new ArrayList<>(size);
+            for (int j = 0; j < size; j++) albumTracks.add(readMusicRef());
+            artist.addAlbum(new Album(albumId, name, creator, albumTracks));
+        }
+
+        artists.put(artist.getArtistId(), artist);
+        return artist;
+    }
+
+    /**
+     * Reads the artist record stored at the given position, keeping the current position.
+     *
+     * @param position the position
+     * @return the artist
+     * @throws IOException the io exception
+     */
+    Artist readArtistAt(int position) throws IOException {
+        int current = in.position();
+        try {
+            in.position(position);
+            return readArtist();
+        } finally {
+            in.position(current);
+        }
+    }
+
+    /**
+     * Reads the directory of an artist catalog and skips its records, which are
+     * decoded on demand through the returned directory.
+     *
+     * @return the artist directory
+     * @throws IOException the io exception
+     */
+    public ArtistDirectory readArtistCatalog() throws IOException {
+        int count = readVarInt();
+        String[] emails = new String[count];
+        UUID[] ids = new UUID[count];
+        int[] offsets = new int[count];
+        for (int i = 0; i < count; i++) {
+            emails[i] = readString();
+            ids[i] = readUuid();
+            offsets[i] = readVarInt();
+        }
+
+        int tracks = readVarInt();
+        long[] mostSignificant = new long[tracks];
+        long[] leastSignificant = new long[tracks];
+        int[] trackOffsets = new int[tracks];
+        for (int i = 0; i < tracks; i++) {
+            mostSignificant[i] = readLong();
+            leastSignificant[i] = readLong();
+            trackOffsets[i] = readVarInt();
+        }
+
+        int length = readRecordLength();
+        int start = in.position();
+        in.position(start + length);
+
+        this.catalog = new ArtistDirectory(this, start, emails, ids, offsets, mostSignificant, leastSignificant, trackOffsets);
+        return this.catalog;
+    }
+
+    /**
+     * Reads an artist reference.
+     *
+     * @return the artist
+     * @throws IOException the io exception
+     */
+    public Artist readArtistRef() throws IOException {
+        int ref = readVarInt();
+        switch (ref) {
+            case REF_NULL:
+                return null;
+            case REF_ID:
+                UUID aid = readUuid();
+                Artist artist = artists.get(aid);
+                if (artist == null && catalog != null) artist = catalog.load(aid);
+                if (artist == null) throw new IOException("malformed snapshot: unknown artist " + aid);
+                return artist;
+            case REF_INLINE:
+                return new Artist(readUuid(), readString(), readString());
+            default:
+                throw new IOException("malformed snapshot: unknown reference " + ref);
+        }
+    }
+
+    /**
+     * Reads a user record with its playlists.
+     *
+     * @return the user
+     * @throws IOException the io exception
+     */
+    public User readUser() throws IOException {
+        readRecordLength();
+        User user = readUserHeader();
+        int playlists = readVarInt();
+        for (int i = 0; i < playlists; i++) user.createPlaylist(readPlaylist());
+        users.put(user.getUid(), user);
+        return user;
+    }
+
+    /**
+     * Reads the user record stored at the given position, keeping the current position.
+     *
+     * @param position the position
+     * @return the user
+     * @throws IOException the io exception
+     */
+    User readUserAt(int position) throws IOException {
+        int current = in.position();
+        try {
+            in.position(position);
+            return readUser();
+        } finally {
+            in.position(current);
+        }
+    }
+
+    /**
+     * Opens the directory of the user partitions and skips it and their records, which are
+     * decoded on demand through the returned directory.
+     *
+     * @return the user directory
+     * @throws IOException the io exception
+     */
+    public UserDirectory readUserDirectory() throws IOException {
+        int count = readVarInt();
+        int buckets = readVarInt();
+        if (Integer.bitCount(buckets) != 1) throw new IOException("malformed snapshot: bad user directory");
+        int table = in.position();
+        long size = 4L * (buckets + 1) + (long) UserDirectory.ENTRY_SIZE * count;
+        if (size > in.remaining()) throw new EOFException();
+        int entries = table + 4 * (buckets + 1);
+        if (in.getInt(table) != 0 || in.getInt(entries - 4) != count) throw new IOException("malformed snapshot: bad user directory");
+        in.position((int) (table + size));
+
+        int length = readRecordLength();
+        int start = in.position();
+        in.position(start + length);
+
+        this.directory = new UserDirectory(this, start, count, buckets, table, entries);
+        return this.directory;
+    }
+
+    /**
+     * Reads an int at the given position, keeping the current position.
+     *
+     * @param position the position
+     * @return the int
+     */
+    int intAt(int position) {
+        return in.getInt(position);
+    }
+
+    /**
+     * Reads a long at the given position, keeping the current position.
+     *
+     * @param position the position
+     * @return the long
+     */
+    long longAt(int position) {
+        return in.getLong(position);
+    }
+
+    /**
+     * Skips the next record, which is decoded on demand through the returned segment.
+     *
+     * @return the snapshot segment
+     * @throws IOException the io exception
+     */
+    public SnapshotSegment readSegment() throws IOException {
+        int length = readRecordLength();
+        SnapshotSegment segment = new SnapshotSegment(this, in.position());
+        in.position(in.position() + length);
+        return segment;
+    }
+
+    private User readUserHeader() throws IOException {
+        int type = readVarInt();
+        UUID uid = readUuid();
+        String email = readString();
+        String username = readString();
+        String address = readString();
+        String plan = readString();
+
+        User user;
+        switch (type) {
+            case USER_FREE:
+                user = new FreeUser(uid, email, username, address);
+                break;
+            case USER_PREMIUM_BASE:
+                user = new PremiumBaseUser(uid, email, username, address);
+                break;
+            case USER_PREMIUM_TOP:
+                user = new PremiumTopUser(uid, email, username, address);
+                break;
+            default:
+                throw new IOException("malformed snapshot: unknown user type " + type);
+        }
+        if (plan != null) {
+            try {
+                user.setUserPlan(SubscriptionPlans.valueOf(plan));
+            } catch (IllegalArgumentException e) {
+                throw new IOException("malformed snapshot: unknown plan " + plan);
+            }
+        }
+        return user;
+    }
+
+    /**
+     * Reads a user reference.
+     *
+     * @return the user
+     * @throws IOException the io exception
+     */
+    public User readUserRef() throws IOException {
+        int ref = readVarInt();
+        switch (ref) {
+            case REF_NULL:
+                return null;
+            case REF_ID:
+                UUID uid = readUuid();
+                User user = users.get(uid);
+                if (user == null && directory != null) user = directory.load(uid);
+                if (user == null) throw new IOException("malformed snapshot: unknown user " + uid);
+                return user;
+            case REF_INLINE:
+                return readUserHeader();
+            default:
+                throw new IOException("malformed snapshot: unknown reference " + ref);
+        }
+    }
+
+    /**
+     * Read playlist.
+     *
+     * @return the playlist
+     * @throws IOException the io exception
+     */
+    public Playlist readPlaylist() throws IOException {
+        int type = readVarInt();
+        UUID id = readUuid();
+        String name = readString();
+        String owner = readString();
+
+        PremiumPlaylist playlist;
+        if (type == PLAYLIST_FAVOURITE) playlist = new FavouritePlaylist(id, name, owner);
+        else if (type == PLAYLIST_PREMIUM) playlist = new PremiumPlaylist(id, name, owner);
+        else throw new IOException("malformed snapshot: unknown playlist type " + type);
+
+        playlist.setPublic(readBoolean());
+        int current = readVarInt();
+        int tracks = readVarInt();
+        for (int i = 0; i < tracks; i++) playlist.addMusic(readMusicRef());
+        playlist.setCurrentTrackIndex(current);
+        if (version >= 6) {
+            playlist.setShuffleMode(readBoolean());
+            int history = readVarInt();
+            List<Integer> navigation = new ArrayList<>(history);
+            for (int i = 0; i < history; i++) navigation.add(readVarInt());
+            playlist.setNavigationHistory(navigation);
+        }
+        return playlist;
+    }
+}
@@ -0,0 +1,229 @@
+package spotifum.persistence;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * The type Snapshot scheduler.
+ * Runs snapshot jobs one at a time on a background thread, so saving never holds the
+ * menu loop. Jobs for the same file that have not started yet are coalesced into the
+ * newest one, and every callback of a coalesced job is notified when it completes.
+ * Optionally runs an autosave task at a fixed period on its own timer thread, which
+ * only captures the state and leaves the writing to the snapshot thread.
+ */
+public class SnapshotScheduler {
+    private final ExecutorService executor;
+    private final ScheduledExecutorService timer;
+    private final Deque<Task> queue;
+    private Task running;
+    private ScheduledFuture<?> autosave;
+
+    /**
+     * Callback notified when a save completes.
+     */
+    @FunctionalInterface
+    public interface Callback {
+        /**
+         * On complete.
+         *
+         * @param fileName the file name
+         * @param error    the error, or null if the state was saved
+         */
+        void onComplete(String fileName, Exception error);
+    }
+
+    /**
+     * The interface Job.
+     */
+    @FunctionalInterface
+    public interface Job {
+        /**
+         * Writes the snapshot.
+         *
+         * @throws Exception the exception
+         */
+        void run() throws Exception;
+    }
+
+    /**
+     * Instantiates a new Snapshot scheduler.
+     */
+    public SnapshotScheduler() {
+        this.executor = Executors.newSingleThreadExecutor(r -> daemon(r, "spotifum-snapshot"));
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "spotifum-autosave"));
+        this.queue = new ArrayDeque<>();
+        this.running = null;
+        this.autosave = null;
+    }
+
+    private static Thread daemon(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Queues a job.
+     *
+     * @param fileName   the file the job writes
+     * @param job        the job
+     * @param onDrop     run instead of the job if a newer job for the same file supersedes it, may be null
+     * @param supersedes whether this job replaces the queued jobs for the same file
+     * @param callback   the callback, may be null
+     * @return the future completed when the job, or the job that superseded it, completes
+     */
+    public synchronized CompletableFuture<Void> submit(String fileName, Job job, Runnable onDrop, boolean supersedes, Callback callback) {
+        Task task = new Task(fileName, job, onDrop);
+        if (supersedes) {
+            Iterator<Task> it = this.queue.iterator();
+            while (it.hasNext()) {
+                Task queued = it.next();
+                if (queued.fileName.equals(fileName)) {
+                    it.remove();
+                    if (queued.onDrop != null) queued.onDrop.run();
+                    task.callbacks.addAll(queued.callbacks);
+                    task.future.whenComplete((v, e) -> {
+                        if (e != null) queued.future.completeExceptionally(e);
+                        else queued.future.complete(v);
+                    });
+                }
+            }
+        }
+        if (callback != null) task.callbacks.add(callback);
+        this.queue.addLast(task);
+        if (this.running == null && this.queue.size() == 1) this.executor.execute(this::drain);
+        return task.future;
+    }
+
+    /**
+     * Notifies the callback when the last queued or running job for the file completes,
+     * or right away if there is none.
+     *
+     * @param fileName the file name
+     * @param callback the callback, may be null
+     * @return the future
+     */
+    public CompletableFuture<Void> attach(String fileName, Callback callback) {
+        synchronized (this) {
+            Task last = null;
+            if (this.running != null && !this.running.finished && this.running.fileName.equals(fileName)) last = this.running;
+            for (Task queued : this.queue) {
+                if (queued.fileName.equals(fileName)) last = queued;
+            }
+            if (last != null) {
+                if (callback != null) last.callbacks.add(callback);
+                return last.future;
+            }
+        }
+        if (callback != null) callback.onComplete(fileName, null);
+        return CompletableFuture.completedFuture(null);
+    }
+
+    /**
+     * Runs the queued jobs until the queue is empty.
+     */
+    private void drain() {
+        while (true) {
+            Task task;
+            synchronized (this) {
+                task = this.queue.pollFirst();
+                this.running = task;
+                if (task == null) {
+                    notifyAll();
+                    return;
+                }
+            }
+
+            Exception error = null;
+            try {
+                task.job.run();
+            } catch (Exception e) {
+                error = e;
+            }
+
+            List<Callback> callbacks;
+            synchronized (this) {
+                task.finished = true;
+                callbacks = new ArrayList<>(task.callbacks);
+            }
+            for (Callback callback : callbacks) {
+                try {
+                    callback.onComplete(task.fileName, error);
+                } catch (RuntimeException e) {
+                    System.out.println("[app-log] save callback error: " + e.getMessage());
+                }
+            }
+            if (error != null) task.future.completeExceptionally(error);
+            else task.future.complete(null);
+        }
+    }
+
+    /**
+     * Waits until no job is queued or running.
+     *
+     * @param timeoutMillis the maximum time to wait
+     * @return true if the scheduler is idle
+     * @throws InterruptedException the interrupted exception
+     */
+    public synchronized boolean awaitIdle(long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (this.running != null || !this.queue.isEmpty()) {
+            long left = deadline - System.currentTimeMillis();
+            if (left <= 0) return false;
+            wait(left);
+        }
+        return true;
+    }
+
+    /**
+     * Runs the autosave task periodically, replacing the previous policy.
+     *
+     * @param periodSeconds the period in seconds, 0 disables autosave
+     * @param task          the task
+     */
+    public synchronized void setAutosave(long periodSeconds, Runnable task) {
+        if (this.autosave != null) {
+            this.autosave.cancel(false);
+            this.autosave = null;
+        }
+        if (periodSeconds > 0) {
+            this.autosave = this.timer.scheduleAtFixedRate(() -> {
+                try {
+                    task.run();
+                } catch (RuntimeException e) {
+                    System.out.println("[app-log] autosave error: " + e.getMessage());
+                }
+            }, periodSeconds, periodSeconds, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Checks whether autosave is enabled.
+     *
+     * @return the boolean
+     */
+    public synchronized boolean isAutosaveEnabled() {
+        return this.autosave != null;
+    }
+
+    /**
+     * A queued job with the callbacks waiting for it.
+     */
+    private static class Task {
+        private final String fileName;
+        private final Job job;
+        private final Runnable onDrop;
+        private final List<Callback> callbacks;
+        private final CompletableFuture<Void> future;
+        private boolean finished;
+
+        private Task(String fileName, Job job, Runnable onDrop) {
+            this.fileName = fileName;
+            this.job = job;
+            this.onDrop = onDrop;
+            this.callbacks = new ArrayList<>();
+            this.future = new CompletableFuture<>();
+            this.finished = false;
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package spotifum.persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * The type Snapshot segment.
+ * A section of a (memory-mapped) {@link BinarySnapshot} that was skipped when the snapshot
+ * was opened and is decoded the first time its owner needs it.
+ */
+public class SnapshotSegment {
+    private final SnapshotReader reader;
+    private final int start;
+
+    /**
+     * Decodes the contents of a segment.
+     */
+    @FunctionalInterface
+    public interface Decoder {
+        /**
+         * Read from.
+         *
+         * @param in the in
+         * @throws IOException the io exception
+         */
+        void readFrom(SnapshotReader in) throws IOException;
+    }
+
+    /**
+     * Instantiates a new Snapshot segment.
+     *
+     * @param reader the reader over the snapshot
+     * @param start  the position of the segment
+     */
+    SnapshotSegment(SnapshotReader reader, int start) {
+        this.reader = reader;
+        this.start = start;
+    }
+
+    /**
+     * Decodes the segment with the given decoder.
+     *
+     * @param decoder the decoder
+     */
+    public void read(Decoder decoder) {
+        int current = this.reader.position();
+        try {
+            this.reader.seek(this.start);
+            decoder.readFrom(this.reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not decode snapshot segment", e);
+        } finally {
+            this.reader.seek(current);
+        }
+    }
+}
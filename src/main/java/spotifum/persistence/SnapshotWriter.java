@@ -0,0 +1,511 @@
+package spotifum.persistence;
+
+import spotifum.musics.Album;
+import spotifum.musics.Artist;
+import spotifum.musics.Music;
+import spotifum.musics.types.ExplicitMusic;
+import spotifum.musics.types.MultimediaMusic;
+import spotifum.playlists.FavouritePlaylist;
+import spotifum.playlists.Playlist;
+import spotifum.playlists.PremiumPlaylist;
+import spotifum.users.PremiumBaseUser;
+import spotifum.users.PremiumTopUser;
+import spotifum.users.User;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.*;
+
+/**
+ * The type Snapshot writer.
+ * Encodes entities into the body of a {@link BinarySnapshot}. Strings are replaced by
+ * indexes into a shared string table, UUIDs are written as two longs and references to
+ * musics, artists and users already written are stored as their id only.
+ */
+public class SnapshotWriter {
+    static final int REF_NULL = 0;
+    static final int REF_ID = 1;
+    static final int REF_INLINE = 2;
+
+    static final int MUSIC_PLAIN = 0;
+    static final int MUSIC_EXPLICIT = 1;
+    static final int MUSIC_MULTIMEDIA = 2;
+
+    static final int USER_FREE = 0;
+    static final int USER_PREMIUM_BASE = 1;
+    static final int USER_PREMIUM_TOP = 2;
+
+    static final int PLAYLIST_PREMIUM = 0;
+    static final int PLAYLIST_FAVOURITE = 1;
+
+    private final Map<String, Integer> stringIndex;
+    private final List<String> strings;
+    private final Set<UUID> musics;
+    private final Set<UUID> artists;
+    private final Set<UUID> users;
+    private ByteArrayOutputStream buffer;
+    private DataOutputStream out;
+    private List<UUID> trackIds;
+    private List<Integer> trackOffsets;
+
+    /**
+     * Instantiates a new Snapshot writer.
+     */
+    public SnapshotWriter() {
+        this.stringIndex = new HashMap<>();
+        this.strings = new ArrayList<>();
+        this.musics = new HashSet<>();
+        this.artists = new HashSet<>();
+        this.users = new HashSet<>();
+        this.buffer = new ByteArrayOutputStream();
+        this.out = new DataOutputStream(this.buffer);
+    }
+
+    /**
+     * Write var int.
+     *
+     * @param value the value, must not be negative
+     * @throws IOException the io exception
+     */
+    public void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Write long.
+     *
+     * @param value the value
+     * @throws IOException the io exception
+     */
+    public void writeLong(long value) throws IOException {
+        out.writeLong(value);
+    }
+
+    /**
+     * Write double.
+     *
+     * @param value the value
+     * @throws IOException the io exception
+     */
+    public void writeDouble(double value) throws IOException {
+        out.writeDouble(value);
+    }
+
+    /**
+     * Write boolean.
+     *
+     * @param value the value
+     * @throws IOException the io exception
+     */
+    public void writeBoolean(boolean value) throws IOException {
+        out.writeBoolean(value);
+    }
+
+    /**
+     * Writes a string as its index in the string table, 0 stands for null.
+     *
+     * @param value the value
+     * @throws IOException the io exception
+     */
+    public void writeString(String value) throws IOException {
+        writeVarInt(value == null ? 0 : stringIndex(value));
+    }
+
+    private int stringIndex(String value) {
+        Integer index = stringIndex.get(value);
+        if (index == null) {
+            strings.add(value);
+            index = strings.size();
+            stringIndex.put(value, index);
+        }
+        return index;
+    }
+
+    /**
+     * Write uuid.
+     *
+     * @param id the id
+     * @throws IOException the io exception
+     */
+    public void writeUuid(UUID id) throws IOException {
+        out.writeLong(id.getMostSignificantBits());
+        out.writeLong(id.getLeastSignificantBits());
+    }
+
+    /**
+     * Write date.
+     *
+     * @param date the date
+     * @throws IOException the io exception
+     */
+    public void writeDate(LocalDate date) throws IOException {
+        out.writeLong(date.toEpochDay());
+    }
+
+    /**
+     * Writes a length-prefixed record, so readers can skip it without decoding.
+     *
+     * @param body the record body
+     * @return the length of the record body
+     * @throws IOException the io exception
+     */
+    public int writeRecord(Body body) throws IOException {
+        ByteArrayOutputStream outer = this.buffer;
+        DataOutputStream outerOut = this.out;
+        this.buffer = new ByteArrayOutputStream();
+        this.out = new DataOutputStream(this.buffer);
+        byte[] record;
+        try {
+            body.write();
+        } finally {
+            record = this.buffer.toByteArray();
+            this.buffer = outer;
+            this.out = outerOut;
+        }
+        writeVarInt(record.length);
+        this.out.write(record);
+        return record.length;
+    }
+
+    /**
+     * Writes a catalog music. Later references to it are written as its id.
+     *
+     * @param music the music
+     * @throws IOException the io exception
+     */
+    public void writeMusic(Music music) throws IOException {
+        if (trackIds != null) {
+            trackIds.add(music.getMid());
+            trackOffsets.add(buffer.size());
+        }
+        writeMusicBody(music);
+        musics.add(music.getMid());
+    }
+
+    private void writeMusicBody(Music music) throws IOException {
+        if (music instanceof MultimediaMusic) writeVarInt(MUSIC_MULTIMEDIA);
+        else if (music instanceof ExplicitMusic) writeVarInt(MUSIC_EXPLICIT);
+        else writeVarInt(MUSIC_PLAIN);
+
+        writeUuid(music.getMid());
+        writeString(music.getName());
+        writeString(music.getArtist());
+        writeString(music.getLabel());
+        writeString(music.getLyrics());
+        writeString(music.getGenre());
+        writeVarInt(music.getDuration());
+        List<String> partiture = music.getMusic();
+        writeVarInt(partiture == null ? 0 : partiture.size());
+        if (partiture != null) {
+            for (String line : partiture) writeString(line);
+        }
+
+        if (music instanceof MultimediaMusic multimedia) {
+            writeBoolean(multimedia.isExplicit());
+            writeString(multimedia.getVideo());
+        }
+    }
+
+    /**
+     * Writes a reference to a music: its id if it is in the catalog, otherwise the music itself.
+     *
+     * @param music the music
+     * @throws IOException the io exception
+     */
+    public void writeMusicRef(Music music) throws IOException {
+        if (music == null) {
+            writeVarInt(REF_NULL);
+        } else if (musics.contains(music.getMid())) {
+            writeVarInt(REF_ID);
+            writeUuid(music.getMid());
+        } else {
+            writeVarInt(REF_INLINE);
+            writeMusicBody(music);
+        }
+    }
+
+    /**
+     * Writes an artist record with its tracks and albums.
+     *
+     * @param artist the artist
+     * @return the length of the record body
+     * @throws IOException the io exception
+     */
+    public int writeArtist(Artist artist) throws IOException {
+        int length = writeRecord(() -> {
+            writeUuid(artist.getArtistId());
+            writeString(artist.getEmail());
+            writeString(artist.getUsername());
+
+            Collection<Music> tracks = artist.getTracks().values();
+            writeVarInt(tracks.size());
+            for (Music music : tracks) writeMusic(music);
+
+            Collection<Album> albums = artist.getAlbums().values();
+            writeVarInt(albums.size());
+            for (Album album : albums) {
+                writeUuid(album.getAlbumId());
+                writeString(album.getName());
+                writeString(album.getCreator());
+                List<Music> albumTracks = album.getMusics();
+                writeVarInt(albumTracks.size());
+                for (Music music : albumTracks) writeMusicRef(music);
+            }
+        });
+        artists.add(artist.getArtistId());
+        return length;
+    }
+
+    /**
+     * Writes the artist catalog so that each artist can be decoded on its own.
+     * A directory with the offset of every artist, keyed by email, and of every track,
+     * sorted by id, comes first, followed by the block of artist records.
+     *
+     * @param artists the artists by email
+     * @throws IOException the io exception
+     */
+    public void writeArtistCatalog(Map<String, Artist> artists) throws IOException {
+        List<String> emails = new ArrayList<>(artists.keySet());
+        int[] offsets = new int[emails.size()];
+        List<UUID> ids = new ArrayList<>();
+        List<Integer> positions = new ArrayList<>();
+
+        byte[] block;
+        try {
+            block = writeBlock(() -> {
+                for (int i = 0; i < emails.size(); i++) {
+                    offsets[i] = this.buffer.size();
+                    this.trackIds = new ArrayList<>();
+                    this.trackOffsets = new ArrayList<>();
+                    int length = writeArtist(artists.get(emails.get(i)));
+                    int bodyStart = this.buffer.size() - length;
+                    for (int j = 0; j < this.trackIds.size(); j++) {
+                        ids.add(this.trackIds.get(j));
+                        positions.add(bodyStart + this.trackOffsets.get(j));
+                    }
+                }
+            });
+        } finally {
+            this.trackIds = null;
+            this.trackOffsets = null;
+        }
+
+        writeVarInt(emails.size());
+        for (int i = 0; i < emails.size(); i++) {
+            writeString(emails.get(i));
+            writeUuid(artists.get(emails.get(i)).getArtistId());
+            writeVarInt(offsets[i]);
+        }
+
+        Integer[] order = new Integer[ids.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparing(ids::get));
+        writeVarInt(order.length);
+        for (Integer i : order) {
+            writeUuid(ids.get(i));
+            writeVarInt(positions.get(i));
+        }
+
+        writeVarInt(block.length);
+        this.out.write(block);
+    }
+
+    /**
+     * Writes the users as a directory of partitions followed by one record per user with its
+     * playlists. The directory is a hash table by email with fixed width entries, so a reader
+     * finds a user without decoding the directory. See {@link UserDirectory}.
+     *
+     * @param users the users by email
+     * @throws IOException the io exception
+     */
+    public void writeUserDirectory(Map<String, User> users) throws IOException {
+        List<String> emails = new ArrayList<>(users.keySet());
+        int[] offsets = new int[emails.size()];
+        byte[] block = writeBlock(() -> {
+            for (int i = 0; i < emails.size(); i++) {
+                offsets[i] = this.buffer.size();
+                writeUser(users.get(emails.get(i)));
+            }
+        });
+
+        int buckets = Integer.highestOneBit(Math.max(1, emails.size()));
+        int[] starts = new int[buckets + 1];
+        for (String email : emails) starts[UserDirectory.bucket(email, buckets) + 1]++;
+        for (int b = 0; b < buckets; b++) starts[b + 1] += starts[b];
+        Integer[] order = new Integer[emails.size()];
+        for (int i = 0; i < order.length; i++) order[i] = i;
+        Arrays.sort(order, Comparator.comparingInt(i -> UserDirectory.bucket(emails.get(i), buckets)));
+
+        writeVarInt(emails.size());
+        writeVarInt(buckets);
+        for (int start : starts) this.out.writeInt(start);
+        for (Integer i : order) {
+            this.out.writeInt(stringIndex(emails.get(i)));
+            writeUuid(users.get(emails.get(i)).getUid());
+            this.out.writeInt(offsets[i]);
+        }
+        writeVarInt(block.length);
+        this.out.write(block);
+    }
+
+    /**
+     * Writes the given body into a separate buffer, so it can be preceded by an index of it.
+     *
+     * @param body the body
+     * @return the bytes written by the body
+     * @throws IOException the io exception
+     */
+    private byte[] writeBlock(Body body) throws IOException {
+        ByteArrayOutputStream outer = this.buffer;
+        DataOutputStream outerOut = this.out;
+        this.buffer = new ByteArrayOutputStream();
+        this.out = new DataOutputStream(this.buffer);
+        try {
+            body.write();
+            this.out.flush();
+            return this.buffer.toByteArray();
+        } finally {
+            this.buffer = outer;
+            this.out = outerOut;
+        }
+    }
+
+    /**
+     * Writes a reference to an artist: its id if it was written, otherwise its details.
+     *
+     * @param artist the artist
+     * @throws IOException the io exception
+     */
+    public void writeArtistRef(Artist artist) throws IOException {
+        if (artist == null) {
+            writeVarInt(REF_NULL);
+        } else if (artists.contains(artist.getArtistId())) {
+            writeVarInt(REF_ID);
+            writeUuid(artist.getArtistId());
+        } else {
+            writeVarInt(REF_INLINE);
+            writeUuid(artist.getArtistId());
+            writeString(artist.getEmail());
+            writeString(artist.getUsername());
+        }
+    }
+
+    /**
+     * Writes a user record with its playlists.
+     *
+     * @param user the user
+     * @throws IOException the io exception
+     */
+    public void writeUser(User user) throws IOException {
+        writeRecord(() -> {
+            writeUserHeader(user);
+            Collection<Playlist> playlists = user.getPlaylists().values();
+            writeVarInt(playlists.size());
+            for (Playlist playlist : playlists) writePlaylist(playlist);
+        });
+        users.add(user.getUid());
+    }
+
+    private void writeUserHeader(User user) throws IOException {
+        if (user instanceof PremiumTopUser) writeVarInt(USER_PREMIUM_TOP);
+        else if (user instanceof PremiumBaseUser) writeVarInt(USER_PREMIUM_BASE);
+        else writeVarInt(USER_FREE);
+
+        writeUuid(user.getUid());
+        writeString(user.getEmail());
+        writeString(user.getUsername());
+        writeString(user.getAddress());
+        writeString(user.getUserPlan() == null ? null : user.getUserPlan().name());
+    }
+
+    /**
+     * Writes a reference to a user: its id if it was written, otherwise its details.
+     *
+     * @param user the user
+     * @throws IOException the io exception
+     */
+    public void writeUserRef(User user) throws IOException {
+        if (user == null) {
+            writeVarInt(REF_NULL);
+        } else if (users.contains(user.getUid())) {
+            writeVarInt(REF_ID);
+            writeUuid(user.getUid());
+        } else {
+            writeVarInt(REF_INLINE);
+            writeUserHeader(user);
+        }
+    }
+
+    /**
+     * Write playlist.
+     *
+     * @param playlist the playlist
+     * @throws IOException the io exception
+     */
+    public void writePlaylist(Playlist playlist) throws IOException {
+        writeVarInt(playlist instanceof FavouritePlaylist ? PLAYLIST_FAVOURITE : PLAYLIST_PREMIUM);
+        writeUuid(playlist.getId());
+        writeString(playlist.getName());
+        writeString(playlist.getOwner());
+        writeBoolean(playlist.isPublic());
+        writeVarInt(Math.max(0, playlist.getCurrentTrackIndex()));
+        List<Music> tracks = playlist.getTracks();
+        writeVarInt(tracks.size());
+        for (Music music : tracks) writeMusicRef(music);
+        PremiumPlaylist premium = (PremiumPlaylist) playlist;
+        writeBoolean(premium.isShuffleModeActive());
+        List<Integer> history = premium.getNavigationHistory();
+        writeVarInt(history.size());
+        for (int index : history) writeVarInt(index);
+    }
+
+    /**
+     * Writes the string table followed by the encoded body. The table holds the number of
+     * strings, the offset of every string in the data, then the data length and the data.
+     *
+     * @param target the target
+     * @throws IOException the io exception
+     */
+    void writeTo(DataOutputStream target) throws IOException {
+        DataOutputStream body = this.out;
+        ByteArrayOutputStream bodyBytes = this.buffer;
+        this.buffer = new ByteArrayOutputStream();
+        this.out = new DataOutputStream(this.buffer);
+
+        int[] offsets = new int[strings.size()];
+        for (int i = 0; i < offsets.length; i++) {
+            byte[] utf8 = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            offsets[i] = this.buffer.size();
+            writeVarInt(utf8.length);
+            this.out.write(utf8);
+        }
+        byte[] data = this.buffer.toByteArray();
+        this.buffer = new ByteArrayOutputStream();
+        this.out = new DataOutputStream(this.buffer);
+        writeVarInt(offsets.length);
+        for (int offset : offsets) this.out.writeInt(offset);
+        writeVarInt(data.length);
+        this.out.write(data);
+        this.buffer.writeTo(target);
+        body.flush();
+        bodyBytes.writeTo(target);
+    }
+
+    /**
+     * The interface Body.
+     */
+    @FunctionalInterface
+    public interface Body {
+        /**
+         * Writes the record contents.
+         *
+         * @throws IOException the io exception
+         */
+        void write() throws IOException;
+    }
+}
@@ -0,0 +1,112 @@
+package spotifum.persistence;
+
+import spotifum.users.User;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * The type User directory.
+ * Index of the user partitions of a {@link BinarySnapshot}: each user, with its playlists,
+ * is decoded only when it logs in or is otherwise looked up. The index is a hash table by
+ * email that is read in place from the snapshot, so opening it costs the same whatever the
+ * number of users: a table of {@code buckets + 1} ints with the first entry of every bucket,
+ * followed by entries of {@link #ENTRY_SIZE} bytes (email string, id and record offset)
+ * grouped by bucket.
+ */
+public class UserDirectory extends RecordDirectory<User> {
+    /**
+     * The size of a directory entry.
+     */
+    public static final int ENTRY_SIZE = 24;
+
+    private final int count;
+    private final int buckets;
+    private final int table;
+    private final int entries;
+    private Map<UUID, String> emails;
+
+    /**
+     * Instantiates a new User directory.
+     *
+     * @param reader  the reader over the snapshot
+     * @param start   the position of the user records
+     * @param count   the number of users
+     * @param buckets the number of buckets, a power of two
+     * @param table   the position of the bucket table
+     * @param entries the position of the entries
+     */
+    UserDirectory(SnapshotReader reader, int start, int count, int buckets, int table, int entries) {
+        super(reader, start);
+        this.count = count;
+        this.buckets = buckets;
+        this.table = table;
+        this.entries = entries;
+        this.emails = null;
+    }
+
+    /**
+     * Gets the bucket of an email.
+     *
+     * @param email   the email
+     * @param buckets the number of buckets, a power of two
+     * @return the bucket
+     */
+    static int bucket(String email, int buckets) {
+        int h = email.hashCode();
+        return (h ^ (h >>> 16)) & (buckets - 1);
+    }
+
+    @Override
+    protected User decode(int position) throws IOException {
+        return this.reader.readUserAt(position);
+    }
+
+    @Override
+    protected int offsetOf(String email) {
+        int b = bucket(email, this.buckets);
+        int to = this.reader.intAt(this.table + 4 * (b + 1));
+        for (int i = this.reader.intAt(this.table + 4 * b); i < to; i++) {
+            int entry = this.entries + ENTRY_SIZE * i;
+            if (email.equals(emailAt(entry))) return this.reader.intAt(entry + 20);
+        }
+        return -1;
+    }
+
+    /**
+     * Gets the email of a user by id, indexing the ids the first time, since only the
+     * statistics refer to users by id.
+     */
+    @Override
+    protected String emailOf(UUID id) {
+        if (this.emails == null) {
+            this.emails = new HashMap<>();
+            for (int i = 0; i < this.count; i++) {
+                int entry = this.entries + ENTRY_SIZE * i;
+                this.emails.put(new UUID(this.reader.longAt(entry + 4), this.reader.longAt(entry + 12)), emailAt(entry));
+            }
+        }
+        return this.emails.get(id);
+    }
+
+    @Override
+    protected Collection<String> emails() {
+        List<String> emails = new ArrayList<>(this.count);
+        for (int i = 0; i < this.count; i++) emails.add(emailAt(this.entries + ENTRY_SIZE * i));
+        return emails;
+    }
+
+    @Override
+    protected int size() {
+        return this.count;
+    }
+
+    private String emailAt(int entry) {
+        try {
+            return this.reader.stringAt(this.reader.intAt(entry));
+        } catch (IOException e) {
+            throw new UncheckedIOException("could not decode user directory", e);
+        }
+    }
+}
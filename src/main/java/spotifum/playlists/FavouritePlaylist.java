@@ -1,9 +1,13 @@
 package spotifum.playlists;
 
+import java.util.UUID;
+
 /**
  * The type Favourite playlist.
  */
 public class FavouritePlaylist extends PremiumPlaylist {
+    private static final long serialVersionUID = -1985137686953657517L;
+
     /**
      * Instantiates a new Favourite playlist.
      *
@@ -14,6 +18,17 @@ public class FavouritePlaylist extends PremiumPlaylist {
         super(playlistName, owner);
     }
 
+    /**
+     * Instantiates a new Favourite playlist with a known id.
+     *
+     * @param id           the id
+     * @param playlistName the playlist name
+     * @param owner        the owner
+     */
+    public FavouritePlaylist(UUID id, String playlistName, String owner) {
+        super(id, playlistName, owner);
+    }
+
     /**
      * Instantiates a new Favourite playlist.
      *
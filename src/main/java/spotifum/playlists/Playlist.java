@@ -1,6 +1,7 @@
 package spotifum.playlists;
 
 import spotifum.musics.*;
+import spotifum.utils.Keyed;
 
 import java.io.Serializable;
 import java.util.*;
@@ -8,7 +9,9 @@ import java.util.*;
 /**
  * The type Playlist.
  */
-public abstract class Playlist implements PlaylistInterface, Serializable {
+public abstract class Playlist implements PlaylistInterface, Serializable, Keyed {
+    private static final long serialVersionUID = 8882276518332038202L;
+
     private final UUID id;
     private String owner;
     private String name;
@@ -43,6 +46,22 @@ public abstract class Playlist implements PlaylistInterface, Serializable {
         this._public = true;
     }
 
+    /**
+     * Instantiates a new Playlist with a known id.
+     *
+     * @param id    the id
+     * @param name  the name
+     * @param owner the owner
+     */
+    public Playlist(UUID id, String name, String owner) {
+        this.id = id;
+        this.name = name;
+        this.owner = owner;
+        this.tracks = new ArrayList<>();
+        this.currentTrackIndex = 0;
+        this._public = true;
+    }
+
     /**
      * Instantiates a new Playlist.
      *
@@ -125,6 +144,7 @@ public abstract class Playlist implements PlaylistInterface, Serializable {
      *
      * @return the playlist UUID
      */
+    @Override
     public UUID getId() {
         return id;
     }
@@ -200,6 +220,18 @@ public abstract class Playlist implements PlaylistInterface, Serializable {
         return removed;
     }
 
+    /**
+     * Removes every track with one of the given ids in a single pass.
+     *
+     * @param mids the mids
+     * @return true if any was removed, false otherwise
+     */
+    public boolean removeMusics(Set<UUID> mids) {
+        boolean removed = tracks.removeIf(m -> m != null && mids.contains(m.getMid()));
+        if (removed) adjustCurrentIndex();
+        return removed;
+    }
+
     /**
      * Plays the current track.
      *
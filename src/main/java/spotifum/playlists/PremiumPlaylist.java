@@ -7,6 +7,8 @@ import spotifum.musics.*;
  * The type Premium playlist.
  */
 public class PremiumPlaylist extends Playlist {
+    private static final long serialVersionUID = -9031506286746122975L;
+
     /**
      * The Shuffle mode.
      */
@@ -41,6 +43,20 @@ public class PremiumPlaylist extends Playlist {
         this.random = new Random();
     }
 
+    /**
+     * Instantiates a new Premium playlist with a known id.
+     *
+     * @param id    the id
+     * @param name  the name
+     * @param owner the owner
+     */
+    public PremiumPlaylist(UUID id, String name, String owner) {
+        super(id, name, owner);
+        this.shuffleMode = false;
+        this.navigationHistory = new ArrayList<>();
+        this.random = new Random();
+    }
+
     /**
      * Instantiates a new Premium playlist.
      *
@@ -155,6 +171,16 @@ public class PremiumPlaylist extends Playlist {
         return new ArrayList<>(this.navigationHistory);
     }
 
+    /**
+     * Sets navigation history.
+     *
+     * @param navigationHistory the navigation history
+     */
+    public void setNavigationHistory(List<Integer> navigationHistory) {
+        this.navigationHistory.clear();
+        this.navigationHistory.addAll(navigationHistory);
+    }
+
     /**
      * Clear history.
      */
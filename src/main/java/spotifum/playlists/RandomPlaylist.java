@@ -9,6 +9,8 @@ import java.util.stream.Collectors;
  * The type Random playlist.
  */
 public class RandomPlaylist extends Playlist{
+    private static final long serialVersionUID = 1058899724501511627L;
+
     /**
      * Instantiates a new Random playlist.
      */
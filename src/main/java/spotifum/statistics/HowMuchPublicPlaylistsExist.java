@@ -14,6 +14,8 @@ import static spotifum.utils.DisplayInformation.displayHowMuchPublicPlaylistsExi
  * The type How much public playlists exist.
  */
 public class HowMuchPublicPlaylistsExist implements Serializable {
+    private static final long serialVersionUID = -8684718483643223327L;
+
     private Map<UUID, Playlist> publicplaylists;
     private List<RandomPlaylist> randomPlaylists;
 
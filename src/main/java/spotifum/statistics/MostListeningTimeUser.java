@@ -2,7 +2,14 @@ package spotifum.statistics;
 
 import spotifum.users.*;
 import spotifum.utils.ConsoleColors;
+import spotifum.utils.DailyCounts;
+import spotifum.utils.IdRegistry;
+import spotifum.utils.TopK;
+import spotifum.persistence.SnapshotReader;
+import spotifum.persistence.SnapshotWriter;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.util.*;
@@ -11,15 +18,32 @@ import static spotifum.utils.DisplayInformation.displayMostListeningTimeUser;
 
 /**
  * The type Most listening time user.
+ * The plays of every user are kept by day in {@link DailyCounts}, so the plays of a user
+ * between two dates take O(log days). The users that played each day are kept by day,
+ * so the top users of a range only look at the users that played in it. The index of
+ * days is rebuilt from the histories when the serialized form is read back.
  */
 public class MostListeningTimeUser implements Serializable {
-    private final Map<User, Map<LocalDate, Integer>> history;
+    private static final long serialVersionUID = -4498721665557643349L;
+
+    /**
+     * The number of users shown in the top.
+     */
+    public static final int TOP_USERS = 5;
+
+    private final Map<User, DailyCounts> history;
+    private transient TreeMap<LocalDate, List<User>> playedOn;
 
     /**
      * Instantiates a new Most listening time user.
      */
     public MostListeningTimeUser() {
         history = new HashMap<>();
+        init();
+    }
+
+    private void init() {
+        this.playedOn = new TreeMap<>();
     }
 
     /**
@@ -42,9 +66,72 @@ public class MostListeningTimeUser implements Serializable {
      * @param date the date
      */
     public void recordPlay(User user, LocalDate date) {
-        Map<LocalDate, Integer> userHistory = history.computeIfAbsent(user, k -> new HashMap<>());
+        if (user == null || date == null) return;
+        put(user, date, 1);
+    }
 
-        userHistory.merge(date, 1, Integer::sum);
+    private void put(User user, LocalDate date, int plays) {
+        DailyCounts userHistory = history.computeIfAbsent(user, k -> new DailyCounts());
+        if (userHistory.add(date, plays)) playedOn.computeIfAbsent(date, k -> new ArrayList<>()).add(user);
+    }
+
+    /**
+     * Gets the plays of a user between two dates.
+     *
+     * @param user        the user
+     * @param initialDate the initial date
+     * @param finalDate   the final date
+     * @return the plays
+     */
+    public int getPlays(User user, LocalDate initialDate, LocalDate finalDate) {
+        DailyCounts userHistory = history.get(user);
+        return userHistory == null ? 0 : userHistory.between(initialDate, finalDate);
+    }
+
+    /**
+     * Gets the users with the most plays, from the total each history keeps.
+     *
+     * @param n the most users to return
+     * @return the users with their plays, most first
+     */
+    public List<Map.Entry<User, Integer>> getTopUsers(int n) {
+        TopK<User> plays = new TopK<>(TopK.Mode.EXACT, Math.max(n, 0));
+        for (Map.Entry<User, DailyCounts> entry : history.entrySet()) {
+            if (entry.getValue().total() > 0) plays.offer(entry.getKey(), entry.getValue().total());
+        }
+        return entries(plays.top(n));
+    }
+
+    /**
+     * Gets the users with the most plays between two dates. Only the users that played in
+     * the range are looked at, and a range holding every play is read from the totals.
+     *
+     * @param initialDate the initial date
+     * @param finalDate   the final date
+     * @param n           the most users to return
+     * @return the users with their plays in the range, most first
+     */
+    public List<Map.Entry<User, Integer>> getTopUsers(LocalDate initialDate, LocalDate finalDate, int n) {
+        if (initialDate.isAfter(finalDate) || playedOn.isEmpty()) return new ArrayList<>();
+        if (!initialDate.isAfter(playedOn.firstKey()) && !finalDate.isBefore(playedOn.lastKey())) return getTopUsers(n);
+
+        IdRegistry seen = new IdRegistry();
+        TopK<User> plays = new TopK<>(TopK.Mode.EXACT, Math.max(n, 0));
+        for (List<User> users : playedOn.subMap(initialDate, true, finalDate, true).values()) {
+            for (User user : users) {
+                if (seen.find(user.getId()) > 0) continue;
+                seen.keyOf(user.getId());
+                int count = getPlays(user, initialDate, finalDate);
+                if (count > 0) plays.offer(user, count);
+            }
+        }
+        return entries(plays.top(n));
+    }
+
+    private static List<Map.Entry<User, Integer>> entries(List<TopK.Entry<User>> top) {
+        List<Map.Entry<User, Integer>> entries = new ArrayList<>();
+        for (TopK.Entry<User> entry : top) entries.add(Map.entry(entry.getItem(), entry.getCount()));
+        return entries;
     }
 
     /**
@@ -54,13 +141,73 @@ public class MostListeningTimeUser implements Serializable {
      * @param finalDate   the final date
      */
     public void displayTopUser(LocalDate initialDate, LocalDate finalDate) {
-        displayMostListeningTimeUser(initialDate, finalDate, this.history);
+        displayMostListeningTimeUser(initialDate, finalDate, getTopUsers(initialDate, finalDate, TOP_USERS));
     }
 
     /**
      * Display top user.
      */
     public void displayTopUser() {
-        displayMostListeningTimeUser(this.history);
+        displayMostListeningTimeUser(getTopUsers(TOP_USERS));
+    }
+
+    /**
+     * Writes the listening history to a binary snapshot.
+     *
+     * @param out the out
+     * @throws IOException the io exception
+     */
+    public void writeTo(SnapshotWriter out) throws IOException {
+        out.writeVarInt(history.size());
+        for (Map.Entry<User, DailyCounts> entry : history.entrySet()) {
+            out.writeUserRef(entry.getKey());
+            DailyCounts days = entry.getValue();
+            out.writeVarInt(days.size());
+            for (int i = 0; i < days.size(); i++) {
+                out.writeDate(days.dateAt(i));
+                out.writeVarInt(days.countAt(i));
+            }
+        }
+    }
+
+    /**
+     * Reads the listening history from a binary snapshot.
+     *
+     * @param in the in
+     * @throws IOException the io exception
+     */
+    public void readFrom(SnapshotReader in) throws IOException {
+        int size = in.readVarInt();
+        for (int i = 0; i < size; i++) {
+            User user = in.readUserRef();
+            int days = in.readVarInt();
+            for (int j = 0; j < days; j++) {
+                LocalDate date = in.readDate();
+                int plays = in.readVarInt();
+                if (date != null) put(user, date, plays);
+            }
+        }
+    }
+
+    /**
+     * Turns the plays by date of a state saved before {@link DailyCounts} into one.
+     */
+    private static DailyCounts fromDays(Map<LocalDate, Integer> days) {
+        DailyCounts counts = new DailyCounts();
+        for (Map.Entry<LocalDate, Integer> day : new TreeMap<>(days).entrySet()) counts.add(day.getKey(), day.getValue());
+        return counts;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        init();
+        for (Map.Entry<User, Object> entry : ((Map<User, Object>) (Map<User, ?>) history).entrySet()) {
+            if (entry.getValue() instanceof Map<?, ?> days) entry.setValue(fromDays((Map<LocalDate, Integer>) days));
+        }
+        for (Map.Entry<User, DailyCounts> entry : history.entrySet()) {
+            DailyCounts days = entry.getValue();
+            for (int i = 0; i < days.size(); i++) playedOn.computeIfAbsent(days.dateAt(i), k -> new ArrayList<>()).add(entry.getKey());
+        }
     }
-}
\ No newline at end of file
+}
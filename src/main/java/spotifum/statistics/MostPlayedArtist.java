@@ -1,24 +1,39 @@
 package spotifum.statistics;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.*;
 
 import spotifum.musics.*;
 import spotifum.utils.ConsoleColors;
+import spotifum.utils.CountMinSketch;
+import spotifum.utils.KeyedCounter;
+import spotifum.utils.TopK;
+import spotifum.persistence.SnapshotReader;
+import spotifum.persistence.SnapshotWriter;
 
 import static spotifum.utils.DisplayInformation.displayMostPlayedArtist;
 
 /**
  * The type Most played artist.
+ * The most played artists are kept live in a {@link TopK}, with the plays optionally
+ * estimated in a {@link CountMinSketch}, see {@link MostPlayedMusic}.
  */
 public class MostPlayedArtist implements Serializable {
-    private final Map<Artist, Integer> playedartists;
+    private static final long serialVersionUID = -7474360224630244860L;
+
+    private KeyedCounter<Artist> playedartists;
+    private TopK<Artist> top;
+    private CountMinSketch sketch;
 
     /**
      * Instantiates a new Most played artist.
      */
     public MostPlayedArtist() {
-        this.playedartists = new HashMap<>();
+        this.playedartists = new KeyedCounter<>();
+        this.top = new TopK<>(TopK.Mode.EXACT, StatisticsManager.TOP_LIST_SIZE);
+        this.sketch = null;
     }
 
     /**
@@ -27,13 +42,155 @@ public class MostPlayedArtist implements Serializable {
      * @param artist the artist
      */
     public void recordPlay(Artist artist) {
-        playedartists.put(artist, playedartists.getOrDefault(artist, 0) + 1);
+        if (sketch != null) top.offer(artist, sketch.add(sketchKey(artist), 1));
+        else if (top.getMode() == TopK.Mode.EXACT) top.offer(artist, playedartists.add(artist, 1));
+        else top.add(artist);
     }
 
     /**
      * Gets most played artist.
      */
     public Artist getMostPlayedArtist() {
-        return displayMostPlayedArtist(this.playedartists);
+        return displayMostPlayedArtist(this.top.top(StatisticsManager.TOP_LIST_SIZE), getMaxError());
+    }
+
+    /**
+     * Gets the most played artists.
+     *
+     * @param n the most artists to return
+     * @return the artists with their plays, most played first
+     */
+    public List<TopK.Entry<Artist>> getTop(int n) {
+        return this.top.top(n);
+    }
+
+    /**
+     * Gets the plays of an artist.
+     *
+     * @param artist the artist
+     * @return the plays, an estimate unless {@link #getMaxError()} is 0
+     */
+    public int getPlays(Artist artist) {
+        if (sketch != null) return sketch.estimate(sketchKey(artist));
+        return top.getMode() == TopK.Mode.EXACT ? playedartists.get(artist) : top.count(artist);
+    }
+
+    /**
+     * Gets the most the plays reported may be over the true ones.
+     *
+     * @return the max error, 0 if the plays are exact
+     */
+    public int getMaxError() {
+        return sketch != null ? sketch.getMaxError() : top.getMaxError();
+    }
+
+    /**
+     * Sets the mode of the most played list, see {@link MostPlayedMusic#setMode}.
+     *
+     * @param mode the mode
+     */
+    public void setMode(TopK.Mode mode) {
+        if (sketch == null && mode == top.getMode()) return;
+        reset(mode, null);
+    }
+
+    /**
+     * Counts plays in a Count-Min sketch, see {@link MostPlayedMusic#setCountMin}.
+     *
+     * @param width the counters per row of the sketch, 0 to count exactly
+     * @param depth the rows of the sketch
+     */
+    public void setCountMin(int width, int depth) {
+        reset(TopK.Mode.EXACT, width == 0 ? null : new CountMinSketch(width, depth));
+    }
+
+    private void reset(TopK.Mode mode, CountMinSketch sketch) {
+        Map<Artist, Integer> counts = counts();
+        playedartists = new KeyedCounter<>();
+        this.sketch = sketch;
+        top = new TopK<>(mode, sketch == null && mode == TopK.Mode.EXACT ? StatisticsManager.TOP_LIST_SIZE : StatisticsManager.SKETCH_SIZE);
+        for (Map.Entry<Artist, Integer> entry : counts.entrySet()) put(entry.getKey(), entry.getValue());
+    }
+
+    /**
+     * Gets the play counts by artist id.
+     *
+     * @return the play counts
+     */
+    public Map<UUID, Integer> getPlaysById() {
+        Map<UUID, Integer> plays = new HashMap<>();
+        for (Map.Entry<Artist, Integer> entry : counts().entrySet()) {
+            plays.put(entry.getKey().getArtistId(), entry.getValue());
+        }
+        return plays;
+    }
+
+    private Map<Artist, Integer> counts() {
+        return sketch == null && top.getMode() == TopK.Mode.EXACT ? playedartists.toMap() : top.counts();
+    }
+
+    private void put(Artist artist, int count) {
+        if (sketch != null) count = sketch.add(sketchKey(artist), count);
+        else if (top.getMode() == TopK.Mode.EXACT) count = playedartists.add(artist, count);
+        top.offer(artist, count);
+    }
+
+    private static long sketchKey(Artist artist) {
+        return artist.getArtistId().getMostSignificantBits() * 31 + artist.getArtistId().getLeastSignificantBits();
+    }
+
+    /**
+     * Reads a manager, counting again the plays of a state saved when they were kept in a map.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        Object counts = fields.get("playedartists", null);
+        this.sketch = (CountMinSketch) fields.get("sketch", null);
+        this.top = (TopK<Artist>) fields.get("top", null);
+        if (counts instanceof KeyedCounter<?> counter) {
+            this.playedartists = (KeyedCounter<Artist>) counter;
+            return;
+        }
+        this.playedartists = new KeyedCounter<>();
+        this.top = new TopK<>(TopK.Mode.EXACT, StatisticsManager.TOP_LIST_SIZE);
+        for (Map.Entry<Artist, Integer> entry : ((Map<Artist, Integer>) counts).entrySet()) put(entry.getKey(), entry.getValue());
+    }
+
+    /**
+     * Writes the play counts to a binary snapshot, after the mode of the most played list
+     * and the counters of the Count-Min sketch if there is one.
+     *
+     * @param out the out
+     * @throws IOException the io exception
+     */
+    public void writeTo(SnapshotWriter out) throws IOException {
+        out.writeVarInt(top.getMode().ordinal());
+        MostPlayedMusic.writeSketch(out, sketch);
+        Map<Artist, Integer> counts = counts();
+        out.writeVarInt(counts.size());
+        for (Map.Entry<Artist, Integer> entry : counts.entrySet()) {
+            out.writeArtistRef(entry.getKey());
+            out.writeVarInt(entry.getValue());
+        }
+    }
+
+    /**
+     * Reads the play counts from a binary snapshot.
+     *
+     * @param in the in
+     * @throws IOException the io exception
+     */
+    public void readFrom(SnapshotReader in) throws IOException {
+        TopK.Mode mode = in.getVersion() >= 8 ? MostPlayedMusic.readMode(in) : TopK.Mode.EXACT;
+        CountMinSketch counted = in.getVersion() >= 7 ? MostPlayedMusic.readSketch(in) : null;
+        if (counted != null || mode != TopK.Mode.EXACT) reset(mode, counted);
+        int size = in.readVarInt();
+        for (int i = 0; i < size; i++) {
+            Artist artist = in.readArtistRef();
+            int count = in.readVarInt();
+            if (counted != null) top.offer(artist, count);
+            else put(artist, count);
+        }
     }
 }
@@ -1,24 +1,34 @@
 package spotifum.statistics;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.*;
 
 import spotifum.musics.*;
 import spotifum.utils.ConsoleColors;
+import spotifum.utils.TopK;
+import spotifum.persistence.SnapshotReader;
+import spotifum.persistence.SnapshotWriter;
 
 import static spotifum.utils.DisplayInformation.displayMostPlayedGenres;
 
 /**
  * The type Most played genres.
+ * The most played genres are kept live in a {@link TopK}.
  */
 public class MostPlayedGenres implements Serializable {
-    private final Map<String, Integer> playedgenres;
+    private static final long serialVersionUID = 7212462403843476014L;
+
+    private Map<String, Integer> playedgenres;
+    private TopK<String> top;
 
     /**
      * Instantiates a new Most played genres.
      */
     public MostPlayedGenres() {
         playedgenres = new HashMap<>();
+        top = new TopK<>(TopK.Mode.EXACT, StatisticsManager.TOP_LIST_SIZE);
     }
 
     /**
@@ -27,13 +37,87 @@ public class MostPlayedGenres implements Serializable {
      * @param music the music
      */
     public void recordPlay(Music music) {
-        playedgenres.put(music.getGenre(), playedgenres.getOrDefault(music.getGenre(), 0) + 1);
+        if (top.getMode() == TopK.Mode.EXACT) top.offer(music.getGenre(), playedgenres.merge(music.getGenre(), 1, Integer::sum));
+        else top.add(music.getGenre());
     }
 
     /**
      * Display most played genres.
      */
     public String getMostPlayedGenres() {
-        return displayMostPlayedGenres(this.playedgenres);
+        return displayMostPlayedGenres(this.top.top(StatisticsManager.TOP_LIST_SIZE), this.top.getMaxError());
+    }
+
+    /**
+     * Gets the most played genres.
+     *
+     * @param n the most genres to return
+     * @return the genres with their plays, most played first
+     */
+    public List<TopK.Entry<String>> getTop(int n) {
+        return this.top.top(n);
+    }
+
+    /**
+     * Sets the mode of the most played list, see {@link MostPlayedMusic#setMode}.
+     *
+     * @param mode the mode
+     */
+    public void setMode(TopK.Mode mode) {
+        if (mode == top.getMode()) return;
+        Map<String, Integer> counts = counts();
+        playedgenres = new HashMap<>();
+        top = new TopK<>(mode, mode == TopK.Mode.EXACT ? StatisticsManager.TOP_LIST_SIZE : StatisticsManager.SKETCH_SIZE);
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) put(entry.getKey(), entry.getValue());
+    }
+
+    private Map<String, Integer> counts() {
+        return top.getMode() == TopK.Mode.EXACT ? playedgenres : top.counts();
+    }
+
+    private void put(String genre, int count) {
+        if (top.getMode() == TopK.Mode.EXACT) count = playedgenres.merge(genre, count, Integer::sum);
+        top.offer(genre, count);
+    }
+
+    /**
+     * Reads a manager, building the most played list of a state saved before it.
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (top != null) return;
+        top = new TopK<>(TopK.Mode.EXACT, StatisticsManager.TOP_LIST_SIZE);
+        for (Map.Entry<String, Integer> entry : playedgenres.entrySet()) top.offer(entry.getKey(), entry.getValue());
+    }
+
+    /**
+     * Writes the play counts to a binary snapshot, after the mode of the most played list.
+     *
+     * @param out the out
+     * @throws IOException the io exception
+     */
+    public void writeTo(SnapshotWriter out) throws IOException {
+        out.writeVarInt(top.getMode().ordinal());
+        Map<String, Integer> counts = counts();
+        out.writeVarInt(counts.size());
+        for (Map.Entry<String, Integer> entry : counts.entrySet()) {
+            out.writeString(entry.getKey());
+            out.writeVarInt(entry.getValue());
+        }
+    }
+
+    /**
+     * Reads the play counts from a binary snapshot.
+     *
+     * @param in the in
+     * @throws IOException the io exception
+     */
+    public void readFrom(SnapshotReader in) throws IOException {
+        if (in.getVersion() >= 8) setMode(MostPlayedMusic.readMode(in));
+        int size = in.readVarInt();
+        for (int i = 0; i < size; i++) {
+            String genre = in.readString();
+            put(genre, in.readVarInt());
+        }
     }
 }
@@ -1,24 +1,42 @@
 package spotifum.statistics;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.io.Serializable;
 import java.util.*;
 
 import spotifum.musics.*;
 import spotifum.utils.ConsoleColors;
+import spotifum.utils.CountMinSketch;
+import spotifum.utils.KeyedCounter;
+import spotifum.utils.TopK;
+import spotifum.persistence.SnapshotReader;
+import spotifum.persistence.SnapshotWriter;
 
 import static spotifum.utils.DisplayInformation.displayMostPlayedMusic;
 
 /**
  * The type Most played music.
+ * Plays are counted by track key, so recording one is a single array update, and the
+ * most played tracks are kept live in a {@link TopK}. In approximate mode only the
+ * sketch is kept. With a {@link CountMinSketch} the plays of every track are estimated
+ * in the fixed memory of the sketch, and the most played list follows the estimates of
+ * the tracks played.
  */
 public class MostPlayedMusic implements Serializable {
-    private final Map<Music, Integer> playedtracks;
+    private static final long serialVersionUID = -3639963432917549720L;
+
+    private KeyedCounter<Music> playedtracks;
+    private TopK<Music> top;
+    private CountMinSketch sketch;
 
     /**
      * Instantiates a new Most played music.
      */
     public MostPlayedMusic() {
-        this.playedtracks = new HashMap<>();
+        this.playedtracks = new KeyedCounter<>();
+        this.top = new TopK<>(TopK.Mode.EXACT, StatisticsManager.TOP_LIST_SIZE);
+        this.sketch = null;
     }
 
     /**
@@ -27,23 +45,225 @@ public class MostPlayedMusic implements Serializable {
      * @param music the music
      */
     public void recordPlay(Music music) {
-        boolean found = false;
-        for (Map.Entry<Music, Integer> entry : playedtracks.entrySet()) {
-            if (entry.getKey().equals(music)) {
-                playedtracks.put(entry.getKey(), entry.getValue() + 1);
-                found = true;
-                break;
-            }
-        }
-        if (!found) {
-            playedtracks.put(music, 1);
-        }
+        if (sketch != null) top.offer(music, sketch.add(sketchKey(music), 1));
+        else if (top.getMode() == TopK.Mode.EXACT) top.offer(music, playedtracks.add(music, 1));
+        else top.add(music);
     }
 
     /**
      * Gets most played music.
      */
     public Music getMostPlayedMusic() {
-        return displayMostPlayedMusic(this.playedtracks);
+        return displayMostPlayedMusic(this.top.top(StatisticsManager.TOP_LIST_SIZE), getMaxError());
+    }
+
+    /**
+     * Gets the most played tracks.
+     *
+     * @param n the most tracks to return
+     * @return the tracks with their plays, most played first
+     */
+    public List<TopK.Entry<Music>> getTop(int n) {
+        return this.top.top(n);
+    }
+
+    /**
+     * Gets the plays of a track.
+     *
+     * @param music the music
+     * @return the plays, an estimate unless {@link #getMaxError()} is 0
+     */
+    public int getPlays(Music music) {
+        if (sketch != null) return sketch.estimate(sketchKey(music));
+        return top.getMode() == TopK.Mode.EXACT ? playedtracks.get(music) : top.count(music);
+    }
+
+    /**
+     * Gets the most the plays reported may be over the true ones.
+     *
+     * @return the max error, 0 if the plays are exact
+     */
+    public int getMaxError() {
+        return sketch != null ? sketch.getMaxError() : top.getMaxError();
+    }
+
+    /**
+     * Gets the mode of the most played list.
+     *
+     * @return the mode
+     */
+    public TopK.Mode getMode() {
+        return this.top.getMode();
+    }
+
+    /**
+     * Sets the mode of the most played list and stops using a Count-Min sketch.
+     * Switching to approximate keeps only the sketch, seeded with the exact counts;
+     * switching back seeds the counts with the estimates of the sketch.
+     *
+     * @param mode the mode
+     */
+    public void setMode(TopK.Mode mode) {
+        if (sketch == null && mode == top.getMode()) return;
+        reset(mode, null);
+    }
+
+    /**
+     * Counts plays in a Count-Min sketch, seeded with the current counts, or counts them
+     * exactly again when the width is 0.
+     *
+     * @param width the counters per row of the sketch, 0 to count exactly
+     * @param depth the rows of the sketch
+     */
+    public void setCountMin(int width, int depth) {
+        reset(TopK.Mode.EXACT, width == 0 ? null : new CountMinSketch(width, depth));
+    }
+
+    private void reset(TopK.Mode mode, CountMinSketch sketch) {
+        Map<Music, Integer> counts = counts();
+        playedtracks = new KeyedCounter<>();
+        this.sketch = sketch;
+        top = new TopK<>(mode, sketch == null && mode == TopK.Mode.EXACT ? StatisticsManager.TOP_LIST_SIZE : StatisticsManager.SKETCH_SIZE);
+        for (Map.Entry<Music, Integer> entry : counts.entrySet()) put(entry.getKey(), entry.getValue());
+    }
+
+    /**
+     * Gets the play counts by track id.
+     *
+     * @return the play counts
+     */
+    public Map<UUID, Integer> getPlaysById() {
+        Map<UUID, Integer> plays = new HashMap<>();
+        for (Map.Entry<Music, Integer> entry : counts().entrySet()) {
+            plays.put(entry.getKey().getMid(), entry.getValue());
+        }
+        return plays;
+    }
+
+    /**
+     * Gets the exact counts, or the estimates of the tracks kept in the most played list.
+     */
+    private Map<Music, Integer> counts() {
+        return sketch == null && top.getMode() == TopK.Mode.EXACT ? playedtracks.toMap() : top.counts();
+    }
+
+    private void put(Music music, int count) {
+        if (sketch != null) count = sketch.add(sketchKey(music), count);
+        else if (top.getMode() == TopK.Mode.EXACT) count = playedtracks.add(music, count);
+        top.offer(music, count);
+    }
+
+    /**
+     * Hashes the id of a track, which unlike its key stays the same across runs.
+     */
+    private static long sketchKey(Music music) {
+        return music.getMid().getMostSignificantBits() * 31 + music.getMid().getLeastSignificantBits();
+    }
+
+    /**
+     * Reads a manager, counting again the plays of a state saved when they were kept in a map.
+     */
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        Object counts = fields.get("playedtracks", null);
+        this.sketch = (CountMinSketch) fields.get("sketch", null);
+        this.top = (TopK<Music>) fields.get("top", null);
+        if (counts instanceof KeyedCounter<?> counter) {
+            this.playedtracks = (KeyedCounter<Music>) counter;
+            return;
+        }
+        this.playedtracks = new KeyedCounter<>();
+        this.top = new TopK<>(TopK.Mode.EXACT, StatisticsManager.TOP_LIST_SIZE);
+        for (Map.Entry<Music, Integer> entry : ((Map<Music, Integer>) counts).entrySet()) put(entry.getKey(), entry.getValue());
+    }
+
+    /**
+     * Writes the play counts to a binary snapshot, after the mode of the most played list.
+     * With a Count-Min sketch the counters of the sketch are written first, so the tracks
+     * out of the most played list keep their plays.
+     *
+     * @param out the out
+     * @throws IOException the io exception
+     */
+    public void writeTo(SnapshotWriter out) throws IOException {
+        out.writeVarInt(top.getMode().ordinal());
+        writeSketch(out, sketch);
+        Map<Music, Integer> counts = counts();
+        out.writeVarInt(counts.size());
+        for (Map.Entry<Music, Integer> entry : counts.entrySet()) {
+            out.writeMusicRef(entry.getKey());
+            out.writeVarInt(entry.getValue());
+        }
+    }
+
+    /**
+     * Reads the play counts from a binary snapshot.
+     *
+     * @param in the in
+     * @throws IOException the io exception
+     */
+    public void readFrom(SnapshotReader in) throws IOException {
+        TopK.Mode mode = in.getVersion() >= 8 ? readMode(in) : TopK.Mode.EXACT;
+        CountMinSketch counted = in.getVersion() >= 7 ? readSketch(in) : null;
+        if (counted != null || mode != TopK.Mode.EXACT) reset(mode, counted);
+        int size = in.readVarInt();
+        for (int i = 0; i < size; i++) {
+            Music music = in.readMusicRef();
+            int count = in.readVarInt();
+            if (counted != null) top.offer(music, count);
+            else put(music, count);
+        }
+    }
+
+    /**
+     * Reads the mode of a most played list.
+     *
+     * @param in the in
+     * @return the mode
+     * @throws IOException the io exception
+     */
+    static TopK.Mode readMode(SnapshotReader in) throws IOException {
+        int mode = in.readVarInt();
+        if (mode < 0 || mode >= TopK.Mode.values().length) throw new IOException("malformed snapshot: unknown top list mode " + mode);
+        return TopK.Mode.values()[mode];
+    }
+
+    /**
+     * Writes a Count-Min sketch, or a width of 0 if there is none.
+     *
+     * @param out    the out
+     * @param sketch the sketch, may be null
+     * @throws IOException the io exception
+     */
+    static void writeSketch(SnapshotWriter out, CountMinSketch sketch) throws IOException {
+        if (sketch == null) {
+            out.writeVarInt(0);
+            return;
+        }
+        out.writeVarInt(sketch.getWidth());
+        out.writeVarInt(sketch.getDepth());
+        out.writeLong(sketch.getTotal());
+        for (int counter : sketch.toArray()) out.writeVarInt(counter);
+    }
+
+    /**
+     * Reads a Count-Min sketch written by {@link #writeSketch}.
+     *
+     * @param in the in
+     * @return the sketch, or null if there is none
+     * @throws IOException the io exception
+     */
+    static CountMinSketch readSketch(SnapshotReader in) throws IOException {
+        int width = in.readVarInt();
+        if (width == 0) return null;
+        int depth = in.readVarInt();
+        long total = in.readLong();
+        if (width < 0 || depth < 1 || (long) width * depth > Integer.MAX_VALUE) {
+            throw new IOException("malformed snapshot: bad sketch size " + width + "x" + depth);
+        }
+        int[] counters = new int[width * depth];
+        for (int i = 0; i < counters.length; i++) counters[i] = in.readVarInt();
+        return CountMinSketch.of(width, depth, total, counters);
     }
 }
@@ -0,0 +1,266 @@
+package spotifum.statistics;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.*;
+
+import spotifum.musics.*;
+import spotifum.utils.TopK;
+import spotifum.persistence.SnapshotReader;
+import spotifum.persistence.SnapshotWriter;
+
+import static spotifum.utils.DisplayInformation.displayMostPlayedBetween;
+
+/**
+ * The type Plays by day.
+ * Track, artist and genre plays counted by the simulated date they happened on, so the
+ * most played of any range of dates can be found by adding up the days in it. The last
+ * week and the last month up to the latest date played are also kept added up, and slid
+ * forward as the date advances by taking out the days that leave them, so asking for
+ * either does not depend on how much history there is.
+ */
+public class PlaysByDay implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The days in the rolling week.
+     */
+    public static final int WEEK = 7;
+    /**
+     * The days in the rolling month.
+     */
+    public static final int MONTH = 30;
+
+    private final TreeMap<LocalDate, Counts> days;
+    private final Counts week;
+    private final Counts month;
+    private LocalDate today;
+
+    /**
+     * Instantiates a new Plays by day.
+     */
+    public PlaysByDay() {
+        this.days = new TreeMap<>();
+        this.week = new Counts();
+        this.month = new Counts();
+        this.today = null;
+    }
+
+    /**
+     * Record play.
+     *
+     * @param music  the music
+     * @param artist the artist, may be null
+     * @param date   the date
+     */
+    public void recordPlay(Music music, Artist artist, LocalDate date) {
+        if (music == null || date == null) return;
+        advanceTo(date);
+        days.computeIfAbsent(date, k -> new Counts()).add(music, artist, 1);
+        if (inWindow(date, WEEK)) week.add(music, artist, 1);
+        if (inWindow(date, MONTH)) month.add(music, artist, 1);
+    }
+
+    /**
+     * Slides the rolling week and month forward to end on the date of a play. Earlier
+     * dates are ignored.
+     */
+    private void advanceTo(LocalDate date) {
+        if (today != null && !date.isAfter(today)) return;
+        if (today != null) {
+            slide(week, WEEK, date);
+            slide(month, MONTH, date);
+        }
+        today = date;
+    }
+
+    /**
+     * Gets the tracks played the most between two dates.
+     *
+     * @param initialDate the initial date
+     * @param finalDate   the final date
+     * @param n           the most tracks to return
+     * @return the tracks with their plays, most played first
+     */
+    public List<TopK.Entry<Music>> getTopTracks(LocalDate initialDate, LocalDate finalDate, int n) {
+        return top(between(initialDate, finalDate).tracks, n);
+    }
+
+    /**
+     * Gets the artists played the most between two dates.
+     *
+     * @param initialDate the initial date
+     * @param finalDate   the final date
+     * @param n           the most artists to return
+     * @return the artists with their plays, most played first
+     */
+    public List<TopK.Entry<Artist>> getTopArtists(LocalDate initialDate, LocalDate finalDate, int n) {
+        return top(between(initialDate, finalDate).artists, n);
+    }
+
+    /**
+     * Gets the genres played the most between two dates.
+     *
+     * @param initialDate the initial date
+     * @param finalDate   the final date
+     * @param n           the most genres to return
+     * @return the genres with their plays, most played first
+     */
+    public List<TopK.Entry<String>> getTopGenres(LocalDate initialDate, LocalDate finalDate, int n) {
+        return top(between(initialDate, finalDate).genres, n);
+    }
+
+    /**
+     * Display the tracks, artists and genres played the most between two dates.
+     *
+     * @param initialDate the initial date
+     * @param finalDate   the final date
+     */
+    public void displayTop(LocalDate initialDate, LocalDate finalDate) {
+        Counts counts = between(initialDate, finalDate);
+        displayMostPlayedBetween(initialDate, finalDate, top(counts.tracks, StatisticsManager.TOP_LIST_SIZE),
+                top(counts.artists, StatisticsManager.TOP_LIST_SIZE), top(counts.genres, StatisticsManager.TOP_LIST_SIZE));
+    }
+
+    /**
+     * Gets the plays between two dates: the rolling week or month when the range starts
+     * where one of them does and ends on or after the latest date played, since nothing was
+     * played after it, otherwise the sum of the days in the range. Never moves the windows.
+     */
+    private Counts between(LocalDate initialDate, LocalDate finalDate) {
+        if (initialDate.isAfter(finalDate)) return new Counts();
+        if (today != null && !finalDate.isBefore(today)) {
+            if (initialDate.equals(today.minusDays(WEEK - 1))) return week;
+            if (initialDate.equals(today.minusDays(MONTH - 1))) return month;
+        }
+        Counts counts = new Counts();
+        for (Counts day : days.subMap(initialDate, true, finalDate, true).values()) counts.addAll(day, 1);
+        return counts;
+    }
+
+    private boolean inWindow(LocalDate date, int length) {
+        return !date.isBefore(today.minusDays(length - 1));
+    }
+
+    /**
+     * Takes the days that leave a window out of it as it moves to end on a later date.
+     */
+    private void slide(Counts window, int length, LocalDate date) {
+        LocalDate start = today.minusDays(length - 1);
+        LocalDate next = date.minusDays(length - 1);
+        if (next.isAfter(today)) {
+            window.clear();
+            return;
+        }
+        for (Counts day : days.subMap(start, true, next, false).values()) window.addAll(day, -1);
+    }
+
+    private static <T> List<TopK.Entry<T>> top(Map<T, Integer> counts, int n) {
+        TopK<T> top = new TopK<>(TopK.Mode.EXACT, Math.max(n, 0));
+        for (Map.Entry<T, Integer> entry : counts.entrySet()) top.offer(entry.getKey(), entry.getValue());
+        return top.top(n);
+    }
+
+    /**
+     * Writes the plays of every day to a binary snapshot.
+     *
+     * @param out the out
+     * @throws IOException the io exception
+     */
+    public void writeTo(SnapshotWriter out) throws IOException {
+        out.writeVarInt(days.size());
+        for (Map.Entry<LocalDate, Counts> day : days.entrySet()) {
+            out.writeDate(day.getKey());
+            Counts counts = day.getValue();
+            out.writeVarInt(counts.tracks.size());
+            for (Map.Entry<Music, Integer> entry : counts.tracks.entrySet()) {
+                out.writeMusicRef(entry.getKey());
+                out.writeVarInt(entry.getValue());
+            }
+            out.writeVarInt(counts.artists.size());
+            for (Map.Entry<Artist, Integer> entry : counts.artists.entrySet()) {
+                out.writeArtistRef(entry.getKey());
+                out.writeVarInt(entry.getValue());
+            }
+            out.writeVarInt(counts.genres.size());
+            for (Map.Entry<String, Integer> entry : counts.genres.entrySet()) {
+                out.writeString(entry.getKey());
+                out.writeVarInt(entry.getValue());
+            }
+        }
+    }
+
+    /**
+     * Reads the plays of every day from a binary snapshot, and adds up the rolling week
+     * and month again.
+     *
+     * @param in the in
+     * @throws IOException the io exception
+     */
+    public void readFrom(SnapshotReader in) throws IOException {
+        int size = in.readVarInt();
+        for (int i = 0; i < size; i++) {
+            LocalDate date = in.readDate();
+            Counts counts = days.computeIfAbsent(date, k -> new Counts());
+            int tracks = in.readVarInt();
+            for (int j = 0; j < tracks; j++) {
+                Music music = in.readMusicRef();
+                counts.tracks.merge(music, in.readVarInt(), Integer::sum);
+            }
+            int artists = in.readVarInt();
+            for (int j = 0; j < artists; j++) {
+                Artist artist = in.readArtistRef();
+                counts.artists.merge(artist, in.readVarInt(), Integer::sum);
+            }
+            int genres = in.readVarInt();
+            for (int j = 0; j < genres; j++) {
+                String genre = in.readString();
+                counts.genres.merge(genre, in.readVarInt(), Integer::sum);
+            }
+        }
+        if (days.isEmpty()) return;
+        today = days.lastKey();
+        week.clear();
+        month.clear();
+        for (Counts day : days.tailMap(today.minusDays(WEEK - 1), true).values()) week.addAll(day, 1);
+        for (Counts day : days.tailMap(today.minusDays(MONTH - 1), true).values()) month.addAll(day, 1);
+    }
+
+    /**
+     * The plays of each track, artist and genre over some days.
+     */
+    private static class Counts implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final Map<Music, Integer> tracks = new HashMap<>();
+        private final Map<Artist, Integer> artists = new HashMap<>();
+        private final Map<String, Integer> genres = new HashMap<>();
+
+        private void add(Music music, Artist artist, int plays) {
+            add(tracks, music, plays);
+            add(genres, music.getGenre(), plays);
+            if (artist != null) add(artists, artist, plays);
+        }
+
+        private void addAll(Counts other, int sign) {
+            for (Map.Entry<Music, Integer> entry : other.tracks.entrySet()) add(tracks, entry.getKey(), sign * entry.getValue());
+            for (Map.Entry<Artist, Integer> entry : other.artists.entrySet()) add(artists, entry.getKey(), sign * entry.getValue());
+            for (Map.Entry<String, Integer> entry : other.genres.entrySet()) add(genres, entry.getKey(), sign * entry.getValue());
+        }
+
+        private void clear() {
+            tracks.clear();
+            artists.clear();
+            genres.clear();
+        }
+
+        /**
+         * Adds to a count, dropping it once it is back to 0 so a window only holds what
+         * was played in it.
+         */
+        private static <T> void add(Map<T, Integer> counts, T item, int plays) {
+            counts.merge(item, plays, (a, b) -> a + b == 0 ? null : a + b);
+        }
+    }
+}
@@ -5,15 +5,39 @@ import spotifum.musics.*;
 import spotifum.playlists.Playlist;
 import spotifum.playlists.RandomPlaylist;
 import spotifum.users.*;
+import spotifum.persistence.SnapshotReader;
+import spotifum.persistence.SnapshotSegment;
+import spotifum.persistence.SnapshotWriter;
+import spotifum.utils.TopK;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.time.LocalDate;
 import java.util.*;
 
 /**
  * The type Statistics manager.
+ * When loaded from a binary snapshot, the recorded statistics stay in the snapshot until
+ * they are first read or updated.
  */
 public class StatisticsManager implements Serializable {
+    private static final long serialVersionUID = -4195447450924117641L;
+
+    /**
+     * The number of tracks, artists and genres in the most played lists.
+     */
+    public static final int TOP_LIST_SIZE = 10;
+    /**
+     * The number of items an approximate most played list keeps track of.
+     */
+    public static final int SKETCH_SIZE = 1000;
+    /**
+     * The precision of the distinct listener sketches, for about 1.6% error.
+     */
+    public static final int LISTENER_SKETCH_PRECISION = 12;
+
     private UserManager userManager;
     private ArtistManager artistManager;
     private MostPlayedMusic mostPlayedMusic;
@@ -21,8 +45,11 @@ public class StatisticsManager implements Serializable {
     private MostListeningTimeUser mostListeningTime;
     private UserLeaderBoard userLeaderBoard;
     private MostPlayedGenres mostPlayedGenres;
+    private UniqueListeners uniqueListeners;
+    private PlaysByDay playsByDay;
     private HowMuchPublicPlaylistsExist howMuchPublicPlaylistsExist;
     private WhoHaveMostPlaylists whoHaveMostPlaylists;
+    private transient SnapshotSegment segment;
 
     /**
      * Instantiates a new Statistics manager.
@@ -38,6 +65,8 @@ public class StatisticsManager implements Serializable {
         this.mostListeningTime = new MostListeningTimeUser();
         this.userLeaderBoard = new UserLeaderBoard();
         this.mostPlayedGenres = new MostPlayedGenres();
+        this.uniqueListeners = new UniqueListeners(LISTENER_SKETCH_PRECISION);
+        this.playsByDay = new PlaysByDay();
         this.howMuchPublicPlaylistsExist = new HowMuchPublicPlaylistsExist();
         this.whoHaveMostPlaylists = new WhoHaveMostPlaylists();
     }
@@ -48,6 +77,7 @@ public class StatisticsManager implements Serializable {
      * @param user the user
      */
     public void removeUser(User user) throws EntityNotFoundException {
+        load();
         if (user == null) {
             throw new EntityNotFoundException();
         }
@@ -61,6 +91,7 @@ public class StatisticsManager implements Serializable {
      * @param music the music
      */
     public void recordPlay(Music music) {
+        load();
         if (music != null) {
             this.mostPlayedMusic.recordPlay(music);
             this.mostPlayedGenres.recordPlay(music);
@@ -73,6 +104,7 @@ public class StatisticsManager implements Serializable {
      * @param artist the artist
      */
     public void recordPlay(Artist artist) {
+        load();
         if (artist != null) {
             this.mostPlayedArtist.recordPlay(artist);
         }
@@ -85,6 +117,7 @@ public class StatisticsManager implements Serializable {
      * @param date the date
      */
     public void recordPlay(User user, LocalDate date) {
+        load();
         if (user != null) {
             this.mostListeningTime.recordPlay(user, date);
         }
@@ -97,15 +130,68 @@ public class StatisticsManager implements Serializable {
      * @param music the music
      */
     public void recordPlay(User user, Music music) {
+        load();
         if (user != null) {
             this.userLeaderBoard.recordPlay(user, music);
+            if (music != null) {
+                Artist artist = this.artistManager != null ? this.artistManager.getArtistOf(music.getMid()) : null;
+                this.uniqueListeners.recordPlay(user, music, artist);
+            }
         }
     }
 
+    /**
+     * Record play.
+     *
+     * @param music  the music
+     * @param artist the artist, may be null
+     * @param date   the date
+     */
+    public void recordPlay(Music music, Artist artist, LocalDate date) {
+        load();
+        this.playsByDay.recordPlay(music, artist, date);
+    }
+
+    /**
+     * Gets the mode of the most played track, artist and genre lists.
+     *
+     * @return the mode
+     */
+    public TopK.Mode getTopListMode(){
+        load();
+        return this.mostPlayedMusic.getMode();
+    }
+
+    /**
+     * Sets the mode of the most played track, artist and genre lists.
+     *
+     * @param mode the mode
+     */
+    public void setTopListMode(TopK.Mode mode){
+        load();
+        this.mostPlayedMusic.setMode(mode);
+        this.mostPlayedArtist.setMode(mode);
+        this.mostPlayedGenres.setMode(mode);
+    }
+
+    /**
+     * Counts the plays of tracks and artists in a Count-Min sketch, or exactly again when
+     * the width is 0. Genres are few and always counted exactly.
+     *
+     * @param width the counters per row of the sketch, 0 to count exactly
+     * @param depth the rows of the sketch
+     */
+    public void setPlayCounterSketch(int width, int depth){
+        load();
+        this.mostPlayedMusic.setCountMin(width, depth);
+        this.mostPlayedArtist.setCountMin(width, depth);
+    }
+
     /**
      * Get most played music.
      */
     public void getMostPlayedMusic(){
+        load();
         this.mostPlayedMusic.getMostPlayedMusic();
     }
 
@@ -113,6 +199,7 @@ public class StatisticsManager implements Serializable {
      * Get most played artist.
      */
     public Artist getMostPlayedArtist(){
+        load();
         return this.mostPlayedArtist.getMostPlayedArtist();
     }
 
@@ -120,6 +207,7 @@ public class StatisticsManager implements Serializable {
      * Get most listening time.
      */
     public void getMostListeningTime(){
+        load();
         this.mostListeningTime.displayTopUser();
     }
 
@@ -130,6 +218,7 @@ public class StatisticsManager implements Serializable {
      * @param finalDate   the final date
      */
     public void getMostListeningTime(LocalDate initialDate, LocalDate finalDate){
+        load();
         this.mostListeningTime.displayTopUser(initialDate, finalDate);
     }
 
@@ -137,13 +226,54 @@ public class StatisticsManager implements Serializable {
      * Get user leaderboard.
      */
     public void getUserLeaderboard(){
+        load();
         this.userLeaderBoard.displayTopUser();
     }
 
+    /**
+     * Get the tracks, artists and genres played the most between two dates.
+     *
+     * @param initialDate the initial date
+     * @param finalDate   the final date
+     */
+    public void getMostPlayedBetween(LocalDate initialDate, LocalDate finalDate){
+        load();
+        this.playsByDay.displayTop(initialDate, finalDate);
+    }
+
+    /**
+     * Gets the track, artist and genre plays by date.
+     *
+     * @return the plays by day
+     */
+    public PlaysByDay getPlaysByDay(){
+        load();
+        return this.playsByDay;
+    }
+
+    /**
+     * Get the tracks, artists and genres most listened to by distinct users.
+     */
+    public void getMostListenedTo(){
+        load();
+        this.uniqueListeners.getMostListenedTo();
+    }
+
+    /**
+     * Gets the estimated distinct listeners of every track, artist and genre.
+     *
+     * @return the unique listeners
+     */
+    public UniqueListeners getUniqueListeners(){
+        load();
+        return this.uniqueListeners;
+    }
+
     /**
      * Get most played genres.
      */
     public void getMostPlayedGenres(){
+        load();
         this.mostPlayedGenres.getMostPlayedGenres();
     }
 
@@ -176,6 +306,129 @@ public class StatisticsManager implements Serializable {
      * @return the map
      */
     public Map<Music, Double> getUserHistory(User user){
+        load();
         return this.userLeaderBoard.getUserHistory(user);
     }
+
+    /**
+     * Gets the leaderboard rank of a user.
+     *
+     * @param user the user
+     * @return the rank, 1 for the most points, 0 if the user has no plays
+     */
+    public int getUserRank(User user){
+        load();
+        return this.userLeaderBoard.getRank(user);
+    }
+
+    /**
+     * Gets the leaderboard points of a user.
+     *
+     * @param user the user
+     * @return the points
+     */
+    public double getUserPoints(User user){
+        load();
+        return this.userLeaderBoard.getPoints(user);
+    }
+
+    /**
+     * Gets the number of users on the leaderboard.
+     *
+     * @return the size
+     */
+    public int getLeaderboardSize(){
+        load();
+        return this.userLeaderBoard.getLeaderboardSize();
+    }
+
+    /**
+     * Gets the play counts of every track and artist, by track or artist id.
+     *
+     * @return the play counts
+     */
+    public Map<UUID, Integer> getPlayCounts() {
+        load();
+        Map<UUID, Integer> plays = this.mostPlayedMusic.getPlaysById();
+        plays.putAll(this.mostPlayedArtist.getPlaysById());
+        return plays;
+    }
+
+    /**
+     * Writes the recorded statistics to a binary snapshot.
+     * Public playlist and playlist owner statistics are computed on demand and not stored.
+     *
+     * @param out the out
+     * @throws IOException the io exception
+     */
+    public void writeTo(SnapshotWriter out) throws IOException {
+        load();
+        this.mostPlayedMusic.writeTo(out);
+        this.mostPlayedArtist.writeTo(out);
+        this.mostListeningTime.writeTo(out);
+        this.userLeaderBoard.writeTo(out);
+        this.mostPlayedGenres.writeTo(out);
+        this.uniqueListeners.writeTo(out);
+        this.playsByDay.writeTo(out);
+    }
+
+    /**
+     * Reads the recorded statistics from the given snapshot segment when they are first needed.
+     *
+     * @param segment the segment
+     */
+    public void setSegment(SnapshotSegment segment) {
+        this.segment = segment;
+    }
+
+    /**
+     * Decodes the recorded statistics if they are still in the snapshot.
+     */
+    private void load() {
+        if (this.segment != null) {
+            SnapshotSegment pending = this.segment;
+            this.segment = null;
+            pending.read(this::readFrom);
+        }
+    }
+
+    /**
+     * Decodes pending statistics before the manager is serialized.
+     *
+     * @param out the out
+     * @throws IOException the io exception
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        load();
+        out.defaultWriteObject();
+    }
+
+    /**
+     * Starts the statistics added since a manager was serialized.
+     *
+     * @param in the in
+     * @throws IOException            the io exception
+     * @throws ClassNotFoundException the class not found exception
+     */
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        if (this.uniqueListeners == null) this.uniqueListeners = new UniqueListeners(LISTENER_SKETCH_PRECISION);
+        if (this.playsByDay == null) this.playsByDay = new PlaysByDay();
+    }
+
+    /**
+     * Reads the recorded statistics from a binary snapshot.
+     *
+     * @param in the in
+     * @throws IOException the io exception
+     */
+    public void readFrom(SnapshotReader in) throws IOException {
+        this.mostPlayedMusic.readFrom(in);
+        this.mostPlayedArtist.readFrom(in);
+        this.mostListeningTime.readFrom(in);
+        this.userLeaderBoard.readFrom(in);
+        this.mostPlayedGenres.readFrom(in);
+        if (in.getVersion() >= 4) this.uniqueListeners.readFrom(in);
+        if (in.getVersion() >= 5) this.playsByDay.readFrom(in);
+    }
 }
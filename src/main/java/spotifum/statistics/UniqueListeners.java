@@ -0,0 +1,226 @@
+package spotifum.statistics;
+
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.*;
+
+import spotifum.musics.*;
+import spotifum.users.User;
+import spotifum.utils.HyperLogLog;
+import spotifum.utils.TopK;
+import spotifum.persistence.SnapshotReader;
+import spotifum.persistence.SnapshotWriter;
+
+import static spotifum.utils.DisplayInformation.displayMostListenedTo;
+
+/**
+ * The type Unique listeners.
+ * Estimates how many distinct users played each track, artist and genre, with a
+ * {@link HyperLogLog} each instead of the set of their users. Statistics kept apart, for
+ * other days or other shards, merge into the listeners of all of them together.
+ */
+public class UniqueListeners implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int precision;
+    private Map<Music, HyperLogLog> tracks;
+    private Map<Artist, HyperLogLog> artists;
+    private Map<String, HyperLogLog> genres;
+
+    /**
+     * Instantiates a new Unique listeners.
+     *
+     * @param precision the precision of the sketches, see {@link HyperLogLog}
+     */
+    public UniqueListeners(int precision) {
+        this.precision = precision;
+        this.tracks = new HashMap<>();
+        this.artists = new HashMap<>();
+        this.genres = new HashMap<>();
+    }
+
+    /**
+     * Record play.
+     *
+     * @param user   the user
+     * @param music  the music
+     * @param artist the artist, may be null
+     */
+    public void recordPlay(User user, Music music, Artist artist) {
+        long listener = user.getUid().getMostSignificantBits() * 31 + user.getUid().getLeastSignificantBits();
+        sketch(tracks, music).add(listener);
+        sketch(genres, music.getGenre()).add(listener);
+        if (artist != null) sketch(artists, artist).add(listener);
+    }
+
+    /**
+     * Display the tracks, artists and genres with the most distinct listeners.
+     */
+    public void getMostListenedTo() {
+        displayMostListenedTo(getTopTracks(StatisticsManager.TOP_LIST_SIZE), getTopArtists(StatisticsManager.TOP_LIST_SIZE),
+                getTopGenres(StatisticsManager.TOP_LIST_SIZE), 1.04 / Math.sqrt(1 << this.precision));
+    }
+
+    /**
+     * Gets the tracks with the most distinct listeners.
+     *
+     * @param n the most tracks to return
+     * @return the tracks with their estimated listeners, most first
+     */
+    public List<TopK.Entry<Music>> getTopTracks(int n) {
+        return top(tracks, n);
+    }
+
+    /**
+     * Gets the artists with the most distinct listeners.
+     *
+     * @param n the most artists to return
+     * @return the artists with their estimated listeners, most first
+     */
+    public List<TopK.Entry<Artist>> getTopArtists(int n) {
+        return top(artists, n);
+    }
+
+    /**
+     * Gets the genres with the most distinct listeners.
+     *
+     * @param n the most genres to return
+     * @return the genres with their estimated listeners, most first
+     */
+    public List<TopK.Entry<String>> getTopGenres(int n) {
+        return top(genres, n);
+    }
+
+    /**
+     * Gets the estimated distinct listeners of a track.
+     *
+     * @param music the music
+     * @return the listeners
+     */
+    public long getListeners(Music music) {
+        return estimate(tracks.get(music));
+    }
+
+    /**
+     * Gets the estimated distinct listeners of an artist.
+     *
+     * @param artist the artist
+     * @return the listeners
+     */
+    public long getListeners(Artist artist) {
+        return estimate(artists.get(artist));
+    }
+
+    /**
+     * Gets the estimated distinct listeners of a genre.
+     *
+     * @param genre the genre
+     * @return the listeners
+     */
+    public long getListeners(String genre) {
+        return estimate(genres.get(genre));
+    }
+
+    /**
+     * Adds the listeners recorded somewhere else, such as another day or another shard.
+     * A user counted in both is counted once.
+     *
+     * @param other the other unique listeners, of the same precision
+     */
+    public void merge(UniqueListeners other) {
+        if (other.precision != this.precision) throw new IllegalArgumentException("cannot merge sketches of different precision");
+        merge(tracks, other.tracks);
+        merge(artists, other.artists);
+        merge(genres, other.genres);
+    }
+
+    private <T> HyperLogLog sketch(Map<T, HyperLogLog> sketches, T item) {
+        return sketches.computeIfAbsent(item, k -> new HyperLogLog(this.precision));
+    }
+
+    private <T> void merge(Map<T, HyperLogLog> sketches, Map<T, HyperLogLog> other) {
+        for (Map.Entry<T, HyperLogLog> entry : other.entrySet()) sketch(sketches, entry.getKey()).merge(entry.getValue());
+    }
+
+    private static long estimate(HyperLogLog sketch) {
+        return sketch == null ? 0 : sketch.estimate();
+    }
+
+    /**
+     * Picks the items with the highest estimates, which take O(1) each.
+     */
+    private static <T> List<TopK.Entry<T>> top(Map<T, HyperLogLog> sketches, int n) {
+        TopK<T> top = new TopK<>(TopK.Mode.EXACT, Math.max(n, 0));
+        for (Map.Entry<T, HyperLogLog> entry : sketches.entrySet()) {
+            top.offer(entry.getKey(), (int) Math.min(Integer.MAX_VALUE, entry.getValue().estimate()));
+        }
+        return top.top(n);
+    }
+
+    /**
+     * Writes the sketches to a binary snapshot.
+     *
+     * @param out the out
+     * @throws IOException the io exception
+     */
+    public void writeTo(SnapshotWriter out) throws IOException {
+        out.writeVarInt(precision);
+        out.writeVarInt(tracks.size());
+        for (Map.Entry<Music, HyperLogLog> entry : tracks.entrySet()) {
+            out.writeMusicRef(entry.getKey());
+            writeSketch(out, entry.getValue());
+        }
+        out.writeVarInt(artists.size());
+        for (Map.Entry<Artist, HyperLogLog> entry : artists.entrySet()) {
+            out.writeArtistRef(entry.getKey());
+            writeSketch(out, entry.getValue());
+        }
+        out.writeVarInt(genres.size());
+        for (Map.Entry<String, HyperLogLog> entry : genres.entrySet()) {
+            out.writeString(entry.getKey());
+            writeSketch(out, entry.getValue());
+        }
+    }
+
+    /**
+     * Reads the sketches from a binary snapshot, merging them into the ones recorded.
+     *
+     * @param in the in
+     * @throws IOException the io exception
+     */
+    public void readFrom(SnapshotReader in) throws IOException {
+        int precision = in.readVarInt();
+        if (precision != this.precision) throw new IOException("malformed snapshot: listener sketches of precision " + precision);
+        int size = in.readVarInt();
+        for (int i = 0; i < size; i++) {
+            Music music = in.readMusicRef();
+            sketch(tracks, music).merge(readSketch(in));
+        }
+        size = in.readVarInt();
+        for (int i = 0; i < size; i++) {
+            Artist artist = in.readArtistRef();
+            sketch(artists, artist).merge(readSketch(in));
+        }
+        size = in.readVarInt();
+        for (int i = 0; i < size; i++) {
+            String genre = in.readString();
+            sketch(genres, genre).merge(readSketch(in));
+        }
+    }
+
+    private void writeSketch(SnapshotWriter out, HyperLogLog sketch) throws IOException {
+        int[] registers = sketch.toArray();
+        out.writeVarInt(registers.length);
+        for (int register : registers) out.writeVarInt(register);
+    }
+
+    private HyperLogLog readSketch(SnapshotReader in) throws IOException {
+        int[] registers = new int[in.readVarInt()];
+        for (int i = 0; i < registers.length; i++) registers[i] = in.readVarInt();
+        try {
+            return HyperLogLog.of(this.precision, registers);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("malformed snapshot: " + e.getMessage());
+        }
+    }
+}
@@ -1,25 +1,59 @@
 package spotifum.statistics;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.*;
 
 import spotifum.users.*;
 import spotifum.musics.*;
 import spotifum.utils.ConsoleColors;
+import spotifum.utils.IdRegistry;
+import spotifum.utils.IntDoubleMap;
+import spotifum.utils.RankTree;
+import spotifum.persistence.SnapshotReader;
+import spotifum.persistence.SnapshotWriter;
 
 import static spotifum.utils.DisplayInformation.displayUserLeaderBoard;
 
 /**
  * The type User leader board.
+ * The points of every user are kept per track, by track key, and their total is kept
+ * in a {@link RankTree}, so a play updates both without scanning the user history and
+ * the leaderboard and the rank of any user are read straight from the tree. Track keys
+ * come from the {@link IdRegistry} of the leaderboard, which takes back the key of a
+ * track once no user left has points on it. Keys only live as long as the leaderboard,
+ * so the serialized form holds the histories and the points are re-keyed when it is
+ * read back.
  */
 public class UserLeaderBoard implements Serializable {
-    private final Map<User, Map<Music, Double>> leaderboard;
+    private static final long serialVersionUID = -2824197693652511903L;
+
+    /**
+     * The number of users shown in the leaderboard.
+     */
+    public static final int TOP_USERS = 5;
+
+    private transient Map<User, IntDoubleMap> leaderboard;
+    private transient RankTree<User> ranking;
+    private transient IdRegistry trackKeys;
+    private transient Music[] tracks;
+    private transient int[] holders;
 
     /**
      * Instantiates a new User leader board.
      */
     public UserLeaderBoard() {
+        init();
+    }
+
+    private void init() {
         this.leaderboard = new HashMap<>();
+        this.ranking = new RankTree<>();
+        this.trackKeys = new IdRegistry();
+        this.tracks = new Music[16];
+        this.holders = new int[16];
     }
 
     /**
@@ -29,20 +63,27 @@ public class UserLeaderBoard implements Serializable {
      */
     public void removeUser(User user) {
         if (user == null || user.getEmail() == null) return;
-        leaderboard.keySet().removeIf(u ->
-                u != null &&
-                        user.getEmail().equals(u.getEmail())
-        );
+        leaderboard.entrySet().removeIf(entry -> {
+            User u = entry.getKey();
+            if (u == null || !user.getEmail().equals(u.getEmail())) return false;
+            ranking.remove(u);
+            for (int key : entry.getValue().keys()) untrack(key);
+            return true;
+        });
     }
 
     /**
      * Get user history map.
      *
      * @param user the user
-     * @return the map
+     * @return the points of the user by track, null if the user has no plays
      */
     public Map<Music, Double> getUserHistory(User user){
-        return leaderboard.get(user);
+        IntDoubleMap points = leaderboard.get(user);
+        if (points == null) return null;
+        Map<Music, Double> history = new HashMap<>();
+        points.forEach((key, value) -> history.put(this.tracks[key], value));
+        return history;
     }
 
     /**
@@ -56,16 +97,9 @@ public class UserLeaderBoard implements Serializable {
             return; // Ou lançar IllegalArgumentException dependendo dos requisitos
         }
 
-        Map<Music, Double> userMusicPoints = leaderboard.computeIfAbsent(user, k -> new HashMap<>());
-
-        double currentPoints = 0.0;
-
-        for (Music m : userMusicPoints.keySet()) {
-            if (m.equals(music)) {
-                currentPoints = userMusicPoints.get(m);
-                break;
-            }
-        }
+        IntDoubleMap userMusicPoints = leaderboard.computeIfAbsent(user, k -> new IntDoubleMap());
+        int key = trackKeys.keyOf(music.getMid());
+        double currentPoints = userMusicPoints.get(key);
 
         double pointsToAdd = 0;
 
@@ -77,28 +111,150 @@ public class UserLeaderBoard implements Serializable {
             pointsToAdd = currentPoints == 0 ? 100 : currentPoints * 0.025;
         }
 
-        boolean alreadyExists = false;
-        for (Music m : userMusicPoints.keySet()) {
-            if (m.equals(music)) {
-                userMusicPoints.put(m, currentPoints + pointsToAdd);
-                alreadyExists = true;
-                break;
-            }
-        }
-
-        if (!alreadyExists) {
-            userMusicPoints.put(music, pointsToAdd);
-        }
+        track(key, music, !userMusicPoints.containsKey(key));
+        userMusicPoints.put(key, currentPoints + pointsToAdd);
+        ranking.put(user, ranking.score(user) + pointsToAdd);
     }
 
     /**
      * Display top user.
      */
     public void displayTopUser() {
-        displayUserLeaderBoard(this.leaderboard);
+        List<Map.Entry<User, Double>> top = new ArrayList<>();
+        for (User user : ranking.top(TOP_USERS)) top.add(Map.entry(user, ranking.score(user)));
+        displayUserLeaderBoard(top);
+    }
+
+    /**
+     * Gets the users with the most points.
+     *
+     * @param n the most users to return
+     * @return the users, most points first
+     */
+    public List<User> getTopUsers(int n) {
+        return ranking.top(n);
+    }
+
+    /**
+     * Gets the rank of a user.
+     *
+     * @param user the user
+     * @return the rank, 1 for the most points, 0 if the user has no plays
+     */
+    public int getRank(User user) {
+        return user == null ? 0 : ranking.rank(user);
+    }
+
+    /**
+     * Gets the total points of a user.
+     *
+     * @param user the user
+     * @return the points
+     */
+    public double getPoints(User user) {
+        return user == null ? 0 : ranking.score(user);
     }
 
     public int getLeaderboardSize() {
         return leaderboard.size();
     }
-}
\ No newline at end of file
+
+    /**
+     * Keeps the last instance played of a track, counting the users with points on it.
+     */
+    private void track(int key, Music music, boolean added) {
+        if (key >= this.tracks.length) {
+            int length = Math.max(key + 1, this.tracks.length * 2);
+            this.tracks = Arrays.copyOf(this.tracks, length);
+            this.holders = Arrays.copyOf(this.holders, length);
+        }
+        this.tracks[key] = music;
+        if (added) this.holders[key]++;
+    }
+
+    /**
+     * Drops a user from the count of a track, taking back its key when no user is left.
+     */
+    private void untrack(int key) {
+        if (--this.holders[key] > 0) return;
+        this.trackKeys.release(this.tracks[key].getMid());
+        this.tracks[key] = null;
+    }
+
+    /**
+     * Sets the points of a user on a track, as read back from a snapshot.
+     */
+    private void put(User user, Music music, double points) {
+        int key = trackKeys.keyOf(music.getMid());
+        IntDoubleMap userMusicPoints = leaderboard.computeIfAbsent(user, k -> new IntDoubleMap());
+        track(key, music, !userMusicPoints.containsKey(key));
+        userMusicPoints.put(key, points);
+        ranking.put(user, ranking.score(user) + points);
+    }
+
+    /**
+     * Writes the leaderboard points to a binary snapshot.
+     *
+     * @param out the out
+     * @throws IOException the io exception
+     */
+    public void writeTo(SnapshotWriter out) throws IOException {
+        out.writeVarInt(leaderboard.size());
+        for (Map.Entry<User, IntDoubleMap> entry : leaderboard.entrySet()) {
+            out.writeUserRef(entry.getKey());
+            out.writeVarInt(entry.getValue().size());
+            for (int key : entry.getValue().keys()) {
+                out.writeMusicRef(this.tracks[key]);
+                out.writeDouble(entry.getValue().get(key));
+            }
+        }
+    }
+
+    /**
+     * Reads the leaderboard points from a binary snapshot.
+     *
+     * @param in the in
+     * @throws IOException the io exception
+     */
+    public void readFrom(SnapshotReader in) throws IOException {
+        int size = in.readVarInt();
+        for (int i = 0; i < size; i++) {
+            User user = in.readUserRef();
+            int musics = in.readVarInt();
+            for (int j = 0; j < musics; j++) {
+                Music music = in.readMusicRef();
+                put(user, music, in.readDouble());
+            }
+        }
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        out.writeInt(leaderboard.size());
+        for (User user : leaderboard.keySet()) {
+            out.writeObject(user);
+            out.writeObject(getUserHistory(user));
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        ObjectInputStream.GetField fields = in.readFields();
+        init();
+        if (fields.getObjectStreamClass().getField("leaderboard") != null) {
+            // a state saved before the ranking wrote the points of every user as a field
+            Map<User, Map<Music, Double>> points = (Map<User, Map<Music, Double>>) fields.get("leaderboard", null);
+            for (Map.Entry<User, Map<Music, Double>> user : points.entrySet()) {
+                for (Map.Entry<Music, Double> music : user.getValue().entrySet()) put(user.getKey(), music.getKey(), music.getValue());
+            }
+            return;
+        }
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            User user = (User) in.readObject();
+            for (Map.Entry<Music, Double> points : ((Map<Music, Double>) in.readObject()).entrySet()) {
+                put(user, points.getKey(), points.getValue());
+            }
+        }
+    }
+}
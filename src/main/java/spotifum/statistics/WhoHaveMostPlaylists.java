@@ -15,6 +15,8 @@ import static spotifum.utils.DisplayInformation.displayWhoHaveMostPlaylists;
  * The type Who have most playlists.
  */
 public class WhoHaveMostPlaylists implements Serializable {
+    private static final long serialVersionUID = 555576769859179178L;
+
     private Map<User, List<Playlist>> playlists;
 
     /**
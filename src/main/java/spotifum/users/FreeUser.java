@@ -1,9 +1,12 @@
 package spotifum.users;
 
+import java.util.UUID;
+
 /**
  * The type Free user.
  */
 public class FreeUser extends User {
+    private static final long serialVersionUID = 1886885119467934747L;
 
     /**
      * Instantiates a new Free user.
@@ -34,6 +37,19 @@ public class FreeUser extends User {
         setUserPlan(SubscriptionPlans.Free);
     }
 
+    /**
+     * Instantiates a new Free user with a known id.
+     *
+     * @param uid      the uid
+     * @param email    the email
+     * @param username the username
+     * @param address  the address
+     */
+    public FreeUser(UUID uid, String email, String username, String address) {
+        super(uid, email, username, address);
+        setUserPlan(SubscriptionPlans.Free);
+    }
+
     /**
      * Creates and returns a copy of this FreeUser.
      *
@@ -0,0 +1,391 @@
+package spotifum.users;
+
+import spotifum.musics.Music;
+import spotifum.persistence.SnapshotReader;
+import spotifum.persistence.SnapshotWriter;
+import spotifum.playlists.Playlist;
+import spotifum.utils.GramIndex;
+import spotifum.utils.IdRegistry;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * The type Playlist index.
+ * Reverse index from the key of every track to the keys of the playlists that contain it,
+ * kept in int arrays indexed by track key, so removing a track only visits the playlists
+ * it is in. Holds the playlists by key and
+ * the user that owns each one, and the track keys each playlist was indexed with, so a
+ * user can be indexed again after a change by only moving the tracks that changed.
+ * Also keeps the directory of public playlists, with a {@link GramIndex} over their lower
+ * case names, so browsing or searching them only visits the playlists returned; the
+ * owner name of every playlist is refreshed when its user is indexed, not when browsing.
+ * The playlists of users still in a binary snapshot are indexed from the playlist directory
+ * of the snapshot, by id, name and track ids, and their user is only decoded when one of
+ * them is returned or changed.
+ * Playlists and tracks are keyed by an {@link IdRegistry} each; the key of a playlist is
+ * taken back when it is removed, and the key of a track when no playlist holds it anymore.
+ */
+class PlaylistIndex {
+    private final Function<String, User> loader;
+    private final IdRegistry playlistIds;
+    private final IdRegistry trackIds;
+    private final Map<String, Set<Integer>> playlistsByUser;
+    private int[][] holders;
+    private int[] holderCount;
+    private Playlist[] playlists;
+    private String[] owners;
+    private int[][] contents;
+    private final BitSet publicKeys;
+    private final GramIndex publicNames;
+    private String[] names;
+
+    /**
+     * Instantiates a new Playlist index.
+     *
+     * @param loader gets a user by key, decoding it if it is still in the snapshot
+     */
+    PlaylistIndex(Function<String, User> loader) {
+        this.loader = loader;
+        this.playlistIds = new IdRegistry();
+        this.trackIds = new IdRegistry();
+        this.playlistsByUser = new HashMap<>();
+        this.holders = new int[16][];
+        this.holderCount = new int[16];
+        this.playlists = new Playlist[16];
+        this.owners = new String[16];
+        this.contents = new int[16][];
+        this.publicKeys = new BitSet();
+        this.publicNames = new GramIndex();
+        this.names = new String[16];
+    }
+
+    /**
+     * Indexes the playlists of a user, replacing the ones indexed for it before.
+     *
+     * @param email the user key
+     * @param user  the user
+     */
+    void putUser(String email, User user) {
+        Set<Integer> previous = this.playlistsByUser.remove(email);
+        Set<Integer> keys = new HashSet<>();
+        for (Playlist playlist : user.getPlaylists().values()) keys.add(putPlaylist(email, user.getUsername(), playlist));
+        if (previous != null) {
+            for (int key : previous) {
+                if (!keys.contains(key) && email.equals(this.owners[key])) removePlaylist(key);
+            }
+        }
+        this.playlistsByUser.put(email, keys);
+    }
+
+    /**
+     * Removes the playlists of a user.
+     *
+     * @param email the user key
+     */
+    void removeUser(String email) {
+        Set<Integer> keys = this.playlistsByUser.remove(email);
+        if (keys == null) return;
+        for (int key : keys) {
+            if (email.equals(this.owners[key])) removePlaylist(key);
+        }
+    }
+
+    /**
+     * Writes the playlist directory of a binary snapshot: the ids of the tracks in any
+     * playlist, then the id, name if public and tracks, as positions in those ids, of
+     * every playlist, by user.
+     *
+     * @param out   the out
+     * @param users the users by key
+     * @throws IOException the io exception
+     */
+    static void writeTo(SnapshotWriter out, Map<String, User> users) throws IOException {
+        Map<UUID, Integer> positions = new LinkedHashMap<>();
+        for (User user : users.values()) {
+            for (Playlist playlist : user.getPlaylists().values()) {
+                for (Music music : playlist.getTracks()) {
+                    if (music != null) positions.putIfAbsent(music.getMid(), positions.size());
+                }
+            }
+        }
+        out.writeVarInt(positions.size());
+        for (UUID mid : positions.keySet()) out.writeUuid(mid);
+
+        out.writeVarInt(users.size());
+        for (Map.Entry<String, User> entry : users.entrySet()) {
+            Collection<Playlist> playlists = entry.getValue().getPlaylists().values();
+            out.writeString(entry.getKey());
+            out.writeVarInt(playlists.size());
+            for (Playlist playlist : playlists) {
+                out.writeUuid(playlist.getId());
+                out.writeBoolean(playlist.isPublic());
+                if (playlist.isPublic()) out.writeString(playlist.getName());
+                List<Music> tracks = playlist.getTracks();
+                tracks.removeIf(Objects::isNull);
+                out.writeVarInt(tracks.size());
+                for (Music music : tracks) out.writeVarInt(positions.get(music.getMid()));
+            }
+        }
+    }
+
+    /**
+     * Indexes the playlists of the users still in a binary snapshot from its playlist directory.
+     *
+     * @param in      the in
+     * @param pending whether a user is still in the snapshot, the others are indexed as users
+     * @throws IOException the io exception
+     */
+    void readFrom(SnapshotReader in, Predicate<String> pending) throws IOException {
+        UUID[] mids = new UUID[in.readVarInt()];
+        for (int i = 0; i < mids.length; i++) mids[i] = in.readUuid();
+        int users = in.readVarInt();
+        for (int i = 0; i < users; i++) {
+            String email = in.readString();
+            boolean indexed = pending.test(email);
+            Set<Integer> keys = new HashSet<>();
+            int playlists = in.readVarInt();
+            for (int j = 0; j < playlists; j++) {
+                UUID id = in.readUuid();
+                String name = in.readBoolean() ? normalize(in.readString()) : null;
+                int[] tracks = new int[in.readVarInt()];
+                for (int t = 0; t < tracks.length; t++) {
+                    int position = in.readVarInt();
+                    if (position < 0 || position >= mids.length) throw new IOException("malformed snapshot: bad playlist track " + position);
+                    tracks[t] = position;
+                }
+                if (!indexed) continue;
+                int key = this.playlistIds.keyOf(id);
+                for (int t = 0; t < tracks.length; t++) tracks[t] = this.trackIds.keyOf(mids[tracks[t]]);
+                Arrays.sort(tracks);
+                put(email, key, null, name, Arrays.stream(tracks).distinct().toArray());
+                keys.add(key);
+            }
+            if (indexed) this.playlistsByUser.put(email, keys);
+        }
+    }
+
+    /**
+     * Removes tracks from every playlist that contains any of them, visiting each of
+     * those playlists once.
+     *
+     * @param tracks the tracks by mid
+     * @return the number of playlists changed
+     */
+    int removeTracks(Map<UUID, Music> tracks) {
+        Map<Integer, List<Music>> affected = holding(tracks);
+        if (load(affected.keySet())) affected = holding(tracks);
+        for (Map.Entry<Integer, List<Music>> entry : affected.entrySet()) {
+            int key = entry.getKey();
+            Set<UUID> mids = new HashSet<>();
+            int[] contents = this.contents[key];
+            int left = contents.length;
+            for (Music music : entry.getValue()) {
+                mids.add(music.getMid());
+                int track = this.trackIds.find(music.getMid());
+                int at = Arrays.binarySearch(contents, 0, left, track);
+                System.arraycopy(contents, at + 1, contents, at, left - at - 1);
+                left--;
+                unlink(track, key);
+            }
+            this.contents[key] = Arrays.copyOf(contents, left);
+            this.playlists[key].removeMusics(mids);
+        }
+        return affected.size();
+    }
+
+    /**
+     * Gets the playlists holding any of the tracks, with the tracks each one holds.
+     */
+    private Map<Integer, List<Music>> holding(Map<UUID, Music> tracks) {
+        Map<Integer, List<Music>> affected = new HashMap<>();
+        for (Music music : tracks.values()) {
+            int track = this.trackIds.find(music.getMid());
+            if (track == 0 || track >= this.holders.length) continue;
+            for (int i = 0; i < this.holderCount[track]; i++) {
+                affected.computeIfAbsent(this.holders[track][i], k -> new ArrayList<>()).add(music);
+            }
+        }
+        return affected;
+    }
+
+    /**
+     * Decodes and indexes again the users of the given playlists that are still in the snapshot.
+     *
+     * @param keys the playlist keys
+     * @return whether any user was decoded
+     */
+    private boolean load(Collection<Integer> keys) {
+        boolean loaded = false;
+        for (int key : keys) {
+            if (this.playlists[key] != null || this.owners[key] == null) continue;
+            String email = this.owners[key];
+            User user = this.loader.apply(email);
+            if (user != null) putUser(email, user);
+            else removeUser(email);
+            loaded = true;
+        }
+        return loaded;
+    }
+
+    /**
+     * Gets every public playlist.
+     *
+     * @return the playlists by id
+     */
+    Map<UUID, Playlist> publicPlaylists() {
+        return collect(this.publicKeys.stream().boxed().toList(), null);
+    }
+
+    /**
+     * Gets the given public playlists, decoding the users that own them if needed.
+     *
+     * @param keys  the playlist keys
+     * @param email the user whose playlists are left out, may be null
+     * @return the playlists by id
+     */
+    private Map<UUID, Playlist> collect(List<Integer> keys, String email) {
+        load(keys);
+        Map<UUID, Playlist> result = new HashMap<>();
+        for (int key : keys) {
+            if (this.publicKeys.get(key) && this.playlists[key] != null && !this.owners[key].equals(email)) {
+                result.put(this.playlists[key].getId(), this.playlists[key]);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Finds the public playlists whose lower case name contains the lower case query.
+     *
+     * @param query the query
+     * @param email the user whose playlists are left out, may be null
+     * @return the playlists by id
+     */
+    Map<UUID, Playlist> searchPublic(String query, String email) {
+        String text = normalize(query);
+        List<Integer> keys = new ArrayList<>();
+        if (text.isEmpty()) {
+            for (int key = this.publicKeys.nextSetBit(0); key >= 0; key = this.publicKeys.nextSetBit(key + 1)) {
+                if (!this.owners[key].equals(email)) keys.add(key);
+            }
+        } else {
+            for (int key : this.publicNames.search(text, key -> this.names[key])) {
+                if (!this.owners[key].equals(email)) keys.add(key);
+            }
+        }
+        return collect(keys, email);
+    }
+
+    private int putPlaylist(String email, String username, Playlist playlist) {
+        if (!Objects.equals(playlist.getOwner(), username)) playlist.setOwner(username);
+        int key = this.playlistIds.keyOf(playlist.getId());
+        put(email, key, playlist, playlist.isPublic() ? normalize(playlist.getName()) : null, trackKeys(playlist));
+        return key;
+    }
+
+    /**
+     * Indexes a playlist.
+     *
+     * @param email    the key of the user that owns it
+     * @param key      the playlist key
+     * @param playlist the playlist, or null while its user is still in the snapshot
+     * @param name     the lower case name if the playlist is public, otherwise null
+     * @param tracks   the sorted, distinct track keys
+     */
+    private void put(String email, int key, Playlist playlist, String name, int[] tracks) {
+        if (key >= this.playlists.length) {
+            int length = Math.max(key + 1, this.playlists.length * 2);
+            this.playlists = Arrays.copyOf(this.playlists, length);
+            this.owners = Arrays.copyOf(this.owners, length);
+            this.contents = Arrays.copyOf(this.contents, length);
+            this.names = Arrays.copyOf(this.names, length);
+        }
+        int[] previous = this.contents[key] == null ? new int[0] : this.contents[key];
+        for (int track : previous) {
+            if (Arrays.binarySearch(tracks, track) < 0) unlink(track, key);
+        }
+        for (int track : tracks) {
+            if (Arrays.binarySearch(previous, track) < 0) link(track, key);
+        }
+        this.playlists[key] = playlist;
+        this.owners[key] = email;
+        this.contents[key] = tracks;
+
+        if (!Objects.equals(this.names[key], name)) {
+            unpublish(key);
+            if (name != null) {
+                this.publicNames.add(key, name);
+                this.names[key] = name;
+                this.publicKeys.set(key);
+            }
+        }
+    }
+
+    private void unpublish(int key) {
+        if (this.names[key] == null) return;
+        this.publicNames.remove(key, this.names[key]);
+        this.names[key] = null;
+        this.publicKeys.clear(key);
+    }
+
+    private void removePlaylist(int key) {
+        unpublish(key);
+        for (int track : this.contents[key]) unlink(track, key);
+        this.playlists[key] = null;
+        this.owners[key] = null;
+        this.contents[key] = null;
+        this.playlistIds.release(this.playlistIds.idOf(key));
+    }
+
+    private void link(int track, int playlist) {
+        if (track >= this.holders.length) {
+            int length = Math.max(track + 1, this.holders.length * 2);
+            this.holders = Arrays.copyOf(this.holders, length);
+            this.holderCount = Arrays.copyOf(this.holderCount, length);
+        }
+        int[] keys = this.holders[track];
+        int count = this.holderCount[track];
+        if (keys == null) keys = this.holders[track] = new int[2];
+        else if (count == keys.length) keys = this.holders[track] = Arrays.copyOf(keys, count * 2);
+        keys[count] = playlist;
+        this.holderCount[track] = count + 1;
+    }
+
+    private void unlink(int track, int playlist) {
+        int[] keys = this.holders[track];
+        int count = this.holderCount[track];
+        for (int i = 0; i < count; i++) {
+            if (keys[i] == playlist) {
+                keys[i] = keys[count - 1];
+                this.holderCount[track] = count - 1;
+                if (count == 1) {
+                    this.holders[track] = null;
+                    this.trackIds.release(this.trackIds.idOf(track));
+                }
+                return;
+            }
+        }
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.toLowerCase();
+    }
+
+    /**
+     * Gets the sorted, distinct keys of the tracks of a playlist.
+     *
+     * @param playlist the playlist
+     * @return the track keys
+     */
+    private int[] trackKeys(Playlist playlist) {
+        return playlist.getTracks().stream()
+                .filter(Objects::nonNull)
+                .mapToInt(music -> this.trackIds.keyOf(music.getMid()))
+                .sorted()
+                .distinct()
+                .toArray();
+    }
+}
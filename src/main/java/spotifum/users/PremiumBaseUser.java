@@ -1,9 +1,12 @@
 package spotifum.users;
 
+import java.util.UUID;
+
 /**
  * The type Premium base user.
  */
 public class PremiumBaseUser extends User {
+    private static final long serialVersionUID = -2362507238306146477L;
 
     /**
      * Instantiates a new Premium base user.
@@ -27,6 +30,19 @@ public class PremiumBaseUser extends User {
         super(email, name);
         setUserPlan(SubscriptionPlans.PremiumBase);
     }
+    /**
+     * Instantiates a new Premium base user with a known id.
+     *
+     * @param uid      the uid
+     * @param email    the email
+     * @param username the username
+     * @param address  the address
+     */
+    public PremiumBaseUser(UUID uid, String email, String username, String address) {
+        super(uid, email, username, address);
+        setUserPlan(SubscriptionPlans.PremiumBase);
+    }
+
     /**
      * Instantiates a new Premium base user.
      *
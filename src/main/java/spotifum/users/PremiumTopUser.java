@@ -1,9 +1,13 @@
 package spotifum.users;
 
+import java.util.UUID;
+
 /**
  * The type Premium top user.
  */
 public class PremiumTopUser extends PremiumBaseUser {
+    private static final long serialVersionUID = 810709024148971798L;
+
     /**
      * Instantiates a new Premium top user.
      */
@@ -27,6 +31,19 @@ public class PremiumTopUser extends PremiumBaseUser {
         setUserPlan(SubscriptionPlans.PremiumTop);
     }
 
+    /**
+     * Instantiates a new Premium top user with a known id.
+     *
+     * @param uid      the uid
+     * @param email    the email
+     * @param username the username
+     * @param address  the address
+     */
+    public PremiumTopUser(UUID uid, String email, String username, String address) {
+        super(uid, email, username, address);
+        setUserPlan(SubscriptionPlans.PremiumTop);
+    }
+
     /**
      * Creates and returns a copy of this PremiumTopUser.
      *
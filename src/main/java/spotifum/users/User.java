@@ -2,13 +2,16 @@ package spotifum.users;
 
 import java.io.Serializable;
 import spotifum.playlists.*;
+import spotifum.utils.Keyed;
 import java.util.*;
 import java.util.stream.Collectors;
 
 /**
  * The type User.
  */
-public abstract class User implements Serializable, UserInterface {
+public abstract class User implements Serializable, UserInterface, Keyed {
+    private static final long serialVersionUID = -7424015272263916463L;
+
     private final UUID uid;
     private String email;
     private String username;
@@ -43,6 +46,23 @@ public abstract class User implements Serializable, UserInterface {
         this.playlists=new HashMap<>();
     }
 
+    /**
+     * Instantiates a new User with a known id.
+     *
+     * @param uid      the uid
+     * @param email    the email
+     * @param username the username
+     * @param address  the address
+     */
+    public User(UUID uid, String email, String username, String address) {
+        this.uid = uid;
+        this.email=email;
+        this.username=username;
+        this.address=address;
+        this.userPlan=SubscriptionPlans.Free;
+        this.playlists=new HashMap<>();
+    }
+
     /**
      * Instantiates a new User.
      *
@@ -111,6 +131,16 @@ public abstract class User implements Serializable, UserInterface {
         return uid;
     }
 
+    /**
+     * Gets the id of the user, the same as its uid.
+     *
+     * @return the id
+     */
+    @Override
+    public UUID getId() {
+        return this.uid;
+    }
+
     /**
      * Gets the user's email.
      *
@@ -212,6 +242,30 @@ public abstract class User implements Serializable, UserInterface {
         return sb.toString();
     }
 
+    /**
+     * Compares this user to another object for equality.
+     * Users are equal if they have the same ID, whatever their current plan.
+     *
+     * @param o the object to compare
+     * @return true if equal, false otherwise
+     */
+    public boolean equals(Object o) {
+        if (this == o) return true;
+
+        if (!(o instanceof User)) return false;
+
+        return this.uid.equals(((User) o).getUid());
+    }
+
+    /**
+     * Returns a hash code based on the user ID.
+     *
+     * @return the hash code
+     */
+    public int hashCode() {
+        return this.uid.hashCode();
+    }
+
     /**
      * Creates and returns a copy of this user.
      *
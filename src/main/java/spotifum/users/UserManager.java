@@ -3,16 +3,35 @@ package spotifum.users;
 import spotifum.exceptions.*;
 import spotifum.musics.Music;
 import spotifum.playlists.*;
-import spotifum.utils.ConsoleColors;
+import spotifum.utils.Page;
+import spotifum.persistence.SnapshotReader;
+import spotifum.persistence.SnapshotSegment;
+import spotifum.persistence.SnapshotWriter;
+import spotifum.persistence.UserDirectory;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 import java.util.*;
+import java.util.stream.Stream;
 
 /**
  * The type User manager.
+ * When loaded from a binary snapshot, every user is a partition of the snapshot that is
+ * decoded the first time the user is looked up, so logging in does not depend on how many
+ * accounts exist; operations over every user decode all of them, except reading the
+ * users a page at a time, in email order, which only decodes the users on the page, and
+ * browsing public playlists or removing tracks from playlists, which only decode the
+ * owners of the playlists they return or change.
  */
 public class UserManager implements Serializable {
+    private static final long serialVersionUID = 6863365922479744455L;
+
     private Map<String, User> users;
+    private transient UserDirectory directory;
+    private transient SnapshotSegment playlists;
+    private transient PlaylistIndex index;
+    private transient TreeSet<String> emails;
 
     /**
      * Instantiates a new User manager.
@@ -27,7 +46,7 @@ public class UserManager implements Serializable {
      * @return the map
      */
     public Map<String, User> getUsers(){
-        return new HashMap<>(this.users);
+        return new HashMap<>(loadAll());
     }
 
     /**
@@ -50,11 +69,13 @@ public class UserManager implements Serializable {
     public void insertUser(User user) throws EntityAlreadyExistsException {
         String email = user.getEmail().toLowerCase();
 
-        if (users.containsKey(email)) {
+        if (users.containsKey(email) || (directory != null && directory.contains(email))) {
             throw new EntityAlreadyExistsException("user with email \"" + email + "\" already exists!");
         }
 
         this.users.put(email, user);
+        if (emails != null) emails.add(email);
+        if (index != null) index.putUser(email, user);
     }
 
     /**
@@ -65,11 +86,12 @@ public class UserManager implements Serializable {
      */
     public void updateUser(User user) throws EntityNotFoundException {
         String email = user.getEmail().toLowerCase();
-        User u = users.get(email);
+        User u = find(email);
 
         if (u==null) throw new EntityNotFoundException("[app-log] user with email: " + email + " does not exist!");
 
         this.users.put(email, user);
+        if (index != null) index.putUser(email, user);
     }
 
     /**
@@ -79,40 +101,35 @@ public class UserManager implements Serializable {
      * @throws EntityNotFoundException the entity not found exception
      */
     public void removeUser(String email) throws EntityNotFoundException {
-        if (!this.users.containsKey(email)) {
+        if (!this.users.containsKey(email) && (directory == null || !directory.contains(email))) {
             throw new EntityNotFoundException();
         }
         this.users.remove(email);
+        if (directory != null) directory.remove(email);
+        if (emails != null) emails.remove(email);
+        if (index != null) index.removeUser(email);
     }
 
     /**
-     * Gets all users.
+     * Streams the users in email order, decoding each one only when it is reached.
+     *
+     * @param after the email the stream starts after, or null to start at the first
+     * @return the users
      */
-    public void getAllUsers() {
-
-        final int boxWidth = 100;
-        String title = ConsoleColors.CYAN + "👥 ALL REGISTERED USERS" + ConsoleColors.RESET;
-        String borderTop = "╭" + "─".repeat(boxWidth - 2) + "╮";
-        String borderMiddle = "├" + "─".repeat(boxWidth - 2) + "┤";
-        String borderBottom = "╰" + "─".repeat(boxWidth - 2) + "╯";
-
-        System.out.println(borderTop);
-        System.out.printf("│  %-106s │\n", title);
-        System.out.println(borderMiddle);
-
-        if (this.users.isEmpty()) {
-            System.out.printf("│  %-106s │\n", ConsoleColors.RED + "no users found" + ConsoleColors.RESET);
-        } else {
-            for (User user : this.users.values()) {
-                String email = user.getEmail();
-                String username = user.getUsername();
-                SubscriptionPlans plan = user.getUserPlan();
-                String line = "• " + email + " | " + ConsoleColors.ORANGE + username + ConsoleColors.RESET + " | Plan: " + plan.toString() + " | Address: " + ConsoleColors.ORANGE + user.getAddress() + ConsoleColors.RESET;
-                System.out.printf("│  %-125s │\n", line);
-            }
-        }
+    public Stream<User> streamUsers(String after) {
+        SortedSet<String> from = after == null ? emails() : emails().tailSet(after, false);
+        return from.stream().map(this::find).filter(Objects::nonNull);
+    }
 
-        System.out.println(borderBottom);
+    /**
+     * Gets a page of users, in email order.
+     *
+     * @param token the token of the page, null for the first one
+     * @param size  the page size
+     * @return the page
+     */
+    public Page<User> pageUsers(String token, int size) {
+        return Page.of(streamUsers(token), size, user -> user.getEmail().toLowerCase());
     }
 
     /**
@@ -124,7 +141,16 @@ public class UserManager implements Serializable {
      */
     public void updateUserEmail(User user, String newEmail, String oldEmail) {
         if (users.remove(oldEmail)==null);
+        if (directory != null) directory.remove(oldEmail);
         this.users.put(newEmail, user);
+        if (emails != null) {
+            emails.remove(oldEmail);
+            emails.add(newEmail);
+        }
+        if (index != null) {
+            index.removeUser(oldEmail);
+            index.putUser(newEmail, user);
+        }
     }
 
     /**
@@ -134,7 +160,8 @@ public class UserManager implements Serializable {
      * @return the boolean
      */
     public boolean existUserWithEmail(String email) {
-        return this.users.containsKey(email.toLowerCase());
+        String key = email.toLowerCase();
+        return this.users.containsKey(key) || (directory != null && directory.contains(key));
     }
 
     /**
@@ -145,7 +172,7 @@ public class UserManager implements Serializable {
      * @throws EntityNotFoundException the entity not found exception
      */
     public User getUser(String email) throws EntityNotFoundException {
-        User u = this.users.get(email.toLowerCase());
+        User u = find(email.toLowerCase());
 
         if (u == null) {
             throw new EntityNotFoundException(email);
@@ -160,34 +187,20 @@ public class UserManager implements Serializable {
      * @return the public playlists
      */
     public Map<UUID, Playlist> getPublicPlaylists() {
-        HashMap<UUID, Playlist> playlists = new HashMap<>();
-        for (User user: this.users.values()) {
-                for (Playlist p : user.getPlaylists().values()) {
-                    p.setOwner(user.getUsername());
-                    if (p.isPublic()) playlists.put(p.getId(), p);
-                }
-        }
-        return Collections.unmodifiableMap(playlists);
+        return Collections.unmodifiableMap(index().publicPlaylists());
     }
 
     /**
      * Gets public playlists.
+     * Names are matched without regard to case.
      *
-     * @param currentUser  the current user
+     * @param currentUser  the current user, whose playlists are left out
      * @param playlistName the playlist name
      * @return the public playlists
      */
     public Map<UUID, Playlist> getPublicPlaylists(User currentUser, String playlistName) {
-        HashMap<UUID, Playlist> playlists = new HashMap<>();
-        for (User user: this.users.values()) {
-            if (!user.equals(currentUser)) {
-                for (Playlist p : user.getPlaylists().values()) {
-                    p.setOwner(user.getUsername());
-                    if (p.isPublic() && p.getName().contains(playlistName)) playlists.put(p.getId(), p);
-                }
-            }
-        }
-        return Collections.unmodifiableMap(playlists);
+        String email = currentUser == null ? null : currentUser.getEmail().toLowerCase();
+        return Collections.unmodifiableMap(index().searchPublic(playlistName, email));
     }
 
     /**
@@ -197,7 +210,7 @@ public class UserManager implements Serializable {
      */
     public Map<User, List<Playlist>> getUsersPlaylists(){
         HashMap<User, List<Playlist>> playlists = new HashMap<>();
-        for (User user: this.users.values()) {
+        for (User user: loadAll().values()) {
             List<Playlist> playlistsList = new ArrayList<>();
             for (Playlist p: user.getPlaylists().values()) {
                 playlistsList.add(p);
@@ -207,22 +220,17 @@ public class UserManager implements Serializable {
         return playlists;
     }
 
+    /**
+     * Removes tracks from every playlist that contains them, as one batch: each playlist
+     * holding any of the tracks is visited once, and no other playlist is.
+     *
+     * @param tracks the tracks by mid
+     */
     public void removeTracksFromPlaylists(Map<UUID, Music> tracks) {
         if (tracks == null || tracks.isEmpty()) {
             return;
         }
-
-        for (User user : this.users.values()) {
-            Map<UUID, Playlist> playlists = user.getPlaylists();
-            for (Playlist p : playlists.values()) {
-                List<Music> musics = p.getTracks();
-                for (Music music : musics) {
-                    if (tracks.containsKey(music.getMid())){
-                        p.removeMusic(music);
-                    }
-                }
-            }
-        }
+        index().removeTracks(tracks);
     }
 
     /**
@@ -231,15 +239,135 @@ public class UserManager implements Serializable {
      * @param music the music
      */
     public void deleteMusicFromPlaylists(Music music){
-        for (User user: this.users.values()) {
-            for (Playlist p: user.getPlaylists().values()) {
-                List<Music> musics = p.getTracks();
-                for (Music music2 : musics) {
-                    if (music2.equals(music)) {
-                        p.removeMusic(music2);
-                    }
-                }
+        index().removeTracks(Map.of(music.getMid(), music));
+    }
+
+    /**
+     * Writes every user, with its playlists, to a binary snapshot, followed by the
+     * directory of their playlists.
+     *
+     * @param out the out
+     * @throws IOException the io exception
+     */
+    public void writeTo(SnapshotWriter out) throws IOException {
+        Map<String, User> users = loadAll();
+        out.writeUserDirectory(users);
+        out.writeRecord(() -> PlaylistIndex.writeTo(out, users));
+    }
+
+    /**
+     * Serves the users of a binary snapshot lazily from the given directory.
+     *
+     * @param directory the directory
+     */
+    public void setDirectory(UserDirectory directory) {
+        this.directory = directory;
+        this.playlists = null;
+        this.emails = null;
+        this.index = null;
+    }
+
+    /**
+     * Indexes the playlists of the users still in the snapshot from the given playlist
+     * directory, instead of decoding the users.
+     *
+     * @param playlists the playlist directory
+     */
+    public void setPlaylistDirectory(SnapshotSegment playlists) {
+        this.playlists = playlists;
+        this.index = null;
+    }
+
+    /**
+     * Gets a user by its key, decoding it from the snapshot on first access.
+     *
+     * @param email the lower case email
+     * @return the user, or null if there is none
+     */
+    private User find(String email) {
+        User u = this.users.get(email);
+        if (u == null && this.directory != null && this.directory.contains(email)) {
+            u = this.directory.take(email);
+            this.users.put(email, u);
+            if (this.directory.isEmpty()) this.directory = null;
+        }
+        return u;
+    }
+
+    /**
+     * Gets the playlist index, with the public playlist directory, built on first use from
+     * the users decoded and the playlist directory of the snapshot, or from every user if
+     * the snapshot has none.
+     *
+     * @return the index
+     */
+    private PlaylistIndex index() {
+        if (this.index == null) {
+            PlaylistIndex built = new PlaylistIndex(this::find);
+            UserDirectory pending = this.directory;
+            if (pending != null && this.playlists != null) this.playlists.read(in -> built.readFrom(in, pending::contains));
+            else loadAll();
+            this.playlists = null;
+            for (Map.Entry<String, User> entry : this.users.entrySet()) built.putUser(entry.getKey(), entry.getValue());
+            this.index = built;
+        }
+        return this.index;
+    }
+
+    /**
+     * Gets the emails of every user in order, without decoding the ones still in
+     * the snapshot.
+     *
+     * @return the emails
+     */
+    private TreeSet<String> emails() {
+        if (this.emails == null) {
+            TreeSet<String> built = new TreeSet<>(this.users.keySet());
+            if (this.directory != null) built.addAll(this.directory.getEmails());
+            this.emails = built;
+        }
+        return this.emails;
+    }
+
+    /**
+     * Decodes every user still in the snapshot.
+     *
+     * @return the users by email
+     */
+    private Map<String, User> loadAll() {
+        if (this.directory != null) {
+            for (String email : this.directory.getEmails()) {
+                find(email);
             }
+            this.directory = null;
+        }
+        return this.users;
+    }
+
+    /**
+     * Decodes every pending user before the manager is serialized.
+     *
+     * @param out the out
+     * @throws IOException the io exception
+     */
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        loadAll();
+        out.defaultWriteObject();
+    }
+
+    /**
+     * Reads the users from a binary snapshot written before users were partitioned.
+     *
+     * @param in the in
+     * @throws IOException the io exception
+     */
+    public void readFrom(SnapshotReader in) throws IOException {
+        int size = in.readVarInt();
+        for (int i = 0; i < size; i++) {
+            User user = in.readUser();
+            users.put(user.getEmail().toLowerCase(), user);
         }
+        this.emails = null;
+        this.index = null;
     }
 }
@@ -0,0 +1,139 @@
+package spotifum.utils;
+
+import java.io.Serializable;
+
+/**
+ * The type Count min sketch.
+ * Estimates counts of any number of items in a fixed number of counters: each of the
+ * depth rows hashes an item to one of its width counters, and the estimate is the
+ * smallest of them. Counts are only ever over, never under, and with probability
+ * 1 - e^-depth an estimate is over by at most e / width of everything counted. Adding
+ * uses conservative update, raising only the counters below the new estimate, which
+ * keeps the estimates closer without weakening the bound.
+ */
+public class CountMinSketch implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int width;
+    private final int depth;
+    private final int[] counters;
+    private long total;
+
+    /**
+     * Instantiates a new Count min sketch.
+     *
+     * @param width the counters per row
+     * @param depth the rows
+     */
+    public CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) throw new IllegalArgumentException("width and depth must be positive");
+        this.width = width;
+        this.depth = depth;
+        this.counters = new int[width * depth];
+        this.total = 0;
+    }
+
+    /**
+     * Rebuilds a sketch from its counters.
+     *
+     * @param width    the counters per row
+     * @param depth    the rows
+     * @param total    the sum of everything counted
+     * @param counters the counters, row after row
+     * @return the sketch
+     */
+    public static CountMinSketch of(int width, int depth, long total, int[] counters) {
+        CountMinSketch sketch = new CountMinSketch(width, depth);
+        if (counters.length != sketch.counters.length) throw new IllegalArgumentException("expected " + sketch.counters.length + " counters");
+        System.arraycopy(counters, 0, sketch.counters, 0, counters.length);
+        sketch.total = total;
+        return sketch;
+    }
+
+    /**
+     * Adds to the count of an item.
+     *
+     * @param item  the hash of the item
+     * @param delta the delta, not negative
+     * @return the new estimate
+     */
+    public int add(long item, int delta) {
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < this.depth; row++) estimate = Math.min(estimate, this.counters[slot(item, row)]);
+        estimate += delta;
+        for (int row = 0; row < this.depth; row++) {
+            int slot = slot(item, row);
+            if (this.counters[slot] < estimate) this.counters[slot] = estimate;
+        }
+        this.total += delta;
+        return estimate;
+    }
+
+    /**
+     * Estimates the count of an item.
+     *
+     * @param item the hash of the item
+     * @return the estimate
+     */
+    public int estimate(long item) {
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < this.depth; row++) estimate = Math.min(estimate, this.counters[slot(item, row)]);
+        return estimate;
+    }
+
+    /**
+     * Gets the most an estimate is over the true count, with probability 1 - e^-depth.
+     *
+     * @return the max error
+     */
+    public int getMaxError() {
+        return (int) Math.min(Integer.MAX_VALUE, (long) Math.ceil(Math.E * this.total / this.width));
+    }
+
+    /**
+     * Gets width.
+     *
+     * @return the counters per row
+     */
+    public int getWidth() {
+        return this.width;
+    }
+
+    /**
+     * Gets depth.
+     *
+     * @return the rows
+     */
+    public int getDepth() {
+        return this.depth;
+    }
+
+    /**
+     * Gets the sum of everything counted.
+     *
+     * @return the total
+     */
+    public long getTotal() {
+        return this.total;
+    }
+
+    /**
+     * Gets a copy of the counters, row after row.
+     *
+     * @return the counters
+     */
+    public int[] toArray() {
+        return this.counters.clone();
+    }
+
+    /**
+     * Finds the counter of an item in a row, mixing the item with a seed per row.
+     */
+    private int slot(long item, int row) {
+        long hash = item + (row + 1) * 0x9E3779B97F4A7C15L;
+        hash = (hash ^ hash >>> 30) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ hash >>> 27) * 0x94D049BB133111EBL;
+        hash ^= hash >>> 31;
+        return row * this.width + (int) ((hash >>> 1) % this.width);
+    }
+}
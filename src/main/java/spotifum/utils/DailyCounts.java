@@ -0,0 +1,130 @@
+package spotifum.utils;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * The type Daily counts.
+ * Counts by day, kept as the sorted epoch days that have a count and the running total up
+ * to each of them, in primitive arrays. The total over any range of dates is the
+ * difference of two running totals found by binary search, so it costs O(log days)
+ * whatever the range. Counts normally arrive in date order and are then appended or
+ * added to the last day in O(1); a count for an earlier day shifts the days after it.
+ */
+public class DailyCounts implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private int[] days;
+    private int[] totals;
+    private int size;
+
+    /**
+     * Instantiates a new Daily counts.
+     */
+    public DailyCounts() {
+        this.days = new int[4];
+        this.totals = new int[4];
+        this.size = 0;
+    }
+
+    /**
+     * Adds to the count of a day.
+     *
+     * @param date  the date
+     * @param delta the delta
+     * @return true if the day had no count before
+     */
+    public boolean add(LocalDate date, int delta) {
+        int day = (int) date.toEpochDay();
+        if (this.size > 0 && this.days[this.size - 1] == day) {
+            this.totals[this.size - 1] += delta;
+            return false;
+        }
+        int at = this.size > 0 && this.days[this.size - 1] < day ? this.size : Arrays.binarySearch(this.days, 0, this.size, day);
+        if (at < 0) at = -at - 1;
+        boolean added = at == this.size || this.days[at] != day;
+        if (added) {
+            if (this.size == this.days.length) {
+                this.days = Arrays.copyOf(this.days, this.size * 2);
+                this.totals = Arrays.copyOf(this.totals, this.size * 2);
+            }
+            System.arraycopy(this.days, at, this.days, at + 1, this.size - at);
+            System.arraycopy(this.totals, at, this.totals, at + 1, this.size - at);
+            this.days[at] = day;
+            this.totals[at] = at > 0 ? this.totals[at - 1] : 0;
+            this.size++;
+        }
+        for (int i = at; i < this.size; i++) this.totals[i] += delta;
+        return added;
+    }
+
+    /**
+     * Gets the total over a range of dates.
+     *
+     * @param from the first date
+     * @param to   the last date
+     * @return the total, 0 if the range is empty
+     */
+    public int between(LocalDate from, LocalDate to) {
+        if (from.isAfter(to)) return 0;
+        return upTo((int) to.toEpochDay()) - upTo((int) from.toEpochDay() - 1);
+    }
+
+    /**
+     * Gets the total of every day.
+     *
+     * @return the total
+     */
+    public int total() {
+        return this.size == 0 ? 0 : this.totals[this.size - 1];
+    }
+
+    /**
+     * Gets the count of a day.
+     *
+     * @param date the date
+     * @return the count
+     */
+    public int get(LocalDate date) {
+        return between(date, date);
+    }
+
+    /**
+     * Gets the number of days with a count.
+     *
+     * @return the days
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the date of the i-th day with a count, in date order.
+     *
+     * @param i the index
+     * @return the date
+     */
+    public LocalDate dateAt(int i) {
+        return LocalDate.ofEpochDay(this.days[i]);
+    }
+
+    /**
+     * Gets the count of the i-th day with a count, in date order.
+     *
+     * @param i the index
+     * @return the count
+     */
+    public int countAt(int i) {
+        return this.totals[i] - (i > 0 ? this.totals[i - 1] : 0);
+    }
+
+    /**
+     * Gets the running total up to an epoch day, included.
+     */
+    private int upTo(int day) {
+        int at = Arrays.binarySearch(this.days, 0, this.size, day);
+        if (at < 0) at = -at - 2;
+        return at < 0 ? 0 : this.totals[at];
+    }
+}
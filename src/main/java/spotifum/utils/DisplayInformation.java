@@ -155,6 +155,111 @@ public class DisplayInformation {
         return 1;
     }
 
+    /**
+     * Display facets.
+     *
+     * @param result the result of a filter
+     * @param shown  the number of tracks listed after the facets
+     */
+    public static void displayFacets(FacetResult result, int shown) {
+        int boxWidth = 75;
+        String border = "╭" + "─".repeat(boxWidth-2) + "╮";
+        String divider = "├" + "─".repeat(boxWidth-2) + "┤";
+        String bottom = "╰" + "─".repeat(boxWidth-2) + "╯";
+
+        System.out.println(border);
+        System.out.println(String.format("│ %-"+(boxWidth+11)+"s │",
+                ConsoleColors.PURPLE+"🔍 filter: "+ ConsoleColors.RESET +result.size()+" tracks, showing "+Math.min(shown, result.size())+ConsoleColors.RESET));
+        System.out.println(divider);
+        Map<String, String> facets = new LinkedHashMap<>();
+        facets.put("genres", facetLine(result.getGenreCounts()));
+        facets.put("labels", facetLine(result.getLabelCounts()));
+        facets.put("durations", facetLine(result.getDurationCounts()));
+        facets.put("explicit", String.valueOf(result.getExplicitCount()));
+        facets.put("multimedia", String.valueOf(result.getMultimediaCount()));
+        facets.forEach((facet, line) -> System.out.println(String.format("│ %-"+(boxWidth+7)+"s │",
+                ConsoleColors.CYAN + facet + ": " + ConsoleColors.RESET + line)));
+        System.out.println(bottom);
+    }
+
+    private static String facetLine(Map<?, Integer> counts) {
+        String line = counts.entrySet().stream()
+                .limit(5)
+                .map(entry -> entry.getKey() + " " + entry.getValue())
+                .collect(Collectors.joining(", "));
+        return counts.size() > 5 ? line + ", ..." : line;
+    }
+
+    /**
+     * Display completions.
+     *
+     * @param prefix      the prefix
+     * @param completions the completions
+     */
+    public static void displayCompletions(String prefix, List<Completion> completions) {
+        int boxWidth = 75;
+        String border = "╭" + "─".repeat(boxWidth-2) + "╮";
+        String divider = "├" + "─".repeat(boxWidth-2) + "┤";
+        String bottom = "╰" + "─".repeat(boxWidth-2) + "╯";
+
+        System.out.println(border);
+        System.out.println(String.format("│ %-"+(boxWidth+11)+"s │",
+                ConsoleColors.PURPLE+"💡 suggestions: "+ ConsoleColors.RESET +prefix+ConsoleColors.RESET));
+        System.out.println(divider);
+
+        if (completions.isEmpty()) {
+            System.out.println(String.format("│ %-"+(boxWidth+7)+"s │",
+                    ConsoleColors.RED + "no suggestions"+ ConsoleColors.RESET));
+        } else {
+            for (Completion completion : completions) {
+                String line = String.format("%s%s %s- %s [%s%d plays%s]",
+                        ConsoleColors.CYAN, completion.getName(),
+                        ConsoleColors.RESET, completion.getKind().name().toLowerCase(), ConsoleColors.ORANGE, completion.getPlays(), ConsoleColors.RESET);
+                System.out.println(String.format("│ %-"+(boxWidth+22)+"s │", line));
+            }
+        }
+
+        System.out.println(bottom);
+    }
+
+    /**
+     * Display lyrics matches int.
+     *
+     * @param query   the query
+     * @param matches the matches
+     * @return the number of matches
+     */
+    public static int displayLyricsMatches(String query, List<LyricsMatch> matches) {
+        int boxWidth = 75;
+        String border = "╭" + "─".repeat(boxWidth-2) + "╮";
+        String divider = "├" + "─".repeat(boxWidth-2) + "┤";
+        String bottom = "╰" + "─".repeat(boxWidth-2) + "╯";
+
+        System.out.println(border);
+        System.out.println(String.format("│ %-"+(boxWidth+11)+"s │",
+                ConsoleColors.PURPLE+"🔍 lyrics: "+ ConsoleColors.RESET +query+ConsoleColors.RESET));
+        System.out.println(divider);
+
+        if (matches.isEmpty()) {
+            System.out.println(String.format("│ %-"+(boxWidth+7)+"s │",
+                    ConsoleColors.RED + "no lyrics found"+ ConsoleColors.RESET));
+        } else {
+            for (LyricsMatch match : matches) {
+                Music music = match.getMusic();
+                String line = String.format("%s%s %s- %s [%s%s%s]",
+                        ConsoleColors.CYAN, music.getName(),
+                        ConsoleColors.RESET, music.getArtist(), ConsoleColors.ORANGE, music.getMid(), ConsoleColors.RESET);
+                System.out.println(String.format("│ %-"+(boxWidth+22)+"s │", line));
+                String snippet = match.getSnippet()
+                        .replace("[", ConsoleColors.YELLOW).replace("]", ConsoleColors.RESET);
+                System.out.println(String.format("│   %-"+(boxWidth+5)+"s │", snippet));
+            }
+        }
+
+        System.out.println(bottom);
+        return matches.size();
+    }
+
     /**
      * Display random playlists.
      *
@@ -569,12 +674,42 @@ public class DisplayInformation {
         System.out.println(borderBottom);
     }
 
+    /**
+     * Display all users.
+     *
+     * @param users the users
+     */
+    public static void displayAllUsers(Collection<User> users){
+        final int boxWidth = 100;
+        String title = ConsoleColors.CYAN + "👥 ALL REGISTERED USERS" + ConsoleColors.RESET;
+        String borderTop = "╭" + "─".repeat(boxWidth - 2) + "╮";
+        String borderMiddle = "├" + "─".repeat(boxWidth - 2) + "┤";
+        String borderBottom = "╰" + "─".repeat(boxWidth - 2) + "╯";
+
+        System.out.println(borderTop);
+        System.out.printf("│  %-106s │\n", title);
+        System.out.println(borderMiddle);
+
+        if (users.isEmpty()) {
+            System.out.printf("│  %-106s │\n", ConsoleColors.RED + "no users found" + ConsoleColors.RESET);
+        } else {
+            for (User user : users) {
+                String email = user.getEmail();
+                String username = user.getUsername();
+                String line = "• " + email + " | " + ConsoleColors.ORANGE + username + ConsoleColors.RESET + " | Plan: " + user.getUserPlan().toString() + " | Address: " + ConsoleColors.ORANGE + user.getAddress() + ConsoleColors.RESET;
+                System.out.printf("│  %-125s │\n", line);
+            }
+        }
+
+        System.out.println(borderBottom);
+    }
+
     /**
      * Display all artists.
      *
      * @param artists the artists
      */
-    public static void displayAllArtists(Map<String, Artist> artists){
+    public static void displayAllArtists(Collection<Artist> artists){
         final int boxWidth = 100;
         String title = ConsoleColors.CYAN + "\uD83E\uDDD1\u200D\uD83C\uDFA4 ALL REGISTERED ARTISTS" + ConsoleColors.RESET;
         String borderTop = "╭" + "─".repeat(boxWidth - 2) + "╮";
@@ -588,7 +723,7 @@ public class DisplayInformation {
         if (artists.isEmpty()) {
             System.out.printf("│  %-106s │\n", ConsoleColors.RED + "no artists found" + ConsoleColors.RESET);
         } else {
-            for (Artist artist : artists.values()) {
+            for (Artist artist : artists) {
                 String email = artist.getEmail();
                 String username = artist.getUsername();
                 String line = "• " + email + " | " + ConsoleColors.ORANGE + username + ConsoleColors.RESET + " | Songs: " + ConsoleColors.ORANGE + artist.getTracks().size() + ConsoleColors.RESET + " | Albums: " + ConsoleColors.ORANGE + artist.getAlbums().size() + ConsoleColors.RESET;
@@ -688,9 +823,9 @@ public class DisplayInformation {
     /**
      * Display top user.
      *
-     * @param history the history
+     * @param top the users with the most plays and their plays, most first
      */
-    public static void displayMostListeningTimeUser(Map<User, Map<LocalDate, Integer>> history) {
+    public static void displayMostListeningTimeUser(List<Map.Entry<User, Integer>> top) {
         final int boxWidth = 50;
         String border = "╭" + "─".repeat(boxWidth-2) + "╮";
         String divider = "├" + "─".repeat(boxWidth-2) + "┤";
@@ -700,18 +835,8 @@ public class DisplayInformation {
         System.out.printf("│ %-57s │\n", ConsoleColors.CYAN + "🏆 ALL-TIME TOP USER" + ConsoleColors.RESET);
         System.out.println(divider);
 
-        Optional<Map.Entry<User, Integer>> topEntry = history.entrySet().stream()
-                .map(entry -> Map.entry(
-                        entry.getKey(),
-                        entry.getValue().values().stream().mapToInt(Integer::intValue).sum()
-                ))
-                .max(Map.Entry.comparingByValue());
-
-        if (topEntry.isPresent()) {
-            User topUser = topEntry.get().getKey();
-            int totalPlays = topEntry.get().getValue();
-            System.out.printf("│ %-61s │\n", "• " + ConsoleColors.ORANGE + topUser.getUsername() + ConsoleColors.RESET);
-            System.out.printf("│ %-57s │\n", ConsoleColors.BLUE + "  Total Plays: " + ConsoleColors.RESET + totalPlays);
+        if (!top.isEmpty()) {
+            displayTopListeners(top, divider);
         } else {
             System.out.printf("│ %-57s │\n", ConsoleColors.RED + "no plays recorded yet" + ConsoleColors.RESET);
         }
@@ -724,9 +849,9 @@ public class DisplayInformation {
      *
      * @param initialDate the initial date
      * @param finalDate   the final date
-     * @param history     maps users to music history by date
+     * @param top         the users with the most plays in the period and their plays, most first
      */
-    public static void displayMostListeningTimeUser(LocalDate initialDate, LocalDate finalDate, Map<User, Map<LocalDate, Integer>> history) {
+    public static void displayMostListeningTimeUser(LocalDate initialDate, LocalDate finalDate, List<Map.Entry<User, Integer>> top) {
 
         final int boxWidth = 50;
         String border = "╭" + "─".repeat(boxWidth - 2) + "╮";
@@ -737,23 +862,8 @@ public class DisplayInformation {
         System.out.printf("│ %-57s │\n", "🏆" + ConsoleColors.CYAN +" TOP USER BETWEEN " + initialDate + " AND " + finalDate + ConsoleColors.RESET);
         System.out.println(divider);
 
-        Optional<Map.Entry<User, Integer>> topEntry = history.entrySet().stream()
-                .map(entry -> {
-                    int totalPlays = entry.getValue().entrySet().stream()
-                            .filter(dateEntry -> !dateEntry.getKey().isBefore(initialDate))
-                            .filter(dateEntry -> !dateEntry.getKey().isAfter(finalDate))
-                            .mapToInt(Map.Entry::getValue)
-                            .sum();
-                    return Map.entry(entry.getKey(), totalPlays);
-                })
-                .filter(entry -> entry.getValue() > 0)
-                .max(Map.Entry.comparingByValue());
-
-        if (topEntry.isPresent()) {
-            User topUser = topEntry.get().getKey();
-            int totalPlays = topEntry.get().getValue();
-            System.out.printf("│ %-61s │\n", "• " + ConsoleColors.ORANGE + topUser.getUsername() + ConsoleColors.RESET);
-            System.out.printf("│ %-57s │\n", ConsoleColors.BLUE + "  Total Plays: " + ConsoleColors.RESET + totalPlays);
+        if (!top.isEmpty()) {
+            displayTopListeners(top, divider);
         } else {
             System.out.printf("│ %-57s │\n", ConsoleColors.RED + "no plays recorded in this period" + ConsoleColors.RESET);
         }
@@ -761,17 +871,29 @@ public class DisplayInformation {
         System.out.println(bottom);
     }
 
+    /**
+     * Display the top user with their plays, then the users after them.
+     */
+    private static void displayTopListeners(List<Map.Entry<User, Integer>> top, String divider) {
+        User topUser = top.get(0).getKey();
+        System.out.printf("│ %-61s │\n", "• " + ConsoleColors.ORANGE + topUser.getUsername() + ConsoleColors.RESET);
+        System.out.printf("│ %-57s │\n", ConsoleColors.BLUE + "  Total Plays: " + ConsoleColors.RESET + top.get(0).getValue());
+        for (int i = 1; i < top.size(); i++) {
+            if (i == 1) System.out.println(divider);
+            System.out.printf("│ %-57s │\n", ConsoleColors.GREY + "#" + (i + 1) + " " + ConsoleColors.RESET
+                    + top.get(i).getKey().getUsername() + " | " + top.get(i).getValue());
+        }
+    }
+
     /**
      * Display most played artist.
      *
-     * @param playedartists the playedartists
+     * @param top      the most played artists, most first
+     * @param maxError the most the plays shown may be over, 0 if they are exact
      */
-    public static Artist displayMostPlayedArtist(Map<Artist, Integer> playedartists) {
+    public static Artist displayMostPlayedArtist(List<TopK.Entry<Artist>> top, int maxError) {
         final int boxWidth = 50;
 
-        List<Map.Entry<Artist, Integer>> sortedEntries = new ArrayList<>(playedartists.entrySet());
-        sortedEntries.sort((e1, e2) -> e2.getValue().compareTo(e1.getValue()));
-
         String border = "╭" + "─".repeat(boxWidth-2) + "╮";
         String divider = "├" + "─".repeat(boxWidth-2) + "┤";
         String bottom = "╰" + "─".repeat(boxWidth-2) + "╯";
@@ -783,18 +905,23 @@ public class DisplayInformation {
 
         Artist topArtist = null;
 
-        if (sortedEntries.isEmpty()) {
+        if (top.isEmpty()) {
             System.out.println(String.format("│ %-"+(boxWidth+7)+"s │",
                     ConsoleColors.RED + "no artists played yet" + ConsoleColors.RESET));
         } else {
-            topArtist = sortedEntries.get(0).getKey();
-            int playCount = sortedEntries.get(0).getValue();
+            topArtist = top.get(0).getItem();
 
             System.out.println(String.format("│ %-"+(boxWidth+11)+"s │",
                     "• " + ConsoleColors.ORANGE + topArtist.getUsername() + ConsoleColors.RESET));
             System.out.println(divider);
             System.out.println(String.format("│ %-"+(boxWidth+7)+"s │",
-                    ConsoleColors.BLUE + "Total plays: " + ConsoleColors.RESET + playCount));
+                    ConsoleColors.BLUE + "Total plays: " + ConsoleColors.RESET + plays(top.get(0))));
+            for (int i = 1; i < top.size(); i++) {
+                if (i == 1) System.out.println(divider);
+                System.out.println(String.format("│ %-"+(boxWidth+7)+"s │",
+                        ConsoleColors.GREY + "#" + (i + 1) + " " + ConsoleColors.RESET + top.get(i).getItem().getUsername() + " | " + plays(top.get(i))));
+            }
+            displayMaxError(maxError, boxWidth);
         }
 
         System.out.println(bottom);
@@ -804,9 +931,10 @@ public class DisplayInformation {
     /**
      * Display most played genres.
      *
-     * @param playedgenres the playedgenres
+     * @param top      the most played genres, most first
+     * @param maxError the most the plays shown may be over, 0 if they are exact
      */
-    public static String displayMostPlayedGenres(Map<String, Integer> playedgenres) {
+    public static String displayMostPlayedGenres(List<TopK.Entry<String>> top, int maxError) {
         final int boxWidth = 40;
         String border = "╭" + "─".repeat(boxWidth - 2) + "╮";
         String bottom = "╰" + "─".repeat(boxWidth - 2) + "╯";
@@ -817,20 +945,13 @@ public class DisplayInformation {
 
         String topGenre = null;
 
-        if (playedgenres.isEmpty()) {
+        if (top.isEmpty()) {
             System.out.printf("│ %-47s │\n", ConsoleColors.RED + "no genres recorded" + ConsoleColors.RESET);
         } else {
-            List<Map.Entry<String, Integer>> topGenres = playedgenres.entrySet().stream()
-                    .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
-                    .limit(3)
-                    .toList();
-
             String[] medals = {"🥇", "🥈", "🥉"};
 
-            for (int i = 0; i < topGenres.size(); i++) {
-                Map.Entry<String, Integer> entry = topGenres.get(i);
-                String genre = entry.getKey();
-                int plays = entry.getValue();
+            for (int i = 0; i < top.size(); i++) {
+                String genre = top.get(i).getItem();
 
                 // Pegar o primeiro gênero (top 1)
                 if (i == 0) {
@@ -838,9 +959,10 @@ public class DisplayInformation {
                 }
 
                 System.out.printf("│ %-62s │\n",
-                        medals[i] + " " + ConsoleColors.YELLOW + genre + ConsoleColors.RESET +
-                                " | " + ConsoleColors.ORANGE + "Plays: " + ConsoleColors.RESET + plays);
+                        (i < medals.length ? medals[i] : "#" + (i + 1)) + " " + ConsoleColors.YELLOW + genre + ConsoleColors.RESET +
+                                " | " + ConsoleColors.ORANGE + "Plays: " + ConsoleColors.RESET + plays(top.get(i)));
             }
+            displayMaxError(maxError, boxWidth);
         }
 
         System.out.println(bottom);
@@ -850,14 +972,12 @@ public class DisplayInformation {
     /**
      * Display most played music.
      *
-     * @param playedtracks the playedtracks
+     * @param top      the most played tracks, most first
+     * @param maxError the most the plays shown may be over, 0 if they are exact
      */
-    public static Music displayMostPlayedMusic(Map<Music, Integer> playedtracks) {
+    public static Music displayMostPlayedMusic(List<TopK.Entry<Music>> top, int maxError) {
         final int boxWidth = 50;
 
-        List<Map.Entry<Music, Integer>> sortedEntries = new ArrayList<>(playedtracks.entrySet());
-        sortedEntries.sort((e1, e2) -> e2.getValue().compareTo(e1.getValue()));
-
         String border = "╭" + "─".repeat(boxWidth-2) + "╮";
         String divider = "├" + "─".repeat(boxWidth-2) + "┤";
         String bottom = "╰" + "─".repeat(boxWidth-2) + "╯";
@@ -869,12 +989,11 @@ public class DisplayInformation {
 
         Music mostPlayed = null;
 
-        if (sortedEntries.isEmpty()) {
+        if (top.isEmpty()) {
             System.out.println(String.format("│ %-"+(boxWidth+7)+"s │",
                     ConsoleColors.RED + "no tracks played yet" + ConsoleColors.RESET));
         } else {
-            mostPlayed = sortedEntries.get(0).getKey();
-            int playCount = sortedEntries.get(0).getValue();
+            mostPlayed = top.get(0).getItem();
 
             System.out.println(String.format("│ %-"+(boxWidth-4)+"s │",
                     "• " + mostPlayed.getName()));
@@ -882,19 +1001,120 @@ public class DisplayInformation {
                     "  by " + ConsoleColors.ORANGE + mostPlayed.getArtist() + ConsoleColors.RESET));
             System.out.println(divider);
             System.out.println(String.format("│ %-"+(boxWidth+7)+"s │",
-                    ConsoleColors.BLUE + "Plays: " + ConsoleColors.RESET + playCount));
+                    ConsoleColors.BLUE + "Plays: " + ConsoleColors.RESET + plays(top.get(0))));
+            for (int i = 1; i < top.size(); i++) {
+                if (i == 1) System.out.println(divider);
+                Music music = top.get(i).getItem();
+                System.out.println(String.format("│ %-"+(boxWidth+7)+"s │",
+                        ConsoleColors.GREY + "#" + (i + 1) + " " + ConsoleColors.RESET + music.getName() + " - " + music.getArtist() + " | " + plays(top.get(i))));
+            }
+            displayMaxError(maxError, boxWidth);
         }
 
         System.out.println(bottom);
         return mostPlayed;
     }
 
+    /**
+     * Display the tracks, artists and genres most listened to by distinct users.
+     *
+     * @param tracks  the tracks with their estimated listeners, most first
+     * @param artists the artists with their estimated listeners, most first
+     * @param genres  the genres with their estimated listeners, most first
+     * @param error   the relative standard error of the estimates
+     */
+    public static void displayMostListenedTo(List<TopK.Entry<Music>> tracks, List<TopK.Entry<Artist>> artists,
+                                             List<TopK.Entry<String>> genres, double error) {
+        displayTopLists("👥 MOST DISTINCT LISTENERS", tracks, artists, genres,
+                String.format("≈ listeners within about ±%.1f%%", error * 100));
+    }
+
+    /**
+     * Display the tracks, artists and genres played the most between two dates.
+     *
+     * @param initialDate the initial date
+     * @param finalDate   the final date
+     * @param tracks      the tracks with their plays, most first
+     * @param artists     the artists with their plays, most first
+     * @param genres      the genres with their plays, most first
+     */
+    public static void displayMostPlayedBetween(LocalDate initialDate, LocalDate finalDate, List<TopK.Entry<Music>> tracks,
+                                                List<TopK.Entry<Artist>> artists, List<TopK.Entry<String>> genres) {
+        displayTopLists("📅 MOST PLAYED " + initialDate + " TO " + finalDate, tracks, artists, genres, null);
+    }
+
+    /**
+     * Display a box with a top list of tracks, one of artists and one of genres.
+     */
+    private static void displayTopLists(String title, List<TopK.Entry<Music>> tracks, List<TopK.Entry<Artist>> artists,
+                                        List<TopK.Entry<String>> genres, String footer) {
+        final int boxWidth = 50;
+
+        String border = "╭" + "─".repeat(boxWidth-2) + "╮";
+        String divider = "├" + "─".repeat(boxWidth-2) + "┤";
+        String bottom = "╰" + "─".repeat(boxWidth-2) + "╯";
+
+        System.out.println(border);
+        System.out.println(String.format("│ %-"+(boxWidth+6)+"s │",
+                ConsoleColors.CYAN + title + ConsoleColors.RESET));
+
+        List<String> lines = new ArrayList<>();
+        for (TopK.Entry<Music> entry : tracks) lines.add(entry.getItem().getName() + " - " + entry.getItem().getArtist() + " | " + entry.getCount());
+        displayTopSection("Tracks", lines, divider, boxWidth);
+        lines.clear();
+        for (TopK.Entry<Artist> entry : artists) lines.add(entry.getItem().getUsername() + " | " + entry.getCount());
+        displayTopSection("Artists", lines, divider, boxWidth);
+        lines.clear();
+        for (TopK.Entry<String> entry : genres) lines.add(entry.getItem() + " | " + entry.getCount());
+        displayTopSection("Genres", lines, divider, boxWidth);
+
+        if (footer != null) {
+            System.out.println(divider);
+            System.out.println(String.format("│ %-"+(boxWidth+7)+"s │",
+                    ConsoleColors.GREY + footer + ConsoleColors.RESET));
+        }
+        System.out.println(bottom);
+    }
+
+    /**
+     * Display one section of a box of top lists.
+     */
+    private static void displayTopSection(String title, List<String> lines, String divider, int boxWidth) {
+        System.out.println(divider);
+        System.out.println(String.format("│ %-"+(boxWidth+7)+"s │",
+                ConsoleColors.BLUE + title + ConsoleColors.RESET));
+        if (lines.isEmpty()) {
+            System.out.println(String.format("│ %-"+(boxWidth+7)+"s │",
+                    ConsoleColors.RED + "no plays recorded" + ConsoleColors.RESET));
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            System.out.println(String.format("│ %-"+(boxWidth+7)+"s │",
+                    ConsoleColors.GREY + "#" + (i + 1) + " " + ConsoleColors.RESET + lines.get(i)));
+        }
+    }
+
+    /**
+     * The plays of a most played entry, with the most they may be over when estimated.
+     */
+    private static String plays(TopK.Entry<?> entry) {
+        return entry.getError() > 0 ? entry.getCount() + " (±" + entry.getError() + ")" : String.valueOf(entry.getCount());
+    }
+
+    /**
+     * Display the error bound of an approximate most played list.
+     */
+    private static void displayMaxError(int maxError, int boxWidth) {
+        if (maxError == 0) return;
+        System.out.println(String.format("│ %-"+(boxWidth+7)+"s │",
+                ConsoleColors.GREY + "≈ plays over by at most " + maxError + ConsoleColors.RESET));
+    }
+
     /**
      * Display user leader board.
      *
-     * @param leaderboard the leaderboard
+     * @param top the users with the most points and their points, most first
      */
-    public static void displayUserLeaderBoard(Map<User, Map<Music, Double>> leaderboard) {
+    public static void displayUserLeaderBoard(List<Map.Entry<User, Double>> top) {
 
         final int boxWidth = 50;
         String border = "╭" + "─".repeat(boxWidth - 2) + "╮";
@@ -905,23 +1125,21 @@ public class DisplayInformation {
         System.out.printf("│ %-57s │\n", "🏆" + ConsoleColors.CYAN + " USER WITH MOST POINTS" + ConsoleColors.RESET);
         System.out.println(divider);
 
-        Optional<Map.Entry<User, Double>> topEntry = leaderboard.entrySet().stream()
-                .map(entry -> {
-                    double totalPoints = entry.getValue().values().stream()
-                            .mapToDouble(Double::doubleValue)
-                            .sum();
-                    return Map.entry(entry.getKey(), totalPoints);
-                })
-                .filter(entry -> entry.getValue() > 0)
-                .max(Map.Entry.comparingByValue());
-
-        if (topEntry.isPresent()) {
-            User topUser = topEntry.get().getKey();
-            double totalPoints = topEntry.get().getValue();
+        if (!top.isEmpty()) {
+            User topUser = top.get(0).getKey();
+            double totalPoints = top.get(0).getValue();
 
             System.out.printf("│ %-61s │\n", "• " + ConsoleColors.ORANGE + topUser.getUsername() + ConsoleColors.RESET);
             System.out.printf("│ %-57s │\n", ConsoleColors.BLUE + "  Plan: " + ConsoleColors.RESET + topUser.getUserPlan().toString());
             System.out.printf("│ %-57s │\n", ConsoleColors.GREY + "  Total Points: " + ConsoleColors.RESET + String.format("%.2f", totalPoints));
+
+            if (top.size() > 1) {
+                System.out.println(divider);
+                for (int i = 1; i < top.size(); i++) {
+                    System.out.printf("│ %-57s │\n", ConsoleColors.GREY + "#" + (i + 1) + " " + ConsoleColors.RESET
+                            + top.get(i).getKey().getUsername() + " | " + String.format("%.2f", top.get(i).getValue()));
+                }
+            }
         } else {
             System.out.printf("│ %-57s │\n", ConsoleColors.RED + "no plays recorded" + ConsoleColors.RESET);
         }
@@ -0,0 +1,293 @@
+package spotifum.utils;
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * The type Fuzzy index.
+ * Typo tolerant index from the words of names to the int keys of the names. The distinct
+ * words are indexed by their trigrams, padded at both ends; a word of the query only
+ * verifies, with an edit distance bounded by its length, the words sharing enough of its
+ * trigrams to be within that distance. A name matches when every word of the query is
+ * close to one of its words, and ranks by the sum of those distances.
+ */
+public class FuzzyIndex {
+    private static final int GRAM = 3;
+    private static final char PAD = '\u0000';
+
+    private final Map<String, Word> words;
+    private final Map<String, List<Word>> grams;
+    private int maxKey;
+
+    /**
+     * Instantiates a new Fuzzy index.
+     */
+    public FuzzyIndex() {
+        this.words = new HashMap<>();
+        this.grams = new HashMap<>();
+        this.maxKey = 0;
+    }
+
+    /**
+     * Indexes a name.
+     *
+     * @param key  the key
+     * @param name the name
+     */
+    public void add(int key, String name) {
+        this.maxKey = Math.max(this.maxKey, key);
+        for (String text : words(name)) {
+            Word word = this.words.get(text);
+            if (word == null) {
+                word = new Word(text);
+                this.words.put(text, word);
+                for (String gram : grams(text)) this.grams.computeIfAbsent(gram, g -> new ArrayList<>()).add(word);
+            }
+            word.add(key);
+        }
+    }
+
+    /**
+     * Removes a name indexed before.
+     *
+     * @param key  the key
+     * @param name the name it was indexed with
+     */
+    public void remove(int key, String name) {
+        for (String text : words(name)) {
+            Word word = this.words.get(text);
+            if (word == null || !word.remove(key) || word.count > 0) continue;
+            this.words.remove(text);
+            for (String gram : grams(text)) {
+                List<Word> list = this.grams.get(gram);
+                list.remove(word);
+                if (list.isEmpty()) this.grams.remove(gram);
+            }
+        }
+    }
+
+    /**
+     * Finds the names close to a query. The keys come from the word of the query with the
+     * fewest close names; the other words are checked against the names of those keys.
+     *
+     * @param query   the query
+     * @param nameOf  the name indexed for a key
+     * @param visitor receives every key found, with the sum of the distances of the words
+     *                of the query, once per key
+     */
+    public void search(String query, IntFunction<String> nameOf, Visitor visitor) {
+        List<Map<Word, Integer>> close = new ArrayList<>();
+        int rarest = -1;
+        long fewest = Long.MAX_VALUE;
+        for (String text : words(query)) {
+            Map<Word, Integer> words = closeWords(text);
+            if (words.isEmpty()) return;
+            long count = 0;
+            for (Word word : words.keySet()) count += word.count;
+            if (count < fewest) {
+                fewest = count;
+                rarest = close.size();
+            }
+            close.add(words);
+        }
+        if (rarest < 0) return;
+
+        int[] distances = new int[this.maxKey + 1];
+        int[] keys = new int[(int) fewest];
+        int found = 0;
+        for (Map.Entry<Word, Integer> entry : close.remove(rarest).entrySet()) {
+            Word word = entry.getKey();
+            int distance = entry.getValue() + 1;
+            for (int i = 0; i < word.count; i++) {
+                int key = word.keys[i];
+                if (distances[key] == 0) keys[found++] = key;
+                if (distances[key] == 0 || distance < distances[key]) distances[key] = distance;
+            }
+        }
+
+        List<Map<String, Integer>> others = new ArrayList<>(close.size());
+        for (Map<Word, Integer> words : close) {
+            Map<String, Integer> texts = new HashMap<>();
+            for (Map.Entry<Word, Integer> entry : words.entrySet()) texts.put(entry.getKey().text, entry.getValue());
+            others.add(texts);
+        }
+        for (int i = 0; i < found; i++) {
+            int key = keys[i];
+            int sum = distances[key] - 1;
+            if (!others.isEmpty()) {
+                Set<String> words = words(nameOf.apply(key));
+                for (Map<String, Integer> texts : others) {
+                    int distance = Integer.MAX_VALUE;
+                    for (String word : words) distance = Math.min(distance, texts.getOrDefault(word, Integer.MAX_VALUE));
+                    if (distance == Integer.MAX_VALUE) {
+                        sum = -1;
+                        break;
+                    }
+                    sum += distance;
+                }
+            }
+            if (sum >= 0) visitor.visit(key, sum);
+        }
+    }
+
+    /**
+     * Finds the names close to a query.
+     *
+     * @param query  the query
+     * @param nameOf the name indexed for a key
+     * @return the sum of the distances of the words of the query, by key
+     */
+    public Map<Integer, Integer> search(String query, IntFunction<String> nameOf) {
+        Map<Integer, Integer> result = new HashMap<>();
+        search(query, nameOf, result::put);
+        return result;
+    }
+
+    /**
+     * Finds the indexed words within the distance allowed for a word of the query. A word
+     * within the distance shares all but {@link #GRAM} trigrams per edit with it, so it is
+     * in at least one of the shortest lists left after leaving out that many; only the
+     * words in those lists are verified.
+     *
+     * @param text the word
+     * @return the distance of each close word
+     */
+    private Map<Word, Integer> closeWords(String text) {
+        int max = maxDistance(text.length());
+        Map<Word, Integer> result = new HashMap<>();
+        if (max == 0) {
+            Word word = this.words.get(text);
+            if (word != null) result.put(word, 0);
+            return result;
+        }
+        List<List<Word>> lists = new ArrayList<>();
+        for (String gram : grams(text)) lists.add(this.grams.getOrDefault(gram, Collections.emptyList()));
+        lists.sort(Comparator.comparingInt(List::size));
+        int needed = lists.size() - GRAM * max;
+        Set<Word> candidates = new HashSet<>();
+        for (List<Word> list : lists.subList(0, lists.size() - needed + 1)) {
+            for (Word word : list) {
+                if (Math.abs(word.text.length() - text.length()) <= max) candidates.add(word);
+            }
+        }
+        for (Word word : candidates) {
+            int distance = distance(text, word.text, max);
+            if (distance <= max) result.put(word, distance);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the edit distance allowed for a word of the query: none up to 2 characters,
+     * one up to 5 and two after that.
+     *
+     * @param length the length of the word
+     * @return the distance
+     */
+    public static int maxDistance(int length) {
+        return length <= 2 ? 0 : length <= 5 ? 1 : 2;
+    }
+
+    /**
+     * Gets the Levenshtein distance between two strings, only computing the band of the
+     * table within a bound.
+     *
+     * @param a   the first string
+     * @param b   the second string
+     * @param max the bound
+     * @return the distance, or max + 1 if it is over the bound
+     */
+    public static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) return max + 1;
+        int over = max + 1;
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) previous[j] = Math.min(j, over);
+        for (int i = 1; i <= a.length(); i++) {
+            int from = Math.max(1, i - max);
+            int to = Math.min(b.length(), i + max);
+            current[from - 1] = from == 1 ? Math.min(i, over) : over;
+            int best = current[from - 1];
+            for (int j = from; j <= to; j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(previous[j - 1] + cost, Math.min(previous[j], current[j - 1]) + 1);
+                current[j] = Math.min(value, over);
+                best = Math.min(best, current[j]);
+            }
+            if (to < b.length()) current[to + 1] = over;
+            if (best > max) return over;
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    /**
+     * Gets the distinct normalized words of a name.
+     *
+     * @param name the name
+     * @return the words
+     */
+    public static Set<String> words(String name) {
+        Set<String> words = new LinkedHashSet<>();
+        String text = PrefixTrie.normalize(name);
+        int i = 0;
+        while (i < text.length()) {
+            while (i < text.length() && !Character.isLetterOrDigit(text.charAt(i))) i++;
+            int start = i;
+            while (i < text.length() && Character.isLetterOrDigit(text.charAt(i))) i++;
+            if (i > start) words.add(text.substring(start, i));
+        }
+        return words;
+    }
+
+    private static Set<String> grams(String word) {
+        String padded = "" + PAD + PAD + word + PAD + PAD;
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= padded.length(); i++) grams.add(padded.substring(i, i + GRAM));
+        return grams;
+    }
+
+    /**
+     * Receives the keys found by a search.
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        /**
+         * Visits a key.
+         *
+         * @param key      the key
+         * @param distance the distance
+         */
+        void visit(int key, int distance);
+    }
+
+    /**
+     * A distinct word with the keys of the names that have it.
+     */
+    private static class Word {
+        private final String text;
+        private int[] keys = new int[2];
+        private int count = 0;
+
+        private Word(String text) {
+            this.text = text;
+        }
+
+        private void add(int key) {
+            if (this.count == this.keys.length) this.keys = Arrays.copyOf(this.keys, this.count * 2);
+            this.keys[this.count++] = key;
+        }
+
+        private boolean remove(int key) {
+            for (int i = 0; i < this.count; i++) {
+                if (this.keys[i] == key) {
+                    this.keys[i] = this.keys[--this.count];
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package spotifum.utils;
+
+import java.util.*;
+import java.util.function.IntFunction;
+
+/**
+ * The type Gram index.
+ * Inverted index from every substring of up to {@link #GRAM} characters of a text to the
+ * int keys of the texts that contain it. A query of up to {@link #GRAM} characters is
+ * answered by a single posting list; a longer query intersects the posting lists of its
+ * trigrams and checks the few candidates left against their text. Texts are expected to
+ * be normalized by the caller, the index compares them as given.
+ */
+public class GramIndex {
+    /**
+     * The constant GRAM.
+     */
+    public static final int GRAM = 3;
+
+    private final Map<String, Postings> postings;
+
+    /**
+     * Instantiates a new Gram index.
+     */
+    public GramIndex() {
+        this.postings = new HashMap<>();
+    }
+
+    /**
+     * Indexes a text.
+     *
+     * @param key  the key
+     * @param text the text
+     */
+    public void add(int key, String text) {
+        for (String gram : grams(text)) this.postings.computeIfAbsent(gram, g -> new Postings()).add(key);
+    }
+
+    /**
+     * Removes a text indexed before.
+     *
+     * @param key  the key
+     * @param text the text it was indexed with
+     */
+    public void remove(int key, String text) {
+        for (String gram : grams(text)) {
+            Postings list = this.postings.get(gram);
+            if (list != null && list.remove(key) && list.size == 0) this.postings.remove(gram);
+        }
+    }
+
+    /**
+     * Finds the keys of the texts that contain a query.
+     *
+     * @param query  the query, not empty
+     * @param textOf the text indexed for a key
+     * @return the keys, in ascending order
+     */
+    public int[] search(String query, IntFunction<String> textOf) {
+        if (query.length() <= GRAM) {
+            Postings exact = this.postings.get(query);
+            return exact == null ? new int[0] : Arrays.copyOf(exact.sorted().keys, exact.size);
+        }
+
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= query.length(); i++) grams.add(query.substring(i, i + GRAM));
+        List<Postings> lists = new ArrayList<>(grams.size());
+        for (String gram : grams) {
+            Postings list = this.postings.get(gram);
+            if (list == null) return new int[0];
+            lists.add(list.sorted());
+        }
+        lists.sort(Comparator.comparingInt(list -> list.size));
+
+        Postings smallest = lists.get(0);
+        int[] result = new int[smallest.size];
+        int found = 0;
+        for (int i = 0; i < smallest.size; i++) {
+            int key = smallest.keys[i];
+            boolean candidate = true;
+            for (int j = 1; j < lists.size() && candidate; j++) candidate = lists.get(j).contains(key);
+            if (candidate && textOf.apply(key).contains(query)) result[found++] = key;
+        }
+        return Arrays.copyOf(result, found);
+    }
+
+    /**
+     * Gets every distinct substring of up to {@link #GRAM} characters of a text.
+     *
+     * @param text the text
+     * @return the grams
+     */
+    public static Set<String> grams(String text) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i < text.length(); i++) {
+            for (int length = 1; length <= GRAM && i + length <= text.length(); length++) {
+                grams.add(text.substring(i, i + length));
+            }
+        }
+        return grams;
+    }
+
+    /**
+     * A list of keys. Keys are appended as they come and the list is sorted the next time
+     * it is read, so indexing a whole catalog does not shift the arrays.
+     */
+    private static class Postings {
+        private int[] keys = new int[4];
+        private int size = 0;
+        private boolean sorted = true;
+
+        private void add(int key) {
+            if (this.size > 0 && this.keys[this.size - 1] >= key) this.sorted = false;
+            if (this.size == this.keys.length) this.keys = Arrays.copyOf(this.keys, this.size * 2);
+            this.keys[this.size++] = key;
+        }
+
+        /**
+         * Sorts the keys appended out of order and drops the repeated ones.
+         *
+         * @return the postings
+         */
+        private Postings sorted() {
+            if (this.sorted) return this;
+            Arrays.sort(this.keys, 0, this.size);
+            int distinct = 0;
+            for (int i = 0; i < this.size; i++) {
+                if (distinct == 0 || this.keys[distinct - 1] != this.keys[i]) this.keys[distinct++] = this.keys[i];
+            }
+            this.size = distinct;
+            this.sorted = true;
+            return this;
+        }
+
+        private boolean remove(int key) {
+            sorted();
+            int at = Arrays.binarySearch(this.keys, 0, this.size, key);
+            if (at < 0) return false;
+            System.arraycopy(this.keys, at + 1, this.keys, at, this.size - at - 1);
+            this.size--;
+            return true;
+        }
+
+        private boolean contains(int key) {
+            return Arrays.binarySearch(this.keys, 0, this.size, key) >= 0;
+        }
+    }
+}
@@ -0,0 +1,178 @@
+package spotifum.utils;
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * The type Hyper log log.
+ * Estimates how many distinct items were added in 2^precision small registers, with a
+ * standard error of about 1.04 / sqrt(2^precision) whatever the number of items. Each
+ * item is hashed to a register, which keeps the longest run of leading zeros seen in the
+ * rest of the hash. Two sketches of the same precision merge by taking the highest of
+ * each register, so sketches kept apart (per day, per shard) count the union exactly as
+ * one sketch fed with everything would.
+ * <p>
+ * Few items only touch a few registers, so until a quarter of them are set the sketch
+ * keeps just those, sorted by register, and only then allocates every register. The sum
+ * the estimate needs is kept up to date as registers change, so estimating is O(1).
+ */
+public class HyperLogLog implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final int precision;
+    private byte[] registers;
+    private int[] sparse;
+    private int sparseSize;
+    private double sum;
+    private int zeros;
+
+    /**
+     * Instantiates a new Hyper log log.
+     *
+     * @param precision the log2 of the number of registers, from 4 to 16
+     */
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) throw new IllegalArgumentException("precision must be between 4 and 16");
+        this.precision = precision;
+        this.registers = null;
+        this.sparse = new int[4];
+        this.sparseSize = 0;
+    }
+
+    /**
+     * Adds an item.
+     *
+     * @param item the item, hashed again here so any well spread long will do
+     * @return true if the sketch changed
+     */
+    public boolean add(long item) {
+        long hash = item + 0x9E3779B97F4A7C15L;
+        hash = (hash ^ hash >>> 30) * 0xBF58476D1CE4E5B9L;
+        hash = (hash ^ hash >>> 27) * 0x94D049BB133111EBL;
+        hash ^= hash >>> 31;
+        int index = (int) (hash >>> (64 - this.precision));
+        int rank = Long.numberOfLeadingZeros(hash << this.precision | 1L << (this.precision - 1)) + 1;
+        return set(index, rank);
+    }
+
+    /**
+     * Adds every item of another sketch.
+     *
+     * @param other the other sketch, of the same precision
+     */
+    public void merge(HyperLogLog other) {
+        if (other.precision != this.precision) throw new IllegalArgumentException("cannot merge sketches of different precision");
+        if (other.registers != null) {
+            for (int index = 0; index < other.registers.length; index++) {
+                if (other.registers[index] != 0) set(index, other.registers[index]);
+            }
+        } else {
+            for (int i = 0; i < other.sparseSize; i++) set(other.sparse[i] >>> 8, other.sparse[i] & 0xFF);
+        }
+    }
+
+    /**
+     * Estimates the number of distinct items added.
+     *
+     * @return the estimate
+     */
+    public long estimate() {
+        int m = 1 << this.precision;
+        if (this.registers == null) return Math.round(m * Math.log((double) m / (m - this.sparseSize)));
+        double raw = alpha(m) * m * m / this.sum;
+        if (raw <= 2.5 * m && this.zeros > 0) return Math.round(m * Math.log((double) m / this.zeros));
+        return Math.round(raw);
+    }
+
+    /**
+     * Gets precision.
+     *
+     * @return the log2 of the number of registers
+     */
+    public int getPrecision() {
+        return this.precision;
+    }
+
+    /**
+     * Gets the registers that are set, each as its index shifted left by 8 bits with its
+     * value in the low 8 bits, by index.
+     *
+     * @return the registers set
+     */
+    public int[] toArray() {
+        if (this.registers == null) return Arrays.copyOf(this.sparse, this.sparseSize);
+        int[] set = new int[this.registers.length - this.zeros];
+        int at = 0;
+        for (int index = 0; index < this.registers.length; index++) {
+            if (this.registers[index] != 0) set[at++] = index << 8 | this.registers[index];
+        }
+        return set;
+    }
+
+    /**
+     * Rebuilds a sketch from its registers.
+     *
+     * @param precision the precision
+     * @param set       the registers set, as returned by {@link #toArray()}
+     * @return the sketch
+     */
+    public static HyperLogLog of(int precision, int[] set) {
+        HyperLogLog sketch = new HyperLogLog(precision);
+        for (int register : set) {
+            if ((register >>> 8) >= 1 << precision) throw new IllegalArgumentException("register out of range");
+            sketch.set(register >>> 8, register & 0xFF);
+        }
+        return sketch;
+    }
+
+    /**
+     * Raises a register to a rank if it is lower.
+     */
+    private boolean set(int index, int rank) {
+        if (this.registers != null) {
+            int current = this.registers[index];
+            if (rank <= current) return false;
+            if (current == 0) this.zeros--;
+            this.sum += Math.scalb(1.0, -rank) - Math.scalb(1.0, -current);
+            this.registers[index] = (byte) rank;
+            return true;
+        }
+        int at = Arrays.binarySearch(this.sparse, 0, this.sparseSize, index << 8);
+        if (at < 0) at = -at - 1;
+        if (at < this.sparseSize && this.sparse[at] >>> 8 == index) {
+            if (rank <= (this.sparse[at] & 0xFF)) return false;
+            this.sparse[at] = index << 8 | rank;
+            return true;
+        }
+        if (this.sparseSize + 1 > (1 << this.precision) / 4) {
+            densify();
+            return set(index, rank);
+        }
+        if (this.sparseSize == this.sparse.length) this.sparse = Arrays.copyOf(this.sparse, this.sparseSize * 2);
+        System.arraycopy(this.sparse, at, this.sparse, at + 1, this.sparseSize - at);
+        this.sparse[at] = index << 8 | rank;
+        this.sparseSize++;
+        return true;
+    }
+
+    private void densify() {
+        int m = 1 << this.precision;
+        this.registers = new byte[m];
+        this.sum = m;
+        this.zeros = m;
+        int[] sparse = this.sparse;
+        int size = this.sparseSize;
+        this.sparse = null;
+        this.sparseSize = 0;
+        for (int i = 0; i < size; i++) set(sparse[i] >>> 8, sparse[i] & 0xFF);
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16: return 0.673;
+            case 32: return 0.697;
+            case 64: return 0.709;
+            default: return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+}
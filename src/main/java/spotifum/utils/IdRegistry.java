@@ -0,0 +1,166 @@
+package spotifum.utils;
+
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * The type Id registry.
+ * Gives every entity an index holds a dense int key the first time its UUID is seen, so
+ * the index can use int-keyed arrays and maps instead of hashing UUIDs or whole entities.
+ * Keys start at 1 and 0 means no key. Each index owns its registry and releases the key
+ * of an entity it drops, and released keys are handed out again before new ones, so the
+ * keys, and the arrays indexed by them, stay as dense as the entities the index holds.
+ * The UUIDs are kept as two longs in an open addressing table, so a lookup neither boxes
+ * nor allocates. A registry is not thread safe, it is guarded by the index that owns it.
+ * Keys only live as long as the registry: snapshots keep the UUIDs.
+ */
+public class IdRegistry {
+    private long[] most;
+    private long[] least;
+    private int[] slots;
+    private UUID[] ids;
+    private int[] released;
+    private int releasedCount;
+    private int maxKey;
+    private int size;
+
+    /**
+     * Instantiates a new Id registry.
+     */
+    public IdRegistry() {
+        this.most = new long[32];
+        this.least = new long[32];
+        this.slots = new int[32];
+        this.ids = new UUID[16];
+        this.released = new int[8];
+        this.releasedCount = 0;
+        this.maxKey = 0;
+        this.size = 0;
+    }
+
+    /**
+     * Gets the key of an id, assigning a released key, or the next one, if the id is new.
+     *
+     * @param id the id
+     * @return the key
+     */
+    public int keyOf(UUID id) {
+        int slot = slot(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        if (this.slots[slot] != 0) return this.slots[slot];
+        int key;
+        if (this.releasedCount > 0) {
+            key = this.released[--this.releasedCount];
+        } else {
+            key = ++this.maxKey;
+            if (key == this.ids.length) this.ids = Arrays.copyOf(this.ids, this.ids.length * 2);
+        }
+        this.ids[key] = id;
+        this.most[slot] = id.getMostSignificantBits();
+        this.least[slot] = id.getLeastSignificantBits();
+        this.slots[slot] = key;
+        if (++this.size * 2 > this.slots.length) resize();
+        return key;
+    }
+
+    /**
+     * Finds the key of an id without assigning one.
+     *
+     * @param id the id
+     * @return the key, or 0 if the id has none
+     */
+    public int find(UUID id) {
+        if (id == null) return 0;
+        return this.slots[slot(id.getMostSignificantBits(), id.getLeastSignificantBits())];
+    }
+
+    /**
+     * Gets the id of a key.
+     *
+     * @param key the key
+     * @return the id, or null if the key is not assigned
+     */
+    public UUID idOf(int key) {
+        return key > 0 && key <= this.maxKey ? this.ids[key] : null;
+    }
+
+    /**
+     * Releases the key of an id, to be assigned again to the next new id.
+     *
+     * @param id the id
+     * @return the key released, or 0 if the id had none
+     */
+    public int release(UUID id) {
+        if (id == null) return 0;
+        int slot = slot(id.getMostSignificantBits(), id.getLeastSignificantBits());
+        int key = this.slots[slot];
+        if (key == 0) return 0;
+        this.slots[slot] = 0;
+        // Shifts back the entries that probed past the emptied slot, so lookups still find them.
+        int mask = this.slots.length - 1;
+        int hole = slot;
+        for (int at = (slot + 1) & mask; this.slots[at] != 0; at = (at + 1) & mask) {
+            int home = hash(this.most[at], this.least[at]) & mask;
+            if (((at - home) & mask) >= ((at - hole) & mask)) {
+                this.most[hole] = this.most[at];
+                this.least[hole] = this.least[at];
+                this.slots[hole] = this.slots[at];
+                this.slots[at] = 0;
+                hole = at;
+            }
+        }
+        this.ids[key] = null;
+        if (this.releasedCount == this.released.length) this.released = Arrays.copyOf(this.released, this.released.length * 2);
+        this.released[this.releasedCount++] = key;
+        this.size--;
+        return key;
+    }
+
+    /**
+     * Gets the largest key assigned, so arrays indexed by key need one slot more.
+     *
+     * @return the max key
+     */
+    public int getMaxKey() {
+        return this.maxKey;
+    }
+
+    /**
+     * Gets the number of ids with a key.
+     *
+     * @return the size
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Finds the slot of an id, or the empty slot where it goes.
+     */
+    private int slot(long most, long least) {
+        int mask = this.slots.length - 1;
+        int at = hash(most, least) & mask;
+        while (this.slots[at] != 0 && (this.most[at] != most || this.least[at] != least)) at = (at + 1) & mask;
+        return at;
+    }
+
+    private static int hash(long most, long least) {
+        long hash = (most ^ least) * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ hash >>> 32);
+    }
+
+    private void resize() {
+        long[] most = this.most;
+        long[] least = this.least;
+        int[] slots = this.slots;
+        this.most = new long[slots.length * 2];
+        this.least = new long[slots.length * 2];
+        this.slots = new int[slots.length * 2];
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i] == 0) continue;
+            int slot = slot(most[i], least[i]);
+            this.most[slot] = most[i];
+            this.least[slot] = least[i];
+            this.slots[slot] = slots[i];
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package spotifum.utils;
+
+/**
+ * The type Int double map.
+ * Map from dense int keys to doubles in open addressing arrays, so looking a key up or
+ * adding to its value neither boxes nor allocates. Meant for sparse sets of keys, where
+ * an array indexed by the key would be mostly empty. Keys must be greater than 0.
+ */
+public class IntDoubleMap {
+    private int[] keys;
+    private double[] values;
+    private int size;
+
+    /**
+     * Instantiates a new Int double map.
+     */
+    public IntDoubleMap() {
+        this.keys = new int[8];
+        this.values = new double[8];
+        this.size = 0;
+    }
+
+    /**
+     * Gets the value of a key.
+     *
+     * @param key the key
+     * @return the value, 0 if the key is not in the map
+     */
+    public double get(int key) {
+        int slot = slot(this.keys, key);
+        return this.keys[slot] == key ? this.values[slot] : 0;
+    }
+
+    /**
+     * Checks whether a key is in the map.
+     *
+     * @param key the key
+     * @return true if it is
+     */
+    public boolean containsKey(int key) {
+        return key > 0 && this.keys[slot(this.keys, key)] == key;
+    }
+
+    /**
+     * Sets the value of a key.
+     *
+     * @param key   the key
+     * @param value the value
+     */
+    public void put(int key, double value) {
+        int slot = slot(this.keys, key);
+        if (this.keys[slot] != key) {
+            if (2 * (this.size + 1) > this.keys.length) {
+                grow();
+                slot = slot(this.keys, key);
+            }
+            this.keys[slot] = key;
+            this.size++;
+        }
+        this.values[slot] = value;
+    }
+
+    /**
+     * Adds to the value of a key, starting from 0 if it is not in the map.
+     *
+     * @param key   the key
+     * @param delta the delta
+     * @return the new value
+     */
+    public double add(int key, double delta) {
+        double value = get(key) + delta;
+        put(key, value);
+        return value;
+    }
+
+    /**
+     * Gets the number of keys in the map.
+     *
+     * @return the size
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the keys in the map, in no particular order.
+     *
+     * @return the keys
+     */
+    public int[] keys() {
+        int[] keys = new int[this.size];
+        int at = 0;
+        for (int key : this.keys) {
+            if (key != 0) keys[at++] = key;
+        }
+        return keys;
+    }
+
+    /**
+     * Visits every key with its value, in no particular order.
+     *
+     * @param visitor the visitor
+     */
+    public void forEach(Visitor visitor) {
+        for (int i = 0; i < this.keys.length; i++) {
+            if (this.keys[i] != 0) visitor.visit(this.keys[i], this.values[i]);
+        }
+    }
+
+    /**
+     * Finds the slot that holds a key, or the empty slot it would go in.
+     */
+    private static int slot(int[] keys, int key) {
+        int mask = keys.length - 1;
+        int hash = key * 0x9E3779B9;
+        int slot = (hash ^ hash >>> 16) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) slot = (slot + 1) & mask;
+        return slot;
+    }
+
+    private void grow() {
+        int[] keys = new int[this.keys.length * 2];
+        double[] values = new double[keys.length];
+        for (int i = 0; i < this.keys.length; i++) {
+            if (this.keys[i] == 0) continue;
+            int slot = slot(keys, this.keys[i]);
+            keys[slot] = this.keys[i];
+            values[slot] = this.values[i];
+        }
+        this.keys = keys;
+        this.values = values;
+    }
+
+    /**
+     * Returns a string representation of the map.
+     *
+     * @return the string
+     */
+    public String toString() {
+        StringBuilder sb = new StringBuilder("{");
+        forEach((key, value) -> sb.append(sb.length() > 1 ? ", " : "").append(key).append('=').append(value));
+        return sb.append('}').toString();
+    }
+
+    /**
+     * Receives the keys of a map with their values.
+     */
+    @FunctionalInterface
+    public interface Visitor {
+        /**
+         * Visits a key.
+         *
+         * @param key   the key
+         * @param value the value
+         */
+        void visit(int key, double value);
+    }
+}
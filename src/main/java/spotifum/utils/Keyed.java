@@ -0,0 +1,16 @@
+package spotifum.utils;
+
+import java.util.UUID;
+
+/**
+ * The interface Keyed.
+ * An entity with a UUID, which the {@link IdRegistry} of an index maps to a dense int key.
+ */
+public interface Keyed {
+    /**
+     * Gets the id.
+     *
+     * @return the id
+     */
+    UUID getId();
+}
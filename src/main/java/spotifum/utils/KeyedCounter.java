@@ -0,0 +1,130 @@
+package spotifum.utils;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The type Keyed counter.
+ * Counts per entity in an int array indexed by the entity key, so recording a count
+ * neither hashes nor compares entities. Keeps the last instance recorded for each key.
+ * The keys come from the {@link IdRegistry} of the counter, which takes back the key of
+ * an entity removed. Keys only live as long as the counter, so the serialized form holds
+ * the entities and the counts are re-keyed when it is read back.
+ *
+ * @param <T> the entity type
+ */
+public class KeyedCounter<T extends Keyed> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private transient IdRegistry keys;
+    private transient int[] counts;
+    private transient Object[] entities;
+    private transient int size;
+
+    /**
+     * Instantiates a new Keyed counter.
+     */
+    public KeyedCounter() {
+        init();
+    }
+
+    private void init() {
+        this.keys = new IdRegistry();
+        this.counts = new int[16];
+        this.entities = new Object[16];
+        this.size = 0;
+    }
+
+    /**
+     * Adds to the count of an entity.
+     *
+     * @param entity the entity
+     * @param delta  the delta
+     * @return the new count
+     */
+    public int add(T entity, int delta) {
+        int key = this.keys.keyOf(entity.getId());
+        if (key >= this.counts.length) {
+            int length = Math.max(key + 1, this.counts.length * 2);
+            this.counts = Arrays.copyOf(this.counts, length);
+            this.entities = Arrays.copyOf(this.entities, length);
+        }
+        if (this.entities[key] == null) this.size++;
+        this.entities[key] = entity;
+        this.counts[key] += delta;
+        return this.counts[key];
+    }
+
+    /**
+     * Gets the count of an entity.
+     *
+     * @param entity the entity
+     * @return the count, 0 if it was never recorded
+     */
+    public int get(T entity) {
+        int key = this.keys.find(entity.getId());
+        return key > 0 && key < this.counts.length ? this.counts[key] : 0;
+    }
+
+    /**
+     * Removes an entity and its count.
+     *
+     * @param entity the entity
+     */
+    public void remove(T entity) {
+        int key = this.keys.release(entity.getId());
+        if (key == 0) return;
+        this.entities[key] = null;
+        this.counts[key] = 0;
+        this.size--;
+    }
+
+    /**
+     * Gets the number of entities counted.
+     *
+     * @return the size
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the counts by entity, in key order.
+     *
+     * @return the map
+     */
+    @SuppressWarnings("unchecked")
+    public Map<T, Integer> toMap() {
+        Map<T, Integer> map = new LinkedHashMap<>();
+        for (int key = 1; key < this.entities.length; key++) {
+            if (this.entities[key] != null) map.put((T) this.entities[key], this.counts[key]);
+        }
+        return map;
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        out.defaultWriteObject();
+        Map<T, Integer> map = toMap();
+        out.writeInt(map.size());
+        for (Map.Entry<T, Integer> entry : map.entrySet()) {
+            out.writeObject(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        init();
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+            T entity = (T) in.readObject();
+            add(entity, in.readInt());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package spotifum.utils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * The type Page.
+ * A page of results in a stable order, with the token to pass back for the next page.
+ * The token names the last result of the page, so pages stay correct when results
+ * before it are added or removed.
+ *
+ * @param <T> the result type
+ */
+public class Page<T> {
+    private final List<T> items;
+    private final String next;
+
+    /**
+     * Instantiates a new Page.
+     *
+     * @param items the items
+     * @param next  the token of the next page, or null if this is the last one
+     */
+    public Page(List<T> items, String next) {
+        this.items = items;
+        this.next = next;
+    }
+
+    /**
+     * Takes a page from a lazy stream of results, reading at most one result past it.
+     *
+     * @param <T>     the result type
+     * @param results the results after the previous page, in order
+     * @param size    the page size
+     * @param tokenOf the token that names a result
+     * @return the page
+     */
+    public static <T> Page<T> of(Stream<T> results, int size, Function<T, String> tokenOf) {
+        List<T> items = new ArrayList<>(Math.max(0, size));
+        Iterator<T> iterator = results.iterator();
+        while (items.size() < size && iterator.hasNext()) items.add(iterator.next());
+        String next = iterator.hasNext() && !items.isEmpty() ? tokenOf.apply(items.get(items.size() - 1)) : null;
+        return new Page<>(items, next);
+    }
+
+    /**
+     * Gets items.
+     *
+     * @return the items
+     */
+    public List<T> getItems() {
+        return Collections.unmodifiableList(this.items);
+    }
+
+    /**
+     * Gets the token of the next page.
+     *
+     * @return the token, or null if this is the last page
+     */
+    public String getNext() {
+        return this.next;
+    }
+
+    /**
+     * Checks whether there is a next page.
+     *
+     * @return true if there is
+     */
+    public boolean hasNext() {
+        return this.next != null;
+    }
+
+    /**
+     * Checks whether the page is empty.
+     *
+     * @return true if it is
+     */
+    public boolean isEmpty() {
+        return this.items.isEmpty();
+    }
+}
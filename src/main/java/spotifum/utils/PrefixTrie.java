@@ -0,0 +1,358 @@
+package spotifum.utils;
+
+import java.text.Normalizer;
+import java.util.*;
+
+/**
+ * The type Prefix trie.
+ * Radix trie from normalized names to the int keys named by them, each key with a score.
+ * Every node keeps the best score under it, so the top completions of a prefix are found
+ * by walking the best branches first and stop after the keys asked for, whatever the size
+ * of the subtree. Changing a score only updates the nodes on the path of its name.
+ */
+public class PrefixTrie {
+    private final Node root;
+    private Node[] nodes;
+    private String[] names;
+    private long[] scores;
+    private int size;
+
+    /**
+     * Instantiates a new Prefix trie.
+     */
+    public PrefixTrie() {
+        this.root = new Node("", null);
+        this.nodes = new Node[16];
+        this.names = new String[16];
+        this.scores = new long[16];
+        this.size = 0;
+    }
+
+    /**
+     * Indexes a key under a name, moving it if it was indexed under another one.
+     * A key already indexed keeps its score.
+     *
+     * @param key   the key
+     * @param name  the name, as displayed
+     * @param score the score, used only if the key is new
+     */
+    public void put(int key, String name, long score) {
+        if (key >= this.nodes.length) {
+            int length = Math.max(key + 1, this.nodes.length * 2);
+            this.nodes = Arrays.copyOf(this.nodes, length);
+            this.names = Arrays.copyOf(this.names, length);
+            this.scores = Arrays.copyOf(this.scores, length);
+        }
+        if (this.nodes[key] != null) {
+            if (normalize(this.names[key]).equals(normalize(name))) {
+                this.names[key] = name;
+                return;
+            }
+            score = this.scores[key];
+            remove(key);
+        }
+        Node node = insert(normalize(name));
+        node.addKey(key);
+        this.nodes[key] = node;
+        this.names[key] = name;
+        this.scores[key] = score;
+        this.size++;
+        raise(node, score);
+    }
+
+    /**
+     * Removes a key.
+     *
+     * @param key the key
+     */
+    public void remove(int key) {
+        if (!contains(key)) return;
+        Node node = this.nodes[key];
+        node.removeKey(key);
+        this.nodes[key] = null;
+        this.names[key] = null;
+        this.scores[key] = 0;
+        this.size--;
+
+        while (node != this.root && node.keyCount == 0 && node.childCount == 0) {
+            node.parent.removeChild(node);
+            node = node.parent;
+        }
+        if (node != this.root && node.keyCount == 0 && node.childCount == 1) {
+            Node child = node.children[0];
+            child.label = node.label + child.label;
+            child.parent = node.parent;
+            node.parent.replaceChild(node, child);
+            node = child.parent;
+        }
+        refresh(node);
+    }
+
+    /**
+     * Adds to the score of a key.
+     *
+     * @param key   the key
+     * @param delta the delta
+     */
+    public void add(int key, long delta) {
+        if (!contains(key) || delta == 0) return;
+        this.scores[key] += delta;
+        if (delta > 0) raise(this.nodes[key], this.scores[key]);
+        else refresh(this.nodes[key]);
+    }
+
+    /**
+     * Checks whether a key is indexed.
+     *
+     * @param key the key
+     * @return true if it is
+     */
+    public boolean contains(int key) {
+        return key > 0 && key < this.nodes.length && this.nodes[key] != null;
+    }
+
+    /**
+     * Gets the name of a key.
+     *
+     * @param key the key
+     * @return the name, or null if the key is not indexed
+     */
+    public String getName(int key) {
+        return contains(key) ? this.names[key] : null;
+    }
+
+    /**
+     * Gets the score of a key.
+     *
+     * @param key the key
+     * @return the score, 0 if the key is not indexed
+     */
+    public long getScore(int key) {
+        return contains(key) ? this.scores[key] : 0;
+    }
+
+    /**
+     * Gets the number of keys indexed.
+     *
+     * @return the size
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Finds the keys with the best scores among those whose name starts with a prefix.
+     * Ties go to the completions closest to the prefix.
+     *
+     * @param prefix the prefix
+     * @param limit  the number of keys wanted
+     * @return the keys, best first
+     */
+    public int[] complete(String prefix, int limit) {
+        Node node = find(normalize(prefix));
+        if (node == null || limit <= 0) return new int[0];
+
+        int[] result = new int[Math.min(limit, this.size)];
+        int found = 0;
+        PriorityQueue<Candidate> queue = new PriorityQueue<>();
+        queue.add(new Candidate(node.best, node, 0));
+        while (!queue.isEmpty() && found < result.length) {
+            Candidate next = queue.poll();
+            if (next.node == null) {
+                result[found++] = next.key;
+                continue;
+            }
+            for (int i = 0; i < next.node.keyCount; i++) {
+                int key = next.node.keys[i];
+                queue.add(new Candidate(this.scores[key], null, key));
+            }
+            for (int i = 0; i < next.node.childCount; i++) {
+                queue.add(new Candidate(next.node.children[i].best, next.node.children[i], 0));
+            }
+        }
+        return Arrays.copyOf(result, found);
+    }
+
+    /**
+     * Normalizes a name: lower case, without accents, with single spaces.
+     *
+     * @param name the name
+     * @return the normalized name
+     */
+    public static String normalize(String name) {
+        if (name == null) return "";
+        String text = name.trim().toLowerCase(Locale.ROOT);
+        boolean plain = true;
+        for (int i = 0; i < text.length() && plain; i++) {
+            char c = text.charAt(i);
+            plain = c < 128 && (c > ' ' || c == ' ' && text.charAt(i - 1) != ' ');
+        }
+        if (plain) return text;
+        text = Normalizer.normalize(text, Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return text.replaceAll("\\s+", " ");
+    }
+
+    /**
+     * Gets the node a normalized name ends at, adding and splitting nodes as needed.
+     *
+     * @param text the normalized name
+     * @return the node
+     */
+    private Node insert(String text) {
+        Node node = this.root;
+        int i = 0;
+        while (i < text.length()) {
+            Node child = node.child(text.charAt(i));
+            if (child == null) {
+                child = new Node(text.substring(i), node);
+                node.addChild(child);
+                return child;
+            }
+            int common = common(child.label, text, i);
+            if (common < child.label.length()) {
+                Node split = new Node(child.label.substring(0, common), node);
+                split.best = child.best;
+                node.replaceChild(child, split);
+                child.label = child.label.substring(common);
+                child.parent = split;
+                split.addChild(child);
+                child = split;
+            }
+            node = child;
+            i += common;
+        }
+        return node;
+    }
+
+    /**
+     * Gets the highest node holding every name that starts with a normalized prefix.
+     *
+     * @param text the normalized prefix
+     * @return the node, or null if no name starts with it
+     */
+    private Node find(String text) {
+        Node node = this.root;
+        int i = 0;
+        while (i < text.length()) {
+            Node child = node.child(text.charAt(i));
+            if (child == null) return null;
+            int common = common(child.label, text, i);
+            if (i + common == text.length()) return child;
+            if (common < child.label.length()) return null;
+            node = child;
+            i += common;
+        }
+        return node;
+    }
+
+    private void raise(Node node, long score) {
+        for (Node n = node; n != null && n.best < score; n = n.parent) n.best = score;
+    }
+
+    private void refresh(Node node) {
+        for (Node n = node; n != null; n = n.parent) {
+            long best = Long.MIN_VALUE;
+            for (int i = 0; i < n.keyCount; i++) best = Math.max(best, this.scores[n.keys[i]]);
+            for (int i = 0; i < n.childCount; i++) best = Math.max(best, n.children[i].best);
+            if (best == n.best) return;
+            n.best = best;
+        }
+    }
+
+    private static int common(String label, String text, int from) {
+        int length = Math.min(label.length(), text.length() - from);
+        int i = 0;
+        while (i < length && label.charAt(i) == text.charAt(from + i)) i++;
+        return i;
+    }
+
+    /**
+     * A node, with the keys whose name ends at it and its children sorted by first character.
+     */
+    private static class Node {
+        private String label;
+        private Node parent;
+        private Node[] children = new Node[0];
+        private int childCount = 0;
+        private int[] keys = new int[0];
+        private int keyCount = 0;
+        private long best = Long.MIN_VALUE;
+
+        private Node(String label, Node parent) {
+            this.label = label;
+            this.parent = parent;
+        }
+
+        private int indexOf(char c) {
+            int low = 0;
+            int high = this.childCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char first = this.children[mid].label.charAt(0);
+                if (first < c) low = mid + 1;
+                else if (first > c) high = mid - 1;
+                else return mid;
+            }
+            return -(low + 1);
+        }
+
+        private Node child(char c) {
+            int at = indexOf(c);
+            return at < 0 ? null : this.children[at];
+        }
+
+        private void addChild(Node child) {
+            int at = -(indexOf(child.label.charAt(0)) + 1);
+            if (this.childCount == this.children.length) this.children = Arrays.copyOf(this.children, Math.max(2, this.childCount * 2));
+            System.arraycopy(this.children, at, this.children, at + 1, this.childCount - at);
+            this.children[at] = child;
+            this.childCount++;
+        }
+
+        private void replaceChild(Node child, Node by) {
+            this.children[indexOf(child.label.charAt(0))] = by;
+        }
+
+        private void removeChild(Node child) {
+            int at = indexOf(child.label.charAt(0));
+            System.arraycopy(this.children, at + 1, this.children, at, this.childCount - at - 1);
+            this.children[--this.childCount] = null;
+        }
+
+        private void addKey(int key) {
+            if (this.keyCount == this.keys.length) this.keys = Arrays.copyOf(this.keys, Math.max(2, this.keyCount * 2));
+            this.keys[this.keyCount++] = key;
+        }
+
+        private void removeKey(int key) {
+            for (int i = 0; i < this.keyCount; i++) {
+                if (this.keys[i] == key) {
+                    this.keys[i] = this.keys[--this.keyCount];
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * A node or a key waiting to be visited, best score first, keys before nodes.
+     */
+    private static class Candidate implements Comparable<Candidate> {
+        private final long score;
+        private final Node node;
+        private final int key;
+
+        private Candidate(long score, Node node, int key) {
+            this.score = score;
+            this.node = node;
+            this.key = key;
+        }
+
+        @Override
+        public int compareTo(Candidate other) {
+            if (this.score != other.score) return Long.compare(other.score, this.score);
+            if ((this.node == null) != (other.node == null)) return this.node == null ? -1 : 1;
+            return Integer.compare(this.key, other.key);
+        }
+    }
+}
@@ -0,0 +1,253 @@
+package spotifum.utils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * The type Rank tree.
+ * Entities ordered by score, highest first and then by id, in a treap whose nodes
+ * count the nodes under them. Setting a score, the rank of an entity and the entity at
+ * a rank all take O(log n), and the top n entities O(log n + n). Nodes are found by a
+ * key from the {@link IdRegistry} of the tree, and reused when a score changes, so
+ * updates do not allocate; the key of an entity removed is taken back.
+ *
+ * @param <T> the entity type
+ */
+public class RankTree<T extends Keyed> {
+    private final IdRegistry keys;
+    private Node<T> root;
+    private Object[] nodes;
+    private int size;
+
+    /**
+     * Instantiates a new Rank tree.
+     */
+    public RankTree() {
+        this.keys = new IdRegistry();
+        this.root = null;
+        this.nodes = new Object[16];
+        this.size = 0;
+    }
+
+    /**
+     * Sets the score of an entity, adding it if it is not in the tree. Keeps the instance
+     * given.
+     *
+     * @param entity the entity
+     * @param score  the score
+     */
+    public void put(T entity, double score) {
+        int key = this.keys.keyOf(entity.getId());
+        Node<T> node = node(key);
+        if (node == null) {
+            if (key >= this.nodes.length) this.nodes = Arrays.copyOf(this.nodes, Math.max(key + 1, this.nodes.length * 2));
+            node = new Node<>(key, entity.getId());
+            this.nodes[key] = node;
+            this.size++;
+        } else {
+            this.root = remove(this.root, node);
+        }
+        node.entity = entity;
+        node.score = score;
+        node.left = null;
+        node.right = null;
+        node.size = 1;
+        this.root = insert(this.root, node);
+    }
+
+    /**
+     * Removes an entity.
+     *
+     * @param entity the entity
+     * @return true if it was in the tree
+     */
+    public boolean remove(T entity) {
+        int key = this.keys.release(entity.getId());
+        Node<T> node = node(key);
+        if (node == null) return false;
+        this.root = remove(this.root, node);
+        this.nodes[key] = null;
+        this.size--;
+        return true;
+    }
+
+    /**
+     * Gets the score of an entity.
+     *
+     * @param entity the entity
+     * @return the score, 0 if it is not in the tree
+     */
+    public double score(T entity) {
+        Node<T> node = node(this.keys.find(entity.getId()));
+        return node == null ? 0 : node.score;
+    }
+
+    /**
+     * Gets the rank of an entity.
+     *
+     * @param entity the entity
+     * @return the rank, 1 for the highest score, 0 if it is not in the tree
+     */
+    public int rank(T entity) {
+        Node<T> node = node(this.keys.find(entity.getId()));
+        if (node == null) return 0;
+        int rank = 1;
+        Node<T> at = this.root;
+        while (at != node) {
+            if (before(node, at)) {
+                at = at.left;
+            } else {
+                rank += size(at.left) + 1;
+                at = at.right;
+            }
+        }
+        return rank + size(node.left);
+    }
+
+    /**
+     * Gets the entity at a rank.
+     *
+     * @param rank the rank, 1 for the highest score
+     * @return the entity, null if the rank is out of range
+     */
+    public T atRank(int rank) {
+        if (rank < 1 || rank > this.size) return null;
+        Node<T> at = this.root;
+        while (true) {
+            int left = size(at.left);
+            if (rank == left + 1) return at.entity;
+            if (rank <= left) {
+                at = at.left;
+            } else {
+                rank -= left + 1;
+                at = at.right;
+            }
+        }
+    }
+
+    /**
+     * Gets the entities with the highest scores.
+     *
+     * @param n the most entities to return
+     * @return the entities, highest score first
+     */
+    public List<T> top(int n) {
+        List<T> top = new ArrayList<>(Math.max(0, Math.min(n, this.size)));
+        Deque<Node<T>> path = new ArrayDeque<>();
+        Node<T> at = this.root;
+        while (top.size() < n && (at != null || !path.isEmpty())) {
+            while (at != null) {
+                path.push(at);
+                at = at.left;
+            }
+            at = path.pop();
+            top.add(at.entity);
+            at = at.right;
+        }
+        return top;
+    }
+
+    /**
+     * Gets the number of entities in the tree.
+     *
+     * @return the size
+     */
+    public int size() {
+        return this.size;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Node<T> node(int key) {
+        return key > 0 && key < this.nodes.length ? (Node<T>) this.nodes[key] : null;
+    }
+
+    /**
+     * Checks whether a node comes before another: a higher score, or the same score and
+     * a lower id.
+     */
+    private static boolean before(Node<?> a, Node<?> b) {
+        int compare = Double.compare(b.score, a.score);
+        return compare < 0 || compare == 0 && a.id.compareTo(b.id) < 0;
+    }
+
+    private static int size(Node<?> node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static <T> Node<T> insert(Node<T> at, Node<T> node) {
+        if (at == null) return node;
+        if (before(node, at)) {
+            at.left = insert(at.left, node);
+            if (at.left.priority > at.priority) at = rotateRight(at);
+        } else {
+            at.right = insert(at.right, node);
+            if (at.right.priority > at.priority) at = rotateLeft(at);
+        }
+        at.size = size(at.left) + size(at.right) + 1;
+        return at;
+    }
+
+    private static <T> Node<T> remove(Node<T> at, Node<T> node) {
+        if (at == node) return merge(at.left, at.right);
+        if (before(node, at)) at.left = remove(at.left, node);
+        else at.right = remove(at.right, node);
+        at.size--;
+        return at;
+    }
+
+    private static <T> Node<T> merge(Node<T> left, Node<T> right) {
+        if (left == null) return right;
+        if (right == null) return left;
+        if (left.priority > right.priority) {
+            left.right = merge(left.right, right);
+            left.size = size(left.left) + size(left.right) + 1;
+            return left;
+        }
+        right.left = merge(left, right.left);
+        right.size = size(right.left) + size(right.right) + 1;
+        return right;
+    }
+
+    private static <T> Node<T> rotateRight(Node<T> at) {
+        Node<T> left = at.left;
+        at.left = left.right;
+        at.size = size(at.left) + size(at.right) + 1;
+        left.right = at;
+        return left;
+    }
+
+    private static <T> Node<T> rotateLeft(Node<T> at) {
+        Node<T> right = at.right;
+        at.right = right.left;
+        at.size = size(at.left) + size(at.right) + 1;
+        right.left = at;
+        return right;
+    }
+
+    /**
+     * An entity in the tree, with its score. The priority is a hash of the key, which
+     * keeps the tree balanced whatever order the scores come in.
+     */
+    private static class Node<T> {
+        private final UUID id;
+        private final int priority;
+        private T entity;
+        private double score;
+        private Node<T> left;
+        private Node<T> right;
+        private int size;
+
+        private Node(int key, UUID id) {
+            this.id = id;
+            int hash = key * 0x9E3779B9;
+            hash ^= hash >>> 15;
+            hash *= 0x85EBCA6B;
+            this.priority = hash ^ hash >>> 13;
+            this.size = 1;
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package spotifum.utils;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * The type Result cache.
+ * Bounded cache of query results, keyed by the normalized query. Results are weighed,
+ * by the number of items they hold, and the least recently used ones are evicted once
+ * the cached weight goes over the bound; a result heavier than the bound alone is never
+ * cached. Every lookup passes the version of the data the results come from, and the
+ * first lookup with a new version drops every result computed before it.
+ *
+ * @param <K> the key type
+ * @param <V> the result type
+ */
+public class ResultCache<K, V> {
+    private final String name;
+    private final long maxWeight;
+    private final ToIntFunction<V> weigher;
+    private final LinkedHashMap<K, Entry<V>> entries;
+    private long version;
+    private long weight;
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long invalidations;
+
+    /**
+     * Instantiates a new Result cache.
+     *
+     * @param name      the name, for the report
+     * @param maxWeight the most items the cached results may hold together
+     * @param weigher   the number of items of a result
+     */
+    public ResultCache(String name, long maxWeight, ToIntFunction<V> weigher) {
+        this.name = name;
+        this.maxWeight = maxWeight;
+        this.weigher = weigher;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true);
+        this.version = 0;
+        this.weight = 0;
+    }
+
+    /**
+     * Gets the result of a query, computing and caching it if it is not cached for the
+     * given version.
+     *
+     * @param key     the normalized query
+     * @param version the version of the data
+     * @param compute computes the result
+     * @return the result
+     */
+    public synchronized V get(K key, long version, Supplier<V> compute) {
+        if (version != this.version) {
+            this.invalidations += this.entries.size();
+            this.entries.clear();
+            this.weight = 0;
+            this.version = version;
+        }
+        Entry<V> entry = this.entries.get(key);
+        if (entry != null) {
+            this.hits++;
+            return entry.value;
+        }
+        this.misses++;
+        V value = compute.get();
+        int weight = Math.max(1, this.weigher.applyAsInt(value));
+        if (weight > this.maxWeight) return value;
+
+        this.entries.put(key, new Entry<>(value, weight));
+        this.weight += weight;
+        Iterator<Entry<V>> eldest = this.entries.values().iterator();
+        while (this.weight > this.maxWeight) {
+            this.weight -= eldest.next().weight;
+            eldest.remove();
+            this.evictions++;
+        }
+        return value;
+    }
+
+    /**
+     * Gets the number of results cached.
+     *
+     * @return the size
+     */
+    public synchronized int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * Gets the number of items the cached results hold together.
+     *
+     * @return the weight
+     */
+    public synchronized long getWeight() {
+        return this.weight;
+    }
+
+    /**
+     * Gets the lookups answered from the cache.
+     *
+     * @return the hits
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * Gets the lookups that had to compute the result.
+     *
+     * @return the misses
+     */
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * Gets the results evicted to stay under the bound.
+     *
+     * @return the evictions
+     */
+    public synchronized long getEvictions() {
+        return this.evictions;
+    }
+
+    /**
+     * Gets the results dropped because the data changed.
+     *
+     * @return the invalidations
+     */
+    public synchronized long getInvalidations() {
+        return this.invalidations;
+    }
+
+    /**
+     * Describes the use of the cache.
+     *
+     * @return the report
+     */
+    public synchronized String report() {
+        long lookups = this.hits + this.misses;
+        return String.format("[app-log] %-15s %5d results | %7d/%d items | %7d hits | %7d misses | %5.1f%% hit rate | %6d evicted | %6d invalidated",
+                this.name + ":", this.entries.size(), this.weight, this.maxWeight, this.hits, this.misses,
+                lookups == 0 ? 0.0 : 100.0 * this.hits / lookups, this.evictions, this.invalidations);
+    }
+
+    /**
+     * A cached result with its weight.
+     */
+    private static class Entry<V> {
+        private final V value;
+        private final int weight;
+
+        private Entry(V value, int weight) {
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
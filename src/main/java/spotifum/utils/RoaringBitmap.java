@@ -0,0 +1,417 @@
+package spotifum.utils;
+
+import java.util.Arrays;
+import java.util.function.IntConsumer;
+
+/**
+ * The type Roaring bitmap.
+ * Compressed set of non negative ints, split by their high 16 bits into containers of
+ * up to 65536 values. A container holds a sorted array of the low 16 bits while it has
+ * at most {@link #ARRAY_MAX} values and a plain bitmap of 1024 longs after that, so
+ * sparse and dense sets both stay small, and intersections and unions work container
+ * by container, a word at a time on bitmaps.
+ */
+public class RoaringBitmap {
+    /**
+     * The most values a container keeps as a sorted array.
+     */
+    public static final int ARRAY_MAX = 4096;
+    private static final int WORDS = 1024;
+
+    private char[] highs;
+    private Container[] containers;
+    private int size;
+
+    /**
+     * Instantiates a new empty Roaring bitmap.
+     */
+    public RoaringBitmap() {
+        this.highs = new char[4];
+        this.containers = new Container[4];
+        this.size = 0;
+    }
+
+    /**
+     * Instantiates a new Roaring bitmap with the values of a sorted array.
+     *
+     * @param values the values, in ascending order
+     * @return the bitmap
+     */
+    public static RoaringBitmap of(int... values) {
+        RoaringBitmap bitmap = new RoaringBitmap();
+        for (int value : values) bitmap.add(value);
+        return bitmap;
+    }
+
+    /**
+     * Adds a value.
+     *
+     * @param value the value, not negative
+     * @return true if it was not in the set
+     */
+    public boolean add(int value) {
+        char high = (char) (value >>> 16);
+        int at = indexOf(high);
+        if (at < 0) {
+            at = -at - 1;
+            insert(at, high, new Container());
+        }
+        return this.containers[at].add((char) value);
+    }
+
+    /**
+     * Removes a value.
+     *
+     * @param value the value
+     * @return true if it was in the set
+     */
+    public boolean remove(int value) {
+        int at = indexOf((char) (value >>> 16));
+        if (at < 0 || !this.containers[at].remove((char) value)) return false;
+        if (this.containers[at].cardinality == 0) delete(at);
+        return true;
+    }
+
+    /**
+     * Checks whether a value is in the set.
+     *
+     * @param value the value
+     * @return true if it is
+     */
+    public boolean contains(int value) {
+        if (value < 0) return false;
+        int at = indexOf((char) (value >>> 16));
+        return at >= 0 && this.containers[at].contains((char) value);
+    }
+
+    /**
+     * Gets the number of values.
+     *
+     * @return the cardinality
+     */
+    public int cardinality() {
+        int cardinality = 0;
+        for (int i = 0; i < this.size; i++) cardinality += this.containers[i].cardinality;
+        return cardinality;
+    }
+
+    /**
+     * Checks whether the set is empty.
+     *
+     * @return true if it is
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Gets the values in both sets.
+     *
+     * @param other the other set
+     * @return the intersection
+     */
+    public RoaringBitmap and(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < this.size && j < other.size) {
+            if (this.highs[i] < other.highs[j]) i++;
+            else if (this.highs[i] > other.highs[j]) j++;
+            else {
+                Container both = this.containers[i].and(other.containers[j]);
+                if (both.cardinality > 0) result.insert(result.size, this.highs[i], both);
+                i++;
+                j++;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the values in this set and not in the other.
+     *
+     * @param other the other set
+     * @return the difference
+     */
+    public RoaringBitmap andNot(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int j = 0;
+        for (int i = 0; i < this.size; i++) {
+            while (j < other.size && other.highs[j] < this.highs[i]) j++;
+            Container left = j < other.size && other.highs[j] == this.highs[i]
+                    ? this.containers[i].andNot(other.containers[j])
+                    : this.containers[i].copy();
+            if (left.cardinality > 0) result.insert(result.size, this.highs[i], left);
+        }
+        return result;
+    }
+
+    /**
+     * Gets the values in either set.
+     *
+     * @param other the other set
+     * @return the union
+     */
+    public RoaringBitmap or(RoaringBitmap other) {
+        RoaringBitmap result = new RoaringBitmap();
+        int i = 0;
+        int j = 0;
+        while (i < this.size || j < other.size) {
+            if (j == other.size || i < this.size && this.highs[i] < other.highs[j]) {
+                result.insert(result.size, this.highs[i], this.containers[i++].copy());
+            } else if (i == this.size || this.highs[i] > other.highs[j]) {
+                result.insert(result.size, other.highs[j], other.containers[j++].copy());
+            } else {
+                result.insert(result.size, this.highs[i], this.containers[i++].or(other.containers[j++]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Gets the number of values in both sets, without building the intersection.
+     *
+     * @param other the other set
+     * @return the cardinality of the intersection
+     */
+    public int andCardinality(RoaringBitmap other) {
+        int cardinality = 0;
+        int i = 0;
+        int j = 0;
+        while (i < this.size && j < other.size) {
+            if (this.highs[i] < other.highs[j]) i++;
+            else if (this.highs[i] > other.highs[j]) j++;
+            else cardinality += this.containers[i++].andCardinality(other.containers[j++]);
+        }
+        return cardinality;
+    }
+
+    /**
+     * Visits the values in ascending order.
+     *
+     * @param action the action
+     */
+    public void forEach(IntConsumer action) {
+        for (int i = 0; i < this.size; i++) this.containers[i].forEach(this.highs[i] << 16, action);
+    }
+
+    /**
+     * Gets the values in ascending order.
+     *
+     * @return the values
+     */
+    public int[] toArray() {
+        int[] values = new int[cardinality()];
+        int[] found = {0};
+        forEach(value -> values[found[0]++] = value);
+        return values;
+    }
+
+    private int indexOf(char high) {
+        return Arrays.binarySearch(this.highs, 0, this.size, high);
+    }
+
+    private void insert(int at, char high, Container container) {
+        if (this.size == this.highs.length) {
+            this.highs = Arrays.copyOf(this.highs, this.size * 2);
+            this.containers = Arrays.copyOf(this.containers, this.size * 2);
+        }
+        System.arraycopy(this.highs, at, this.highs, at + 1, this.size - at);
+        System.arraycopy(this.containers, at, this.containers, at + 1, this.size - at);
+        this.highs[at] = high;
+        this.containers[at] = container;
+        this.size++;
+    }
+
+    private void delete(int at) {
+        System.arraycopy(this.highs, at + 1, this.highs, at, this.size - at - 1);
+        System.arraycopy(this.containers, at + 1, this.containers, at, this.size - at - 1);
+        this.containers[--this.size] = null;
+    }
+
+    /**
+     * The low 16 bits of the values sharing their high 16 bits, as a sorted array or,
+     * past {@link #ARRAY_MAX} values, as a bitmap.
+     */
+    private static class Container {
+        private char[] values;
+        private long[] words;
+        private int cardinality;
+
+        private Container() {
+            this.values = new char[4];
+        }
+
+        private boolean contains(char low) {
+            if (this.words != null) return (this.words[low >>> 6] & (1L << low)) != 0;
+            return Arrays.binarySearch(this.values, 0, this.cardinality, low) >= 0;
+        }
+
+        private boolean add(char low) {
+            if (this.words != null) {
+                long before = this.words[low >>> 6];
+                this.words[low >>> 6] = before | (1L << low);
+                if (before == this.words[low >>> 6]) return false;
+                this.cardinality++;
+                return true;
+            }
+            int at = Arrays.binarySearch(this.values, 0, this.cardinality, low);
+            if (at >= 0) return false;
+            if (this.cardinality == ARRAY_MAX) {
+                toBitmap();
+                return add(low);
+            }
+            at = -at - 1;
+            if (this.cardinality == this.values.length) this.values = Arrays.copyOf(this.values, Math.min(ARRAY_MAX, Math.max(4, this.cardinality * 2)));
+            System.arraycopy(this.values, at, this.values, at + 1, this.cardinality - at);
+            this.values[at] = low;
+            this.cardinality++;
+            return true;
+        }
+
+        private boolean remove(char low) {
+            if (this.words != null) {
+                long before = this.words[low >>> 6];
+                this.words[low >>> 6] = before & ~(1L << low);
+                if (before == this.words[low >>> 6]) return false;
+                if (--this.cardinality <= ARRAY_MAX) toArray();
+                return true;
+            }
+            int at = Arrays.binarySearch(this.values, 0, this.cardinality, low);
+            if (at < 0) return false;
+            System.arraycopy(this.values, at + 1, this.values, at, this.cardinality - at - 1);
+            this.cardinality--;
+            return true;
+        }
+
+        private Container and(Container other) {
+            Container result = new Container();
+            if (this.words != null && other.words != null) {
+                result.words = new long[WORDS];
+                for (int w = 0; w < WORDS; w++) {
+                    result.words[w] = this.words[w] & other.words[w];
+                    result.cardinality += Long.bitCount(result.words[w]);
+                }
+                if (result.cardinality <= ARRAY_MAX) result.toArray();
+                return result;
+            }
+            Container small = this.words == null ? this : other;
+            Container large = small == this ? other : this;
+            result.values = new char[small.cardinality];
+            for (int i = 0; i < small.cardinality; i++) {
+                if (large.contains(small.values[i])) result.values[result.cardinality++] = small.values[i];
+            }
+            return result;
+        }
+
+        private Container andNot(Container other) {
+            Container result = new Container();
+            if (this.words != null) {
+                result.words = new long[WORDS];
+                for (int w = 0; w < WORDS; w++) {
+                    long mask = other.words != null ? other.words[w] : 0;
+                    result.words[w] = this.words[w] & ~mask;
+                }
+                if (other.words == null) {
+                    for (int i = 0; i < other.cardinality; i++) result.words[other.values[i] >>> 6] &= ~(1L << other.values[i]);
+                }
+                for (long word : result.words) result.cardinality += Long.bitCount(word);
+                if (result.cardinality <= ARRAY_MAX) result.toArray();
+                return result;
+            }
+            result.values = new char[this.cardinality];
+            for (int i = 0; i < this.cardinality; i++) {
+                if (!other.contains(this.values[i])) result.values[result.cardinality++] = this.values[i];
+            }
+            return result;
+        }
+
+        private Container or(Container other) {
+            Container result = new Container();
+            if (this.words == null && other.words == null && this.cardinality + other.cardinality <= ARRAY_MAX) {
+                result.values = new char[this.cardinality + other.cardinality];
+                int i = 0;
+                int j = 0;
+                while (i < this.cardinality || j < other.cardinality) {
+                    char next;
+                    if (j == other.cardinality || i < this.cardinality && this.values[i] < other.values[j]) next = this.values[i++];
+                    else if (i == this.cardinality || this.values[i] > other.values[j]) next = other.values[j++];
+                    else {
+                        next = this.values[i++];
+                        j++;
+                    }
+                    result.values[result.cardinality++] = next;
+                }
+                return result;
+            }
+            result.words = new long[WORDS];
+            for (Container part : new Container[]{this, other}) {
+                if (part.words != null) {
+                    for (int w = 0; w < WORDS; w++) result.words[w] |= part.words[w];
+                } else {
+                    for (int i = 0; i < part.cardinality; i++) result.words[part.values[i] >>> 6] |= 1L << part.values[i];
+                }
+            }
+            for (long word : result.words) result.cardinality += Long.bitCount(word);
+            if (result.cardinality <= ARRAY_MAX) result.toArray();
+            return result;
+        }
+
+        private int andCardinality(Container other) {
+            if (this.words != null && other.words != null) {
+                int cardinality = 0;
+                for (int w = 0; w < WORDS; w++) cardinality += Long.bitCount(this.words[w] & other.words[w]);
+                return cardinality;
+            }
+            Container small = this.words == null ? this : other;
+            Container large = small == this ? other : this;
+            int cardinality = 0;
+            for (int i = 0; i < small.cardinality; i++) {
+                if (large.contains(small.values[i])) cardinality++;
+            }
+            return cardinality;
+        }
+
+        private Container copy() {
+            Container copy = new Container();
+            copy.cardinality = this.cardinality;
+            if (this.words != null) copy.words = this.words.clone();
+            else copy.values = Arrays.copyOf(this.values, Math.max(4, this.cardinality));
+            return copy;
+        }
+
+        private void forEach(int base, IntConsumer action) {
+            if (this.words == null) {
+                for (int i = 0; i < this.cardinality; i++) action.accept(base | this.values[i]);
+                return;
+            }
+            for (int w = 0; w < WORDS; w++) {
+                long word = this.words[w];
+                while (word != 0) {
+                    action.accept(base | (w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+        }
+
+        private void toBitmap() {
+            this.words = new long[WORDS];
+            for (int i = 0; i < this.cardinality; i++) this.words[this.values[i] >>> 6] |= 1L << this.values[i];
+            this.values = null;
+        }
+
+        private void toArray() {
+            char[] values = new char[Math.max(4, this.cardinality)];
+            int found = 0;
+            for (int w = 0; w < WORDS; w++) {
+                long word = this.words[w];
+                while (word != 0) {
+                    values[found++] = (char) ((w << 6) | Long.numberOfTrailingZeros(word));
+                    word &= word - 1;
+                }
+            }
+            this.values = values;
+            this.words = null;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package spotifum.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The type String pool.
+ * Keeps one canonical copy of each value of a low-cardinality catalog field, so musics
+ * created, edited or loaded with the same genre, label, artist name or partiture note
+ * share a single String instead of each holding their own. A pool stops taking new
+ * values once it holds {@link #MAX_ENTRIES}, so a field that turns out not to repeat
+ * cannot grow it without bound. The pool does not see when a music lets go of a value,
+ * so it counts the duplicate copies it replaced rather than the heap it saves now.
+ */
+public class StringPool {
+    /**
+     * The constant MAX_ENTRIES.
+     */
+    public static final int MAX_ENTRIES = 1 << 16;
+
+    /**
+     * The constant GENRES.
+     */
+    public static final StringPool GENRES = new StringPool("genre");
+    /**
+     * The constant LABELS.
+     */
+    public static final StringPool LABELS = new StringPool("label");
+    /**
+     * The constant ARTISTS.
+     */
+    public static final StringPool ARTISTS = new StringPool("artist");
+    /**
+     * The constant NOTES.
+     */
+    public static final StringPool NOTES = new StringPool("partiture note");
+
+    private static final StringPool[] POOLS = {GENRES, LABELS, ARTISTS, NOTES};
+
+    private final String name;
+    private final ConcurrentHashMap<String, String> values;
+    private final LongAdder lookups;
+    private final LongAdder shared;
+    private final LongAdder replacedBytes;
+
+    /**
+     * Instantiates a new String pool.
+     *
+     * @param name the name
+     */
+    public StringPool(String name) {
+        this.name = name;
+        this.values = new ConcurrentHashMap<>();
+        this.lookups = new LongAdder();
+        this.shared = new LongAdder();
+        this.replacedBytes = new LongAdder();
+    }
+
+    /**
+     * Gets the canonical copy of a value.
+     *
+     * @param value the value, may be null
+     * @return the canonical copy, or the value itself if it is new or the pool is full
+     */
+    public String intern(String value) {
+        if (value == null) return null;
+        this.lookups.increment();
+        String canonical = this.values.get(value);
+        if (canonical == null) {
+            if (this.values.size() >= MAX_ENTRIES) return value;
+            canonical = this.values.putIfAbsent(value, value);
+            if (canonical == null) return value;
+        }
+        if (canonical != value) {
+            this.shared.increment();
+            this.replacedBytes.add(sizeOf(value));
+        }
+        return canonical;
+    }
+
+    /**
+     * Interns every value of a list.
+     *
+     * @param values the values, may be null
+     * @return a new list with the canonical copies
+     */
+    public List<String> internAll(List<String> values) {
+        if (values == null) return new ArrayList<>();
+        List<String> result = new ArrayList<>(values.size());
+        for (String value : values) result.add(intern(value));
+        return result;
+    }
+
+    /**
+     * Gets name.
+     *
+     * @return the name
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Gets the number of distinct values.
+     *
+     * @return the size
+     */
+    public int size() {
+        return this.values.size();
+    }
+
+    /**
+     * Gets the number of values interned.
+     *
+     * @return the lookups
+     */
+    public long getLookups() {
+        return this.lookups.sum();
+    }
+
+    /**
+     * Gets the number of duplicate copies replaced by the canonical one.
+     *
+     * @return the shared
+     */
+    public long getShared() {
+        return this.shared.sum();
+    }
+
+    /**
+     * Gets the estimated heap taken by every duplicate copy replaced so far. It only
+     * grows: copies replaced for musics since removed, edited or loaded again still
+     * count, so it is an upper bound on the heap the pool saves, not the saving itself.
+     *
+     * @return the replaced bytes
+     */
+    public long getReplacedBytes() {
+        return this.replacedBytes.sum();
+    }
+
+    /**
+     * Estimates the heap taken by a String on a 64-bit JVM with compressed pointers:
+     * the String object plus its byte array, one byte per char for Latin-1 text.
+     *
+     * @param value the value
+     * @return the size in bytes
+     */
+    static long sizeOf(String value) {
+        boolean latin1 = true;
+        for (int i = 0; i < value.length() && latin1; i++) latin1 = value.charAt(i) <= 0xFF;
+        long array = 16 + (long) value.length() * (latin1 ? 1 : 2);
+        return 24 + ((array + 7) & ~7L);
+    }
+
+    /**
+     * Describes every catalog pool and the heap of the duplicate copies it replaced.
+     *
+     * @return the report
+     */
+    public static String report() {
+        StringBuilder sb = new StringBuilder();
+        long total = 0;
+        for (StringPool pool : POOLS) {
+            sb.append(String.format("[app-log] %-15s %7d distinct | %9d interned | %9d shared | %s replaced%n",
+                    pool.getName() + ":", pool.size(), pool.getLookups(), pool.getShared(), formatBytes(pool.getReplacedBytes())));
+            total += pool.getReplacedBytes();
+        }
+        sb.append("[app-log] duplicate copies replaced, at most the heap saved: ").append(formatBytes(total));
+        return sb.toString();
+    }
+
+    private static String formatBytes(long bytes) {
+        if (bytes < 1024) return bytes + " B";
+        if (bytes < 1024 * 1024) return String.format("%.1f KB", bytes / 1024.0);
+        return String.format("%.1f MB", bytes / (1024.0 * 1024));
+    }
+}
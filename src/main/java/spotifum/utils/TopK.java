@@ -0,0 +1,270 @@
+package spotifum.utils;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * The type Top k.
+ * The items with the highest counts, kept live in a min-heap indexed by item, so a count
+ * update costs O(log k) and the top list is read without looking at any other item.
+ * <p>
+ * In exact mode the owner keeps the true counts and {@link #offer} passes every new
+ * count; counts only grow, so an item that drops out of the heap can only come back by
+ * beating its smallest count, and the list is exact. In approximate mode only the heap
+ * is kept, as a Space-Saving sketch: {@link #add} counts a play and, once the heap is
+ * full, an item not in it takes the place of the smallest one and inherits its count as
+ * error. Every count is then at most {@link #getMaxError()} over the true one, and an
+ * item left out was played at most that many times.
+ *
+ * @param <T> the item type
+ */
+public class TopK<T> implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The enum Mode.
+     */
+    public enum Mode {
+        /**
+         * Exact counts kept by the owner, offered on every change.
+         */
+        EXACT,
+        /**
+         * Estimated counts kept by a Space-Saving sketch.
+         */
+        APPROXIMATE
+    }
+
+    private final Mode mode;
+    private final int capacity;
+    private final Object[] items;
+    private final int[] counts;
+    private final int[] errors;
+    private final Map<T, Integer> index;
+    private int size;
+
+    /**
+     * Instantiates a new Top k.
+     *
+     * @param mode     the mode
+     * @param capacity the items kept: the list size in exact mode, the sketch size in
+     *                 approximate mode
+     */
+    public TopK(Mode mode, int capacity) {
+        this.mode = mode;
+        this.capacity = capacity;
+        this.items = new Object[capacity];
+        this.counts = new int[capacity];
+        this.errors = new int[capacity];
+        this.index = new HashMap<>();
+        this.size = 0;
+    }
+
+    /**
+     * Sets the count of an item, keeping it if it is now among the highest. Counts must
+     * not go down.
+     *
+     * @param item  the item
+     * @param count the count
+     */
+    public void offer(T item, int count) {
+        Integer at = this.index.get(item);
+        if (at != null) {
+            this.items[at] = item;
+            this.counts[at] = count;
+            siftDown(at);
+        } else if (this.size < this.capacity) {
+            put(this.size++, item, count, 0);
+            siftUp(this.size - 1);
+        } else if (this.capacity > 0 && count > this.counts[0]) {
+            this.index.remove(item(0));
+            put(0, item, count, 0);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Counts one play of an item in the sketch.
+     *
+     * @param item the item
+     */
+    public void add(T item) {
+        Integer at = this.index.get(item);
+        if (at != null) {
+            this.items[at] = item;
+            this.counts[at]++;
+            siftDown(at);
+        } else if (this.size < this.capacity) {
+            put(this.size++, item, 1, 0);
+            siftUp(this.size - 1);
+        } else if (this.capacity > 0) {
+            int smallest = this.counts[0];
+            this.index.remove(item(0));
+            put(0, item, smallest + 1, smallest);
+            siftDown(0);
+        }
+    }
+
+    /**
+     * Gets the items with the highest counts.
+     *
+     * @param n the most items to return
+     * @return the items, highest count first
+     */
+    public List<Entry<T>> top(int n) {
+        List<Entry<T>> top = new ArrayList<>(this.size);
+        for (int i = 0; i < this.size; i++) top.add(new Entry<>(item(i), this.counts[i], this.errors[i]));
+        top.sort(Comparator.comparingInt((Entry<T> entry) -> entry.count).reversed());
+        return top.subList(0, Math.min(Math.max(n, 0), top.size()));
+    }
+
+    /**
+     * Gets the count of an item.
+     *
+     * @param item the item
+     * @return the count, 0 if the item is not kept
+     */
+    public int count(T item) {
+        Integer at = this.index.get(item);
+        return at == null ? 0 : this.counts[at];
+    }
+
+    /**
+     * Gets the counts of every item kept.
+     *
+     * @return the counts
+     */
+    public Map<T, Integer> counts() {
+        Map<T, Integer> counts = new HashMap<>();
+        for (int i = 0; i < this.size; i++) counts.put(item(i), this.counts[i]);
+        return counts;
+    }
+
+    /**
+     * Gets the most a count may be over the true one, which is also the most an item
+     * left out may have been counted. Always 0 in exact mode.
+     *
+     * @return the max error
+     */
+    public int getMaxError() {
+        if (this.mode == Mode.EXACT || this.size < this.capacity) return 0;
+        return this.counts[0];
+    }
+
+    /**
+     * Gets mode.
+     *
+     * @return the mode
+     */
+    public Mode getMode() {
+        return this.mode;
+    }
+
+    /**
+     * Gets the number of items kept.
+     *
+     * @return the size
+     */
+    public int size() {
+        return this.size;
+    }
+
+    @SuppressWarnings("unchecked")
+    private T item(int at) {
+        return (T) this.items[at];
+    }
+
+    private void put(int at, T item, int count, int error) {
+        this.items[at] = item;
+        this.counts[at] = count;
+        this.errors[at] = error;
+        this.index.put(item, at);
+    }
+
+    private void siftUp(int at) {
+        while (at > 0) {
+            int parent = (at - 1) / 2;
+            if (this.counts[parent] <= this.counts[at]) return;
+            swap(at, parent);
+            at = parent;
+        }
+    }
+
+    private void siftDown(int at) {
+        while (true) {
+            int child = 2 * at + 1;
+            if (child >= this.size) return;
+            if (child + 1 < this.size && this.counts[child + 1] < this.counts[child]) child++;
+            if (this.counts[at] <= this.counts[child]) return;
+            swap(at, child);
+            at = child;
+        }
+    }
+
+    private void swap(int a, int b) {
+        Object item = this.items[a];
+        int count = this.counts[a];
+        int error = this.errors[a];
+        this.items[a] = this.items[b];
+        this.counts[a] = this.counts[b];
+        this.errors[a] = this.errors[b];
+        this.items[b] = item;
+        this.counts[b] = count;
+        this.errors[b] = error;
+        this.index.put(item(a), a);
+        this.index.put(item(b), b);
+    }
+
+    /**
+     * An item with its count and the most the count may be over the true one.
+     *
+     * @param <T> the item type
+     */
+    public static class Entry<T> {
+        private final T item;
+        private final int count;
+        private final int error;
+
+        private Entry(T item, int count, int error) {
+            this.item = item;
+            this.count = count;
+            this.error = error;
+        }
+
+        /**
+         * Gets item.
+         *
+         * @return the item
+         */
+        public T getItem() {
+            return this.item;
+        }
+
+        /**
+         * Gets count.
+         *
+         * @return the count
+         */
+        public int getCount() {
+            return this.count;
+        }
+
+        /**
+         * Gets error.
+         *
+         * @return the most the count may be over the true one
+         */
+        public int getError() {
+            return this.error;
+        }
+
+        /**
+         * Returns a string representation of the entry.
+         *
+         * @return the string
+         */
+        public String toString() {
+            return this.item + "=" + this.count + (this.error > 0 ? "±" + this.error : "");
+        }
+    }
+}
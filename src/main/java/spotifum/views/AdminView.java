@@ -1,16 +1,21 @@
 package spotifum.views;
 
+import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
 import java.util.*;
 
 import spotifum.menu.*;
-import spotifum.musics.Music;
+import spotifum.persistence.SnapshotFormat;
+import spotifum.statistics.PlaysByDay;
+import spotifum.utils.TopK;
 
 import static spotifum.utils.ValidEmail.isValidEmail;
 
 public class AdminView extends SpotifUMView {
+    private static final long serialVersionUID = 1286278586280046903L;
+
     public AdminView(){
         super();
     }
@@ -23,7 +28,8 @@ public class AdminView extends SpotifUMView {
             try {
                 System.out.print("➤ load file: ");
                 String fileName = scanner.nextLine();
-                this.db.loadState(fileName);
+                SnapshotFormat format = readSnapshotFormat(scanner);
+                this.db.loadState(fileName, format);
                 System.out.println("[app-log] sucessfully loaded data!");
             } catch (Exception e){
                 System.out.println("[app-log] could not load previous state!");
@@ -94,12 +100,30 @@ public class AdminView extends SpotifUMView {
         items.add(new MenuItem("remove artist", ()-> removeArtist()));
         items.add(new MenuItem("remove music", ()-> deleteMusic()));
         items.add(new MenuItem("list registered artists", ()->printallartists()));
+        items.add(new MenuItem("import catalog", ()->importCatalog()));
+        items.add(new MenuItem("string pool stats", ()->this.db.getStringPoolStatistics()));
+        items.add(new MenuItem("search cache stats", ()->this.db.getSearchCacheStatistics()));
         items.add(new MenuItem("execute queries", ()-> seeStatistics()));
         items.add(new MenuItem("save current system state", ()->saveState()));
+        items.add(new MenuItem("configure autosave", ()->configureAutosave()));
 
         return new Menu(items, true);
     }
 
+    /**
+     * Import catalog.
+     */
+    public void importCatalog(){
+        System.out.print("➤ file name [.csv/.jsonl]: ");
+        Scanner scanner = new Scanner(System.in);
+        String fileName = scanner.nextLine().trim();
+        try {
+            System.out.println(this.db.importCatalog(fileName));
+        } catch (IOException e) {
+            System.out.println("[app-log] import error: " + e.getMessage());
+        }
+    }
+
     public void printallusers(){
         this.db.getAllUsers();
     }
@@ -128,12 +152,8 @@ public class AdminView extends SpotifUMView {
 
     public void deleteMusic(){
         System.out.println("[app] removing music..");
-        System.out.print("➤ music name: ");
-        Scanner sc = new Scanner(System.in);
-        String musicName = sc.nextLine();
-
-        Map<UUID, Music> musics = this.db.searchMusics(musicName);
-        this.db.deleteMusic(musicName, musics);
+        String musicName = this.db.readSearchName("music name");
+        this.db.deleteMusic(musicName);
     }
 
     public void seeStatistics(){
@@ -151,12 +171,52 @@ public class AdminView extends SpotifUMView {
         items.add(new MenuItem("most listening time by user", ()-> getMostListeningTime()));
         items.add(new MenuItem("users leaderboard", ()-> getUserLeaderboard()));
         items.add(new MenuItem("most played genres", ()-> getMostPlayedGenres()));
+        items.add(new MenuItem("most listened to by distinct users", ()-> getMostListenedTo()));
+        items.add(new MenuItem("most played by period", ()-> getMostPlayedByPeriod()));
         items.add(new MenuItem("public playlists", ()-> howMuchPublicPlaylistsExist()));
         items.add(new MenuItem("who have most playlists", ()-> whoHaveMostPlaylists()));
+        items.add(new MenuItem("most played lists mode", ()-> configureTopLists()));
+        items.add(new MenuItem("play counter sketch", ()-> configurePlayCounterSketch()));
 
         return new Menu(items, true);
     }
 
+    public void configureTopLists(){
+        System.out.print("➤ most played lists mode [exact/approximate]: ");
+        Scanner scanner = new Scanner(System.in);
+        String mode = scanner.nextLine().trim();
+        if (mode.equalsIgnoreCase("exact")) {
+            this.db.setTopListMode(TopK.Mode.EXACT);
+            System.out.println("[app-log] most played lists are exact");
+        } else if (mode.equalsIgnoreCase("approximate")) {
+            this.db.setTopListMode(TopK.Mode.APPROXIMATE);
+            System.out.println("[app-log] most played lists are approximate, counts may be over by the error shown");
+        } else {
+            System.out.println("[app-log] invalid mode!");
+        }
+    }
+
+    public void configurePlayCounterSketch(){
+        Scanner scanner = new Scanner(System.in);
+        try {
+            System.out.print("➤ count-min width [0 to count exactly]: ");
+            int width = Integer.parseInt(scanner.nextLine().trim());
+            if (width == 0) {
+                this.db.setPlayCounterSketch(0, 0);
+                System.out.println("[app-log] track and artist plays are counted exactly");
+                return;
+            }
+            System.out.print("➤ count-min depth: ");
+            int depth = Integer.parseInt(scanner.nextLine().trim());
+            this.db.setPlayCounterSketch(width, depth);
+            System.out.println("[app-log] track and artist plays are estimated, counts may be over by the error shown");
+        } catch (NumberFormatException e) {
+            System.out.println("[app-log] invalid number!");
+        } catch (IllegalArgumentException e) {
+            System.out.println("[app-log] width and depth must be positive!");
+        }
+    }
+
     public void getMostPlayedMusic(){
         System.out.println("[app] most played track..");
         this.db.getMostPlayedMusic();
@@ -218,6 +278,53 @@ public class AdminView extends SpotifUMView {
         this.db.getMostPlayedGenres();
     }
 
+    public void getMostPlayedByPeriod(){
+        System.out.println("[app] most played by period..");
+        Scanner scanner = new Scanner(System.in);
+        String period;
+        do{
+            System.out.print("➤ period [week/month/dates]: ");
+            period = scanner.nextLine().trim();
+        } while(!period.equalsIgnoreCase("week") && !period.equalsIgnoreCase("month") && !period.equalsIgnoreCase("dates"));
+        if (period.equalsIgnoreCase("week")) this.db.getMostPlayedLastDays(PlaysByDay.WEEK);
+        if (period.equalsIgnoreCase("month")) this.db.getMostPlayedLastDays(PlaysByDay.MONTH);
+        if (period.equalsIgnoreCase("dates")) {
+            LocalDate initialDate;
+            LocalDate finalDate;
+            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+            do {
+                System.out.print("➤ initial date [yyyy-mm-dd]: ");
+                try {
+                    initialDate = LocalDate.parse(scanner.nextLine(), formatter);
+                    break;
+                } catch (DateTimeParseException e) {
+                    System.out.println("[app-log] invalid format!");
+                }
+            } while (true);
+
+            do {
+                System.out.print("➤ final date [yyyy-mm-dd]: ");
+                try {
+                    finalDate = LocalDate.parse(scanner.nextLine(), formatter);
+                    if (finalDate.isBefore(initialDate)) {
+                        System.out.println("[app-log] there is no time machine here..");
+                    } else {
+                        break;
+                    }
+                } catch (DateTimeParseException e) {
+                    System.out.println("[app-log] invalid format!");
+                }
+            } while (true);
+            this.db.getMostPlayedBetween(initialDate, finalDate);
+        }
+    }
+
+    public void getMostListenedTo(){
+        System.out.println("[app] most listened to by distinct users..");
+        this.db.getMostListenedTo();
+    }
+
     public void howMuchPublicPlaylistsExist(){
         System.out.println("[app] public playlists..");
         this.db.howMuchPublicPlaylistsExist();
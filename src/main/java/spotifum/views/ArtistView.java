@@ -2,12 +2,14 @@ package spotifum.views;
 
 import spotifum.menu.Menu;
 import spotifum.menu.MenuItem;
+import spotifum.persistence.SnapshotFormat;
 
 import java.util.*;
 
 import static spotifum.utils.ValidEmail.isValidEmail;
 
 public class ArtistView extends SpotifUMView {
+    private static final long serialVersionUID = -382775135238800751L;
 
     public ArtistView() {
         super();
@@ -22,7 +24,8 @@ public class ArtistView extends SpotifUMView {
             try {
                 System.out.print("➤ load file: ");
                 String fileName = scanner.nextLine();
-                this.db.loadState(fileName);
+                SnapshotFormat format = readSnapshotFormat(scanner);
+                this.db.loadState(fileName, format);
                 System.out.println("[app-log] sucessfully loaded data!");
             } catch (Exception e){
                 System.out.println("[app-log] could not load previous state!");
@@ -101,6 +104,7 @@ public class ArtistView extends SpotifUMView {
         items.add(new MenuItem("update album", ()->updateAlbum()));
         items.add(new MenuItem("remove album", ()->removeAlbum()));
         items.add(new MenuItem("save current system state", ()-> saveState()));
+        items.add(new MenuItem("configure autosave", ()-> configureAutosave()));
 
         return new Menu(items, true);
     }
@@ -2,6 +2,7 @@ package spotifum.views;
 
 import spotifum.SpotifUMController;
 import spotifum.menu.*;
+import spotifum.persistence.SnapshotFormat;
 import spotifum.users.SubscriptionPlans;
 
 import java.io.Serializable;
@@ -11,6 +12,8 @@ import static spotifum.utils.DisplayInformation.displayExceptions;
 import static spotifum.utils.ValidEmail.isValidEmail;
 
 public abstract class SpotifUMView implements Serializable {
+    private static final long serialVersionUID = 3643108075483926306L;
+
     private SubscriptionPlans plan;
     transient protected Menu currentMenu;
     transient protected Menu previousMenu;
@@ -465,9 +468,44 @@ public abstract class SpotifUMView implements Serializable {
             System.out.print("➤ file name: ");
             Scanner scanner = new Scanner(System.in);
             String fileName = scanner.nextLine();
-            this.db.saveState(fileName);
-            System.out.println("[app-log] sucessfully saved data!");
+            SnapshotFormat format = readSnapshotFormat(scanner);
+            this.db.saveStateAsync(fileName, format, (file, error) -> {
+                if (error == null) System.out.println("[app-log] sucessfully saved data!");
+                else System.out.println("[app-log] save error: " + error.getMessage());
+            });
         } catch (Exception e) {
         }
     }
+
+    /**
+     * Configure autosave.
+     */
+    public void configureAutosave(){
+        System.out.print("➤ autosave interval in seconds [0 to disable]: ");
+        Scanner scanner = new Scanner(System.in);
+        try {
+            long seconds = Long.parseLong(scanner.nextLine().trim());
+            if (seconds < 0) throw new NumberFormatException();
+            this.db.setAutosave(seconds);
+            if (seconds == 0) System.out.println("[app-log] autosave disabled!");
+            else System.out.println("[app-log] autosave starts after the state is first saved or loaded");
+        } catch (NumberFormatException e) {
+            System.out.println("[app-log] invalid interval!");
+        }
+    }
+
+    /**
+     * Asks for the format of a state file until a known one is typed.
+     *
+     * @param scanner the scanner
+     * @return the snapshot format
+     */
+    protected SnapshotFormat readSnapshotFormat(Scanner scanner){
+        SnapshotFormat format;
+        do {
+            System.out.print("➤ file format [obj/bin]: ");
+            format = SnapshotFormat.fromName(scanner.nextLine());
+        } while (format == null);
+        return format;
+    }
 }
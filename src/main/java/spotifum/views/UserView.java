@@ -4,11 +4,14 @@ import java.util.*;
 
 import spotifum.exceptions.EntityNotFoundException;
 import spotifum.menu.*;
+import spotifum.persistence.SnapshotFormat;
 import spotifum.users.SubscriptionPlans;
 
 import static spotifum.utils.ValidEmail.isValidEmail;
 
 public class UserView extends SpotifUMView {
+    private static final long serialVersionUID = -3771619812136970746L;
+
     public UserView(){
         super();
     }
@@ -22,7 +25,8 @@ public class UserView extends SpotifUMView {
             try{
                 System.out.print("➤ load file: ");
                 String fileName = scanner.nextLine();
-                this.db.loadState(fileName);
+                SnapshotFormat format = readSnapshotFormat(scanner);
+                this.db.loadState(fileName, format);
                 System.out.println("[app-log] successfully loaded data!");
             } catch (Exception e) {
                 System.out.println("[app-log] could not load previous state!");
@@ -94,6 +98,7 @@ public class UserView extends SpotifUMView {
         SubscriptionPlans currentPlan = db.getUserPlan();
 
         items.add(new MenuItem("user profile", ()-> getUserDetails()));
+        items.add(new MenuItem("leaderboard rank", ()-> db.getUserRank()));
         Menu updateDetails = createUpdateDetailsMenu();
         items.add(new MenuItem("change details", ()->{
             getUserDetails();
@@ -113,6 +118,7 @@ public class UserView extends SpotifUMView {
         items.add(new MenuItem("save current system state", ()-> {
             saveState();
         }));
+        items.add(new MenuItem("configure autosave", ()-> configureAutosave()));
 
         return new Menu(items, true);
     }
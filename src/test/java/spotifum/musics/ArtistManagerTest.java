@@ -7,6 +7,7 @@ import java.util.*;
 
 import spotifum.musics.*;
 import spotifum.exceptions.*;
+import spotifum.utils.Page;
 
 /**
  * The type Artist manager test.
@@ -183,6 +184,235 @@ public class ArtistManagerTest {
         assertEquals(2, results.size());
     }
 
+    /**
+     * Test artist of a music follows catalog changes.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void testArtistOfMusicFollowsCatalogChanges() throws Exception {
+        ArtistManager manager = new ArtistManager();
+        Artist a1 = new Artist("a1@mail.com", "a1");
+        Music song = new Music("Song", "a1", "Y", "Z", createSamplePartiture(), "Pop", 200);
+        a1.addMusic(song);
+        manager.insertArtist(a1);
+
+        assertSame(a1, manager.getArtistOf(song.getMid()));
+        assertSame(a1, manager.searchArtist("a1", song.getMid()));
+        assertNull(manager.searchArtist("a2", song.getMid()));
+        assertNull(manager.getArtistOf(UUID.randomUUID()));
+
+        Music other = new Music("Other", "a1", "Y", "Z", createSamplePartiture(), "Pop", 100);
+        manager.addMusic(a1, other);
+        assertSame(a1, manager.getArtistOf(other.getMid()));
+
+        a1.setUsername("renamed");
+        a1.setEmail("new@mail.com");
+        manager.updateArtistEmail(a1, "new@mail.com", "a1@mail.com");
+        assertEquals("renamed", manager.getArtistOf(song.getMid()).getUsername());
+
+        a1.removeMusic(other);
+        manager.updateArtist(a1);
+        assertNull(manager.getArtistOf(other.getMid()));
+
+        manager.removeArtist("new@mail.com");
+        assertNull(manager.getArtistOf(song.getMid()));
+    }
+
+    /**
+     * Test completions rank by plays and follow catalog changes.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void testCompletionsFollowCatalogAndPlays() throws Exception {
+        ArtistManager manager = new ArtistManager();
+        Artist a1 = new Artist("a1@mail.com", "Stromae");
+        Music alors = new Music("Alors on danse", "Stromae", "Y", "Z", createSamplePartiture(), "Pop", 200);
+        Music formidable = new Music("Formidable", "Stromae", "Y", "Z", createSamplePartiture(), "Pop", 200);
+        a1.addMusic(alors);
+        a1.addMusic(formidable);
+        Album album = new Album("Racine carrée", "Stromae");
+        album.addMusic(formidable);
+        a1.addAlbum(album);
+        manager.insertArtist(a1);
+
+        Map<UUID, Integer> plays = Map.of(formidable.getMid(), 3, a1.getArtistId(), 3);
+        List<Completion> completions = manager.complete("f", 5, () -> plays);
+        assertEquals(1, completions.size());
+        assertEquals(formidable.getMid(), completions.get(0).getId());
+        assertEquals(3, completions.get(0).getPlays());
+        assertEquals(Completion.Kind.ARTIST, manager.complete("STRO", 5, () -> plays).get(0).getKind());
+        assertEquals(3, manager.complete("racine carree", 5, () -> plays).get(0).getPlays());
+
+        manager.recordPlay(alors, a1);
+        manager.recordPlay(formidable, a1);
+        assertEquals(4, manager.complete("racine", 5, Map::of).get(0).getPlays());
+        assertEquals(5, manager.complete("stro", 5, Map::of).get(0).getPlays());
+
+        Music papaoutai = new Music("Papaoutai", "Stromae", "Y", "Z", createSamplePartiture(), "Pop", 200);
+        manager.addMusic(a1, papaoutai);
+        assertEquals(papaoutai.getMid(), manager.complete("pap", 5, Map::of).get(0).getId());
+
+        a1.setEmail("new@mail.com");
+        manager.updateArtistEmail(a1, "new@mail.com", "a1@mail.com");
+        assertEquals(4, manager.complete("formi", 5, Map::of).get(0).getPlays());
+
+        manager.deleteMusic(formidable);
+        assertTrue(manager.complete("formi", 5, Map::of).isEmpty());
+        assertEquals(0, manager.complete("racine", 5, Map::of).get(0).getPlays());
+
+        manager.removeArtist("new@mail.com");
+        assertTrue(manager.complete("", 5, Map::of).isEmpty());
+    }
+
+    /**
+     * Test fuzzy search tolerates typos and prefers played names.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void testFuzzySearchRanksByDistanceAndPlays() throws Exception {
+        ArtistManager manager = new ArtistManager();
+        Artist a1 = new Artist("a1@mail.com", "Chief Keef");
+        Music sosa = new Music("Love Sosa", "Chief Keef", "Y", "Z", createSamplePartiture(), "Rap", 200);
+        Music rosa = new Music("Love Rosa", "Chief Keef", "Y", "Z", createSamplePartiture(), "Rap", 200);
+        a1.addMusic(sosa);
+        a1.addMusic(rosa);
+        Album album = new Album("Finally Rich", "Chief Keef");
+        album.addMusic(sosa);
+        a1.addAlbum(album);
+        manager.insertArtist(a1);
+
+        Map<UUID, Integer> plays = Map.of(rosa.getMid(), 50);
+        List<Completion> found = manager.searchFuzzy("chief keif", 5, () -> plays);
+        assertEquals(1, found.size());
+        assertEquals(Completion.Kind.ARTIST, found.get(0).getKind());
+
+        Map<UUID, Music> musics = manager.searchMusicsFuzzy("love posa", 5, Map::of);
+        assertEquals(List.of(rosa.getMid(), sosa.getMid()), List.copyOf(musics.keySet()));
+        assertSame(sosa, musics.get(sosa.getMid()));
+        assertEquals(List.of(sosa.getMid(), rosa.getMid()), List.copyOf(manager.searchMusicsFuzzy("lov sosa", 5, Map::of).keySet()));
+        assertEquals(album.getAlbumId(), manager.searchAlbunsFuzzy("finaly rich", 5, Map::of).keySet().iterator().next());
+
+        sosa.setName("Hate Sosa");
+        manager.updateArtist(a1);
+        assertEquals(List.of(rosa.getMid()), List.copyOf(manager.searchMusicsFuzzy("love posa", 5, Map::of).keySet()));
+        assertEquals(sosa.getMid(), manager.searchMusicsFuzzy("hat sosa", 5, Map::of).keySet().iterator().next());
+    }
+
+    /**
+     * Test filter combines facets and follows catalog changes.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void testFilterCombinesFacetsAndFollowsCatalog() throws Exception {
+        ArtistManager manager = new ArtistManager();
+        Artist a1 = new Artist("a1@mail.com", "a1");
+        Music calm = new Music("Calm Down", "a1", "Mavin", "Z", createSamplePartiture(), "Afrobeats", 100);
+        a1.addMusic(calm);
+        manager.insertArtist(a1);
+        manager.addMusic("a1@mail.com", "Loud", "a1", "Mavin", "Z", createSamplePartiture(), "afrobeats", 200, true, false, null);
+        manager.addMusic("a1@mail.com", "Video", "a1", "Sony", "Z", createSamplePartiture(), "Pop", 500, true, true, "url");
+        manager.addMusic("a1@mail.com", "Clean Video", "a1", "Sony", "Z", createSamplePartiture(), "Pop", 200, false, true, "url");
+
+        FacetResult all = manager.filterMusics(new MusicFilter());
+        assertEquals(4, all.size());
+        assertEquals(Map.of("Afrobeats", 2, "Pop", 2), all.getGenreCounts());
+        assertEquals(2, all.getExplicitCount());
+        assertEquals(2, all.getMultimediaCount());
+        assertEquals(Integer.valueOf(2), all.getDurationCounts().get(MusicFilter.Duration.MEDIUM));
+
+        FacetResult explicit = manager.filterMusics(new MusicFilter().explicit(true));
+        assertEquals(Set.of("Loud", "Video"), names(explicit));
+        FacetResult either = manager.filterMusics(new MusicFilter().genre("POP").genre("afrobeats").duration(MusicFilter.Duration.MEDIUM));
+        assertEquals(Set.of("Loud", "Clean Video"), names(either));
+        assertEquals(Map.of("Mavin", 1, "Sony", 1), either.getLabelCounts());
+        assertEquals(Set.of("Clean Video"), names(manager.filterMusics(new MusicFilter().text("video").explicit(false))));
+        assertEquals(0, manager.filterMusics(new MusicFilter().genre("jazz")).size());
+        assertSame(calm, manager.filterMusics(new MusicFilter().label("mavin").multimedia(false).explicit(false)).getMusics().get(0));
+
+        calm.setGenre("Pop");
+        manager.updateArtist(a1);
+        assertEquals(Map.of("Pop", 3, "Afrobeats", 1), manager.filterMusics(new MusicFilter()).getGenreCounts());
+        manager.deleteMusic(calm);
+        assertEquals(Set.of("Video", "Clean Video"), names(manager.filterMusics(new MusicFilter().genre("pop"))));
+    }
+
+    private static Set<String> names(FacetResult result) {
+        Set<String> names = new HashSet<>();
+        for (Music music : result.getMusics()) names.add(music.getName());
+        return names;
+    }
+
+    /**
+     * Test cached searches are dropped when the catalog changes.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void testSearchCacheFollowsCatalogVersion() throws Exception {
+        ArtistManager manager = new ArtistManager();
+        Artist a1 = new Artist("a1@mail.com", "a1");
+        Music blue = new Music("Blue", "a1", "Y", "Z", createSamplePartiture(), "Pop", 200);
+        a1.addMusic(blue);
+        Album album = new Album("Colours", "a1");
+        album.addMusic(blue);
+        a1.addAlbum(album);
+        manager.insertArtist(a1);
+        long version = manager.getCatalogVersion();
+
+        Map<UUID, Music> first = manager.searchMusics("BLUE");
+        assertSame(first, manager.searchMusics("blue"));
+        assertSame(manager.searchAlbuns("col"), manager.searchAlbuns("COL"));
+        assertSame(manager.filterMusics(new MusicFilter().genre("pop")), manager.filterMusics(new MusicFilter().genre("POP")));
+        assertThrows(UnsupportedOperationException.class, () -> first.clear());
+
+        manager.addMusic("a1@mail.com", "Blues", "a1", "Y", "Z", createSamplePartiture(), "Jazz", 200, false, false, null);
+        assertTrue(manager.getCatalogVersion() > version);
+        assertEquals(2, manager.searchMusics("blue").size());
+        assertEquals(2, manager.filterMusics(new MusicFilter()).size());
+
+        album.setName("Shades");
+        a1.updateAlbum(album);
+        manager.updateArtist(a1);
+        assertTrue(manager.searchAlbuns("col").isEmpty());
+        assertEquals(1, manager.searchAlbuns("shades").size());
+        assertTrue(manager.getSearchCacheStatistics().contains("music search:"));
+    }
+
+    /**
+     * Test search follows catalog changes.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void testSearchFollowsCatalogChanges() throws Exception {
+        ArtistManager manager = new ArtistManager();
+        Artist a1 = new Artist("a1@mail.com", "a1");
+        Music stronger = new Music("Stronger", "a1", "Y", "Z", createSamplePartiture(), "Pop", 200);
+        a1.addMusic(stronger);
+        manager.insertArtist(a1);
+
+        assertSame(stronger, manager.searchMusics("STRONG").get(stronger.getMid()));
+
+        manager.addMusic("a1@mail.com", "Power", "a1", "Y", "Z", createSamplePartiture(), "Pop", 292, false, false, null);
+        assertEquals(1, manager.searchMusics("pow").size());
+
+        stronger.setName("Weaker");
+        manager.updateArtist(a1);
+        assertTrue(manager.searchMusics("stronger").isEmpty());
+        assertEquals(1, manager.searchMusics("weaker").size());
+
+        manager.deleteMusic(new Music(stronger));
+        assertTrue(manager.searchMusics("weaker").isEmpty());
+        assertEquals(1, manager.getArtist("a1@mail.com").getTracks().size());
+
+        manager.removeArtist("a1@mail.com");
+        assertTrue(manager.searchMusics("").isEmpty());
+    }
+
     /**
      * Test get artists songs.
      *
@@ -203,4 +433,60 @@ public class ArtistManagerTest {
         Map<UUID, Music> songs = manager.getArtistsSongs();
         assertEquals(2, songs.size());
     }
+
+    /**
+     * Test pages keep their order across catalog changes.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void testPagesKeepOrderAcrossChanges() throws Exception {
+        ArtistManager manager = new ArtistManager();
+        for (String name : List.of("d", "b", "e", "a")) manager.insertArtist(new Artist(name + "@mail.com", name));
+
+        Page<Artist> first = manager.pageArtists(null, 2);
+        assertEquals(List.of("a@mail.com", "b@mail.com"), first.getItems().stream().map(Artist::getEmail).toList());
+        assertTrue(first.hasNext());
+        manager.insertArtist(new Artist("c@mail.com", "c"));
+        manager.removeArtist("a@mail.com");
+        Page<Artist> second = manager.pageArtists(first.getNext(), 2);
+        assertEquals(List.of("c@mail.com", "d@mail.com"), second.getItems().stream().map(Artist::getEmail).toList());
+        Page<Artist> last = manager.pageArtists(second.getNext(), 2);
+        assertEquals(List.of("e@mail.com"), last.getItems().stream().map(Artist::getEmail).toList());
+        assertFalse(last.hasNext());
+
+        for (int i = 0; i < 5; i++) manager.addMusic("b@mail.com", "Song " + i, "b", "Y", "Z", createSamplePartiture(), "Pop", 200, false, false, null);
+        manager.addMusic("b@mail.com", "Other", "b", "Y", "Z", createSamplePartiture(), "Pop", 200, false, false, null);
+        Page<Music> songs = manager.pageMusics("song", null, 3);
+        assertEquals(List.of("Song 0", "Song 1", "Song 2"), songs.getItems().stream().map(Music::getName).toList());
+        manager.addMusic("b@mail.com", "Song 5", "b", "Y", "Z", createSamplePartiture(), "Pop", 200, false, false, null);
+        songs = manager.pageMusics("song", songs.getNext(), 3);
+        assertEquals(List.of("Song 3", "Song 4", "Song 5"), songs.getItems().stream().map(Music::getName).toList());
+        assertFalse(songs.hasNext());
+        assertEquals(7, manager.streamMusics("", null).count());
+    }
+
+    /**
+     * Test music page tokens survive their track and reject foreign tokens.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void testMusicPageTokens() throws Exception {
+        ArtistManager manager = new ArtistManager();
+        manager.insertArtist(new Artist("b@mail.com", "b"));
+        for (int i = 0; i < 4; i++) manager.addMusic("b@mail.com", "Song " + i, "b", "Y", "Z", createSamplePartiture(), "Pop", 200, false, false, null);
+
+        Page<Music> first = manager.pageMusics("", null, 2);
+        assertEquals(List.of("Song 0", "Song 1"), first.getItems().stream().map(Music::getName).toList());
+        manager.deleteMusic(first.getItems().get(1));
+        Page<Music> second = manager.pageMusics("", first.getNext(), 2);
+        assertEquals(List.of("Song 2", "Song 3"), second.getItems().stream().map(Music::getName).toList());
+        assertEquals(List.of("Song 2", "Song 3"), manager.pageMusics("song", first.getNext(), 2).getItems().stream().map(Music::getName).toList());
+
+        assertThrows(IllegalArgumentException.class, () -> manager.pageMusics("", "junk", 2));
+        assertThrows(IllegalArgumentException.class, () -> manager.pageMusics("", "b@mail.com", 2));
+        assertThrows(IllegalArgumentException.class, () -> manager.pageMusics("other", first.getNext(), 2));
+        assertThrows(IllegalArgumentException.class, () -> manager.pageMusics("", first.getNext().toUpperCase(), 2));
+    }
 }
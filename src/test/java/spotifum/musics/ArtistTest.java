@@ -150,6 +150,29 @@ public class ArtistTest {
         assertEquals(0, updatedAlbum.getMusics().size());
     }
 
+    /**
+     * Test put music replaces it in albums.
+     */
+    @Test
+    public void testPutMusicReplacesItInAlbums() {
+        Artist artist = new Artist();
+        Music music = createSampleMusic("Before");
+
+        Album album = createSampleAlbum("Album", "");
+        album.addMusic(music);
+
+        artist.addMusic(music);
+        artist.addAlbum(album);
+
+        Music edited = new Music(music);
+        edited.setName("After");
+        artist.putMusic(edited);
+
+        assertEquals(1, artist.getTracks().size());
+        assertEquals("After", artist.getTracks().get(music.getMid()).getName());
+        assertEquals("After", artist.getAlbums().get(album.getAlbumId()).getMusics().get(0).getName());
+    }
+
     /**
      * Test add album.
      */
@@ -248,4 +271,18 @@ public class ArtistTest {
 
         assertEquals(1, artist.getAlbums().size());
     }
+
+    /**
+     * Test equality by id.
+     */
+    @Test
+    public void testEqualsById() {
+        Artist artist = new Artist("same@music.com", "Same");
+        Artist copy = new Artist(artist);
+        copy.setUsername("Renamed");
+
+        assertEquals(artist, copy);
+        assertEquals(artist.hashCode(), copy.hashCode());
+        assertNotEquals(artist, new Artist("same@music.com", "Same"));
+    }
 }
@@ -0,0 +1,113 @@
+package spotifum.musics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The type Lyrics index test.
+ */
+public class LyricsIndexTest {
+
+    private static Music music(String name, String lyrics) {
+        return new Music(name, "ye", "", lyrics, new ArrayList<>(), "rap", 100);
+    }
+
+    private static List<Music> musics(List<LyricsMatch> matches) {
+        List<Music> musics = new ArrayList<>();
+        for (LyricsMatch match : matches) musics.add(match.getMusic());
+        return musics;
+    }
+
+    /**
+     * Test terms fold case and accents.
+     */
+    @Test
+    public void testTerms() {
+        assertEquals(List.of("coracao", "nao", "e", "de", "pedra"), LyricsIndex.terms("Coração não é de PEDRA!"));
+        assertTrue(LyricsIndex.terms(null).isEmpty());
+    }
+
+    /**
+     * Test search ranks with bm25 and matches phrases.
+     */
+    @Test
+    public void testSearch() {
+        Music night = music("night", "the night is young, the night is ours");
+        Music day = music("day", "a long day and a young heart");
+        Music other = music("other", "nothing to see here at all, nothing at all");
+        LyricsIndex index = new LyricsIndex();
+        index.put(1, night);
+        index.put(2, day);
+        index.put(3, other);
+
+        assertEquals(List.of(night, day), musics(index.search("night young", 10)));
+        assertEquals(List.of(night), musics(index.search("night young", 1)));
+        assertEquals(List.of(day), musics(index.search("\"young heart\"", 10)));
+        assertTrue(index.search("\"heart young\"", 10).isEmpty());
+        assertTrue(index.search("missing", 10).isEmpty());
+        assertTrue(index.search("", 10).isEmpty());
+        assertTrue(index.search("night", 1).get(0).getScore() > 0);
+    }
+
+    /**
+     * Test the index follows lyrics changes and compacts stale postings.
+     */
+    @Test
+    public void testUpdatesAndCompaction() {
+        Music song = music("song", "old words");
+        LyricsIndex index = new LyricsIndex();
+        index.put(1, song);
+        index.put(1, song);
+        assertEquals(0, index.getStalePostings());
+
+        song.setLyrics("brand new words");
+        index.put(1, song);
+        assertTrue(index.search("old", 10).isEmpty());
+        assertEquals(List.of(song), musics(index.search("new", 10)));
+        assertEquals(2, index.getStalePostings());
+
+        index.remove(1);
+        assertTrue(index.search("words", 10).isEmpty());
+        index.compact();
+        assertEquals(0, index.getStalePostings());
+    }
+
+    /**
+     * Test snippet highlights the words searched for.
+     */
+    @Test
+    public void testSnippet() {
+        String text = "one two three four five six seven eight nine ten eleven twelve thirteen fourteen";
+        assertEquals("… two three four five six seven [eight] nine ten eleven twelve thirteen fourteen",
+                LyricsIndex.snippet(text, Set.of("eight")));
+        assertEquals("[One] two", LyricsIndex.snippet("One, two!", Set.of("one")));
+    }
+
+    /**
+     * Test the music index follows lyrics committed through the catalog.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void testMusicIndexFollowsLyrics() throws Exception {
+        MusicIndex index = new MusicIndex();
+        Artist artist = new Artist("ye@asd.pt", "ye");
+        Music song = music("song", "first verse");
+        artist.addMusic(song);
+        index.putArtist("ye@asd.pt", artist);
+        assertEquals(List.of(song), musics(index.searchLyrics("verse", 5)));
+
+        song.setLyrics("second chorus");
+        index.putArtist("ye@asd.pt", artist);
+        assertTrue(index.searchLyrics("verse", 5).isEmpty());
+        assertEquals("second [chorus]", index.searchLyrics("chorus", 5).get(0).getSnippet());
+
+        index.removeArtist("ye@asd.pt");
+        assertTrue(index.searchLyrics("chorus", 5).isEmpty());
+    }
+}
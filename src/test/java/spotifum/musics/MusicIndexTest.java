@@ -0,0 +1,54 @@
+package spotifum.musics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The type Music index test.
+ */
+public class MusicIndexTest {
+
+    private static Music music(String name) {
+        return new Music(name, "ye", "", "", new ArrayList<>(), "rap", 100);
+    }
+
+    /**
+     * Test search matches substrings.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void testSearchMatchesSubstrings() throws Exception {
+        MusicIndex index = new MusicIndex();
+        Artist artist = new Artist("ye@asd.pt", "ye");
+        Music stronger = music("Stronger");
+        Music strong = music("strong");
+        Music anagram = music("gnortsgnorts");
+        artist.addMusic(stronger);
+        artist.addMusic(strong);
+        artist.addMusic(anagram);
+        index.putArtist("ye@asd.pt", artist);
+
+        assertEquals(3, index.size());
+        assertEquals(2, index.search("strong").size());
+        assertEquals(List.of(stronger), index.search("onger"));
+        assertEquals(2, index.search("ro").size());
+        assertEquals(3, index.search("").size());
+        assertTrue(index.search("ngst").isEmpty());
+        assertTrue(index.search("xyz").isEmpty());
+        assertEquals("ye@asd.pt", index.ownerOf(strong));
+
+        artist.removeMusic(strong);
+        index.putArtist("ye@asd.pt", artist);
+        assertEquals(List.of(stronger), index.search("strong"));
+        assertNull(index.ownerOf(strong));
+
+        index.removeArtist("ye@asd.pt");
+        assertEquals(0, index.size());
+        assertTrue(index.search("s").isEmpty());
+    }
+}
@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import java.util.*;
 
 import spotifum.musics.Music;
+import spotifum.musics.types.ExplicitMusic;
 
 /**
  * The type Music test.
@@ -127,7 +128,26 @@ public class MusicTest {
         Music m2 = new Music("Equal Song", "Artist", "Label", "Lyrics",
                 sampleNotes(), "Genre", 200);
 
-        assertTrue(m1.equals(m2));
+        assertFalse(m1.equals(m2));
+    }
+
+    /**
+     * Test equals and hash code follow the id.
+     */
+    @Test
+    public void testEqualsAndHashCodeFollowId() {
+        Music m1 = new Music("Song", "Artist", "Label", "Lyrics",
+                sampleNotes(), "Genre", 200);
+        Music edited = m1.clone();
+        edited.setName("Renamed");
+
+        assertTrue(m1.equals(edited));
+        assertEquals(m1.hashCode(), edited.hashCode());
+        assertEquals(Set.of(m1), Set.of(edited));
+
+        ExplicitMusic explicit = new ExplicitMusic(m1);
+        assertTrue(explicit.equals(new ExplicitMusic(edited)));
+        assertFalse(explicit.equals(m1));
     }
 
     /**
@@ -0,0 +1,265 @@
+package spotifum.persistence;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import spotifum.musics.Album;
+import spotifum.musics.Artist;
+import spotifum.musics.ArtistManager;
+import spotifum.musics.Music;
+import spotifum.musics.types.MultimediaMusic;
+import spotifum.playlists.Playlist;
+import spotifum.playlists.PremiumPlaylist;
+import spotifum.statistics.StatisticsManager;
+import spotifum.users.FreeUser;
+import spotifum.users.PremiumTopUser;
+import spotifum.users.SubscriptionPlans;
+import spotifum.users.User;
+import spotifum.users.UserManager;
+import spotifum.utils.TopK;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The type Binary snapshot test.
+ */
+class BinarySnapshotTest {
+
+    private UserManager userManager;
+    private ArtistManager artistManager;
+    private StatisticsManager statisticsManager;
+    private Music song;
+    private Music video;
+    private User user;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        userManager = new UserManager();
+        artistManager = new ArtistManager();
+        statisticsManager = new StatisticsManager(userManager, artistManager);
+
+        Artist artist = new Artist("artist@a.pt", "artist");
+        song = new Music("song", "artist", "label", "lyrics", List.of("a", "b"), "rock", 180);
+        video = new MultimediaMusic(new Music("video", "artist", "label", "lyrics", List.of("c"), "pop", 200), true, "video.mp4");
+        artist.addMusic(song);
+        artist.addMusic(video);
+        Album album = new Album("album", "artist");
+        album.addMusic(song);
+        artist.addAlbum(album);
+        artistManager.insertArtist(artist);
+
+        user = new PremiumTopUser("user@a.pt", "user");
+        Playlist playlist = new PremiumPlaylist("mix", "user");
+        playlist.addMusic(song);
+        playlist.addMusic(video);
+        user.createPlaylist(playlist);
+        userManager.insertUser(user);
+
+        statisticsManager.recordPlay(song);
+        statisticsManager.recordPlay(user, song);
+        statisticsManager.recordPlay(song, artist, LocalDate.of(2025, 1, 1));
+    }
+
+    private BinarySnapshot roundTrip() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new BinarySnapshot(9L, userManager, artistManager, statisticsManager, song).writeTo(bytes);
+        return BinarySnapshot.read(ByteBuffer.wrap(bytes.toByteArray()));
+    }
+
+    @Test
+    void testRoundTripKeepsIdsAndTypes() throws Exception {
+        BinarySnapshot snapshot = roundTrip();
+
+        assertEquals(9L, snapshot.getGeneration());
+        Artist artist = snapshot.getArtistmanager().getArtist("artist@a.pt");
+        assertEquals(2, artist.getTracks().size());
+        Music decodedVideo = artist.getTracks().get(video.getMid());
+        assertTrue(decodedVideo instanceof MultimediaMusic);
+        assertEquals("video.mp4", ((MultimediaMusic) decodedVideo).getVideo());
+        assertEquals(1, artist.getAlbums().size());
+
+        User decodedUser = snapshot.getUsermanager().getUser("user@a.pt");
+        assertEquals(user.getUid(), decodedUser.getUid());
+        assertTrue(decodedUser instanceof PremiumTopUser);
+        assertEquals(SubscriptionPlans.PremiumTop, decodedUser.getUserPlan());
+        Playlist playlist = decodedUser.getPlaylists().values().iterator().next();
+        assertEquals(2, playlist.getTracks().size());
+        assertEquals(song.getMid(), snapshot.getPreviousPlayingMusic().getMid());
+    }
+
+    @Test
+    void testRoundTripKeepsPlaylistNavigation() throws Exception {
+        PremiumPlaylist playlist = (PremiumPlaylist) user.getPlaylists().values().iterator().next();
+        playlist.setShuffleMode(true);
+        playlist.jumpToTrack(1);
+        playlist.jumpToTrack(0);
+
+        BinarySnapshot snapshot = roundTrip();
+
+        PremiumPlaylist decoded = (PremiumPlaylist) snapshot.getUsermanager().getUser("user@a.pt").getPlaylists().values().iterator().next();
+        assertTrue(decoded.isShuffleModeActive());
+        assertEquals(List.of(0, 1), decoded.getNavigationHistory());
+        assertEquals(video.getMid(), decoded.previousTrack().getMid());
+    }
+
+    @Test
+    void testRoundTripKeepsTheCountMinSketch() throws Exception {
+        statisticsManager.setPlayCounterSketch(1 << 14, 4);
+        Artist artist = artistManager.getArtist("artist@a.pt");
+        for (int i = 0; i <= StatisticsManager.SKETCH_SIZE; i++) {
+            Music music = new Music("track " + i, "artist", "label", "lyrics", List.of(), "rock", 60);
+            artistManager.addMusic(artist, music);
+            statisticsManager.recordPlay(music);
+        }
+
+        BinarySnapshot snapshot = roundTrip();
+        StatisticsManager decoded = snapshot.getStatisticsManager();
+
+        assertEquals(statisticsManager.getPlayCounts(), decoded.getPlayCounts());
+        int tail = 0;
+        for (Music music : snapshot.getArtistmanager().getArtist("artist@a.pt").getTracks().values()) {
+            if (!music.getName().startsWith("track") || decoded.getPlayCounts().containsKey(music.getMid())) continue;
+            decoded.recordPlay(music);
+            assertEquals(Integer.valueOf(2), decoded.getPlayCounts().get(music.getMid()));
+            tail++;
+        }
+        assertTrue(tail > 0);
+    }
+
+    @Test
+    void testRoundTripKeepsTheTopListMode() throws Exception {
+        statisticsManager.setTopListMode(TopK.Mode.APPROXIMATE);
+
+        StatisticsManager decoded = roundTrip().getStatisticsManager();
+
+        assertEquals(TopK.Mode.APPROXIMATE, decoded.getTopListMode());
+        assertEquals(statisticsManager.getPlayCounts(), decoded.getPlayCounts());
+    }
+
+    @Test
+    void testTracksAreSharedWithTheCatalog() throws Exception {
+        BinarySnapshot snapshot = roundTrip();
+
+        Music catalogSong = snapshot.getArtistmanager().getArtist("artist@a.pt").getTracks().get(song.getMid());
+        Playlist playlist = snapshot.getUsermanager().getUser("user@a.pt").getPlaylists().values().iterator().next();
+        assertSame(catalogSong, playlist.getTracks().get(0));
+        assertSame(catalogSong, snapshot.getPreviousPlayingMusic());
+
+        User decodedUser = snapshot.getUsermanager().getUser("user@a.pt");
+        assertEquals(100.0, snapshot.getStatisticsManager().getUserHistory(decodedUser).get(catalogSong).doubleValue());
+        assertEquals(1, snapshot.getStatisticsManager().getUniqueListeners().getListeners(catalogSong));
+        assertEquals(1, snapshot.getStatisticsManager().getUniqueListeners().getListeners("rock"));
+        assertSame(catalogSong, snapshot.getStatisticsManager().getPlaysByDay()
+                .getTopTracks(LocalDate.of(2024, 12, 26), LocalDate.of(2025, 1, 1), 1).get(0).getItem());
+    }
+
+    @Test
+    void testMappedSnapshotDecodesArtistsOnDemand() throws Exception {
+        Artist other = new Artist("other@a.pt", "other");
+        other.addMusic(new Music("other song", "other", "label", "lyrics", List.of(), "jazz", 100));
+        artistManager.insertArtist(other);
+
+        File file = File.createTempFile("spotifum", ".bin");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            new BinarySnapshot(3L, userManager, artistManager, statisticsManager, null).writeTo(out);
+        }
+        BinarySnapshot snapshot = BinarySnapshot.read(file.getAbsolutePath());
+        ArtistManager decoded = snapshot.getArtistmanager();
+
+        assertTrue(decoded.existArtistWithEmail("other@a.pt"));
+        Artist artist = decoded.getArtist("artist@a.pt");
+        assertSame(artist, decoded.getArtist("artist@a.pt"));
+        Playlist playlist = snapshot.getUsermanager().getUser("user@a.pt").getPlaylists().values().iterator().next();
+        assertSame(artist.getTracks().get(song.getMid()), playlist.getTracks().get(0));
+        assertEquals(3, decoded.getArtistsSongs().size());
+    }
+
+    @Test
+    void testTrackOwnersAreFoundWhileArtistsAreStillMapped() throws Exception {
+        Artist other = new Artist("other@a.pt", "other");
+        Music otherSong = new Music("other song", "other", "label", "lyrics", List.of(), "jazz", 100);
+        other.addMusic(otherSong);
+        artistManager.insertArtist(other);
+
+        File file = File.createTempFile("spotifum", ".bin");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            new BinarySnapshot(5L, userManager, artistManager, statisticsManager, null).writeTo(out);
+        }
+        ArtistManager decoded = BinarySnapshot.read(file.getAbsolutePath()).getArtistmanager();
+
+        Artist owner = decoded.getArtistOf(otherSong.getMid());
+        assertEquals("other@a.pt", owner.getEmail());
+        assertSame(owner, decoded.getArtist("other@a.pt"));
+        assertEquals("artist@a.pt", decoded.getArtistOf(video.getMid()).getEmail());
+
+        Music added = new Music("added", "other", "label", "lyrics", List.of(), "jazz", 100);
+        decoded.addMusic(owner, added);
+        assertSame(owner, decoded.getArtistOf(added.getMid()));
+        decoded.removeArtist("artist@a.pt");
+        assertNull(decoded.getArtistOf(song.getMid()));
+    }
+
+    @Test
+    void testUsersAndStatisticsAreDecodedOnDemand() throws Exception {
+        userManager.insertUser(new FreeUser("other@a.pt", "other"));
+
+        File file = File.createTempFile("spotifum", ".bin");
+        file.deleteOnExit();
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            new BinarySnapshot(4L, userManager, artistManager, statisticsManager, null).writeTo(out);
+        }
+        BinarySnapshot snapshot = BinarySnapshot.read(file.getAbsolutePath());
+        UserManager decoded = snapshot.getUsermanager();
+
+        assertTrue(decoded.existUserWithEmail("other@a.pt"));
+        User decodedUser = decoded.getUser("user@a.pt");
+        assertSame(decodedUser, decoded.getUser("USER@a.pt"));
+        Music playlistSong = decodedUser.getPlaylists().values().iterator().next().getTracks().get(0);
+        assertEquals(100.0, snapshot.getStatisticsManager().getUserHistory(decodedUser).get(playlistSong).doubleValue());
+        assertEquals(2, decoded.getUsers().size());
+        assertSame(decodedUser, decoded.getUsers().get("user@a.pt"));
+    }
+
+    @Test
+    void testPlaylistDirectoryServesPublicPlaylistsAndTrackRemoval() throws Exception {
+        User other = new PremiumTopUser("other@a.pt", "other");
+        Playlist shared = new PremiumPlaylist("Road Trip", "other");
+        shared.setPublic(true);
+        shared.addMusic(song);
+        other.createPlaylist(shared);
+        userManager.insertUser(other);
+
+        UserManager decoded = roundTrip().getUsermanager();
+
+        Map<UUID, Playlist> found = decoded.getPublicPlaylists(null, "road");
+        assertEquals(1, found.size());
+        assertSame(found.get(shared.getId()), decoded.getUser("other@a.pt").getPlaylists().get(shared.getId()));
+        assertTrue(decoded.getPublicPlaylists(other, "road").isEmpty());
+
+        decoded.deleteMusicFromPlaylists(song);
+        assertEquals(0, found.get(shared.getId()).getTracks().size());
+        Playlist mix = decoded.getUser("user@a.pt").getPlaylists().values().iterator().next();
+        assertEquals(List.of(video.getMid()), mix.getTracks().stream().map(Music::getMid).toList());
+    }
+
+    @Test
+    void testUnsupportedVersionIsRejected() throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        new BinarySnapshot(1L, userManager, artistManager, statisticsManager, null).writeTo(bytes);
+        byte[] data = bytes.toByteArray();
+        data[5] = 99;
+
+        assertThrows(IOException.class, () -> BinarySnapshot.read(ByteBuffer.wrap(data)));
+    }
+}
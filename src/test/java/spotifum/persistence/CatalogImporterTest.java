@@ -0,0 +1,129 @@
+package spotifum.persistence;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import spotifum.musics.Album;
+import spotifum.musics.Artist;
+import spotifum.musics.ArtistManager;
+import spotifum.musics.Music;
+import spotifum.musics.types.ExplicitMusic;
+import spotifum.musics.types.MultimediaMusic;
+import spotifum.users.PremiumTopUser;
+import spotifum.users.SubscriptionPlans;
+import spotifum.users.User;
+import spotifum.users.UserManager;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The type Catalog importer test.
+ */
+class CatalogImporterTest {
+
+    private UserManager userManager;
+    private ArtistManager artistManager;
+    private List<JournalEntry> journal;
+    private CatalogImporter importer;
+
+    @BeforeEach
+    void setUp() {
+        userManager = new UserManager();
+        artistManager = new ArtistManager();
+        journal = new ArrayList<>();
+        importer = new CatalogImporter(userManager, artistManager, journal::add, 2);
+    }
+
+    private static BufferedReader reader(String text) {
+        return new BufferedReader(new StringReader(text));
+    }
+
+    @Test
+    void testCsvCreatesTracksAndAlbums() throws Exception {
+        ImportReport report = importer.importCsv(reader(
+                "kind,email,username,artist,name,genre,duration,explicit,video,album,partiture\n"
+                + "artist,ye@asd.pt,ye,,,,,,,,\n"
+                + "track,,,ye@asd.pt,stronger,rap,311,no,,graduation,a|b\n"
+                + "track,,,ye@asd.pt,\"flashing, lights\",rap,237,yes,,graduation,\n"
+                + "track,,,ye@asd.pt,runaway,rap,548,true,runaway.mp4,,\n"
+                + "track,,,ye@asd.pt,Stronger,rap,311,,,,\n"
+                + "track,,,nobody@asd.pt,ghost,rap,100,,,,\n"
+                + "track,,,ye@asd.pt,bad,rap,-3,,,,\n"));
+
+        assertEquals(7, report.getRows());
+        assertEquals(1, report.getArtists());
+        assertEquals(3, report.getTracks());
+        assertEquals(1, report.getAlbums());
+        assertEquals(1, report.getDuplicates());
+        assertEquals(2, report.getRejected());
+        assertTrue(report.getRejections().get(0).startsWith("line 7:"));
+
+        Artist artist = artistManager.getArtist("ye@asd.pt");
+        assertEquals(3, artist.getTracks().size());
+        long explicit = artist.getTracks().values().stream().filter(m -> m instanceof ExplicitMusic).count();
+        long multimedia = artist.getTracks().values().stream().filter(m -> m instanceof MultimediaMusic).count();
+        assertEquals(1, explicit);
+        assertEquals(1, multimedia);
+        Album album = artist.getAlbums().values().iterator().next();
+        assertEquals("graduation", album.getName());
+        assertEquals(2, album.getMusics().size());
+        assertEquals("flashing, lights", album.getMusics().get(1).getName());
+        assertFalse(journal.isEmpty());
+    }
+
+    @Test
+    void testJournalsEveryTrackOnce() throws Exception {
+        importer.importCsv(reader(
+                "kind,email,username,artist,name,genre,duration,album\n"
+                + "artist,ye@asd.pt,ye,,,,,\n"
+                + "track,,,ye@asd.pt,stronger,rap,311,graduation\n"
+                + "track,,,ye@asd.pt,champion,rap,167,graduation\n"
+                + "track,,,ye@asd.pt,homecoming,rap,203,graduation\n"
+                + "track,,,ye@asd.pt,runaway,rap,548,\n"));
+
+        assertEquals(1, journal.stream().filter(e -> e.getType() == JournalEntry.Type.ARTIST_PUT).count());
+        assertEquals(4, journal.stream().filter(e -> e.getType() == JournalEntry.Type.MUSIC_PUT).count());
+        List<JournalEntry> albums = journal.stream().filter(e -> e.getType() == JournalEntry.Type.ALBUM_PUT).toList();
+        assertEquals(2, albums.size());
+        assertEquals("ye@asd.pt", albums.get(1).getKey());
+        assertEquals(3, ((Album) albums.get(1).getImage()).getMusics().size());
+    }
+
+    @Test
+    void testExistingTracksAreNotImportedAgain() throws Exception {
+        Artist artist = new Artist("ye@asd.pt", "ye");
+        artist.addMusic(new Music("stronger", "ye", "", "", new ArrayList<>(), "rap", 311));
+        artistManager.insertArtist(artist);
+
+        ImportReport report = importer.importJsonLines(reader(
+                "{\"kind\": \"track\", \"artist\": \"ye@asd.pt\", \"name\": \"Stronger\", \"genre\": \"rap\", \"duration\": 311}\n"
+                + "{\"kind\": \"track\", \"artist\": \"ye@asd.pt\", \"name\": \"power\", \"genre\": \"rap\", \"duration\": 292, \"partiture\": [\"c\", \"d\"]}\n"));
+
+        assertEquals(1, report.getDuplicates());
+        assertEquals(1, report.getTracks());
+        assertEquals(2, artistManager.getArtist("ye@asd.pt").getTracks().size());
+    }
+
+    @Test
+    void testJsonLinesSeedsUsersWithPlans() throws Exception {
+        ImportReport report = importer.importJsonLines(reader(
+                "{\"kind\": \"user\", \"email\": \"joao@asd.pt\", \"username\": \"joao\", \"plan\": \"PremiumTop\", \"address\": \"braga\"}\n"
+                + "\n"
+                + "{\"kind\": \"user\", \"email\": \"maria@asd.pt\", \"username\": \"maria\"}\n"
+                + "{\"kind\": \"user\", \"email\": \"pedro@asd.pt\", \"username\": \"pedro\", \"plan\": \"gold\"}\n"
+                + "{\"kind\": \"user\", \"email\": \"ana@asd.pt\", \"username\": \n"));
+
+        assertEquals(2, report.getUsers());
+        assertEquals(2, report.getRejected());
+        assertEquals(1, report.getBatches());
+        User joao = userManager.getUser("joao@asd.pt");
+        assertTrue(joao instanceof PremiumTopUser);
+        assertEquals("braga", joao.getAddress());
+        assertEquals(SubscriptionPlans.Free, userManager.getUser("maria@asd.pt").getUserPlan());
+        assertEquals(2, journal.stream().filter(e -> e.getType() == JournalEntry.Type.USER_PUT).count());
+    }
+}
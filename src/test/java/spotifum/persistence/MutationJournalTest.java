@@ -0,0 +1,113 @@
+package spotifum.persistence;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import spotifum.users.FreeUser;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The type Mutation journal test.
+ */
+class MutationJournalTest {
+
+    private String fileName;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        File file = File.createTempFile("spotifum", MutationJournal.SUFFIX);
+        file.deleteOnExit();
+        fileName = file.getAbsolutePath();
+    }
+
+    @Test
+    void testCommittedEntriesAreReplayed() throws Exception {
+        MutationJournal journal = MutationJournal.create(fileName, 42L);
+        journal.append(JournalEntry.userPut(new FreeUser("a@a.pt", "a")));
+        journal.append(JournalEntry.userRemove("b@a.pt"));
+        journal.commit();
+        journal.close();
+
+        List<JournalEntry> replayed = new ArrayList<>();
+        MutationJournal recovered = MutationJournal.recover(fileName, 42L, replayed::add);
+
+        assertEquals(2, replayed.size());
+        assertEquals(JournalEntry.Type.USER_PUT, replayed.get(0).getType());
+        assertEquals("b@a.pt", replayed.get(1).getKey());
+        assertEquals(2, recovered.size());
+        recovered.close();
+    }
+
+    @Test
+    void testUncommittedTailIsDiscarded() throws Exception {
+        MutationJournal journal = MutationJournal.create(fileName, 7L);
+        journal.append(JournalEntry.userRemove("a@a.pt"));
+        journal.commit();
+        journal.append(JournalEntry.userRemove("b@a.pt"));
+        journal.close();
+
+        List<JournalEntry> replayed = new ArrayList<>();
+        MutationJournal.recover(fileName, 7L, replayed::add).close();
+        assertEquals(1, replayed.size());
+
+        replayed.clear();
+        MutationJournal.recover(fileName, 7L, replayed::add).close();
+        assertEquals(1, replayed.size());
+    }
+
+    @Test
+    void testJournalOfAnotherGenerationIsIgnored() throws Exception {
+        MutationJournal journal = MutationJournal.create(fileName, 1L);
+        journal.append(JournalEntry.userRemove("a@a.pt"));
+        journal.commit();
+        journal.close();
+
+        List<JournalEntry> replayed = new ArrayList<>();
+        MutationJournal recovered = MutationJournal.recover(fileName, 2L, replayed::add);
+
+        assertTrue(replayed.isEmpty());
+        assertEquals(0, recovered.size());
+        recovered.close();
+    }
+
+    @Test
+    void testStagingJournalIsChainedWhenCheckpointIsNotInstalled() throws Exception {
+        MutationJournal journal = MutationJournal.create(fileName, 1L);
+        journal.append(JournalEntry.userRemove("a@a.pt"));
+        journal.commit();
+        journal.close();
+        MutationJournal staging = MutationJournal.createStaging(fileName, 2L, 1L);
+        staging.append(JournalEntry.userRemove("b@a.pt"));
+        staging.commit();
+        staging.close();
+
+        List<JournalEntry> replayed = new ArrayList<>();
+        MutationJournal recovered = MutationJournal.recover(fileName, 1L, replayed::add);
+
+        assertEquals(2, replayed.size());
+        assertEquals("b@a.pt", replayed.get(1).getKey());
+        assertEquals(2, recovered.size());
+        recovered.close();
+    }
+
+    @Test
+    void testStagingJournalIsPromotedWithItsCheckpoint() throws Exception {
+        MutationJournal.create(fileName, 1L).close();
+        MutationJournal staging = MutationJournal.createStaging(fileName, 2L, MutationJournal.NO_BASE);
+        staging.append(JournalEntry.userRemove("b@a.pt"));
+        staging.commit();
+        staging.close();
+
+        List<JournalEntry> replayed = new ArrayList<>();
+        MutationJournal recovered = MutationJournal.recover(fileName, 2L, replayed::add);
+
+        assertEquals(1, replayed.size());
+        assertEquals(2L, recovered.getGeneration());
+        recovered.close();
+        assertEquals(1, MutationJournal.replay(fileName, 2L, entry -> {}));
+    }
+}
@@ -0,0 +1,65 @@
+package spotifum.persistence;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The type Snapshot scheduler test.
+ */
+class SnapshotSchedulerTest {
+
+    @Test
+    void testQueuedJobsForTheSameFileAreSuperseded() throws Exception {
+        SnapshotScheduler scheduler = new SnapshotScheduler();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<String> ran = new ArrayList<>();
+        List<String> notified = new ArrayList<>();
+
+        scheduler.submit("other", () -> {
+            started.countDown();
+            release.await();
+        }, null, true, null);
+        started.await();
+        List<String> dropped = new ArrayList<>();
+        CompletableFuture<Void> first = scheduler.submit("a", () -> ran.add("first"), () -> dropped.add("first"), true, (f, e) -> notified.add("first"));
+        CompletableFuture<Void> second = scheduler.submit("a", () -> ran.add("second"), null, true, (f, e) -> notified.add("second"));
+        release.countDown();
+
+        first.get();
+        second.get();
+        assertEquals(List.of("second"), ran);
+        assertEquals(List.of("first"), dropped);
+        assertEquals(2, notified.size());
+        assertTrue(scheduler.awaitIdle(1000));
+    }
+
+    @Test
+    void testAttachWithoutPendingJobCompletesRightAway() throws Exception {
+        SnapshotScheduler scheduler = new SnapshotScheduler();
+        List<Exception> errors = new ArrayList<>();
+        errors.add(new Exception());
+
+        CompletableFuture<Void> future = scheduler.attach("a", (f, e) -> errors.set(0, e));
+
+        assertTrue(future.isDone());
+        assertNull(errors.get(0));
+    }
+
+    @Test
+    void testFailedJobIsReported() {
+        SnapshotScheduler scheduler = new SnapshotScheduler();
+
+        CompletableFuture<Void> future = scheduler.submit("a", () -> {
+            throw new java.io.IOException("disk full");
+        }, null, true, null);
+
+        assertThrows(Exception.class, future::get);
+    }
+}
@@ -5,6 +5,8 @@ import org.junit.jupiter.api.Test;
 import spotifum.users.User;
 
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -100,4 +102,28 @@ class MostListeningTimeUserTest {
         // Se removeu baseado no email, não deve haver mais plays
         assertDoesNotThrow(() -> stats.displayTopUser());
     }
-}
\ No newline at end of file
+
+    @Test
+    void testTopUsersBetweenDates() {
+        // O top de um intervalo conta só as reproduções dentro dele
+        stats.recordPlay(user1, lastWeek);
+        stats.recordPlay(user1, lastWeek);
+        stats.recordPlay(user1, lastWeek);
+        stats.recordPlay(user2, yesterday);
+        stats.recordPlay(user2, today);
+
+        assertEquals(user1, stats.getTopUsers(1).get(0).getKey());
+        assertEquals(Integer.valueOf(3), stats.getTopUsers(1).get(0).getValue());
+
+        List<Map.Entry<User, Integer>> recent = stats.getTopUsers(yesterday, today, 5);
+        assertEquals(1, recent.size());
+        assertEquals(user2, recent.get(0).getKey());
+        assertEquals(Integer.valueOf(2), recent.get(0).getValue());
+        assertEquals(1, stats.getPlays(user2, today, today));
+        assertTrue(stats.getTopUsers(today, lastWeek, 5).isEmpty());
+
+        stats.removeUser(user2);
+        assertTrue(stats.getTopUsers(yesterday, today, 5).isEmpty());
+        assertEquals(1, stats.getTopUsers(5).size());
+    }
+}
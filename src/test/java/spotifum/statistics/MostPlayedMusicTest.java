@@ -4,6 +4,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import spotifum.musics.Artist;
 import spotifum.musics.Music;
+import spotifum.utils.TopK;
+
+import java.util.Map;
+import java.util.UUID;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class MostPlayedMusicTest {
@@ -83,4 +88,56 @@ class MostPlayedMusicTest {
         assertTrue(result.equals(music1) || result.equals(music2) || result.equals(music3));
     }
 
-}
\ No newline at end of file
+    @Test
+    void testCountsByTrackId() {
+        // Cópias de uma música contam como a mesma faixa, faixas distintas não
+        mostPlayedMusic.recordPlay(music1);
+        mostPlayedMusic.recordPlay(music1.clone());
+        mostPlayedMusic.recordPlay(music2);
+
+        Map<UUID, Integer> plays = mostPlayedMusic.getPlaysById();
+        assertEquals(2, plays.size());
+        assertEquals(Integer.valueOf(2), plays.get(music1.getMid()));
+        assertEquals(Integer.valueOf(1), plays.get(music2.getMid()));
+        assertEquals(music1, mostPlayedMusic.getMostPlayedMusic());
+    }
+
+    @Test
+    void testModeSwitchKeepsTheCounts() {
+        // Mudar de modo mantém as contagens das faixas mais tocadas
+        mostPlayedMusic.recordPlay(music1);
+        mostPlayedMusic.recordPlay(music2);
+        mostPlayedMusic.recordPlay(music2);
+
+        mostPlayedMusic.setMode(TopK.Mode.APPROXIMATE);
+        mostPlayedMusic.recordPlay(music1);
+        mostPlayedMusic.recordPlay(music1);
+        assertEquals(music1, mostPlayedMusic.getTop(1).get(0).getItem());
+        assertEquals(3, mostPlayedMusic.getTop(1).get(0).getCount());
+
+        mostPlayedMusic.setMode(TopK.Mode.EXACT);
+        mostPlayedMusic.recordPlay(music2);
+        assertEquals(Integer.valueOf(3), mostPlayedMusic.getPlaysById().get(music1.getMid()));
+        assertEquals(Integer.valueOf(3), mostPlayedMusic.getPlaysById().get(music2.getMid()));
+        assertEquals(2, mostPlayedMusic.getTop(10).size());
+    }
+
+    @Test
+    void testCountMinSketchKeepsTheMostPlayed() {
+        // Com o sketch as contagens são estimativas, nunca abaixo das reais
+        mostPlayedMusic.recordPlay(music1);
+        mostPlayedMusic.setCountMin(1024, 4);
+        mostPlayedMusic.recordPlay(music2);
+        mostPlayedMusic.recordPlay(music2);
+        mostPlayedMusic.recordPlay(music2);
+
+        assertEquals(music2, mostPlayedMusic.getTop(1).get(0).getItem());
+        assertTrue(mostPlayedMusic.getPlays(music1) >= 1);
+        assertTrue(mostPlayedMusic.getPlays(music2) >= 3);
+        assertTrue(mostPlayedMusic.getPlays(music2) <= 3 + mostPlayedMusic.getMaxError());
+
+        mostPlayedMusic.setCountMin(0, 0);
+        assertEquals(0, mostPlayedMusic.getMaxError());
+        assertEquals(Integer.valueOf(mostPlayedMusic.getPlays(music2)), mostPlayedMusic.getPlaysById().get(music2.getMid()));
+    }
+}
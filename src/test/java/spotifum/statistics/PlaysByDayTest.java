@@ -0,0 +1,94 @@
+package spotifum.statistics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import spotifum.musics.Artist;
+import spotifum.musics.Music;
+import spotifum.utils.TopK;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlaysByDayTest {
+
+    private PlaysByDay plays;
+    private Artist artist;
+    private Music song1;
+    private Music song2;
+    private LocalDate day;
+
+    @BeforeEach
+    void setUp() {
+        plays = new PlaysByDay();
+        artist = new Artist("artist@a.pt", "artist");
+        song1 = new Music("song1", "artist", "label", "lyrics", List.of(), "rock", 180);
+        song2 = new Music("song2", "artist", "label", "lyrics", List.of(), "pop", 200);
+        day = LocalDate.of(2025, 3, 1);
+    }
+
+    @Test
+    void testTopBetweenDates() {
+        // Só contam as reproduções dentro do intervalo
+        plays.recordPlay(song1, artist, day);
+        plays.recordPlay(song1, artist, day);
+        plays.recordPlay(song2, artist, day.plusDays(10));
+
+        List<TopK.Entry<Music>> tracks = plays.getTopTracks(day.plusDays(1), day.plusDays(10), 5);
+        assertEquals(1, tracks.size());
+        assertEquals(song2, tracks.get(0).getItem());
+        assertEquals(song1, plays.getTopTracks(day, day.plusDays(10), 1).get(0).getItem());
+        assertEquals(Integer.valueOf(3), Integer.valueOf(plays.getTopArtists(day, day.plusDays(10), 1).get(0).getCount()));
+        assertEquals("rock", plays.getTopGenres(day, day, 5).get(0).getItem());
+        assertTrue(plays.getTopTracks(day.plusDays(5), day, 5).isEmpty());
+        assertDoesNotThrow(() -> plays.displayTop(day, day.plusDays(10)));
+    }
+
+    @Test
+    void testRollingWindowsMatchSummingTheDays() {
+        // A semana e o mês deslizantes dão o mesmo que somar os dias
+        Music[] songs = new Music[20];
+        for (int i = 0; i < songs.length; i++) songs[i] = new Music("s" + i, "artist", "label", "lyrics", List.of(), "g" + (i % 4), 100);
+        Map<LocalDate, Map<Music, Integer>> history = new HashMap<>();
+        Random random = new Random(9);
+        LocalDate date = day;
+        for (int i = 0; i < 3000; i++) {
+            if (random.nextInt(40) == 0) date = date.plusDays(1 + random.nextInt(random.nextInt(10) == 0 ? 45 : 3));
+            LocalDate played = random.nextInt(20) == 0 ? date.minusDays(random.nextInt(40)) : date;
+            Music song = songs[(int) Math.min(songs.length - 1, Math.abs(random.nextGaussian() * 6))];
+            plays.recordPlay(song, artist, played);
+            history.computeIfAbsent(played, k -> new HashMap<>()).merge(song, 1, Integer::sum);
+
+            if (i % 100 == 99) {
+                for (int length : new int[]{PlaysByDay.WEEK, PlaysByDay.MONTH}) {
+                    LocalDate end = date.plusDays(random.nextInt(3));
+                    List<TopK.Entry<Music>> top = plays.getTopTracks(end.minusDays(length - 1), end, songs.length);
+                    Map<Music, Integer> expected = new HashMap<>();
+                    for (Map.Entry<LocalDate, Map<Music, Integer>> entry : history.entrySet()) {
+                        if (entry.getKey().isBefore(end.minusDays(length - 1)) || entry.getKey().isAfter(end)) continue;
+                        entry.getValue().forEach((music, count) -> expected.merge(music, count, Integer::sum));
+                    }
+                    assertEquals(expected.size(), top.size());
+                    for (TopK.Entry<Music> entry : top) assertEquals(expected.get(entry.getItem()).intValue(), entry.getCount());
+                }
+            }
+        }
+    }
+
+    @Test
+    void testQueriesDoNotMoveTheWindows() {
+        // Consultar uma data futura não pode deixar de fora reproduções anteriores
+        plays.recordPlay(song1, artist, day);
+        LocalDate later = day.plusDays(20);
+        assertTrue(plays.getTopTracks(later.minusDays(PlaysByDay.WEEK - 1), later, 5).isEmpty());
+
+        plays.recordPlay(song2, artist, day.plusDays(1));
+        List<TopK.Entry<Music>> week = plays.getTopTracks(day.plusDays(1).minusDays(PlaysByDay.WEEK - 1), day.plusDays(1), 5);
+        assertEquals(2, week.size());
+        List<TopK.Entry<Music>> month = plays.getTopTracks(day.minusDays(PlaysByDay.MONTH - 2), day.plusDays(1), 5);
+        assertEquals(2, month.size());
+        assertEquals(1, plays.getTopTracks(day.plusDays(1), later, 5).size());
+        assertEquals(2, plays.getTopTracks(day.plusDays(1).minusDays(PlaysByDay.WEEK - 1), later, 5).size());
+    }
+}
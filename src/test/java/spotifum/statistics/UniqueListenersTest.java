@@ -0,0 +1,62 @@
+package spotifum.statistics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import spotifum.musics.Artist;
+import spotifum.musics.Music;
+import spotifum.users.FreeUser;
+import spotifum.users.User;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UniqueListenersTest {
+
+    private UniqueListeners listeners;
+    private Artist artist;
+    private Music song1;
+    private Music song2;
+
+    @BeforeEach
+    void setUp() {
+        listeners = new UniqueListeners(StatisticsManager.LISTENER_SKETCH_PRECISION);
+        artist = new Artist("artist@a.pt", "artist");
+        song1 = new Music("song1", "artist", "label", "lyrics", List.of(), "rock", 180);
+        song2 = new Music("song2", "artist", "label", "lyrics", List.of(), "pop", 200);
+    }
+
+    @Test
+    void testRepeatPlaysCountOneListener() {
+        // Um utilizador em repetição conta apenas uma vez
+        User user = new FreeUser("user@a.pt", "user");
+        for (int i = 0; i < 100; i++) listeners.recordPlay(user, song1, artist);
+        for (int i = 0; i < 50; i++) listeners.recordPlay(new FreeUser("u" + i + "@a.pt", "u" + i), song2, artist);
+
+        assertEquals(1, listeners.getListeners(song1));
+        // As estimativas podem falhar por um ou dois quando dois utilizadores partilham um registo
+        assertEquals(50, listeners.getListeners(song2), 2);
+        assertEquals(51, listeners.getListeners(artist), 2);
+        assertEquals(1, listeners.getListeners("rock"));
+        assertEquals(song2, listeners.getTopTracks(1).get(0).getItem());
+        assertEquals("pop", listeners.getTopGenres(1).get(0).getItem());
+        assertDoesNotThrow(() -> listeners.getMostListenedTo());
+    }
+
+    @Test
+    void testMergeCountsSharedListenersOnce() {
+        // Juntar dois dias não conta duas vezes o mesmo utilizador
+        UniqueListeners other = new UniqueListeners(StatisticsManager.LISTENER_SKETCH_PRECISION);
+        for (int i = 0; i < 30; i++) {
+            User user = new FreeUser("u" + i + "@a.pt", "u" + i);
+            listeners.recordPlay(user, song1, artist);
+            if (i >= 10) other.recordPlay(user, song1, artist);
+        }
+        other.recordPlay(new FreeUser("new@a.pt", "new"), song1, null);
+
+        listeners.merge(other);
+        assertEquals(31, listeners.getListeners(song1), 2);
+        assertEquals(30, listeners.getListeners(artist), 2);
+        assertThrows(IllegalArgumentException.class, () -> listeners.merge(new UniqueListeners(8)));
+    }
+}
@@ -8,6 +8,7 @@ import spotifum.users.PremiumBaseUser;
 import spotifum.users.PremiumTopUser;
 import spotifum.users.User;
 
+import java.util.List;
 import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -153,4 +154,24 @@ class UserLeaderBoardTest {
     void testRecordPlayWithNullMusic() {
         assertDoesNotThrow(() -> leaderBoard.recordPlay(freeUser, null));
     }
-}
\ No newline at end of file
+
+    @Test
+    void testRankFollowsTotals() {
+        leaderBoard.recordPlay(freeUser, song1);
+        leaderBoard.recordPlay(premiumBaseUser, song1);
+        leaderBoard.recordPlay(premiumTopUser, song2);
+
+        assertEquals(List.of(premiumTopUser, premiumBaseUser, freeUser), leaderBoard.getTopUsers(5));
+        assertEquals(3, leaderBoard.getRank(freeUser));
+        assertEquals(5.0, leaderBoard.getPoints(freeUser), 0.001);
+
+        // Pontos por música somam ao total do utilizador
+        for (int i = 0; i < 3; i++) leaderBoard.recordPlay(freeUser, song2);
+        assertEquals(2, leaderBoard.getRank(freeUser));
+        assertEquals(5 + 5 + 5 * 0.025 + 5.125 * 0.025, leaderBoard.getPoints(freeUser), 0.001);
+
+        leaderBoard.removeUser(premiumTopUser);
+        assertEquals(0, leaderBoard.getRank(premiumTopUser));
+        assertEquals(List.of(freeUser, premiumBaseUser), leaderBoard.getTopUsers(5));
+    }
+}
@@ -4,7 +4,9 @@ import org.junit.jupiter.api.Test;
 import spotifum.exceptions.EntityAlreadyExistsException;
 import spotifum.exceptions.EntityNotFoundException;
 import spotifum.playlists.Playlist;
+import spotifum.playlists.PremiumPlaylist;
 import spotifum.musics.Music;
+import spotifum.utils.Page;
 import java.util.*;
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -235,4 +237,117 @@ public class UserManagerTest {
         assertEquals(1, usersPlaylists.size());
         assertEquals(2, usersPlaylists.get(user).size());
     }
-}
\ No newline at end of file
+
+    /**
+     * Test delete cascades only reach the playlists holding the tracks.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    void testDeleteCascadesFollowPlaylistChanges() throws Exception {
+        UserManager manager = new UserManager();
+        Music a = new Music("a", "ye", "", "", new ArrayList<>(), "rap", 10);
+        Music b = new Music("b", "ye", "", "", new ArrayList<>(), "rap", 10);
+        Music c = new Music("c", "ye", "", "", new ArrayList<>(), "rap", 10);
+        User joao = new TestUser("joao@test.com", "joao");
+        User maria = new TestUser("maria@test.com", "maria");
+        Playlist first = new PremiumPlaylist("first", "joao");
+        Playlist second = new PremiumPlaylist("second", "maria");
+        first.addMusic(a);
+        first.addMusic(b);
+        second.addMusic(b);
+        joao.createPlaylist(first);
+        maria.createPlaylist(second);
+        manager.insertUser(joao);
+        manager.insertUser(maria);
+
+        manager.deleteMusicFromPlaylists(new Music(a));
+        assertEquals(List.of(b), first.getTracks());
+
+        second.addMusicToIndex(c, 0);
+        manager.updateUser(maria);
+        Map<UUID, Music> artistTracks = new HashMap<>();
+        artistTracks.put(b.getMid(), b);
+        artistTracks.put(c.getMid(), c);
+        manager.removeTracksFromPlaylists(artistTracks);
+        assertTrue(first.getTracks().isEmpty());
+        assertTrue(second.getTracks().isEmpty());
+
+        Playlist third = new PremiumPlaylist("third", "maria");
+        third.addMusic(a);
+        maria.createPlaylist(third);
+        manager.updateUser(maria);
+        manager.removeUser("maria@test.com");
+        manager.deleteMusicFromPlaylists(a);
+        assertEquals(List.of(a), third.getTracks());
+    }
+
+    /**
+     * Test the public playlist directory follows playlist and user changes.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    void testPublicDirectoryFollowsPlaylistChanges() throws Exception {
+        UserManager manager = new UserManager();
+        User joao = new TestUser("joao@test.com", "joao");
+        User maria = new TestUser("maria@test.com", "maria");
+        Playlist road = new PremiumPlaylist("Road Trip", "joao");
+        Playlist gym = new PremiumPlaylist("gym", "maria");
+        road.setPublic(true);
+        gym.setPublic(false);
+        joao.createPlaylist(road);
+        maria.createPlaylist(gym);
+        manager.insertUser(joao);
+        manager.insertUser(maria);
+
+        assertEquals(Set.of(road.getId()), manager.getPublicPlaylists().keySet());
+        assertEquals(Set.of(road.getId()), manager.getPublicPlaylists(maria, "road").keySet());
+        assertTrue(manager.getPublicPlaylists(joao, "road").isEmpty());
+
+        gym.setPublic(true);
+        road.setName("Night Drive");
+        manager.updateUser(maria);
+        manager.updateUser(joao);
+        assertTrue(manager.getPublicPlaylists(maria, "road").isEmpty());
+        assertEquals(Set.of(road.getId()), manager.getPublicPlaylists(maria, "DRIVE").keySet());
+        assertEquals(Set.of(road.getId(), gym.getId()), manager.getPublicPlaylists().keySet());
+
+        joao.setUsername("joao silva");
+        road.setPublic(false);
+        manager.updateUser(joao);
+        assertEquals(Set.of(gym.getId()), manager.getPublicPlaylists(null, "").keySet());
+        assertEquals("joao silva", road.getOwner());
+
+        Map<UUID, Playlist> playlists = joao.getPlaylists();
+        playlists.remove(road.getId());
+        Playlist mix = new PremiumPlaylist("gym mix", "joao");
+        mix.setPublic(true);
+        playlists.put(mix.getId(), mix);
+        joao.setPlaylists(playlists);
+        manager.updateUser(joao);
+        assertEquals(Set.of(gym.getId(), mix.getId()), manager.getPublicPlaylists(null, "gym").keySet());
+
+        manager.removeUser("maria@test.com");
+        assertEquals(Set.of(mix.getId()), manager.getPublicPlaylists().keySet());
+    }
+
+    /**
+     * Test page users.
+     *
+     * @throws EntityAlreadyExistsException the entity already exists exception
+     */
+    @Test
+    void testPageUsers() throws EntityAlreadyExistsException {
+        UserManager manager = new UserManager();
+        for (String name : List.of("c", "a", "b")) manager.insertUser(new TestUser(name + "@test.com", name));
+
+        Page<User> first = manager.pageUsers(null, 2);
+        assertEquals(List.of("a@test.com", "b@test.com"), first.getItems().stream().map(User::getEmail).toList());
+        Page<User> last = manager.pageUsers(first.getNext(), 2);
+        assertEquals(List.of("c@test.com"), last.getItems().stream().map(User::getEmail).toList());
+        assertFalse(last.hasNext());
+        assertTrue(manager.pageUsers("c@test.com", 2).isEmpty());
+        assertEquals(3, manager.streamUsers(null).count());
+    }
+}
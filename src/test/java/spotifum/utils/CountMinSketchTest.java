@@ -0,0 +1,53 @@
+package spotifum.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The type Count min sketch test.
+ */
+public class CountMinSketchTest {
+
+    /**
+     * Test estimates are never under and mostly within the bound.
+     */
+    @Test
+    public void testEstimatesStayWithinTheBound() {
+        CountMinSketch sketch = new CountMinSketch(2000, 4);
+        Map<Long, Integer> counts = new HashMap<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 100000; i++) {
+            long item = (long) Math.abs(random.nextGaussian() * 5000);
+            int estimate = sketch.add(item, 1);
+            int count = counts.merge(item, 1, Integer::sum);
+            assertTrue(estimate >= count);
+        }
+
+        assertEquals(100000, sketch.getTotal());
+        int over = 0;
+        for (Map.Entry<Long, Integer> entry : counts.entrySet()) {
+            int estimate = sketch.estimate(entry.getKey());
+            assertTrue(estimate >= entry.getValue());
+            if (estimate - entry.getValue() > sketch.getMaxError()) over++;
+        }
+        assertTrue(over <= counts.size() / 20);
+    }
+
+    /**
+     * Test a sketch rebuilt from its counters gives the same estimates.
+     */
+    @Test
+    public void testRebuildFromCounters() {
+        CountMinSketch sketch = new CountMinSketch(64, 3);
+        for (long item = 0; item < 500; item++) sketch.add(item, (int) (item % 7) + 1);
+
+        CountMinSketch copy = CountMinSketch.of(64, 3, sketch.getTotal(), sketch.toArray());
+        for (long item = 0; item < 500; item++) assertEquals(sketch.estimate(item), copy.estimate(item));
+        assertEquals(sketch.getMaxError(), copy.getMaxError());
+        assertThrows(IllegalArgumentException.class, () -> CountMinSketch.of(64, 2, 0, sketch.toArray()));
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0, 3));
+    }
+}
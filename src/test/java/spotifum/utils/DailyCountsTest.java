@@ -0,0 +1,65 @@
+package spotifum.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The type Daily counts test.
+ */
+public class DailyCountsTest {
+
+    /**
+     * Test range totals match summing the days, whatever order the days come in.
+     */
+    @Test
+    public void testRangesMatchSummingTheDays() {
+        DailyCounts counts = new DailyCounts();
+        Map<LocalDate, Integer> days = new HashMap<>();
+        LocalDate start = LocalDate.of(2024, 1, 1);
+        Random random = new Random(3);
+        for (int i = 0; i < 2000; i++) {
+            LocalDate date = start.plusDays(i < 1500 ? i / 5 : random.nextInt(400));
+            boolean added = counts.add(date, 1);
+            assertEquals(!days.containsKey(date), added);
+            days.merge(date, 1, Integer::sum);
+        }
+
+        assertEquals(2000, counts.total());
+        assertEquals(days.size(), counts.size());
+        for (int i = 0; i < 200; i++) {
+            LocalDate from = start.plusDays(random.nextInt(420) - 10);
+            LocalDate to = from.plusDays(random.nextInt(60));
+            int expected = 0;
+            for (Map.Entry<LocalDate, Integer> day : days.entrySet()) {
+                if (!day.getKey().isBefore(from) && !day.getKey().isAfter(to)) expected += day.getValue();
+            }
+            assertEquals(expected, counts.between(from, to));
+        }
+        assertEquals(0, counts.between(start.plusDays(5), start));
+    }
+
+    /**
+     * Test the days come back in date order with their counts.
+     */
+    @Test
+    public void testDaysInDateOrder() {
+        DailyCounts counts = new DailyCounts();
+        LocalDate day = LocalDate.of(2025, 5, 10);
+        counts.add(day, 2);
+        counts.add(day.minusDays(3), 1);
+        counts.add(day.plusDays(1), 4);
+        counts.add(day, 1);
+
+        assertEquals(3, counts.size());
+        assertEquals(day.minusDays(3), counts.dateAt(0));
+        assertEquals(1, counts.countAt(0));
+        assertEquals(3, counts.countAt(1));
+        assertEquals(4, counts.countAt(2));
+        assertEquals(3, counts.get(day));
+        assertEquals(0, counts.get(day.minusDays(1)));
+    }
+}
@@ -0,0 +1,68 @@
+package spotifum.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The type Fuzzy index test.
+ */
+public class FuzzyIndexTest {
+
+    /**
+     * Test distance stops at the bound.
+     */
+    @Test
+    public void testDistance() {
+        assertEquals(0, FuzzyIndex.distance("keef", "keef", 2));
+        assertEquals(1, FuzzyIndex.distance("kef", "keef", 1));
+        assertEquals(1, FuzzyIndex.distance("keif", "keef", 1));
+        assertEquals(3, FuzzyIndex.distance("kitten", "sitting", 3));
+        assertEquals(3, FuzzyIndex.distance("kitten", "sitting", 2));
+        assertEquals(2, FuzzyIndex.distance("a", "abcd", 1));
+    }
+
+    /**
+     * Test max distance grows with the word.
+     */
+    @Test
+    public void testMaxDistance() {
+        assertEquals(0, FuzzyIndex.maxDistance(2));
+        assertEquals(1, FuzzyIndex.maxDistance(3));
+        assertEquals(1, FuzzyIndex.maxDistance(5));
+        assertEquals(2, FuzzyIndex.maxDistance(6));
+    }
+
+    /**
+     * Test words.
+     */
+    @Test
+    public void testWords() {
+        assertEquals(Set.of("love", "s", "gone"), FuzzyIndex.words("Love's  Gone"));
+        assertEquals(Set.of("cafe", "del", "mar"), FuzzyIndex.words("Café del Mar"));
+    }
+
+    /**
+     * Test search tolerates typos in every word.
+     */
+    @Test
+    public void testSearch() {
+        FuzzyIndex index = new FuzzyIndex();
+        Map<Integer, String> names = new HashMap<>(Map.of(1, "Chief Keef", 2, "Keep Moving", 3, "Love Sosa"));
+        names.forEach(index::add);
+
+        assertEquals(Map.of(1, 1), index.search("kef", names::get));
+        assertEquals(Map.of(1, 1), index.search("chief keif", names::get));
+        assertEquals(Map.of(3, 2), index.search("lov sossa", names::get));
+        assertTrue(index.search("chief moving", names::get).isEmpty());
+        assertTrue(index.search("", names::get).isEmpty());
+
+        index.remove(1, names.remove(1));
+        assertTrue(index.search("kef", names::get).isEmpty());
+        assertEquals(Map.of(2, 1), index.search("keep movin", names::get));
+    }
+}
@@ -0,0 +1,43 @@
+package spotifum.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The type Gram index test.
+ */
+public class GramIndexTest {
+
+    /**
+     * Test grams.
+     */
+    @Test
+    public void testGrams() {
+        assertEquals(Set.of("a", "b", "ab"), GramIndex.grams("ab"));
+        assertEquals(9, GramIndex.grams("abcd").size());
+        assertTrue(GramIndex.grams("").isEmpty());
+    }
+
+    /**
+     * Test search.
+     */
+    @Test
+    public void testSearch() {
+        Map<Integer, String> texts = Map.of(3, "road trip", 1, "roadhouse", 2, "trip hop");
+        GramIndex index = new GramIndex();
+        for (Map.Entry<Integer, String> entry : texts.entrySet()) index.add(entry.getKey(), entry.getValue());
+
+        assertArrayEquals(new int[]{1, 3}, index.search("road", texts::get));
+        assertArrayEquals(new int[]{2, 3}, index.search("trip", texts::get));
+        assertArrayEquals(new int[]{1, 2, 3}, index.search("o", texts::get));
+        assertArrayEquals(new int[0], index.search("dhop", texts::get));
+
+        index.remove(3, "road trip");
+        assertArrayEquals(new int[]{1}, index.search("road", texts::get));
+        assertArrayEquals(new int[]{2}, index.search("tri", texts::get));
+    }
+}
@@ -0,0 +1,70 @@
+package spotifum.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The type Hyper log log test.
+ */
+public class HyperLogLogTest {
+
+    /**
+     * Test estimates stay close from a few items to many.
+     */
+    @Test
+    public void testEstimatesStayClose() {
+        HyperLogLog sketch = new HyperLogLog(12);
+        assertEquals(0, sketch.estimate());
+        int[] checkpoints = {10, 1000, 100000};
+        int added = 0;
+        for (int checkpoint : checkpoints) {
+            while (added < checkpoint) {
+                sketch.add(added);
+                added++;
+            }
+            for (int i = 0; i < checkpoint; i += 7) sketch.add(i);
+            double error = Math.abs(sketch.estimate() - checkpoint) / (double) checkpoint;
+            assertTrue(error < 0.05, checkpoint + " estimated as " + sketch.estimate());
+        }
+        assertFalse(sketch.add(5));
+    }
+
+    /**
+     * Test merging counts the union once.
+     */
+    @Test
+    public void testMergeCountsTheUnion() {
+        HyperLogLog monday = new HyperLogLog(12);
+        HyperLogLog tuesday = new HyperLogLog(12);
+        HyperLogLog both = new HyperLogLog(12);
+        for (long i = 0; i < 30000; i++) {
+            monday.add(i);
+            both.add(i);
+        }
+        for (long i = 20000; i < 50000; i++) {
+            tuesday.add(i);
+            both.add(i);
+        }
+
+        monday.merge(tuesday);
+        assertEquals(both.estimate(), monday.estimate());
+        assertArrayEquals(both.toArray(), monday.toArray());
+        assertThrows(IllegalArgumentException.class, () -> monday.merge(new HyperLogLog(10)));
+    }
+
+    /**
+     * Test a sketch rebuilt from its registers gives the same estimate.
+     */
+    @Test
+    public void testRebuildFromRegisters() {
+        HyperLogLog sparse = new HyperLogLog(10);
+        HyperLogLog dense = new HyperLogLog(10);
+        for (long i = 0; i < 50; i++) sparse.add(i);
+        for (long i = 0; i < 5000; i++) dense.add(i);
+
+        assertEquals(sparse.estimate(), HyperLogLog.of(10, sparse.toArray()).estimate());
+        assertEquals(dense.estimate(), HyperLogLog.of(10, dense.toArray()).estimate());
+        assertThrows(IllegalArgumentException.class, () -> HyperLogLog.of(4, dense.toArray()));
+    }
+}
@@ -0,0 +1,82 @@
+package spotifum.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The type Id registry test.
+ */
+public class IdRegistryTest {
+
+    /**
+     * Test keys are dense and stable.
+     */
+    @Test
+    public void testKeysAreDenseAndStable() {
+        IdRegistry registry = new IdRegistry();
+        UUID first = UUID.randomUUID();
+        UUID second = UUID.randomUUID();
+
+        assertEquals(0, registry.find(first));
+        assertEquals(1, registry.keyOf(first));
+        assertEquals(2, registry.keyOf(second));
+        assertEquals(1, registry.keyOf(first));
+        assertEquals(2, registry.find(second));
+        assertEquals(second, registry.idOf(2));
+        assertNull(registry.idOf(0));
+        assertNull(registry.idOf(3));
+        assertEquals(2, registry.getMaxKey());
+
+        for (int i = 0; i < 100; i++) registry.keyOf(UUID.randomUUID());
+        assertEquals(102, registry.getMaxKey());
+        assertEquals(102, registry.size());
+        assertEquals(first, registry.idOf(1));
+    }
+
+    /**
+     * Test released keys are reused.
+     */
+    @Test
+    public void testReleasedKeysAreReused() {
+        IdRegistry registry = new IdRegistry();
+        List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            ids.add(UUID.randomUUID());
+            registry.keyOf(ids.get(i));
+        }
+        for (int i = 0; i < 1000; i += 2) assertEquals(i + 1, registry.release(ids.get(i)));
+        assertEquals(0, registry.release(ids.get(0)));
+        assertEquals(500, registry.size());
+        for (int i = 1; i < 1000; i += 2) {
+            assertEquals(i + 1, registry.find(ids.get(i)));
+            assertEquals(ids.get(i), registry.idOf(i + 1));
+        }
+        assertEquals(0, registry.find(ids.get(0)));
+        assertNull(registry.idOf(1));
+
+        for (int i = 0; i < 500; i++) assertTrue(registry.keyOf(UUID.randomUUID()) <= 1000);
+        assertEquals(1000, registry.getMaxKey());
+        assertEquals(1001, registry.keyOf(UUID.randomUUID()));
+    }
+
+    /**
+     * Test registries are independent.
+     */
+    @Test
+    public void testRegistriesAreIndependent() {
+        IdRegistry one = new IdRegistry();
+        IdRegistry other = new IdRegistry();
+        UUID id = UUID.randomUUID();
+        one.keyOf(UUID.randomUUID());
+
+        assertEquals(2, one.keyOf(id));
+        assertEquals(1, other.keyOf(id));
+        one.release(id);
+        assertEquals(1, other.find(id));
+    }
+}
@@ -0,0 +1,49 @@
+package spotifum.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The type Int double map test.
+ */
+public class IntDoubleMapTest {
+
+    /**
+     * Test put, add and get.
+     */
+    @Test
+    public void testPutAddAndGet() {
+        IntDoubleMap map = new IntDoubleMap();
+        map.put(3, 1.5);
+        assertEquals(4.0, map.add(3, 2.5));
+        assertEquals(2.0, map.add(9, 2));
+        assertEquals(0.0, map.get(4));
+        assertFalse(map.containsKey(4));
+        assertTrue(map.containsKey(9));
+        assertEquals(2, map.size());
+    }
+
+    /**
+     * Test grows and keeps every key.
+     */
+    @Test
+    public void testGrowsAndKeepsEveryKey() {
+        IntDoubleMap map = new IntDoubleMap();
+        Map<Integer, Double> expected = new HashMap<>();
+        Random random = new Random(3);
+        for (int i = 0; i < 20000; i++) {
+            int key = 1 + random.nextInt(1 << 20);
+            map.add(key, 1);
+            expected.merge(key, 1.0, Double::sum);
+        }
+
+        assertEquals(expected.size(), map.size());
+        assertEquals(expected.size(), map.keys().length);
+        Map<Integer, Double> visited = new HashMap<>();
+        map.forEach(visited::put);
+        assertEquals(expected, visited);
+    }
+}
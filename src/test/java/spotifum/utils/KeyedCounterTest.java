@@ -0,0 +1,66 @@
+package spotifum.utils;
+
+import org.junit.jupiter.api.Test;
+import spotifum.musics.Artist;
+
+import java.io.*;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The type Keyed counter test.
+ */
+public class KeyedCounterTest {
+
+    /**
+     * Test add and remove.
+     */
+    @Test
+    public void testAddAndRemove() {
+        KeyedCounter<Artist> counter = new KeyedCounter<>();
+        Artist ye = new Artist("ye@asd.pt", "ye");
+        Artist drake = new Artist("drake@asd.pt", "drake");
+
+        assertEquals(1, counter.add(ye, 1));
+        assertEquals(3, counter.add(new Artist(ye), 2));
+        counter.add(drake, 1);
+
+        assertEquals(2, counter.size());
+        assertEquals(3, counter.get(ye));
+        assertEquals(0, counter.get(new Artist("kanye@asd.pt", "kanye")));
+        assertEquals(1, counter.toMap().get(drake).intValue());
+
+        counter.remove(drake);
+        assertEquals(1, counter.size());
+        assertEquals(0, counter.get(drake));
+        assertFalse(counter.toMap().containsKey(drake));
+    }
+
+    /**
+     * Test serialization keeps the counts.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testSerializationKeepsTheCounts() throws Exception {
+        KeyedCounter<Artist> counter = new KeyedCounter<>();
+        Artist ye = new Artist("ye@asd.pt", "ye");
+        counter.add(ye, 5);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(counter);
+        }
+        KeyedCounter<Artist> loaded;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            loaded = (KeyedCounter<Artist>) in.readObject();
+        }
+
+        Map<Artist, Integer> map = loaded.toMap();
+        assertEquals(1, map.size());
+        assertEquals(5, loaded.get(ye));
+        assertEquals("ye", map.keySet().iterator().next().getUsername());
+    }
+}
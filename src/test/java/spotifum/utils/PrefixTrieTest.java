@@ -0,0 +1,72 @@
+package spotifum.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The type Prefix trie test.
+ */
+public class PrefixTrieTest {
+
+    /**
+     * Test normalize.
+     */
+    @Test
+    public void testNormalize() {
+        assertEquals("cafe del mar", PrefixTrie.normalize("  Café  Del Mar "));
+        assertEquals("road trip", PrefixTrie.normalize("Road Trip"));
+        assertEquals("", PrefixTrie.normalize(null));
+    }
+
+    /**
+     * Test complete ranks by score.
+     */
+    @Test
+    public void testComplete() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.put(1, "Road Trip", 5);
+        trie.put(2, "Roadhouse Blues", 9);
+        trie.put(3, "Rock", 1);
+        trie.put(4, "Hey Jude", 20);
+
+        assertArrayEquals(new int[]{2, 1, 3}, trie.complete("ro", 10));
+        assertArrayEquals(new int[]{2, 1}, trie.complete("ROAD", 10));
+        assertArrayEquals(new int[]{2}, trie.complete("r", 1));
+        assertArrayEquals(new int[]{4, 2, 1, 3}, trie.complete("", 10));
+        assertArrayEquals(new int[0], trie.complete("roads", 10));
+
+        trie.add(3, 10);
+        assertArrayEquals(new int[]{3, 2, 1}, trie.complete("ro", 10));
+        trie.add(3, -10);
+        assertArrayEquals(new int[]{2, 1, 3}, trie.complete("ro", 10));
+    }
+
+    /**
+     * Test put and remove keep the trie consistent.
+     */
+    @Test
+    public void testPutAndRemove() {
+        PrefixTrie trie = new PrefixTrie();
+        trie.put(1, "abc", 3);
+        trie.put(2, "abd", 7);
+        trie.put(3, "ab", 1);
+        assertEquals(3, trie.size());
+
+        trie.remove(2);
+        assertArrayEquals(new int[]{1, 3}, trie.complete("ab", 10));
+        assertArrayEquals(new int[0], trie.complete("abd", 10));
+
+        trie.put(1, "xyz", 0);
+        assertEquals("xyz", trie.getName(1));
+        assertEquals(3, trie.getScore(1));
+        assertArrayEquals(new int[]{3}, trie.complete("a", 10));
+        assertArrayEquals(new int[]{1}, trie.complete("x", 10));
+
+        trie.remove(3);
+        trie.remove(1);
+        assertEquals(0, trie.size());
+        assertFalse(trie.contains(1));
+        assertArrayEquals(new int[0], trie.complete("", 10));
+    }
+}
@@ -0,0 +1,85 @@
+package spotifum.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The type Rank tree test.
+ */
+public class RankTreeTest {
+
+    private static Keyed entity(int key) {
+        UUID id = new UUID(0, key);
+        return () -> id;
+    }
+
+    private static int keyOf(Keyed entity) {
+        return (int) entity.getId().getLeastSignificantBits();
+    }
+
+    /**
+     * Test ranks follow score updates.
+     */
+    @Test
+    public void testRanksFollowScoreUpdates() {
+        RankTree<Keyed> tree = new RankTree<>();
+        Keyed a = entity(1);
+        Keyed b = entity(2);
+        Keyed c = entity(3);
+        tree.put(a, 10);
+        tree.put(b, 30);
+        tree.put(c, 10);
+
+        assertEquals(List.of(b, a, c), tree.top(5));
+        assertEquals(1, tree.rank(b));
+        assertEquals(3, tree.rank(c));
+        assertSame(a, tree.atRank(2));
+
+        tree.put(c, 40);
+        assertEquals(List.of(c, b), tree.top(2));
+        assertEquals(40.0, tree.score(c));
+        assertEquals(3, tree.rank(a));
+
+        assertTrue(tree.remove(b));
+        assertFalse(tree.remove(b));
+        assertEquals(0, tree.rank(b));
+        assertEquals(2, tree.size());
+        assertEquals(List.of(c, a), tree.top(5));
+        assertNull(tree.atRank(3));
+    }
+
+    /**
+     * Test matches a sorted list.
+     */
+    @Test
+    public void testMatchesASortedList() {
+        RankTree<Keyed> tree = new RankTree<>();
+        Map<Integer, Double> scores = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 5000; i++) {
+            int key = 1 + random.nextInt(300);
+            if (random.nextInt(10) == 0) {
+                assertEquals(scores.remove(key) != null, tree.remove(entity(key)));
+            } else {
+                double score = random.nextInt(50);
+                scores.put(key, score);
+                tree.put(entity(key), score);
+            }
+        }
+
+        List<Integer> expected = new ArrayList<>(scores.keySet());
+        expected.sort(Comparator.comparing((Integer key) -> -scores.get(key)).thenComparing(key -> key));
+        assertEquals(expected.size(), tree.size());
+        for (int rank = 1; rank <= expected.size(); rank++) {
+            int key = expected.get(rank - 1);
+            assertEquals(rank, tree.rank(entity(key)));
+            assertEquals(key, keyOf(tree.atRank(rank)));
+        }
+        List<Integer> top = new ArrayList<>();
+        for (Keyed keyed : tree.top(20)) top.add(keyOf(keyed));
+        assertEquals(expected.subList(0, 20), top);
+    }
+}
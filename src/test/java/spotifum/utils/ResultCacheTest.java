@@ -0,0 +1,65 @@
+package spotifum.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The type Result cache test.
+ */
+public class ResultCacheTest {
+
+    /**
+     * Test hits and misses.
+     */
+    @Test
+    public void testHitsAndMisses() {
+        ResultCache<String, List<Integer>> cache = new ResultCache<>("test", 10, List::size);
+        int[] computed = {0};
+        List<Integer> first = cache.get("a", 0, () -> { computed[0]++; return List.of(1, 2); });
+        assertSame(first, cache.get("a", 0, () -> { computed[0]++; return List.of(3); }));
+        assertEquals(1, computed[0]);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(2, cache.getWeight());
+    }
+
+    /**
+     * Test least recently used results are evicted by weight.
+     */
+    @Test
+    public void testEvictsLeastRecentlyUsed() {
+        ResultCache<String, List<Integer>> cache = new ResultCache<>("test", 4, List::size);
+        cache.get("a", 0, () -> List.of(1, 2));
+        cache.get("b", 0, () -> List.of(1));
+        cache.get("a", 0, () -> List.of());
+        cache.get("c", 0, () -> List.of(1, 2));
+        assertEquals(1, cache.getEvictions());
+        assertEquals(2, cache.size());
+        assertEquals(4, cache.getWeight());
+
+        int[] computed = {0};
+        cache.get("a", 0, () -> { computed[0]++; return List.of(); });
+        cache.get("b", 0, () -> { computed[0]++; return List.of(1); });
+        assertEquals(1, computed[0]);
+
+        cache.get("big", 0, () -> List.of(1, 2, 3, 4, 5));
+        assertEquals(0, cache.get("big", 0, () -> List.of()).size());
+    }
+
+    /**
+     * Test a new version drops every result.
+     */
+    @Test
+    public void testNewVersionInvalidates() {
+        ResultCache<String, List<Integer>> cache = new ResultCache<>("test", 10, List::size);
+        cache.get("a", 0, () -> List.of(1));
+        cache.get("b", 0, () -> List.of(2));
+        assertEquals(List.of(9), cache.get("a", 1, () -> List.of(9)));
+        assertEquals(2, cache.getInvalidations());
+        assertEquals(1, cache.size());
+        assertTrue(cache.report().contains("test:"));
+    }
+}
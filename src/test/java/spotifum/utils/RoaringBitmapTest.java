@@ -0,0 +1,75 @@
+package spotifum.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The type Roaring bitmap test.
+ */
+public class RoaringBitmapTest {
+
+    /**
+     * Test add, remove and contains across containers.
+     */
+    @Test
+    public void testAddRemoveContains() {
+        RoaringBitmap bitmap = RoaringBitmap.of(1, 5, 70000);
+        assertTrue(bitmap.contains(5));
+        assertTrue(bitmap.contains(70000));
+        assertFalse(bitmap.contains(6));
+        assertFalse(bitmap.add(5));
+        assertTrue(bitmap.remove(70000));
+        assertFalse(bitmap.remove(70000));
+        assertArrayEquals(new int[]{1, 5}, bitmap.toArray());
+        bitmap.remove(1);
+        bitmap.remove(5);
+        assertTrue(bitmap.isEmpty());
+    }
+
+    /**
+     * Test set operations match sorted sets, on sparse and dense containers.
+     */
+    @Test
+    public void testOperationsMatchSets() {
+        Random random = new Random(42);
+        for (int round = 0; round < 20; round++) {
+            RoaringBitmap a = new RoaringBitmap();
+            RoaringBitmap b = new RoaringBitmap();
+            TreeSet<Integer> setA = new TreeSet<>();
+            TreeSet<Integer> setB = new TreeSet<>();
+            int range = round % 2 == 0 ? 200_000 : 10_000;
+            int count = random.nextInt(12_000);
+            for (int i = 0; i < count; i++) {
+                int x = random.nextInt(range);
+                int y = random.nextInt(range);
+                assertEquals(setA.add(x), a.add(x));
+                assertEquals(setB.add(y), b.add(y));
+            }
+            for (int i = 0; i < count / 3; i++) {
+                int x = random.nextInt(range);
+                assertEquals(setA.remove(x), a.remove(x));
+            }
+
+            TreeSet<Integer> and = new TreeSet<>(setA);
+            and.retainAll(setB);
+            TreeSet<Integer> or = new TreeSet<>(setA);
+            or.addAll(setB);
+            TreeSet<Integer> andNot = new TreeSet<>(setA);
+            andNot.removeAll(setB);
+
+            assertEquals(setA.size(), a.cardinality());
+            assertArrayEquals(toArray(setA), a.toArray());
+            assertArrayEquals(toArray(and), a.and(b).toArray());
+            assertArrayEquals(toArray(or), a.or(b).toArray());
+            assertArrayEquals(toArray(andNot), a.andNot(b).toArray());
+            assertEquals(and.size(), a.andCardinality(b));
+        }
+    }
+
+    private static int[] toArray(Set<Integer> set) {
+        return set.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,82 @@
+package spotifum.utils;
+
+import org.junit.jupiter.api.Test;
+import spotifum.musics.Music;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The type String pool test.
+ */
+public class StringPoolTest {
+
+    /**
+     * Test intern returns the first copy.
+     */
+    @Test
+    public void testInternReturnsTheFirstCopy() {
+        StringPool pool = new StringPool("test");
+        String first = new String("rock");
+        String second = new String("rock");
+
+        assertSame(first, pool.intern(first));
+        assertSame(first, pool.intern(second));
+        assertSame(first, pool.intern(first));
+        assertNull(pool.intern(null));
+        assertEquals(1, pool.size());
+        assertEquals(3, pool.getLookups());
+        assertEquals(1, pool.getShared());
+        assertEquals(StringPool.sizeOf(second), pool.getReplacedBytes());
+        assertEquals(48, StringPool.sizeOf("rock"));
+    }
+
+    /**
+     * Test intern all copies the list.
+     */
+    @Test
+    public void testInternAllCopiesTheList() {
+        StringPool pool = new StringPool("test");
+        List<String> notes = new ArrayList<>(Arrays.asList(new String("do"), new String("re"), new String("do")));
+
+        List<String> interned = pool.internAll(notes);
+
+        assertEquals(notes, interned);
+        assertNotSame(notes, interned);
+        assertSame(interned.get(0), interned.get(2));
+        assertTrue(pool.internAll(null).isEmpty());
+    }
+
+    /**
+     * Test musics share catalog fields.
+     *
+     * @throws Exception the exception
+     */
+    @Test
+    public void testMusicsShareCatalogFields() throws Exception {
+        Music a = new Music("a", new String("ye"), new String("def jam"), "", new ArrayList<>(List.of(new String("do"))), new String("rap"), 10);
+        Music b = new Music("b", new String("ye"), new String("def jam"), "", new ArrayList<>(List.of(new String("do"))), new String("rap"), 20);
+        b.setGenre(new String("rap"));
+
+        assertSame(a.getArtist(), b.getArtist());
+        assertSame(a.getLabel(), b.getLabel());
+        assertSame(a.getGenre(), b.getGenre());
+        assertSame(a.getMusic().get(0), b.getMusic().get(0));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(b);
+        }
+        Music loaded;
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            loaded = (Music) in.readObject();
+        }
+        assertSame(a.getGenre(), loaded.getGenre());
+        assertSame(a.getArtist(), loaded.getArtist());
+        assertSame(a.getMusic().get(0), loaded.getMusic().get(0));
+    }
+}
@@ -0,0 +1,87 @@
+package spotifum.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The type Top k test.
+ */
+public class TopKTest {
+
+    /**
+     * Test exact mode matches the sorted counts.
+     */
+    @Test
+    public void testExactModeMatchesSortedCounts() {
+        TopK<Integer> top = new TopK<>(TopK.Mode.EXACT, 10);
+        Map<Integer, Integer> counts = new HashMap<>();
+        Random random = new Random(5);
+        for (int i = 0; i < 20000; i++) {
+            int item = (int) Math.abs(random.nextGaussian() * 40);
+            top.offer(item, counts.merge(item, 1, Integer::sum));
+        }
+
+        List<Integer> expected = new ArrayList<>(counts.values());
+        expected.sort(Comparator.reverseOrder());
+        List<TopK.Entry<Integer>> found = top.top(10);
+        assertEquals(10, found.size());
+        for (int i = 0; i < found.size(); i++) {
+            assertEquals(expected.get(i).intValue(), found.get(i).getCount());
+            assertEquals(counts.get(found.get(i).getItem()).intValue(), found.get(i).getCount());
+            assertEquals(0, found.get(i).getError());
+        }
+        assertEquals(0, top.getMaxError());
+        assertEquals(3, top.top(3).size());
+    }
+
+    /**
+     * Test approximate mode bounds the true counts.
+     */
+    @Test
+    public void testApproximateModeBoundsTrueCounts() {
+        TopK<Integer> top = new TopK<>(TopK.Mode.APPROXIMATE, 50);
+        Map<Integer, Integer> counts = new HashMap<>();
+        Random random = new Random(9);
+        for (int i = 0; i < 50000; i++) {
+            int item = random.nextInt(4) == 0 ? random.nextInt(5) : 5 + random.nextInt(5000);
+            top.add(item);
+            counts.merge(item, 1, Integer::sum);
+        }
+
+        assertTrue(top.getMaxError() > 0);
+        for (TopK.Entry<Integer> entry : top.top(50)) {
+            int real = counts.get(entry.getItem());
+            assertTrue(entry.getCount() >= real);
+            assertTrue(entry.getCount() - entry.getError() <= real);
+            assertTrue(entry.getError() <= top.getMaxError());
+        }
+        Set<Integer> heavy = new HashSet<>();
+        for (TopK.Entry<Integer> entry : top.top(5)) heavy.add(entry.getItem());
+        assertEquals(Set.of(0, 1, 2, 3, 4), heavy);
+    }
+
+    /**
+     * Test approximate mode is exact until full.
+     */
+    @Test
+    public void testApproximateModeIsExactUntilFull() {
+        TopK<String> top = new TopK<>(TopK.Mode.APPROXIMATE, 3);
+        top.add("pop");
+        top.add("rock");
+        top.add("pop");
+        assertEquals(0, top.getMaxError());
+        assertEquals("pop", top.top(1).get(0).getItem());
+        assertEquals(2, top.top(1).get(0).getCount());
+
+        top.add("jazz");
+        top.add("fado");
+        assertEquals(Integer.valueOf(2), top.counts().get("fado"));
+        int errors = 0;
+        for (TopK.Entry<String> entry : top.top(3)) errors += entry.getError();
+        assertEquals(1, errors);
+        assertEquals(1, top.getMaxError());
+    }
+}